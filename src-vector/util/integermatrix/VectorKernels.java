@@ -0,0 +1,254 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util.integermatrix;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class implements the kernels of integer matrices with the vector API,
+ * processing as many numbers at once as the registers of the processor fit and
+ * the numbers that are left over one by one.
+ *
+ * This class needs the jdk.incubator.vector module, so it's kept out of the
+ * main source folder, built only with that module added, and must only be
+ * loaded through Kernels.getKernels, which checks that the module is present.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class VectorKernels implements Kernels {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Preferred shapes of the vectors of each width.
+	 */
+	private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Short> SHORT_SPECIES = ShortVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	@Override
+	public String getName() {
+		return "vector " + VectorKernels.INT_SPECIES.vectorBitSize() + " bits";
+	}
+
+	@Override
+	public void add(final byte[] data, final int value) {
+		final int bound = VectorKernels.BYTE_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.BYTE_SPECIES.length()) {
+			ByteVector.fromArray(VectorKernels.BYTE_SPECIES, data, i).add((byte) value).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void add(final short[] data, final int value) {
+		final int bound = VectorKernels.SHORT_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.SHORT_SPECIES.length()) {
+			ShortVector.fromArray(VectorKernels.SHORT_SPECIES, data, i).add((short) value).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void add(final int[] data, final int value) {
+		final int bound = VectorKernels.INT_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.INT_SPECIES.length()) {
+			IntVector.fromArray(VectorKernels.INT_SPECIES, data, i).add(value).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final byte[] data, final byte[] other, final int threshold, final int value) {
+		// Thresholds out of the range of the width select either every number or
+		// none of them
+		if (threshold < Byte.MIN_VALUE) {
+			return;
+		} else if (threshold >= Byte.MAX_VALUE) {
+			Arrays.fill(data, (byte) value);
+			return;
+		}
+		final int bound = VectorKernels.BYTE_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.BYTE_SPECIES.length()) {
+			final VectorMask<Byte> mask = ByteVector.fromArray(VectorKernels.BYTE_SPECIES, other, i)
+					.compare(VectorOperators.LE, (byte) threshold);
+			ByteVector.fromArray(VectorKernels.BYTE_SPECIES, data, i).blend((byte) value, mask).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = (byte) value;
+			}
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final short[] data, final short[] other, final int threshold, final int value) {
+		// Thresholds out of the range of the width select either every number or
+		// none of them
+		if (threshold < Short.MIN_VALUE) {
+			return;
+		} else if (threshold >= Short.MAX_VALUE) {
+			Arrays.fill(data, (short) value);
+			return;
+		}
+		final int bound = VectorKernels.SHORT_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.SHORT_SPECIES.length()) {
+			final VectorMask<Short> mask = ShortVector.fromArray(VectorKernels.SHORT_SPECIES, other, i)
+					.compare(VectorOperators.LE, (short) threshold);
+			ShortVector.fromArray(VectorKernels.SHORT_SPECIES, data, i).blend((short) value, mask).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = (short) value;
+			}
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final int[] data, final int[] other, final int threshold, final int value) {
+		final int bound = VectorKernels.INT_SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += VectorKernels.INT_SPECIES.length()) {
+			final VectorMask<Integer> mask = IntVector.fromArray(VectorKernels.INT_SPECIES, other, i)
+					.compare(VectorOperators.LE, threshold);
+			IntVector.fromArray(VectorKernels.INT_SPECIES, data, i).blend(value, mask).intoArray(data, i);
+		}
+		for (; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = value;
+			}
+		}
+	}
+
+	@Override
+	public int minimum(final byte[] data) {
+		final int bound = VectorKernels.BYTE_SPECIES.loopBound(data.length);
+		int minimum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.BYTE_SPECIES.length()) {
+			minimum = Math.min(minimum,
+					ByteVector.fromArray(VectorKernels.BYTE_SPECIES, data, i).reduceLanes(VectorOperators.MIN));
+		}
+		for (; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int minimum(final short[] data) {
+		final int bound = VectorKernels.SHORT_SPECIES.loopBound(data.length);
+		int minimum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.SHORT_SPECIES.length()) {
+			minimum = Math.min(minimum,
+					ShortVector.fromArray(VectorKernels.SHORT_SPECIES, data, i).reduceLanes(VectorOperators.MIN));
+		}
+		for (; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int minimum(final int[] data) {
+		final int bound = VectorKernels.INT_SPECIES.loopBound(data.length);
+		int minimum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.INT_SPECIES.length()) {
+			minimum = Math.min(minimum,
+					IntVector.fromArray(VectorKernels.INT_SPECIES, data, i).reduceLanes(VectorOperators.MIN));
+		}
+		for (; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int maximum(final byte[] data) {
+		final int bound = VectorKernels.BYTE_SPECIES.loopBound(data.length);
+		int maximum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.BYTE_SPECIES.length()) {
+			maximum = Math.max(maximum,
+					ByteVector.fromArray(VectorKernels.BYTE_SPECIES, data, i).reduceLanes(VectorOperators.MAX));
+		}
+		for (; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+	@Override
+	public int maximum(final short[] data) {
+		final int bound = VectorKernels.SHORT_SPECIES.loopBound(data.length);
+		int maximum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.SHORT_SPECIES.length()) {
+			maximum = Math.max(maximum,
+					ShortVector.fromArray(VectorKernels.SHORT_SPECIES, data, i).reduceLanes(VectorOperators.MAX));
+		}
+		for (; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+	@Override
+	public int maximum(final int[] data) {
+		final int bound = VectorKernels.INT_SPECIES.loopBound(data.length);
+		int maximum = data[0];
+		int i = 0;
+		for (; i < bound; i += VectorKernels.INT_SPECIES.length()) {
+			maximum = Math.max(maximum,
+					IntVector.fromArray(VectorKernels.INT_SPECIES, data, i).reduceLanes(VectorOperators.MAX));
+		}
+		for (; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+}
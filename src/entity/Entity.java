@@ -18,7 +18,11 @@
 
 package entity;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import api.RandomGenerator;
+import entity.world.Outbox;
+import entity.world.RandomStreams;
 import entity.world.World;
 
 /**
@@ -39,19 +43,24 @@ public abstract class Entity {
 	/**
 	 * Count of all instances of entities. Used for statistic keeping purposes.
 	 */
-	private static volatile long INSTANCE_COUNT = 0;
+	private static final AtomicLong INSTANCE_COUNT = new AtomicLong();
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
 	/**
-	 * Unique ID of this entity.
+	 * ID of this entity, unique within its world.
 	 */
 	private final long id;
 	/**
 	 * World this entity is part of.
 	 */
 	private final World world;
+	/**
+	 * Generator of the numbers this entity draws while ticking, created the first
+	 * time it's needed.
+	 */
+	private RandomGenerator simulationPRNG;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializers
@@ -60,8 +69,18 @@ public abstract class Entity {
 	 * Creates a new entity.
 	 */
 	public Entity(final World world) {
-		this.id = Entity.INSTANCE_COUNT;
-		++Entity.INSTANCE_COUNT;
+		// Ids are counted by world so that they don't depend on the entities of other
+		// worlds created before, and neither do the streams keyed by them
+		this(world, world == null ? 0L : world.newEntityId());
+	}
+
+	/**
+	 * Creates a new entity with an id reserved in its world with
+	 * {@link World#newEntityIds(int)}.
+	 */
+	protected Entity(final World world, final long id) {
+		this.id = id;
+		Entity.INSTANCE_COUNT.incrementAndGet();
 		this.world = world;
 	}
 
@@ -72,7 +91,7 @@ public abstract class Entity {
 	 * Get the total number of entities instanced.
 	 */
 	public static long getInstanceCount() {
-		return Entity.INSTANCE_COUNT;
+		return Entity.INSTANCE_COUNT.get();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -86,7 +105,7 @@ public abstract class Entity {
 	@Override
 	public boolean equals(final Object object) {
 		if (object instanceof Entity) {
-			return ((Entity) object).getId() == this.getId();
+			return (((Entity) object).getId() == this.getId()) && (((Entity) object).getWorld() == this.getWorld());
 		} else {
 			return false;
 		}
@@ -118,10 +137,45 @@ public abstract class Entity {
 		return this.getWorld().getPRNG();
 	}
 
+	/**
+	 * Creates a new generator at the start of the stream of the world this entity
+	 * is part of with the given purpose and the id of this entity. Unlike the PRNG
+	 * of the world, it can be used from any thread and its numbers don't depend on
+	 * the order in which entities draw theirs. The id of this entity is counted by
+	 * its world, so neither do they depend on the entities of other worlds.
+	 */
+	public RandomGenerator getPRNG(final RandomStreams.Purpose purpose) {
+		return this.getWorld().getPRNG(purpose, this.getId());
+	}
+
+	/**
+	 * Get the generator of the numbers this entity draws while ticking. Only this
+	 * entity draws from it, so the numbers it gets don't depend on other entities
+	 * or on the thread it ticks on.
+	 */
+	protected RandomGenerator getSimulationPRNG() {
+		if (this.simulationPRNG == null) {
+			this.simulationPRNG = this.getPRNG(RandomStreams.Purpose.SIMULATION);
+		}
+		return this.simulationPRNG;
+	}
+
 	/**
 	 * Causes the state of this entity to progress by a time unit.
 	 */
 	public void tick() {
 	}
 
+	/**
+	 * Causes the state of this entity to progress by a time unit in a phase whose
+	 * entities may tick concurrently. Other entities are read as the phases before
+	 * left them and changes to them are posted to the outbox instead of made. By
+	 * default this entity ticks as it would alone, so it must only change itself.
+	 *
+	 * @see Outbox
+	 */
+	public void tick(final Outbox outbox) {
+		this.tick();
+	}
+
 }
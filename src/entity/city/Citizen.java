@@ -21,27 +21,33 @@ package entity.city;
 import java.util.Comparator;
 
 import api.Json;
-import entity.Entity;
+import api.RandomGenerator;
+import entity.city.CitizenStore.Need;
 import entity.element.building.Building;
-import entity.world.World;
+import entity.world.Outbox;
 import exe.Industry;
 import exe.io.Externalized;
 import exe.io.Internationalized;
+import type.Ideology;
 import type.Ideology.BeliefSet;
+import type.KnowledgeField;
 import type.KnowledgeField.SkillSet;
 import type.Occupation;
 import type.Sickness;
 import util.idate.IDate;
 
 /**
- * This class represents a citizen.
+ * This class represents a citizen. Citizens are stored column by column in the
+ * citizen store of their world, and an instance of this class is only a view of
+ * one of them that can be created and dropped at will. Two views of the same
+ * citizen are equal.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
  * @version 0.1
  * @since 0.1
  *
  */
-public class Citizen extends Entity {
+public class Citizen {
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Class fields
@@ -90,84 +96,25 @@ public class Citizen extends Entity {
 	/**
 	 * Comparator that compares citizens by date of birth.
 	 */
-	public static final Comparator<Citizen> DATE_OF_BIRTH_COMPARATOR = (r1, r2) -> r1.birthDate.compareTo(r2.birthDate);
+	public static final Comparator<Citizen> DATE_OF_BIRTH_COMPARATOR = (r1, r2) -> Integer
+			.compare(r1.getBirthMonth(), r2.getBirthMonth());
 	/**
 	 * Comparator that compares citizens by age.
 	 */
-	public static final Comparator<Citizen> AGE_COMPARATOR = (r1, r2) -> r2.birthDate.compareTo(r1.birthDate);
+	public static final Comparator<Citizen> AGE_COMPARATOR = (r1, r2) -> Integer.compare(r2.getBirthMonth(),
+			r1.getBirthMonth());
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
 	/**
-	 * Identifier of this citizen's name in the arrays of names.
+	 * Store this citizen is kept in.
 	 */
-	private final int name;
+	private final CitizenStore store;
 	/**
-	 * Identifier of this citizen's surname in the array of surnames.
+	 * Index of this citizen in the columns of its store.
 	 */
-	private int surname;
-	/**
-	 * This citizen's biological sex.
-	 */
-	public Sex sex;
-	/**
-	 * Birth date of this citizen.
-	 */
-	public IDate birthDate;
-	/**
-	 * Death date of this citizen, null if it's still alive.
-	 */
-	public IDate deathDate;
-	/**
-	 * Number of sickness affecting the citizen (number of trailing places of the
-	 * sicknesses array that indicate active sicknesses).
-	 */
-	public int currentSicknessAmount;
-	/**
-	 * Sicknesses that have affected this citizen.
-	 */
-	public Sickness[] sicknesses;
-	/**
-	 * Family unit this citizen is a part of.
-	 */
-	public FamilyUnit familyUnit;
-	/**
-	 * Parents of this citizen. May be null.
-	 */
-	public Citizen mother, father;
-	/**
-	 * Spouse of this citizen.
-	 */
-	public Citizen spouse;
-	/**
-	 * Offspring of this citizen.
-	 */
-	public Citizen[] offspring;
-	/**
-	 * Building where this citizen works.
-	 */
-	public Building workplace;
-	/**
-	 * Occupation of this citizen.
-	 */
-	public Occupation occupation;
-	/**
-	 * Needs of citizens.
-	 */
-	public byte foodNeed, healthNeed, workNeed, housingNeed, entertainmentNeed, politicalNeed;
-	/**
-	 * Array of the value of ideologies this citizen has.
-	 */
-	public byte[] ideologies;
-	/**
-	 * Set of skills this citizen has.
-	 */
-	public SkillSet skills;
-	/**
-	 * Set of ideologies this citizen has.
-	 */
-	public BeliefSet beliefs;
+	private final int id;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Nested classes
@@ -203,60 +150,110 @@ public class Citizen extends Entity {
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializers
 
-	public Citizen(final World world, final FamilyUnit familyUnit, final Citizen mother, final Citizen father) {
-		super(world);
-		this.sex = this.getPRNG().pick(Sex.class.getEnumConstants());
-		this.birthDate = this.getWorld().getDate().clone();
-		this.deathDate = null;
-		this.currentSicknessAmount = 0;
-		this.sicknesses = new Sickness[0];
-		this.familyUnit = familyUnit;
-		this.mother = mother;
-		this.father = father;
-		this.spouse = null;
-		this.offspring = new Citizen[0];
-		this.workplace = null;
-		this.occupation = null;
-		// Pick a random name
-		this.name = this.getPRNG().generateUniformInteger(Integer.MAX_VALUE);
-		switch (this.sex) {
-		case FEMALE:
-			if (mother != null) {
-				// Female citizens inherit their mother's surname
-				this.surname = mother.surname;
-			} else {
-				// Pick a random surname
-				this.surname = this.getPRNG().generateUniformInteger(Integer.MAX_VALUE);
+	/**
+	 * Creates a view of the citizen with the given index in a store. Citizens are
+	 * added through {@link CitizenStore#add(FamilyUnit, Citizen, Citizen)}.
+	 */
+	Citizen(final CitizenStore store, final int id) {
+		this.store = store;
+		this.id = id;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Exposes citizens that spend the month in the same place to the sicknesses
+	 * the others have, each of them catching each sickness with its infectivity
+	 * as a percentage. Sicknesses are read as the last tick left them and the
+	 * infections are posted to the outbox, so a citizen infected this month
+	 * doesn't infect anyone else until the next one.
+	 *
+	 * @param citizens
+	 *                     Citizens in the same place. May contain nulls.
+	 * @param PRNG
+	 *                     Generator of the place, drawn from in the order of the
+	 *                     citizens.
+	 * @param outbox
+	 *                     Outbox the infections are posted to.
+	 */
+	public static void spreadSicknesses(final Citizen[] citizens, final RandomGenerator PRNG, final Outbox outbox) {
+		for (final Citizen carrier : citizens) {
+			if (carrier == null) {
+				continue;
 			}
-			break;
-		case MALE:
-			if (father != null) {
-				// Male citizens inherit their father's surname
-				this.surname = father.surname;
-			} else {
-				// Pick a random surname
-				this.surname = this.getPRNG().generateUniformInteger(Integer.MAX_VALUE);
+			// For all sicknesses affecting the carrier
+			for (final Sickness sickness : carrier.getCurrentSicknesses()) {
+				for (final Citizen citizen : citizens) {
+					if ((citizen != null) && !citizen.equals(carrier)
+							&& (PRNG.generateUniformInteger(100) < sickness.getInfectivity())) {
+						outbox.post(() -> citizen.infect(sickness));
+					}
+				}
 			}
-			break;
-		default:
-			break;
 		}
 	}
 
+	/**
+	 * Get the sicknesses whose bits are set in the given bits.
+	 */
+	private static Sickness[] getSicknesses(long bits) {
+		final Sickness[] sicknesses = new Sickness[Long.bitCount(bits)];
+		for (int index = 0; bits != 0L; ++index) {
+			sicknesses[index] = Sickness.getSickness(Long.numberOfTrailingZeros(bits));
+			bits &= bits - 1L;
+		}
+		return sicknesses;
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
+	@Override
+	public int hashCode() {
+		return this.id;
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		if (object instanceof Citizen) {
+			return (((Citizen) object).store == this.store) && (((Citizen) object).id == this.id);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getName() + "#" + this.getId();
+	}
+
+	/**
+	 * Get the index of this citizen in its store.
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * Get the store this citizen is kept in.
+	 */
+	public CitizenStore getStore() {
+		return this.store;
+	}
+
 	/**
 	 * Get the name of this citizen.
 	 */
 	public String getName() {
-		if (this.name < 0) {
+		final int name = this.store.names[this.id];
+		if (name < 0) {
 			return "?";
 		}
-		if (this.sex == Sex.FEMALE) {
-			return Citizen.FEMALE_NAMES[this.name % Citizen.FEMALE_NAMES.length];
+		if (this.getSex() == Sex.FEMALE) {
+			return Citizen.FEMALE_NAMES[name % Citizen.FEMALE_NAMES.length];
 		} else {
-			return Citizen.MALE_NAMES[this.name % Citizen.MALE_NAMES.length];
+			return Citizen.MALE_NAMES[name % Citizen.MALE_NAMES.length];
 		}
 	}
 
@@ -264,81 +261,298 @@ public class Citizen extends Entity {
 	 * Get the surname of this citizen.
 	 */
 	public String getSurname() {
-		if (this.surname < 0) {
+		final int surname = this.store.surnames[this.id];
+		if (surname < 0) {
 			return "?";
 		}
-		return Citizen.SURNAMES[this.surname % Citizen.SURNAMES.length];
+		return Citizen.SURNAMES[surname % Citizen.SURNAMES.length];
+	}
+
+	/**
+	 * Get the biological sex of this citizen.
+	 */
+	public Sex getSex() {
+		return Sex.values()[this.store.sexes[this.id]];
+	}
+
+	/**
+	 * Get the months since year 0 at which this citizen was born.
+	 */
+	public int getBirthMonth() {
+		return this.store.birthMonths[this.id];
+	}
+
+	/**
+	 * Get the birth date of this citizen.
+	 */
+	public IDate getBirthDate() {
+		return CitizenStore.toDate(this.store.birthMonths[this.id]);
+	}
+
+	/**
+	 * Get the death date of this citizen, null if it's still alive.
+	 */
+	public IDate getDeathDate() {
+		return this.isAlive() ? null : CitizenStore.toDate(this.store.deathMonths[this.id]);
+	}
+
+	public boolean isAlive() {
+		return this.store.deathMonths[this.id] == CitizenStore.ALIVE;
+	}
+
+	/**
+	 * Get the age in months of this citizen, at the current date or at its death.
+	 */
+	public int getAge() {
+		return this.store.getAge(this.id);
+	}
+
+	/**
+	 * Get the id of the family unit this citizen is a part of, or NONE.
+	 */
+	public long getFamilyUnitId() {
+		return this.store.familyUnits[this.id];
+	}
+
+	public void setFamilyUnit(final FamilyUnit familyUnit) {
+		this.store.familyUnits[this.id] = familyUnit == null ? CitizenStore.NONE : familyUnit.getId();
+	}
+
+	/**
+	 * Get the mother of this citizen. May be null.
+	 */
+	public Citizen getMother() {
+		return this.getRelative(this.store.mothers[this.id]);
+	}
+
+	/**
+	 * Get the father of this citizen. May be null.
+	 */
+	public Citizen getFather() {
+		return this.getRelative(this.store.fathers[this.id]);
+	}
+
+	/**
+	 * Get the spouse of this citizen. May be null.
+	 */
+	public Citizen getSpouse() {
+		return this.getRelative(this.store.spouses[this.id]);
+	}
+
+	public void setSpouse(final Citizen spouse) {
+		this.store.spouses[this.id] = spouse == null ? CitizenStore.NONE : spouse.id;
+	}
+
+	/**
+	 * Get the id of the building where this citizen works, or NONE.
+	 */
+	public long getWorkplaceId() {
+		return this.store.workplaces[this.id];
+	}
+
+	public void setWorkplace(final Building workplace) {
+		this.store.workplaces[this.id] = workplace == null ? CitizenStore.NONE : workplace.getId();
+	}
+
+	/**
+	 * Get the occupation of this citizen. May be null.
+	 */
+	public Occupation getOccupation() {
+		final int occupation = this.store.occupations[this.id];
+		return occupation == CitizenStore.NONE ? null : Occupation.getOccupation(occupation);
+	}
+
+	public void setOccupation(final Occupation occupation) {
+		this.store.occupations[this.id] = occupation == null ? CitizenStore.NONE : (short) occupation.getId();
+	}
+
+	/**
+	 * Get the level of a need of this citizen.
+	 */
+	public byte getNeed(final Need need) {
+		return this.store.needs[need.ordinal()][this.id];
+	}
+
+	/**
+	 * Set the level of a need of this citizen.
+	 */
+	public void setNeed(final Need need, final byte value) {
+		this.store.needs[need.ordinal()][this.id] = value;
+	}
+
+	/**
+	 * Get the level of the given knowledge field this citizen has.
+	 */
+	public byte getSkill(final KnowledgeField knowledgeField) {
+		return this.store.skills[this.getSkillIndex(knowledgeField)];
+	}
+
+	/**
+	 * Set the level of the given knowledge field this citizen has.
+	 */
+	public void setSkill(final KnowledgeField knowledgeField, final byte value) {
+		this.store.skills[this.getSkillIndex(knowledgeField)] = value;
+	}
+
+	/**
+	 * Add to the level of the given knowledge field this citizen has.
+	 */
+	public void addSkill(final KnowledgeField knowledgeField, final byte value) {
+		final int index = this.getSkillIndex(knowledgeField);
+		final int newValue = this.store.skills[index] + value;
+		this.store.skills[index] = (byte) Math.max(0, Math.min(newValue, SkillSet.SKILL_CAP));
+	}
+
+	/**
+	 * Checks whether the skills of this citizen satisfy the given skill set.
+	 */
+	public boolean satisfies(final SkillSet skillSet) {
+		for (final KnowledgeField knowledgeField : KnowledgeField.getAllKnowledgeFields()) {
+			if (this.getSkill(knowledgeField) < skillSet.getSkill(knowledgeField)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the level of the given ideology this citizen has.
+	 */
+	public byte getBelief(final Ideology ideology) {
+		return this.store.beliefs[this.getBeliefIndex(ideology)];
+	}
+
+	/**
+	 * Set the level of the given ideology this citizen has.
+	 */
+	public void setBelief(final Ideology ideology, final byte value) {
+		this.store.beliefs[this.getBeliefIndex(ideology)] = value;
+	}
+
+	/**
+	 * Add to the level of the given ideology this citizen has.
+	 */
+	public void addBelief(final Ideology ideology, final byte value) {
+		final int index = this.getBeliefIndex(ideology);
+		final int newValue = this.store.beliefs[index] + value;
+		this.store.beliefs[index] = (byte) Math.max(0, Math.min(newValue, BeliefSet.BELIEF_CAP));
+	}
+
+	/**
+	 * Get the ideology with the strongest belief level of this citizen.
+	 */
+	public Ideology getStrongestBelief() {
+		final int from = this.id * this.store.beliefCount;
+		int strongest = 0;
+		for (int belief = 1; belief < this.store.beliefCount; ++belief) {
+			if (this.store.beliefs[from + belief] > this.store.beliefs[from + strongest]) {
+				strongest = belief;
+			}
+		}
+		return Ideology.getIdeologies().get(strongest);
+	}
+
+	/**
+	 * Calculates from 0 to 100 (inclusive) how much this citizen agrees with the
+	 * citizen passed as a parameter.
+	 */
+	public int getOpinionOnCitizen(final Citizen citizen) {
+		final int beliefCount = this.store.beliefCount;
+		final int from = this.id * beliefCount;
+		final int otherFrom = citizen.id * beliefCount;
+		int totalAgreement = 0;
+		for (int belief = 0; belief < beliefCount; ++belief) {
+			totalAgreement += BeliefSet.BELIEF_CAP
+					- Math.abs(this.store.beliefs[from + belief] - citizen.store.beliefs[otherFrom + belief]);
+		}
+		return totalAgreement / beliefCount;
+	}
+
+	/**
+	 * Get the sicknesses that have affected this citizen, in the order of their
+	 * ids.
+	 */
+	public Sickness[] getSicknesses() {
+		return Citizen.getSicknesses(this.store.sicknessHistories[this.id]);
+	}
+
+	/**
+	 * Get the sicknesses affecting this citizen, in the order of their ids.
+	 */
+	public Sickness[] getCurrentSicknesses() {
+		return Citizen.getSicknesses(this.getCurrentSicknessBits());
+	}
+
+	/**
+	 * Get the number of sicknesses affecting this citizen.
+	 */
+	public int getCurrentSicknessAmount() {
+		return Long.bitCount(this.getCurrentSicknessBits());
 	}
 
 	/**
 	 * Kills this citizen.
 	 */
 	public void kill() {
+		this.store.deathMonths[this.id] = CitizenStore.toMonths(this.store.getWorld().getDate());
 		// TODO: If this citizen is working somewhere, fire them. Corpses can't have a
 		// job.
 	}
 
 	/**
 	 * Tries to infect this citizen with a certain sickness. If the citizen hasn't
-	 * already suffered through that sickness, it'll be added to the list of
-	 * sicknesses.
+	 * already suffered through that sickness, it'll be added to the sicknesses
+	 * affecting it. Infecting doesn't depend on the order citizens are infected
+	 * in.
 	 *
 	 * @param sickness
 	 *                     Sickness to infect this citizen with.
 	 */
 	public void infect(final Sickness sickness) {
-		int index = this.sicknesses.length;
-		while (--index >= 0) {
-			if (this.sicknesses[index] == sickness) {
-				return;
-			}
+		final long bit = 1L << sickness.getId();
+		if ((this.store.sicknessHistories[this.id] & bit) == 0L) {
+			this.store.sicknessHistories[this.id] |= bit;
+			this.store.caughtSicknesses[this.id] |= bit;
 		}
-		final Sickness[] newSicknesses = new Sickness[this.sicknesses.length + 1];
-		System.arraycopy(this.sicknesses, 0, newSicknesses, 0, this.sicknesses.length);
-		newSicknesses[this.sicknesses.length] = sickness;
-		this.sicknesses = newSicknesses;
-		++this.currentSicknessAmount;
 	}
 
 	/**
-	 * Cures this citizen of the first sickness it got that's still active.
+	 * Cures this citizen of the sickness affecting it with the lowest id.
 	 */
 	public void cure() {
-		if (this.currentSicknessAmount > 0) {
-			--this.currentSicknessAmount;
-		}
+		final long bit = Long.lowestOneBit(this.getCurrentSicknessBits());
+		this.store.activeSicknesses[this.id] &= ~bit;
+		this.store.caughtSicknesses[this.id] &= ~bit;
 	}
 
 	/**
-	 * Triggers all sicknesses to spread and damage this citizen.
+	 * Get the bits of the sicknesses affecting this citizen, whether it caught
+	 * them this month or before.
 	 */
-	public void triggerSicknesses() {
-		// For all diseases affecting this citizen
-		for (int sicknessIndex = this.sicknesses.length - 1; sicknessIndex >= (this.sicknesses.length
-				- this.currentSicknessAmount); --sicknessIndex) {
-			// One of the sicknesses currently affecting this citizen
-			final Sickness sickness = this.sicknesses[sicknessIndex];
-			/*
-			 * TODO: determine if the citizen dies on a chance based on the sickness'
-			 * lethality.
-			 */
-			// Sicknesses only last for a month. If a citizen is sick, the sickness is unset
-			// automatically before the tick ends.
-			this.cure();
-		}
+	private long getCurrentSicknessBits() {
+		return this.store.activeSicknesses[this.id] | this.store.caughtSicknesses[this.id];
 	}
 
 	/**
-	 * Calculates from 0 to 100 (inclusive) how much this citizen agrees with the
-	 * citizen passed as a parameter.
+	 * Get a view of the citizen with the given index in the store of this one, or
+	 * null if the index is NONE.
 	 */
-	public int getOpinionOnCitizen(final Citizen citizen) {
-		return this.beliefs.affinityWith(citizen.beliefs);
+	private Citizen getRelative(final int citizen) {
+		return citizen == CitizenStore.NONE ? null : new Citizen(this.store, citizen);
 	}
 
-	@Override
-	public void tick() {
-		super.tick();
+	/**
+	 * Get the index of a skill of this citizen in the matrix of skills.
+	 */
+	private int getSkillIndex(final KnowledgeField knowledgeField) {
+		return (this.id * this.store.skillCount) + (int) knowledgeField.getId();
+	}
+
+	/**
+	 * Get the index of a belief of this citizen in the matrix of beliefs.
+	 */
+	private int getBeliefIndex(final Ideology ideology) {
+		return (this.id * this.store.beliefCount) + (int) ideology.getId();
 	}
 
 }
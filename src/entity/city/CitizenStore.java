@@ -0,0 +1,399 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package entity.city;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+import api.RandomGenerator;
+import entity.Entity;
+import entity.city.Citizen.Sex;
+import entity.world.RandomStreams;
+import entity.world.TickScheduler;
+import entity.world.World;
+import type.Ideology;
+import type.KnowledgeField;
+import type.Sickness;
+import util.RangeTask;
+import util.idate.IDate;
+
+/**
+ * This class stores every citizen of a world column by column, each column
+ * being an array of primitives with an element per citizen. Citizens are
+ * identified by their index in the columns, given in the order they're added
+ * and never reused, and they're handled through lightweight views that keep
+ * only that index. A citizen takes some tens of bytes instead of the hundreds
+ * it would take as an object of its own, and passes over a column for every
+ * citizen, such as the needs or the ages, read memory in order.
+ *
+ * Skills and beliefs are kept in matrices with a row per citizen, and
+ * sicknesses as a bit per sickness, so there can be at most 64 sicknesses.
+ *
+ * The store ticks as a single entity of the demographics phase, splitting its
+ * citizens in batches that run on the pool of the scheduler when the phase is
+ * concurrent. A citizen only changes itself while ticking.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class CitizenStore extends Entity implements Iterable<Citizen> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Number of citizens a new store has room for.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+	/**
+	 * Number of citizens ticked by a batch.
+	 */
+	private static final int BATCH_SIZE = 4096;
+	/**
+	 * Value of the columns of citizens, occupations, workplaces and family units
+	 * of a citizen without one.
+	 */
+	public static final int NONE = -1;
+	/**
+	 * Value of the column of months of death of a citizen still alive.
+	 */
+	public static final int ALIVE = -1;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Number of citizens in this store.
+	 */
+	private int size;
+	/**
+	 * Number of skills and beliefs of every citizen.
+	 */
+	final int skillCount, beliefCount;
+	/**
+	 * Ordinal of the sex of every citizen.
+	 */
+	byte[] sexes;
+	/**
+	 * Months since year 0 at which every citizen was born and died, or ALIVE.
+	 */
+	int[] birthMonths, deathMonths;
+	/**
+	 * Identifiers of the name and surname of every citizen in the arrays of
+	 * names.
+	 */
+	int[] names, surnames;
+	/**
+	 * Index of the mother, father and spouse of every citizen, or NONE.
+	 */
+	int[] mothers, fathers, spouses;
+	/**
+	 * Id of the occupation of every citizen, or NONE.
+	 */
+	short[] occupations;
+	/**
+	 * Id of the building where every citizen works and of its family unit, or
+	 * NONE.
+	 */
+	long[] workplaces, familyUnits;
+	/**
+	 * Bits of the sicknesses that have affected every citizen, of those affecting
+	 * it this month and of those caught this month, which affect it the next one,
+	 * by id.
+	 */
+	long[] sicknessHistories, activeSicknesses, caughtSicknesses;
+	/**
+	 * Level of every need of every citizen, a column per need.
+	 */
+	final byte[][] needs = new byte[Need.values().length][];
+	/**
+	 * Level of every skill of every citizen, a row of skillCount per citizen.
+	 */
+	byte[] skills;
+	/**
+	 * Level of every belief of every citizen, a row of beliefCount per citizen.
+	 */
+	byte[] beliefs;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Need of a citizen.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Need {
+		FOOD, HEALTH, WORK, HOUSING, ENTERTAINMENT, POLITICAL
+	};
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates the empty store of the citizens of a world and registers it to be
+	 * ticked with the demographics.
+	 *
+	 * @throws IllegalStateException
+	 *                                   If there are more sicknesses than bits in a
+	 *                                   long.
+	 */
+	public CitizenStore(final World world) {
+		super(world);
+		if (Sickness.getAllSicknesses().size() > Long.SIZE) {
+			throw new IllegalStateException("There can't be more than " + Long.SIZE + " sicknesses.");
+		}
+		this.skillCount = KnowledgeField.getAllKnowledgeFields().size();
+		this.beliefCount = Ideology.getIdeologies().size();
+		this.resize(CitizenStore.INITIAL_CAPACITY);
+		world.getTickScheduler().register(TickScheduler.Phase.DEMOGRAPHICS, this);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the months since year 0 of a date.
+	 */
+	public static int toMonths(final IDate date) {
+		return (date.getYear() * 12) + date.getMonth();
+	}
+
+	/**
+	 * Get the date a number of months since year 0 falls on.
+	 */
+	public static IDate toDate(final int months) {
+		return new IDate((short) (months / 12), (byte) (months % 12));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of citizens in this store, dead ones included.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Get the number of citizens this store has room for without growing.
+	 */
+	public int getCapacity() {
+		return this.sexes.length;
+	}
+
+	/**
+	 * Makes room for at least the given number of citizens.
+	 */
+	public void ensureCapacity(final int capacity) {
+		if (capacity > this.getCapacity()) {
+			this.resize(Math.max(capacity, this.getCapacity() * 2));
+		}
+	}
+
+	/**
+	 * Get the number of bytes the columns of this store take.
+	 */
+	public long getMemoryUsage() {
+		final long capacity = this.getCapacity();
+		final long bytesPerCitizen = Byte.BYTES + (7 * Integer.BYTES) + Short.BYTES + (5 * Long.BYTES)
+				+ this.needs.length + this.skillCount + this.beliefCount;
+		return capacity * bytesPerCitizen;
+	}
+
+	/**
+	 * Get the column of a need, to be read or written in bulk. Only the first
+	 * getSize() elements belong to citizens, and the column is replaced when the
+	 * store grows.
+	 */
+	public byte[] getNeeds(final Need need) {
+		return this.needs[need.ordinal()];
+	}
+
+	/**
+	 * Get the age in months of a citizen, at the current date or at its death.
+	 */
+	public int getAge(final int citizen) {
+		final int endMonth = this.deathMonths[citizen] == CitizenStore.ALIVE
+				? CitizenStore.toMonths(this.getWorld().getDate())
+				: this.deathMonths[citizen];
+		return endMonth - this.birthMonths[citizen];
+	}
+
+	/**
+	 * Get a view of a citizen.
+	 */
+	public Citizen get(final int citizen) {
+		if ((citizen < 0) || (citizen >= this.size)) {
+			throw new IndexOutOfBoundsException(citizen);
+		}
+		return new Citizen(this, citizen);
+	}
+
+	/**
+	 * Adds a citizen born at the current date, with a random sex and name and the
+	 * surname of its mother if female or its father if male.
+	 *
+	 * @param familyUnit
+	 *                       Family unit the citizen is a part of. May be null.
+	 * @param mother
+	 *                       Mother of the citizen. May be null.
+	 * @param father
+	 *                       Father of the citizen. May be null.
+	 * @return A view of the citizen.
+	 */
+	public Citizen add(final FamilyUnit familyUnit, final Citizen mother, final Citizen father) {
+		this.ensureCapacity(this.size + 1);
+		final int citizen = this.size++;
+		final RandomGenerator PRNG = this.getWorld().getPRNG(RandomStreams.Purpose.CITIZEN, citizen);
+		final Sex sex = PRNG.pick(Sex.class.getEnumConstants());
+		this.sexes[citizen] = (byte) sex.ordinal();
+		this.birthMonths[citizen] = CitizenStore.toMonths(this.getWorld().getDate());
+		this.deathMonths[citizen] = CitizenStore.ALIVE;
+		this.familyUnits[citizen] = familyUnit == null ? CitizenStore.NONE : familyUnit.getId();
+		this.mothers[citizen] = mother == null ? CitizenStore.NONE : mother.getId();
+		this.fathers[citizen] = father == null ? CitizenStore.NONE : father.getId();
+		this.spouses[citizen] = CitizenStore.NONE;
+		this.workplaces[citizen] = CitizenStore.NONE;
+		this.occupations[citizen] = CitizenStore.NONE;
+		// Pick a random name
+		this.names[citizen] = PRNG.generateUniformInteger(Integer.MAX_VALUE);
+		if ((sex == Sex.FEMALE) && (mother != null)) {
+			// Female citizens inherit their mother's surname
+			this.surnames[citizen] = this.surnames[mother.getId()];
+		} else if ((sex == Sex.MALE) && (father != null)) {
+			// Male citizens inherit their father's surname
+			this.surnames[citizen] = this.surnames[father.getId()];
+		} else {
+			// Pick a random surname
+			this.surnames[citizen] = PRNG.generateUniformInteger(Integer.MAX_VALUE);
+		}
+		return new Citizen(this, citizen);
+	}
+
+	@Override
+	public Iterator<Citizen> iterator() {
+		return new Iterator<Citizen>() {
+
+			/**
+			 * Index of the next citizen.
+			 */
+			private int citizen = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.citizen < CitizenStore.this.size;
+			}
+
+			@Override
+			public Citizen next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return new Citizen(CitizenStore.this, this.citizen++);
+			}
+
+		};
+	}
+
+	/**
+	 * Makes the sicknesses of every citizen run their course, batch by batch.
+	 */
+	@Override
+	public void tick() {
+		final TickScheduler tickScheduler = this.getWorld().getTickScheduler();
+		final ForkJoinPool pool = tickScheduler.isConcurrent(TickScheduler.Phase.DEMOGRAPHICS)
+				? tickScheduler.getPool()
+				: null;
+		final int size = this.size;
+		final int batchCount = ((size + CitizenStore.BATCH_SIZE) - 1) / CitizenStore.BATCH_SIZE;
+		RangeTask.run(pool, batch -> {
+			final int from = batch * CitizenStore.BATCH_SIZE;
+			final int to = Math.min(from + CitizenStore.BATCH_SIZE, size);
+			this.tick(from, to);
+		}, batchCount, 1);
+	}
+
+	/**
+	 * Ticks the citizens in a range of indices.
+	 */
+	private void tick(final int from, final int to) {
+		for (int citizen = from; citizen < to; ++citizen) {
+			// Sicknesses only last for a month, the one after they're caught
+			this.activeSicknesses[citizen] = this.caughtSicknesses[citizen];
+			this.caughtSicknesses[citizen] = 0L;
+		}
+	}
+
+	/**
+	 * Resizes every column to the given number of citizens.
+	 */
+	private void resize(final int capacity) {
+		if (this.sexes == null) {
+			this.sexes = new byte[capacity];
+			this.birthMonths = new int[capacity];
+			this.deathMonths = new int[capacity];
+			this.names = new int[capacity];
+			this.surnames = new int[capacity];
+			this.mothers = new int[capacity];
+			this.fathers = new int[capacity];
+			this.spouses = new int[capacity];
+			this.occupations = new short[capacity];
+			this.workplaces = new long[capacity];
+			this.familyUnits = new long[capacity];
+			this.sicknessHistories = new long[capacity];
+			this.activeSicknesses = new long[capacity];
+			this.caughtSicknesses = new long[capacity];
+			for (int need = 0; need < this.needs.length; ++need) {
+				this.needs[need] = new byte[capacity];
+			}
+			this.skills = new byte[capacity * this.skillCount];
+			this.beliefs = new byte[capacity * this.beliefCount];
+		} else {
+			this.sexes = Arrays.copyOf(this.sexes, capacity);
+			this.birthMonths = Arrays.copyOf(this.birthMonths, capacity);
+			this.deathMonths = Arrays.copyOf(this.deathMonths, capacity);
+			this.names = Arrays.copyOf(this.names, capacity);
+			this.surnames = Arrays.copyOf(this.surnames, capacity);
+			this.mothers = Arrays.copyOf(this.mothers, capacity);
+			this.fathers = Arrays.copyOf(this.fathers, capacity);
+			this.spouses = Arrays.copyOf(this.spouses, capacity);
+			this.occupations = Arrays.copyOf(this.occupations, capacity);
+			this.workplaces = Arrays.copyOf(this.workplaces, capacity);
+			this.familyUnits = Arrays.copyOf(this.familyUnits, capacity);
+			this.sicknessHistories = Arrays.copyOf(this.sicknessHistories, capacity);
+			this.activeSicknesses = Arrays.copyOf(this.activeSicknesses, capacity);
+			this.caughtSicknesses = Arrays.copyOf(this.caughtSicknesses, capacity);
+			for (int need = 0; need < this.needs.length; ++need) {
+				this.needs[need] = Arrays.copyOf(this.needs[need], capacity);
+			}
+			this.skills = Arrays.copyOf(this.skills, capacity * this.skillCount);
+			this.beliefs = Arrays.copyOf(this.beliefs, capacity * this.beliefCount);
+		}
+	}
+
+}
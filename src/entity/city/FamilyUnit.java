@@ -21,6 +21,7 @@ package entity.city;
 import entity.Entity;
 import entity.element.building.Building;
 import entity.element.equipment.Equipment;
+import entity.world.TickScheduler;
 import entity.world.World;
 
 /**
@@ -85,6 +86,7 @@ public class FamilyUnit extends Entity {
 		this.homemaker = null;
 		this.possessions = new Equipment[0];
 		this.wealth = 0;
+		world.getTickScheduler().register(TickScheduler.Phase.HOUSEHOLDS, this);
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -97,6 +99,12 @@ public class FamilyUnit extends Entity {
 	@Override
 	public void tick() {
 		super.tick();
+		/*
+		 * Family units tick concurrently, so only the family unit itself may change
+		 * here. Marrying into another family unit, taking a job, moving or having a
+		 * child change other entities and must be posted to the outbox from
+		 * tick(Outbox) instead, reading those entities as the last tick left them.
+		 */
 		/*
 		 * TODO: order of actions
 		 *
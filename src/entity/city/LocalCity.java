@@ -54,9 +54,13 @@ public class LocalCity extends City {
 	 */
 	protected ArrayList<Policy> policies;
 	/**
-	 * Population of this city.
+	 * Ids of the citizens of this city in the citizen store of its world.
 	 */
-	protected ArrayList<Citizen> population;
+	protected int[] population;
+	/**
+	 * Number of citizens of this city.
+	 */
+	protected int populationSize;
 	/*
 	 * TODO: Cities can issue and sell bonds. Cities need to pay interests for each
 	 * bond sold until it is bought back. Other cities may decide to buy bonds
@@ -74,30 +78,55 @@ public class LocalCity extends City {
 
 	public LocalCity(final World world, final String name, final Country country) {
 		super(world, name, country);
-		// This list is predicted to grow a lot, so we start it off with a lot of space.
-		this.population = new ArrayList<Citizen>(10000);
+		// This array is predicted to grow a lot, so we start it off with a lot of space.
+		this.population = new int[10000];
+		this.populationSize = 0;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
+	/**
+	 * Adds a citizen to the population of this city.
+	 */
+	public void addCitizen(final Citizen citizen) {
+		if (this.populationSize == this.population.length) {
+			this.population = Arrays.copyOf(this.population, this.population.length * 2);
+		}
+		this.population[this.populationSize++] = citizen.getId();
+	}
+
+	/**
+	 * Get the number of citizens of this city.
+	 */
+	public int getPopulationSize() {
+		return this.populationSize;
+	}
+
+	/**
+	 * Get a view of the citizen of this city with the given index.
+	 */
+	public Citizen getCitizen(final int index) {
+		return this.getWorld().getCitizenStore().get(this.population[index]);
+	}
+
 	/**
 	 * Calculates the statistics of this city.
 	 */
 	public void statistics() {
-		final int populationSize = this.population.size();
+		final int populationSize = this.populationSize;
 		final double popuationSizeFloat = (double) populationSize;
+		final CitizenStore citizenStore = this.getWorld().getCitizenStore();
 		// Declare distributions of parameters
 		final int[] ageDistribution = new int[populationSize];
 		final int[] wealthDistribution = new int[populationSize];
 		// Populate the distributions
 		for (int i = 0; i < populationSize; ++i) {
-			final Citizen citizen = this.population.get(i);
+			ageDistribution[i] = citizenStore.getAge(this.population[i]);
 			/*
-			 * TODO: Add citizen parameters to the arrays.
+			 * TODO: Add the wealth of the family unit of the citizen.
 			 *
-			 * ageDistribution[i] = citizen.getAge(); wealthDistribution[i] =
-			 * citizen.getWealth();
+			 * wealthDistribution[i] = citizen.getWealth();
 			 */
 		}
 		// Sort the distributions
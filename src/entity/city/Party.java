@@ -20,6 +20,7 @@ package entity.city;
 
 import api.Json;
 import entity.Entity;
+import entity.world.RandomStreams;
 import entity.world.World;
 import exe.Industry;
 import exe.io.Internationalized;
@@ -75,7 +76,7 @@ public class Party extends Entity {
 		this.city = city;
 		this.ideology = ideology;
 		this.leader = leader;
-		this.name = this.getPRNG().generateUniformInteger(Integer.MAX_VALUE);
+		this.name = this.getPRNG(RandomStreams.Purpose.PARTY).generateUniformInteger(Integer.MAX_VALUE);
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -522,11 +522,6 @@ public class AircraftFactory extends Building implements Tertiary {
 		return citizens;
 	}
 
-	@Override
-	public void spreadSicknesses() {
-		// TODO
-	}
-
 	@Override
 	public void tick() {
 		super.tick();
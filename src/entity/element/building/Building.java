@@ -24,6 +24,7 @@ import java.util.List;
 import entity.city.Citizen;
 import entity.city.City;
 import entity.element.Element;
+import entity.world.Outbox;
 import entity.world.Terrain;
 import entity.world.World;
 import entity.world.Terrain.Orientation;
@@ -227,13 +228,14 @@ public abstract class Building extends Element {
 	public abstract Citizen[] getCitizens();
 
 	/**
-	 * Spreads the sicknesses of every being in this building.
+	 * Spreads the sicknesses of the citizens in this building among them, posting
+	 * the infections to the outbox, and then ticks as it would alone. Buildings
+	 * tick concurrently, so they must only change themselves otherwise.
 	 */
-	public abstract void spreadSicknesses();
-
 	@Override
-	public void tick() {
-		this.spreadSicknesses();
+	public void tick(final Outbox outbox) {
+		Citizen.spreadSicknesses(this.getCitizens(), this.getSimulationPRNG(), outbox);
+		this.tick();
 	}
 
 }
@@ -736,11 +736,6 @@ public class Farm extends Building implements Primary {
 		return citizens;
 	}
 
-	@Override
-	public void spreadSicknesses() {
-		// TODO
-	}
-
 	@Override
 	public void tick() {
 		/*
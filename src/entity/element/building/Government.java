@@ -448,11 +448,6 @@ public class Government extends Building implements Political {
 		return citizens;
 	}
 
-	@Override
-	public void spreadSicknesses() {
-		// TODO
-	}
-
 	@Override
 	public void tick() {
 		super.tick();
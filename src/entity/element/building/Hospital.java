@@ -453,11 +453,6 @@ public class Hospital extends Building implements PublicHealth {
 		return citizens;
 	}
 
-	@Override
-	public void spreadSicknesses() {
-		// TODO
-	}
-
 	@Override
 	public void tick() {
 		/*
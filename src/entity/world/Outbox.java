@@ -0,0 +1,81 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package entity.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the changes the entities of a batch make to other entities
+ * while ticking. Entities of a phase that tick concurrently read other entities
+ * as the phases before left them and post the changes they want to make to
+ * them here instead of making them. Once every entity of the phase has ticked,
+ * the outboxes of its batches are flushed one after the other in the order of
+ * the batches, so changes are always made in the order the entities were
+ * registered, however many threads ticked them.
+ *
+ * Changes that conflict, such as two entities taking from the same source, are
+ * settled by that order or by merge rules of the entity changed that don't
+ * depend on order at all. New entities are created by posted changes too, so
+ * their ids don't depend on threads either.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class Outbox {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Changes posted, in the order they were posted.
+	 */
+	private final List<Runnable> changes = new ArrayList<>();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Posts a change to make once every entity of the phase has ticked.
+	 */
+	public void post(final Runnable change) {
+		this.changes.add(change);
+	}
+
+	/**
+	 * Get the number of changes posted and not made yet.
+	 */
+	public int size() {
+		return this.changes.size();
+	}
+
+	/**
+	 * Makes the changes posted in the order they were posted and empties this
+	 * outbox.
+	 */
+	void flush() {
+		for (int index = 0; index < this.changes.size(); ++index) {
+			this.changes.get(index).run();
+		}
+		this.changes.clear();
+	}
+
+}
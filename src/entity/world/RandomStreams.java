@@ -0,0 +1,156 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package entity.world;
+
+import api.RandomGenerator;
+import generators.Xorshift64StarGenerator;
+
+/**
+ * This class derives independent streams of pseudo-random numbers from the seed
+ * of a world, keyed by what they're used for and by the id of whatever uses
+ * them. A stream only depends on the seed and its key, never on how many
+ * numbers other streams have drawn or on which thread draws them, so work can
+ * be split among threads and still give the same result.
+ *
+ * Ids have to be local to the world, such as the ids of its entities or the
+ * indices of its plates. An id counted across every world of the game would
+ * depend on the worlds created before, and so would the streams keyed by it.
+ *
+ * Seeds are split the same way SplittableRandom splits its own: the key is
+ * mixed into the seed of the world with the finalizer of SplitMix64, which
+ * spreads every bit of the input over the whole output.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class RandomStreams {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Odd constant with no structure, the fractional part of the golden ratio.
+	 * Added between mixes so that consecutive keys are far apart.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Seed every stream of this factory is derived from.
+	 */
+	private final long seed;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * What a stream is used for. Streams of different purposes are independent
+	 * even if their ids are the same.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Purpose {
+
+		/**
+		 * Placement of the terrain. Its id is 0.
+		 */
+		TERRAIN,
+		/**
+		 * Generation of a tectonic plate. Its id is the index of the plate in
+		 * row-major order.
+		 */
+		TECTONIC_PLATE,
+		/**
+		 * Creation of a citizen. Its id is the id of the citizen in its world.
+		 */
+		CITIZEN,
+		/**
+		 * Creation of a party. Its id is the id of the party in its world.
+		 */
+		PARTY,
+		/**
+		 * Simulation of an entity. Its id is the id of the entity in its world.
+		 */
+		SIMULATION,
+		/**
+		 * Generation of the soil and minerals of a tectonic plate. Its id is the index
+		 * of the plate in row-major order.
+		 */
+		SOIL;
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates the factory of the streams of a world with the given seed.
+	 */
+	public RandomStreams(final byte[] seed) {
+		long mixedSeed = 0L;
+		for (final byte value : seed) {
+			mixedSeed = RandomStreams.mix(mixedSeed + RandomStreams.GOLDEN_GAMMA + (value & 0xFF));
+		}
+		this.seed = mixedSeed;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Finalizer of SplitMix64.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the seed of the stream with the given purpose and id.
+	 */
+	public long getSeed(final Purpose purpose, final long id) {
+		final long purposeSeed = RandomStreams.mix(this.seed + (RandomStreams.GOLDEN_GAMMA * (purpose.ordinal() + 1)));
+		return RandomStreams.mix(purposeSeed + (RandomStreams.GOLDEN_GAMMA * (id + 1)));
+	}
+
+	/**
+	 * Creates a new generator at the start of the stream with the given purpose
+	 * and id. Every call returns a new generator, so each task should keep its own.
+	 */
+	public RandomGenerator get(final Purpose purpose, final long id) {
+		final long streamSeed = this.getSeed(purpose, id);
+		final byte[] bytes = new byte[Long.BYTES];
+		for (int index = 0; index < Long.BYTES; ++index) {
+			bytes[index] = (byte) (streamSeed >>> (8 * (Long.BYTES - 1 - index)));
+		}
+		return new Xorshift64StarGenerator(bytes);
+	}
+
+}
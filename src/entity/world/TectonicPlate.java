@@ -95,6 +95,11 @@ public class TectonicPlate extends Entity {
 	 * of this plate.
 	 */
 	private final IntegerMatrix pollution;
+	/**
+	 * Grid of integers representing the watersheds the different tiles of this
+	 * plate drain into, 0 being the sea.
+	 */
+	private final IntegerMatrix watersheds;
 	/**
 	 * Grid of objects representing the soil types in this plate.
 	 */
@@ -119,6 +124,18 @@ public class TectonicPlate extends Entity {
 	////////////////////////////////////////////////////////////////////////////////
 	// Nested classes
 
+	/**
+	 * Represents one of the grids of integers of a tectonic plate.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Layer {
+		MAGMA, LAND, WATER, POLLUTION, WATERSHED
+	}
+
 	/**
 	 * Represents a single immutable tile. This class is used to obtain and
 	 * manipulate data about a particular tile of a tectonic plate. Tiles are
@@ -165,6 +182,17 @@ public class TectonicPlate extends Entity {
 				0d,
 				// December (spring in the south, fall in the north)
 				+(1d / 2d) };
+		/**
+		 * Range of the temperatures and the humidities with a soil color of their
+		 * own.
+		 */
+		private static final int MINIMUM_SOIL_TEMPERATURE = -32, MAXIMUM_SOIL_TEMPERATURE = 32;
+		private static final int MINIMUM_SOIL_HUMIDITY = -48, MAXIMUM_SOIL_HUMIDITY = 0;
+		/**
+		 * Soil color of every temperature and humidity in their ranges, indexed by
+		 * temperature first and humidity second.
+		 */
+		private static final int[] SOIL_COLORS = Tile.computeSoilColors();
 
 		////////////////////////////////////////////////////////////////////////////////
 		// Instance fields
@@ -191,6 +219,49 @@ public class TectonicPlate extends Entity {
 			this.y = y;
 		}
 
+		////////////////////////////////////////////////////////////////////////////////
+		// Class methods
+
+		/**
+		 * Computes the soil color of every temperature and humidity in their ranges.
+		 *
+		 * @see #getSoilColor()
+		 */
+		private static int[] computeSoilColors() {
+			final int humidityCount = (Tile.MAXIMUM_SOIL_HUMIDITY - Tile.MINIMUM_SOIL_HUMIDITY) + 1;
+			final int[] soilColors = new int[((Tile.MAXIMUM_SOIL_TEMPERATURE - Tile.MINIMUM_SOIL_TEMPERATURE) + 1)
+					* humidityCount];
+			for (int temperature = Tile.MINIMUM_SOIL_TEMPERATURE; temperature <= Tile.MAXIMUM_SOIL_TEMPERATURE;
+					++temperature) {
+				for (int humidity = Tile.MINIMUM_SOIL_HUMIDITY; humidity <= Tile.MAXIMUM_SOIL_HUMIDITY; ++humidity) {
+					int deltaTemperature;
+					int deltaHumidity;
+					if (temperature <= -32) {
+						deltaTemperature = 0;
+					} else if (temperature >= 32) {
+						deltaTemperature = 16;
+					} else {
+						deltaTemperature = (temperature + 32) / 4;
+					}
+					if (humidity <= -48) {
+						deltaHumidity = 96;
+					} else if (humidity >= 0) {
+						deltaHumidity = 0;
+					} else {
+						deltaHumidity = -2 * humidity;
+					}
+					final int baseColor = 112 + deltaHumidity;
+					final int red = baseColor + deltaTemperature;
+					final int green = baseColor;
+					final int blue = baseColor - deltaTemperature;
+					soilColors[((temperature - Tile.MINIMUM_SOIL_TEMPERATURE) * humidityCount)
+							+ (humidity - Tile.MINIMUM_SOIL_HUMIDITY)] = (0xFF000000) | (red << 16) | (green << 8)
+									| (blue);
+				}
+			}
+			return soilColors;
+		}
+
 		////////////////////////////////////////////////////////////////////////////////
 		// Instance methods
 
@@ -429,42 +500,7 @@ public class TectonicPlate extends Entity {
 		 * axial tilt.
 		 */
 		private int getTemperature(final double deltaAngle) {
-			final int magma = this.getMagma();
-			final int land = this.getLand();
-			final int water = this.getWater();
-			if ((magma >= land) && (magma >= water)) {
-				return 1000;
-			} else {
-				/*
-				 * Average angle with which the sunlight hits a latitude y, between -1 and 1,
-				 * with -1 being the angle at the most southern point and 1 being the angle at
-				 * the most northern point. In this value, we distinguish between southern and
-				 * northern because the axial tilt causes a variation in angle whose sign is
-				 * dependent on the hemisphere.
-				 */
-				final double averageSunlightAngle = (double) this.getCoordinateY()
-						/ (double) this.tectonicPlate.terrain.getTotalMaxY();
-				// Current angle with which sunlight hits
-				final double currentSunlightAngle = averageSunlightAngle + deltaAngle;
-				// Absolute inclination of the sun rays
-				double absoluteSunlightAngle = Math.abs(currentSunlightAngle);
-				/*
-				 * If it goes over the pole, do two minus the angle (if it goes over 1.0 by
-				 * adding, it continues going under 1.0 by removing).
-				 */
-				if (absoluteSunlightAngle > 1.0d) {
-					absoluteSunlightAngle = 2.0d - absoluteSunlightAngle;
-				}
-				// Variation incurred in temperature by latitude
-				final double deltaTemperatureLatitude = absoluteSunlightAngle
-						* (double) this.tectonicPlate.terrain.temperatureDifference;
-				// Variation incurred in temperature by height
-				final double deltaTemperatureHeight = (double) IMath.maximum(land, water)
-						* this.tectonicPlate.terrain.heightCoolingFactor;
-				// Total integer variation incurred in temperature
-				final int variation = (int) (deltaTemperatureLatitude + deltaTemperatureHeight);
-				return this.tectonicPlate.terrain.baseTemperature + variation;
-			}
+			return this.tectonicPlate.getTemperature(this.x, this.y, deltaAngle);
 		}
 
 		/**
@@ -479,10 +515,7 @@ public class TectonicPlate extends Entity {
 		 * seasonal changes.
 		 */
 		public int getCurrentTemperature() {
-			// Seasonal change in angle
-			final double deltaAngle = Tile.ANGLE_DELTAS[this.tectonicPlate.getWorld().getDate().getMonth()]
-					* this.tectonicPlate.terrain.axialTilt;
-			return this.getTemperature(deltaAngle);
+			return this.tectonicPlate.getCurrentTemperature(this.x, this.y);
 		}
 
 		/**
@@ -584,6 +617,14 @@ public class TectonicPlate extends Entity {
 			this.tectonicPlate.pollution.add(this.x, this.y, i);
 		}
 
+		/**
+		 * Get the watershed this tile drains into, which is 0 for the sea. Tiles of
+		 * the same watershed share the water that flows through them.
+		 */
+		public int getWatershed() {
+			return this.tectonicPlate.watersheds.get(this.x, this.y);
+		}
+
 		/**
 		 * Get the current base soil color of this tile as an ARBG integer.
 		 *
@@ -599,29 +640,13 @@ public class TectonicPlate extends Entity {
 		 *
 		 */
 		public int getSoilColor() {
-			final int temperature = this.getCurrentTemperature();
-			final int humidity = this.getHumidity();
-			int deltaTemperature;
-			int deltaHumidity;
-			if (temperature <= -32) {
-				deltaTemperature = 0;
-			} else if (temperature >= 32) {
-				deltaTemperature = 16;
-			} else {
-				deltaTemperature = (temperature + 32) / 4;
-			}
-			if (humidity <= -48) {
-				deltaHumidity = 96;
-			} else if (humidity >= 0) {
-				deltaHumidity = 0;
-			} else {
-				deltaHumidity = -2 * humidity;
-			}
-			final int baseColor = 112 + deltaHumidity;
-			final int red = baseColor + deltaTemperature;
-			final int green = baseColor;
-			final int blue = baseColor - deltaTemperature;
-			return (0xFF000000) | (red << 16) | (green << 8) | (blue);
+			final int temperature = Math.min(Math.max(this.getCurrentTemperature(), Tile.MINIMUM_SOIL_TEMPERATURE),
+					Tile.MAXIMUM_SOIL_TEMPERATURE);
+			final int humidity = Math.min(Math.max(this.getHumidity(), Tile.MINIMUM_SOIL_HUMIDITY),
+					Tile.MAXIMUM_SOIL_HUMIDITY);
+			return Tile.SOIL_COLORS[((temperature - Tile.MINIMUM_SOIL_TEMPERATURE)
+					* ((Tile.MAXIMUM_SOIL_HUMIDITY - Tile.MINIMUM_SOIL_HUMIDITY) + 1))
+					+ (humidity - Tile.MINIMUM_SOIL_HUMIDITY)];
 		}
 
 		/**
@@ -718,7 +743,7 @@ public class TectonicPlate extends Entity {
 	 */
 	public TectonicPlate(final Terrain terrain, final int plateIndexX, final int plateIndexY, final int magmaFlowX,
 			final int magmaFlowY, final City city, final int tectonicPlateSize) {
-		super(terrain.getWorld());
+		super(terrain.getWorld(), terrain.getTectonicPlateId(plateIndexX, plateIndexY));
 		this.terrain = terrain;
 		this.plateIndexX = plateIndexX;
 		this.plateIndexY = plateIndexY;
@@ -731,6 +756,7 @@ public class TectonicPlate extends Entity {
 		this.land = new SmallIntegerMatrix(tectonicPlateSize, tectonicPlateSize);
 		this.water = new SmallIntegerMatrix(tectonicPlateSize, tectonicPlateSize);
 		this.pollution = new SmallIntegerMatrix(tectonicPlateSize, tectonicPlateSize);
+		this.watersheds = new SmallIntegerMatrix(tectonicPlateSize, tectonicPlateSize);
 		this.soilTypes = new SmallObjectMatrix<>(tectonicPlateSize, tectonicPlateSize);
 		this.mineralTypes = new SmallObjectMatrix<>(tectonicPlateSize, tectonicPlateSize);
 		this.plantTypes = new SmallObjectMatrix<>(tectonicPlateSize, tectonicPlateSize);
@@ -765,6 +791,146 @@ public class TectonicPlate extends Entity {
 		this.unlocked = true;
 	}
 
+	/**
+	 * Get the x coordinate of the first tile of this plate in the terrain it is
+	 * part of.
+	 */
+	public int getCoordinateX() {
+		return (this.plateIndexX * this.terrain.getTectonicPlateSize()) - this.terrain.baseX;
+	}
+
+	/**
+	 * Get the y coordinate of the first tile of this plate in the terrain it is
+	 * part of.
+	 */
+	public int getCoordinateY() {
+		return (this.plateIndexY * this.terrain.getTectonicPlateSize()) - this.terrain.baseY;
+	}
+
+	/**
+	 * Get the grid of integers of this plate that represents the given layer.
+	 * Passes over whole plates can use it to skip the creation of a tile per
+	 * position.
+	 */
+	public IntegerMatrix getLayer(final Layer layer) {
+		switch (layer) {
+		case MAGMA:
+			return this.magma;
+		case LAND:
+			return this.land;
+		case WATER:
+			return this.water;
+		case POLLUTION:
+			return this.pollution;
+		case WATERSHED:
+			return this.watersheds;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Get the surface temperature of a tile of this plate in Celsius for a given
+	 * change to the axial tilt. Passes over whole plates can use it to skip the
+	 * creation of a tile per position.
+	 */
+	public int getTemperature(final int x, final int y, final double deltaAngle) {
+		final int magma = this.magma.get(x, y);
+		final int land = this.land.get(x, y);
+		final int water = this.water.get(x, y);
+		if ((magma >= land) && (magma >= water)) {
+			return 1000;
+		}
+		return this.getTemperature(this.getLatitudeVariation(y, deltaAngle), IMath.maximum(land, water));
+	}
+
+	/**
+	 * Get the change in Celsius to the surface temperature of the tiles of the row
+	 * of this plate at the given index caused by their latitude, for a given
+	 * change to the axial tilt. It's the same for every tile of the row, so passes
+	 * over rows can get it once per row.
+	 */
+	public double getLatitudeVariation(final int y, final double deltaAngle) {
+		/*
+		 * Average angle with which the sunlight hits a latitude y, between -1 and 1,
+		 * with -1 being the angle at the most southern point and 1 being the angle at
+		 * the most northern point. In this value, we distinguish between southern and
+		 * northern because the axial tilt causes a variation in angle whose sign is
+		 * dependent on the hemisphere.
+		 */
+		final double averageSunlightAngle = (double) (this.getCoordinateY() + y)
+				/ (double) this.terrain.getTotalMaxY();
+		// Current angle with which sunlight hits
+		final double currentSunlightAngle = averageSunlightAngle + deltaAngle;
+		// Absolute inclination of the sun rays
+		double absoluteSunlightAngle = Math.abs(currentSunlightAngle);
+		/*
+		 * If it goes over the pole, do two minus the angle (if it goes over 1.0 by
+		 * adding, it continues going under 1.0 by removing).
+		 */
+		if (absoluteSunlightAngle > 1.0d) {
+			absoluteSunlightAngle = 2.0d - absoluteSunlightAngle;
+		}
+		// Variation incurred in temperature by latitude
+		return absoluteSunlightAngle * (double) this.terrain.temperatureDifference;
+	}
+
+	/**
+	 * Get the surface temperature in Celsius of a tile not covered by magma from
+	 * the change caused by its latitude and the height of its surface.
+	 */
+	public int getTemperature(final double latitudeVariation, final int height) {
+		// Variation incurred in temperature by height
+		final double deltaTemperatureHeight = (double) height * this.terrain.heightCoolingFactor;
+		// Total integer variation incurred in temperature
+		final int variation = (int) (latitudeVariation + deltaTemperatureHeight);
+		return this.terrain.baseTemperature + variation;
+	}
+
+	/**
+	 * Get the change to the axial tilt at the current month.
+	 */
+	public double getCurrentDeltaAngle() {
+		// Seasonal change in angle
+		return Tile.ANGLE_DELTAS[this.getWorld().getDate().getMonth()] * this.terrain.axialTilt;
+	}
+
+	/**
+	 * Get the temperature in Celsius of the tile of this plate at the given
+	 * indices at the current month.
+	 */
+	public int getCurrentTemperature(final int x, final int y) {
+		return this.getTemperature(x, y, this.getCurrentDeltaAngle());
+	}
+
+	/**
+	 * Get the grid of soil types of this plate.
+	 */
+	public ObjectMatrix<SoilType> getSoilTypes() {
+		return this.soilTypes;
+	}
+
+	/**
+	 * Get the grid of mineral types of this plate.
+	 */
+	public ObjectMatrix<MineralType> getMineralTypes() {
+		return this.mineralTypes;
+	}
+
+	/**
+	 * Get the grid of plant types of this plate.
+	 */
+	public ObjectMatrix<PlantType> getPlantTypes() {
+		return this.plantTypes;
+	}
+
+	/**
+	 * Get the grid of elements of this plate.
+	 */
+	public ObjectMatrix<Element> getElements() {
+		return this.elements;
+	}
+
 	public Tile getTile(final int x, final int y) {
 		if ((x < 0) || (y < 0) || (x >= this.terrain.getTectonicPlateSize())
 				|| (y >= this.terrain.getTectonicPlateSize())) {
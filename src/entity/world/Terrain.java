@@ -23,10 +23,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 
+import api.RandomGenerator;
 import entity.Entity;
-import entity.city.Citizen;
 import entity.city.City;
 import entity.element.building.Building;
 import entity.element.building.Building.BuildingFactory;
@@ -57,9 +60,27 @@ public class Terrain extends Entity {
 	 */
 	private final TerrainShape terrainShape;
 	/**
-	 * Tectonic plates that make up this terrain.
+	 * Tectonic plates that make up this terrain, in row-major order. Plates loaded
+	 * lazily are published from whichever thread loads them, so the slots are
+	 * read and written atomically.
 	 */
-	private final TectonicPlate[][] tectonicPlates;
+	private final AtomicReferenceArray<TectonicPlate> tectonicPlates;
+	/**
+	 * Loads of the tectonic plates of this terrain that are in progress, in
+	 * row-major order. Threads that need a plate being loaded wait for its load
+	 * instead of loading it again.
+	 */
+	private final AtomicReferenceArray<FutureTask<TectonicPlate>> tectonicPlateLoads;
+	/**
+	 * Number of tectonic plates of the playable area along each axis.
+	 */
+	private final int tectonicPlateCountX, tectonicPlateCountY;
+	/**
+	 * Id of the plate with indices 0 and 0. The ids of the plates are reserved
+	 * with this terrain and follow the indices of the plates, so that they don't
+	 * depend on the order plates are loaded in.
+	 */
+	private final long firstTectonicPlateId;
 	/**
 	 * Side in tiles of the plates that make up this terrain.
 	 */
@@ -140,13 +161,36 @@ public class Terrain extends Entity {
 	 */
 	private final List<Unit> units = new ArrayList<Unit>();
 	/**
-	 * List of all citizens in this terrain.
+	 * Loader of the tectonic plates of this terrain that haven't been generated
+	 * yet, or null if all of them are generated up front.
 	 */
-	private final List<Citizen> citizens = new ArrayList<Citizen>();
+	private volatile TectonicPlateLoader tectonicPlateLoader;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Nested classes
 
+	/**
+	 * Generates or loads a tectonic plate of a terrain the first time it's
+	 * accessed.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 */
+	@FunctionalInterface
+	public static interface TectonicPlateLoader {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Creates the tectonic plate with the given indices. Must not access the
+		 * tectonic plates of the terrain, as they may not exist yet.
+		 */
+		public TectonicPlate load(int plateIndexX, int plateIndexY);
+
+	}
+
 	/**
 	 * Represents the direction of a variation in coordinates.
 	 *
@@ -392,7 +436,7 @@ public class Terrain extends Entity {
 					// If we're at the edge and we can cycle, cycle over
 					if (this.currentPlateIndexX == -1) {
 						if (Terrain.this.terrainShape.getCycleX()) {
-							this.currentPlateIndexX = Terrain.this.tectonicPlates[0].length - 1;
+							this.currentPlateIndexX = Terrain.this.tectonicPlateCountX - 1;
 						}
 					}
 				}
@@ -404,7 +448,7 @@ public class Terrain extends Entity {
 					this.currentTileSubindexX = 0;
 					++this.currentPlateIndexX;
 					// If we're at the edge and we can cycle, cycle over
-					if (this.currentPlateIndexX == Terrain.this.tectonicPlates[0].length) {
+					if (this.currentPlateIndexX == Terrain.this.tectonicPlateCountX) {
 						if (Terrain.this.terrainShape.getCycleX()) {
 							this.currentPlateIndexX = 0;
 						}
@@ -420,7 +464,7 @@ public class Terrain extends Entity {
 					// If we're at the edge and we can cycle, cycle over
 					if (this.currentPlateIndexY == -1) {
 						if (Terrain.this.terrainShape.getCycleY()) {
-							this.currentPlateIndexY = Terrain.this.tectonicPlates.length - 1;
+							this.currentPlateIndexY = Terrain.this.tectonicPlateCountY - 1;
 						}
 					}
 				}
@@ -432,7 +476,7 @@ public class Terrain extends Entity {
 					this.currentTileSubindexY = 0;
 					++this.currentPlateIndexY;
 					// If we're at the edge and we can cycle, cycle over
-					if (this.currentPlateIndexY == Terrain.this.tectonicPlates.length) {
+					if (this.currentPlateIndexY == Terrain.this.tectonicPlateCountY) {
 						if (Terrain.this.terrainShape.getCycleY()) {
 							this.currentPlateIndexY = 0;
 						}
@@ -462,9 +506,9 @@ public class Terrain extends Entity {
 
 			public boolean atValidTile() {
 				return !((this.currentPlateIndexX < 0)
-						|| (this.currentPlateIndexX >= Terrain.this.tectonicPlates[0].length)
+						|| (this.currentPlateIndexX >= Terrain.this.tectonicPlateCountX)
 						|| (this.currentPlateIndexY < 0)
-						|| (this.currentPlateIndexY >= Terrain.this.tectonicPlates.length));
+						|| (this.currentPlateIndexY >= Terrain.this.tectonicPlateCountY));
 			}
 
 			/**
@@ -523,7 +567,8 @@ public class Terrain extends Entity {
 				if (!this.atValidTile()) {
 					return null;
 				}
-				final TectonicPlate tectonicPlate = Terrain.this.tectonicPlates[this.currentPlateIndexY][this.currentPlateIndexX];
+				final TectonicPlate tectonicPlate = Terrain.this.loadTectonicPlate(this.currentPlateIndexX,
+						this.currentPlateIndexY);
 				return tectonicPlate.getTile(this.currentTileSubindexX, this.currentTileSubindexY);
 			}
 
@@ -835,7 +880,7 @@ public class Terrain extends Entity {
 			 * Returns the current plate in the iteration.
 			 */
 			public TectonicPlate current() {
-				return Terrain.this.tectonicPlates[this.currentPlateIndexY][this.currentPlateIndexX];
+				return Terrain.this.loadTectonicPlate(this.currentPlateIndexX, this.currentPlateIndexY);
 			}
 
 			/**
@@ -872,9 +917,10 @@ public class Terrain extends Entity {
 			 * Creates a new plate in the current place of the iteration.
 			 */
 			public void newTectonicPlate(final int magmaFlowX, final int magmaFlowY, final City city) {
-				Terrain.this.tectonicPlates[this.currentPlateIndexY][this.currentPlateIndexX] = new TectonicPlate(
-						Terrain.this, this.currentPlateIndexX, this.currentPlateIndexY, magmaFlowX, magmaFlowY, city,
-						Terrain.this.tectonicPlateSize);
+				Terrain.this.tectonicPlates.set(
+						(this.currentPlateIndexY * Terrain.this.tectonicPlateCountX) + this.currentPlateIndexX,
+						new TectonicPlate(Terrain.this, this.currentPlateIndexX, this.currentPlateIndexY, magmaFlowX,
+								magmaFlowY, city, Terrain.this.tectonicPlateSize));
 			}
 
 			@Override
@@ -934,6 +980,20 @@ public class Terrain extends Entity {
 				Spliterator.super.forEachRemaining(action);
 			}
 
+			/**
+			 * Obtain the index along the x axis of the current plate of the iteration.
+			 */
+			public int getPlateIndexX() {
+				return this.currentPlateIndexX;
+			}
+
+			/**
+			 * Obtain the index along the y axis of the current plate of the iteration.
+			 */
+			public int getPlateIndexY() {
+				return this.currentPlateIndexY;
+			}
+
 			/**
 			 * Obtain the coordinate of the center of this plate along the x axis.
 			 */
@@ -961,8 +1021,8 @@ public class Terrain extends Entity {
 		public TectonicPlateIterable() {
 			this.startPlateIndexX = 0;
 			this.startPlateIndexY = 0;
-			this.endPlateIndexX = Terrain.this.tectonicPlates[0].length - 1;
-			this.endPlateIndexY = Terrain.this.tectonicPlates.length - 1;
+			this.endPlateIndexX = Terrain.this.tectonicPlateCountX - 1;
+			this.endPlateIndexY = Terrain.this.tectonicPlateCountY - 1;
 		}
 
 		////////////////////////////////////////////////////////////////////////////////
@@ -994,7 +1054,11 @@ public class Terrain extends Entity {
 			final int temperatureDifference) {
 		super(world);
 		this.terrainShape = terrainShape;
-		this.tectonicPlates = new TectonicPlate[playablePlatesY][playablePlatesX];
+		this.tectonicPlates = new AtomicReferenceArray<>(playablePlatesX * playablePlatesY);
+		this.tectonicPlateLoads = new AtomicReferenceArray<>(playablePlatesX * playablePlatesY);
+		this.tectonicPlateCountX = playablePlatesX;
+		this.tectonicPlateCountY = playablePlatesY;
+		this.firstTectonicPlateId = world.newEntityIds(playablePlatesX * playablePlatesY);
 		this.tectonicPlateSize = tectonicPlateSize;
 		this.totalSizeX = totalPlatesX * tectonicPlateSize;
 		this.totalSizeY = totalPlatesY * tectonicPlateSize;
@@ -1004,10 +1068,11 @@ public class Terrain extends Entity {
 		this.totalMaxY = -this.totalMinY;
 		this.playableSizeX = playablePlatesX * tectonicPlateSize;
 		this.playableSizeY = playablePlatesY * tectonicPlateSize;
-		this.playableMinX = this.getPRNG().generateUniformInteger(this.totalMinX,
-				(this.totalMaxX - this.playableSizeX) + 2);
-		this.playableMinY = this.getPRNG().generateUniformInteger(this.totalMinY,
-				(this.totalMaxY - this.playableSizeY) + 2);
+		// The placement is drawn from its own stream so that it doesn't depend on the
+		// ids of the entities created before this terrain
+		final RandomGenerator PRNG = world.getPRNG(RandomStreams.Purpose.TERRAIN, 0);
+		this.playableMinX = PRNG.generateUniformInteger(this.totalMinX, (this.totalMaxX - this.playableSizeX) + 2);
+		this.playableMinY = PRNG.generateUniformInteger(this.totalMinY, (this.totalMaxY - this.playableSizeY) + 2);
 		this.playableMaxX = (this.playableMinX + this.playableSizeX) - 1;
 		this.playableMaxY = (this.playableMinY + this.playableSizeY) - 1;
 		this.baseX = -this.playableMinX;
@@ -1087,7 +1152,7 @@ public class Terrain extends Entity {
 	}
 
 	/**
-	 * Obtains the index of a plate along the x axis in [0, tectonicPlates[].length)
+	 * Obtains the index of a plate along the x axis in [0, tectonicPlateCountX)
 	 * from the index of a tile along the x axis contained within the plate.
 	 *
 	 * @param tileIndexX
@@ -1099,7 +1164,7 @@ public class Terrain extends Entity {
 	}
 
 	/**
-	 * Obtains the index of a plate along the y axis in [0, tectonicPlates.length)
+	 * Obtains the index of a plate along the y axis in [0, tectonicPlateCountY)
 	 * from the index of a tile along the y axis contained within the plate.
 	 *
 	 * @param tileIndexY
@@ -1114,6 +1179,28 @@ public class Terrain extends Entity {
 		return this.tectonicPlateSize;
 	}
 
+	/**
+	 * Get the number of tectonic plates of the playable area along the x axis.
+	 */
+	public int getTectonicPlateCountX() {
+		return this.tectonicPlateCountX;
+	}
+
+	/**
+	 * Get the number of tectonic plates of the playable area along the y axis.
+	 */
+	public int getTectonicPlateCountY() {
+		return this.tectonicPlateCountY;
+	}
+
+	/**
+	 * Get the id of the plate with the given indices, which is the same however
+	 * many times and in whichever order plates are loaded.
+	 */
+	public long getTectonicPlateId(final int plateIndexX, final int plateIndexY) {
+		return this.firstTectonicPlateId + (((long) plateIndexY * this.tectonicPlateCountX) + plateIndexX);
+	}
+
 	public int getTotalSizeX() {
 		return this.totalSizeX;
 	}
@@ -1185,10 +1272,127 @@ public class Terrain extends Entity {
 		final int plateIndexY = this.plateIndexY(tileIndexY);
 		final int tileSubindexX = tileIndexX % this.tectonicPlateSize;
 		final int tileSubindexY = tileIndexY % this.tectonicPlateSize;
-		final TectonicPlate tectonicPlate = this.tectonicPlates[plateIndexY][plateIndexX];
+		final TectonicPlate tectonicPlate = this.loadTectonicPlate(plateIndexX, plateIndexY);
 		return tectonicPlate.getTile(tileSubindexX, tileSubindexY);
 	}
 
+	/**
+	 * Get the tectonic plate with the given indices, or null if the indices are
+	 * outside of the playable area.
+	 */
+	public TectonicPlate getTectonicPlate(final int plateIndexX, final int plateIndexY) {
+		if ((plateIndexX < 0) || (plateIndexY < 0) || (plateIndexX >= this.tectonicPlateCountX)
+				|| (plateIndexY >= this.tectonicPlateCountY)) {
+			return null;
+		}
+		return this.loadTectonicPlate(plateIndexX, plateIndexY);
+	}
+
+	/**
+	 * Get the tectonic plate with the given indices, creating it with the loader
+	 * of this terrain if it hasn't been created yet. Every plate has its own load,
+	 * so different plates can be loaded from several threads at once, while a
+	 * plate is only ever loaded once: the first thread that needs it runs its load
+	 * and the others wait for it. The plate is published before its load is
+	 * forgotten, so a thread that finds no load always finds the plate.
+	 */
+	private TectonicPlate loadTectonicPlate(final int plateIndexX, final int plateIndexY) {
+		final int index = (plateIndexY * this.tectonicPlateCountX) + plateIndexX;
+		final TectonicPlate tectonicPlate = this.tectonicPlates.get(index);
+		final TectonicPlateLoader loader = this.tectonicPlateLoader;
+		if ((tectonicPlate != null) || (loader == null)) {
+			return tectonicPlate;
+		}
+		FutureTask<TectonicPlate> load = this.tectonicPlateLoads.get(index);
+		if (load == null) {
+			final FutureTask<TectonicPlate> newLoad = new FutureTask<>(() -> loader.load(plateIndexX, plateIndexY));
+			load = this.tectonicPlateLoads.compareAndExchange(index, null, newLoad);
+			if (load == null) {
+				// The plate may have been published by a load that ended in between
+				final TectonicPlate publishedTectonicPlate = this.tectonicPlates.get(index);
+				if (publishedTectonicPlate != null) {
+					this.tectonicPlateLoads.compareAndSet(index, newLoad, null);
+					return publishedTectonicPlate;
+				}
+				load = newLoad;
+			}
+		}
+		// Only the first call to run loads the plate, the rest return at once
+		load.run();
+		try {
+			final TectonicPlate loadedTectonicPlate = load.get();
+			this.tectonicPlates.compareAndSet(index, null, loadedTectonicPlate);
+			return this.tectonicPlates.get(index);
+		} catch (final InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exception);
+		} catch (final ExecutionException exception) {
+			if (exception.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exception.getCause();
+			}
+			throw new RuntimeException(exception.getCause());
+		} finally {
+			// A thread that stopped waiting leaves the load to the thread running it
+			if (load.isDone()) {
+				this.tectonicPlateLoads.compareAndSet(index, load, null);
+			}
+		}
+	}
+
+	/**
+	 * Get whether the tectonic plate with the given indices has been created,
+	 * without creating it.
+	 */
+	public boolean isTectonicPlateLoaded(final int plateIndexX, final int plateIndexY) {
+		return this.tectonicPlates.get((plateIndexY * this.tectonicPlateCountX) + plateIndexX) != null;
+	}
+
+	/**
+	 * Set the loader of the tectonic plates of this terrain that haven't been
+	 * created yet.
+	 *
+	 * @param tectonicPlateLoader
+	 *                                Loader of the plates, or null to leave plates
+	 *                                that haven't been created empty.
+	 */
+	public void setTectonicPlateLoader(final TectonicPlateLoader tectonicPlateLoader) {
+		this.tectonicPlateLoader = tectonicPlateLoader;
+	}
+
+	/**
+	 * Creates a new tectonic plate with the given indices, replacing the one there
+	 * was, if any.
+	 *
+	 * @return The new tectonic plate.
+	 */
+	public TectonicPlate newTectonicPlate(final int plateIndexX, final int plateIndexY, final int magmaFlowX,
+			final int magmaFlowY, final City city) {
+		final TectonicPlate tectonicPlate = this.createTectonicPlate(plateIndexX, plateIndexY, magmaFlowX, magmaFlowY,
+				city);
+		this.tectonicPlates.set((plateIndexY * this.tectonicPlateCountX) + plateIndexX, tectonicPlate);
+		return tectonicPlate;
+	}
+
+	/**
+	 * Creates a new tectonic plate with the given indices without adding it to
+	 * this terrain, as a loader does.
+	 *
+	 * @return The new tectonic plate.
+	 */
+	public TectonicPlate createTectonicPlate(final int plateIndexX, final int plateIndexY, final int magmaFlowX,
+			final int magmaFlowY, final City city) {
+		return new TectonicPlate(this, plateIndexX, plateIndexY, magmaFlowX, magmaFlowY, city,
+				this.tectonicPlateSize);
+	}
+
+	/**
+	 * Removes the tectonic plate with the given indices so that its memory can be
+	 * reclaimed, as when it has been spilled to a plate store.
+	 */
+	public void removeTectonicPlate(final int plateIndexX, final int plateIndexY) {
+		this.tectonicPlates.set((plateIndexY * this.tectonicPlateCountX) + plateIndexX, null);
+	}
+
 	public Iterable<Tile> getAllTiles() {
 		return new TileIterable();
 	}
@@ -1213,15 +1417,12 @@ public class Terrain extends Entity {
 		return this.units;
 	}
 
-	public Iterable<Citizen> getAllCitizens() {
-		return this.citizens;
-	}
-
 	public void newBuilding(final BuildingFactory<?> buildingFactory, final int coordinateX, final int coordinateY,
 			final Orientation orientation, final int health, final City city) {
 		if (buildingFactory.check(this, coordinateX, coordinateY, orientation, city)) {
 			final Building building = buildingFactory.make(this, coordinateX, coordinateY, orientation, health, city);
 			this.buildings.add(building);
+			this.getWorld().getTickScheduler().register(TickScheduler.Phase.PRODUCTION, building);
 		}
 	}
 
@@ -1245,6 +1446,7 @@ public class Terrain extends Entity {
 		if (unitFactory.check(this, coordinateX, coordinateY, orientation, city)) {
 			final Unit unit = unitFactory.make(this, coordinateX, coordinateY, orientation, health, city);
 			this.units.add(unit);
+			this.getWorld().getTickScheduler().register(TickScheduler.Phase.LOGISTICS, unit);
 		}
 	}
 
@@ -0,0 +1,295 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package entity.world;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.Entity;
+import util.RangeTask;
+
+/**
+ * This class ticks the entities of a world in phases that run one after the
+ * other in a fixed order. Each phase ticks the entities registered to it in
+ * batches, in the order they were registered, and keeps how long it took.
+ *
+ * Every batch has an outbox the entities in it post the changes they make to
+ * other entities to, which are made once the whole phase has ticked. Batches
+ * of a phase run in parallel on the pool of the scheduler only if the phase is
+ * concurrent, which it should only be if its entities never read each other
+ * and only change other entities through their outboxes. Otherwise, and always
+ * while there's no pool, they run on the thread that ticks. Since batches don't
+ * depend on the number of threads and outboxes are flushed in order, a tick
+ * gives the same result whether it runs in parallel or not.
+ *
+ * Entities registered or unregistered while ticking are only added or removed
+ * once the tick ends.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class TickScheduler {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Number of entities in a batch.
+	 */
+	public static final int BATCH_SIZE = 256;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Entities of every phase, in the order they were registered.
+	 */
+	private final Map<Phase, List<Entity>> entities = new EnumMap<>(Phase.class);
+	/**
+	 * Phases of the entities registered or unregistered while ticking.
+	 */
+	private final List<Phase> pendingPhases = new ArrayList<>();
+	/**
+	 * Entities registered or unregistered while ticking.
+	 */
+	private final List<Entity> pendingEntities = new ArrayList<>();
+	/**
+	 * Whether each entity pending is registered or unregistered.
+	 */
+	private final List<Boolean> pendingRegistrations = new ArrayList<>();
+	/**
+	 * Outboxes of the batches of the phase ticking.
+	 */
+	private final List<Outbox> outboxes = new ArrayList<>();
+	/**
+	 * Whether the batches of every phase may run in parallel.
+	 */
+	private final boolean[] concurrent = new boolean[Phase.values().length];
+	/**
+	 * Nanoseconds every phase took in the last tick.
+	 */
+	private final long[] phaseTimes = new long[Phase.values().length];
+	/**
+	 * Pool the batches of concurrent phases run on, or null to run them on the
+	 * thread that ticks.
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * Whether a tick is taking place.
+	 */
+	private boolean ticking;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Phase of a tick. Phases run in the order they're declared. Those whose
+	 * entities only change others through outboxes are concurrent by default.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Phase {
+
+		/**
+		 * Event triggers decide whether their events take place.
+		 */
+		EVENTS(false),
+		/**
+		 * Buildings produce and consume resources.
+		 */
+		PRODUCTION(true),
+		/**
+		 * Units carry resources between buildings.
+		 */
+		LOGISTICS(false),
+		/**
+		 * Family units work, earn, spend and move.
+		 */
+		HOUSEHOLDS(true),
+		/**
+		 * Citizens age, fall sick, heal, are born and die.
+		 */
+		DEMOGRAPHICS(true),
+		/**
+		 * Cities, companies and countries settle their accounts.
+		 */
+		BOOKKEEPING(false);
+
+		/**
+		 * Whether the batches of this phase may run in parallel by default.
+		 */
+		private final boolean concurrent;
+
+		private Phase(final boolean concurrent) {
+			this.concurrent = concurrent;
+		}
+
+		/**
+		 * Get whether the batches of this phase may run in parallel by default.
+		 */
+		public boolean isConcurrent() {
+			return this.concurrent;
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	public TickScheduler() {
+		for (final Phase phase : Phase.values()) {
+			this.entities.put(phase, new ArrayList<>());
+			this.concurrent[phase.ordinal()] = phase.isConcurrent();
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the pool the batches of concurrent phases run on, or null if they run on
+	 * the thread that ticks.
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Sets the pool the batches of concurrent phases run on, or null to run them on
+	 * the thread that ticks.
+	 */
+	public void setPool(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public boolean isConcurrent(final Phase phase) {
+		return this.concurrent[phase.ordinal()];
+	}
+
+	/**
+	 * Sets whether the batches of a phase may run in parallel.
+	 */
+	public void setConcurrent(final Phase phase, final boolean concurrent) {
+		this.concurrent[phase.ordinal()] = concurrent;
+	}
+
+	/**
+	 * Get the number of entities registered to a phase.
+	 */
+	public synchronized int getEntityCount(final Phase phase) {
+		return this.entities.get(phase).size();
+	}
+
+	/**
+	 * Get the nanoseconds a phase took in the last tick.
+	 */
+	public long getPhaseTime(final Phase phase) {
+		return this.phaseTimes[phase.ordinal()];
+	}
+
+	/**
+	 * Registers an entity to be ticked in a phase.
+	 */
+	public synchronized void register(final Phase phase, final Entity entity) {
+		if (this.ticking) {
+			this.pendingPhases.add(phase);
+			this.pendingEntities.add(entity);
+			this.pendingRegistrations.add(Boolean.TRUE);
+		} else {
+			this.entities.get(phase).add(entity);
+		}
+	}
+
+	/**
+	 * Stops ticking an entity in a phase.
+	 */
+	public synchronized void unregister(final Phase phase, final Entity entity) {
+		if (this.ticking) {
+			this.pendingPhases.add(phase);
+			this.pendingEntities.add(entity);
+			this.pendingRegistrations.add(Boolean.FALSE);
+		} else {
+			this.entities.get(phase).remove(entity);
+		}
+	}
+
+	/**
+	 * Runs every phase in order.
+	 */
+	public void tick() {
+		synchronized (this) {
+			this.ticking = true;
+		}
+		try {
+			for (final Phase phase : Phase.values()) {
+				final long startTime = System.nanoTime();
+				this.tick(phase);
+				this.phaseTimes[phase.ordinal()] = System.nanoTime() - startTime;
+			}
+		} finally {
+			synchronized (this) {
+				this.ticking = false;
+				for (int index = 0; index < this.pendingEntities.size(); ++index) {
+					if (this.pendingRegistrations.get(index)) {
+						this.register(this.pendingPhases.get(index), this.pendingEntities.get(index));
+					} else {
+						this.unregister(this.pendingPhases.get(index), this.pendingEntities.get(index));
+					}
+				}
+				this.pendingPhases.clear();
+				this.pendingEntities.clear();
+				this.pendingRegistrations.clear();
+			}
+		}
+	}
+
+	/**
+	 * Ticks the entities of a phase batch by batch and then makes the changes
+	 * they posted, batch by batch.
+	 */
+	private void tick(final Phase phase) {
+		final List<Entity> entities = this.entities.get(phase);
+		final int entityCount = entities.size();
+		final int batchCount = ((entityCount + TickScheduler.BATCH_SIZE) - 1) / TickScheduler.BATCH_SIZE;
+		while (this.outboxes.size() < batchCount) {
+			this.outboxes.add(new Outbox());
+		}
+		final ForkJoinPool pool = this.isConcurrent(phase) ? this.pool : null;
+		RangeTask.run(pool, batch -> {
+			final Outbox outbox = this.outboxes.get(batch);
+			final int from = batch * TickScheduler.BATCH_SIZE;
+			final int to = Math.min(from + TickScheduler.BATCH_SIZE, entityCount);
+			for (int index = from; index < to; ++index) {
+				entities.get(index).tick(outbox);
+			}
+		}, batchCount, 1);
+		for (int batch = 0; batch < batchCount; ++batch) {
+			this.outboxes.get(batch).flush();
+		}
+	}
+
+}
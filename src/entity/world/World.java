@@ -20,10 +20,12 @@ package entity.world;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import api.RandomGenerator;
 import entity.Entity;
 import entity.city.Citizen;
+import entity.city.CitizenStore;
 import entity.city.City;
 import entity.element.building.Building;
 import entity.element.building.Building.BuildingFactory;
@@ -61,6 +63,10 @@ public class World extends Entity {
 	 *
 	 */
 	private final RandomGenerator PRNG;
+	/**
+	 * Factory of the independent streams of pseudo-random numbers of this world.
+	 */
+	private final RandomStreams randomStreams;
 	/**
 	 *
 	 */
@@ -73,6 +79,18 @@ public class World extends Entity {
 	 * List of all cities in this terrain.
 	 */
 	private final List<City> cities = new ArrayList<City>();
+	/**
+	 * Number of entities created in this world, itself included.
+	 */
+	private final AtomicLong entityCount = new AtomicLong(1L);
+	/**
+	 * Scheduler that ticks the entities of this world.
+	 */
+	private final TickScheduler tickScheduler = new TickScheduler();
+	/**
+	 * Store of all citizens of this world.
+	 */
+	private final CitizenStore citizenStore;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializer
@@ -94,6 +112,7 @@ public class World extends Entity {
 		super(null);
 		this.version = new String(Industry.VERSION);
 		this.PRNG = new Xorshift64StarGenerator(seed);
+		this.randomStreams = new RandomStreams(seed);
 		// Era 0 starts at 1700, each era is 50 years long
 		this.date = new IDate((short) (era.getStartingYear()), (byte) (0));
 		// The number of plates is roughly inversely proportional to the size of the
@@ -148,6 +167,7 @@ public class World extends Entity {
 				temperatureAtEquator,
 				// Temperature at the poles - temperature at the equator
 				temperatureDifference);
+		this.citizenStore = new CitizenStore(this);
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -157,15 +177,60 @@ public class World extends Entity {
 		return this.version;
 	}
 
+	/**
+	 * Get the id of a new entity of this world. Entities are numbered in the order
+	 * they're created, this world being 0, and may be created from any thread.
+	 */
+	public long newEntityId() {
+		return this.entityCount.getAndIncrement();
+	}
+
+	/**
+	 * Reserves ids for the given number of entities of this world, for entities
+	 * that may be created in any order to be numbered by something else than the
+	 * order they're created in.
+	 *
+	 * @return The first of the ids reserved.
+	 */
+	public long newEntityIds(final int count) {
+		return this.entityCount.getAndAdd(count);
+	}
+
 	@Override
 	public RandomGenerator getPRNG() {
 		return this.PRNG;
 	}
 
+	/**
+	 * Get the factory of the independent streams of pseudo-random numbers of this
+	 * world.
+	 */
+	public RandomStreams getRandomStreams() {
+		return this.randomStreams;
+	}
+
+	/**
+	 * Creates a new generator at the start of the stream of this world with the
+	 * given purpose and id.
+	 *
+	 * @see RandomStreams#get(RandomStreams.Purpose, long)
+	 */
+	public RandomGenerator getPRNG(final RandomStreams.Purpose purpose, final long id) {
+		return this.randomStreams.get(purpose, id);
+	}
+
 	public int getTectonicPlateSize() {
 		return this.terrain.getTectonicPlateSize();
 	}
 
+	public int getTectonicPlateCountX() {
+		return this.terrain.getTectonicPlateCountX();
+	}
+
+	public int getTectonicPlateCountY() {
+		return this.terrain.getTectonicPlateCountY();
+	}
+
 	public int getBaseMagma() {
 		return this.terrain.getBaseMagma();
 	}
@@ -249,6 +314,40 @@ public class World extends Entity {
 		return this.terrain.getTileSet(fromX, fromY, toX, toY);
 	}
 
+	/**
+	 * Get the scheduler that ticks the entities of this world. Entities that
+	 * should tick are registered to it in the phase they belong to.
+	 */
+	public TickScheduler getTickScheduler() {
+		return this.tickScheduler;
+	}
+
+	public TectonicPlate getTectonicPlate(final int plateIndexX, final int plateIndexY) {
+		return this.terrain.getTectonicPlate(plateIndexX, plateIndexY);
+	}
+
+	public TectonicPlate newTectonicPlate(final int plateIndexX, final int plateIndexY, final int magmaFlowX,
+			final int magmaFlowY, final City city) {
+		return this.terrain.newTectonicPlate(plateIndexX, plateIndexY, magmaFlowX, magmaFlowY, city);
+	}
+
+	public TectonicPlate createTectonicPlate(final int plateIndexX, final int plateIndexY, final int magmaFlowX,
+			final int magmaFlowY, final City city) {
+		return this.terrain.createTectonicPlate(plateIndexX, plateIndexY, magmaFlowX, magmaFlowY, city);
+	}
+
+	public void removeTectonicPlate(final int plateIndexX, final int plateIndexY) {
+		this.terrain.removeTectonicPlate(plateIndexX, plateIndexY);
+	}
+
+	public boolean isTectonicPlateLoaded(final int plateIndexX, final int plateIndexY) {
+		return this.terrain.isTectonicPlateLoaded(plateIndexX, plateIndexY);
+	}
+
+	public void setTectonicPlateLoader(final Terrain.TectonicPlateLoader tectonicPlateLoader) {
+		this.terrain.setTectonicPlateLoader(tectonicPlateLoader);
+	}
+
 	public Iterable<TectonicPlate> getAllTectonicPlates() {
 		return this.terrain.getAllTectonicPlates();
 	}
@@ -266,13 +365,28 @@ public class World extends Entity {
 	}
 
 	public Iterable<Citizen> getAllCitizens() {
-		return this.terrain.getAllCitizens();
+		return this.citizenStore;
+	}
+
+	/**
+	 * Get the store of all citizens of this world.
+	 */
+	public CitizenStore getCitizenStore() {
+		return this.citizenStore;
 	}
 
 	public Iterable<City> getAllCities() {
 		return this.cities;
 	}
 
+	/**
+	 * Adds a city to this world, to be ticked when the accounts are settled.
+	 */
+	public void addCity(final City city) {
+		this.cities.add(city);
+		this.tickScheduler.register(TickScheduler.Phase.BOOKKEEPING, city);
+	}
+
 	public void newBuilding(final BuildingFactory<?> buildingFactory, final int coordinateX, final int coordinateY,
 			final Orientation orientation, final int health, final City city) {
 		this.terrain.newBuilding(buildingFactory, coordinateX, coordinateY, orientation, health, city);
@@ -293,8 +407,13 @@ public class World extends Entity {
 		this.terrain.newUnit(unitFactory, coordinateX, coordinateY, orientation, health, city);
 	}
 
+	/**
+	 * Ticks every entity of this world phase by phase and then moves on to the
+	 * next month.
+	 */
 	@Override
 	public void tick() {
+		this.tickScheduler.tick();
 		this.date.increase();
 	}
 
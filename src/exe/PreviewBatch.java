@@ -0,0 +1,397 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.graphics.MapStyle;
+import exe.io.FileHandler;
+import exe.io.MapExporter;
+import generator.BasicGenerator;
+import type.Era;
+import type.TerrainShape;
+
+/**
+ * Generates the worlds of a range of seeds without prompting for anything and
+ * writes a thumbnail of the map of each one, along with a JSON index of their
+ * summary statistics, so that seeds for scenarios can be chosen at a glance.
+ *
+ * Arguments: path to a properties file with the parameters of the worlds, first
+ * seed, last seed and, optionally, the folder the previews are written to,
+ * which is a folder in the map folder by default. The keys of the parameters
+ * file are the parameters PrintWorld prompts for, with the same defaults for
+ * missing keys: terrainShape, era, tectonicPlateSizeExponent,
+ * worldSizeExponent, crustThicknessFactor, seaLevelFactor, roughnessFactor,
+ * axisTilt, distanceToSunFactor, playableSizeExponent and style, along with
+ * thumbnailSize.
+ *
+ * Worlds are generated concurrently, each one on a single thread, by a pool
+ * with as many threads as processors or as worlds fit in the free memory,
+ * whichever is fewer. Every thread reuses its buffers between worlds.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class PreviewBatch {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Estimate of the bytes of memory a tile of a world takes while it is
+	 * generated and drawn, used to size the pool.
+	 */
+	private static final long BYTES_PER_TILE = 64L;
+	/**
+	 * Default length of the longest side of a thumbnail in pixels.
+	 */
+	private static final int DEFAULT_THUMBNAIL_SIZE = 256;
+	/**
+	 * Buffers of every thread, reused between the worlds it previews.
+	 */
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Parameters of the worlds.
+	 */
+	private final TerrainShape terrainShape;
+	private final Era era;
+	private final int tectonicPlateSizeExponent, worldSizeExponent, playableSizeExponent;
+	private final double crustThicknessFactor, seaLevelFactor, roughnessFactor, axisTilt, distanceToSunFactor;
+	/**
+	 * Style the thumbnails are colored with.
+	 */
+	private final MapStyle style;
+	/**
+	 * Length of the longest side of a thumbnail in pixels.
+	 */
+	private final int thumbnailSize;
+	/**
+	 * Folder the previews are written to.
+	 */
+	private final String folder;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Holds the buffers a thread previews worlds with, grown when a world needs
+	 * more room than they have.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static final class Buffers {
+
+		/**
+		 * Pixels of the map of the playable area of a world.
+		 */
+		private int[] map = new int[0];
+		/**
+		 * Pixels of a thumbnail.
+		 */
+		private int[] thumbnail = new int[0];
+		/**
+		 * Runs of the land and water of a row of a plate.
+		 */
+		private int[] land = new int[0], water = new int[0];
+
+		private void ensureCapacity(final int mapSize, final int thumbnailSize, final int runSize) {
+			if (this.map.length < mapSize) {
+				this.map = new int[mapSize];
+			}
+			if (this.thumbnail.length < thumbnailSize) {
+				this.thumbnail = new int[thumbnailSize];
+			}
+			if (this.land.length < runSize) {
+				this.land = new int[runSize];
+				this.water = new int[runSize];
+			}
+		}
+
+	}
+
+	/**
+	 * Holds the summary statistics of the playable area of a world.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static final class Summary {
+
+		private long seed;
+		private String thumbnail;
+		private long tileCount, landTileCount, waterTileCount, totalHeight;
+		private int minimumHeight = Integer.MAX_VALUE, maximumHeight = Integer.MIN_VALUE;
+		private long generationTime;
+
+		/**
+		 * Adds a tile to the statistics.
+		 */
+		private void add(final int land, final int water) {
+			++this.tileCount;
+			if (water > land) {
+				++this.waterTileCount;
+			} else {
+				++this.landTileCount;
+			}
+			this.totalHeight += land;
+			this.minimumHeight = Math.min(this.minimumHeight, land);
+			this.maximumHeight = Math.max(this.maximumHeight, land);
+		}
+
+		/**
+		 * Get the statistics as a JSON object.
+		 */
+		private String toJson() {
+			return String.format(Locale.ROOT,
+					"{\"seed\": %d, \"thumbnail\": \"%s\", \"landPercent\": %.2f, \"waterCoveragePercent\": %.2f, "
+							+ "\"meanHeight\": %.2f, \"minimumHeight\": %d, \"maximumHeight\": %d, "
+							+ "\"generationMilliseconds\": %d}",
+					this.seed, this.thumbnail, (100.0d * this.landTileCount) / this.tileCount,
+					(100.0d * this.waterTileCount) / this.tileCount, this.totalHeight / (double) this.tileCount,
+					this.minimumHeight, this.maximumHeight, this.generationTime / 1000000L);
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a batch of previews of the worlds with the given parameters.
+	 *
+	 * @param parameters
+	 *                       Parameters of the worlds, as read from a parameters
+	 *                       file.
+	 * @param folder
+	 *                       Folder the previews are written to.
+	 */
+	public PreviewBatch(final Properties parameters, final String folder) {
+		final TerrainShape terrainShape = TerrainShape
+				.getTerrainShape(parameters.getProperty("terrainShape", "flat"));
+		this.terrainShape = terrainShape == null ? TerrainShape.getTerrainShape("flat") : terrainShape;
+		final Era era = Era.getEra(parameters.getProperty("era", "1700"));
+		this.era = era == null ? Era.getEra("1700") : era;
+		this.tectonicPlateSizeExponent = Integer.parseInt(parameters.getProperty("tectonicPlateSizeExponent", "5"));
+		this.worldSizeExponent = Integer.parseInt(parameters.getProperty("worldSizeExponent", "10"));
+		this.crustThicknessFactor = Double.parseDouble(parameters.getProperty("crustThicknessFactor", "1.0"));
+		this.seaLevelFactor = Double.parseDouble(parameters.getProperty("seaLevelFactor", "1.0"));
+		this.roughnessFactor = Double.parseDouble(parameters.getProperty("roughnessFactor", "8.0"));
+		this.axisTilt = Double.parseDouble(parameters.getProperty("axisTilt", "0.15"));
+		this.distanceToSunFactor = Double.parseDouble(parameters.getProperty("distanceToSunFactor", "1.0"));
+		this.playableSizeExponent = Integer.parseInt(parameters.getProperty("playableSizeExponent", "8"));
+		this.style = MapStyle.getMapStyle(parameters.getProperty("style", ""));
+		this.thumbnailSize = Integer.parseInt(
+				parameters.getProperty("thumbnailSize", Integer.toString(PreviewBatch.DEFAULT_THUMBNAIL_SIZE)));
+		this.folder = folder;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		if (args.length < 3) {
+			System.out.println("Arguments: parameters file, first seed, last seed and, optionally, output folder.");
+			return;
+		}
+		final Properties parameters = FileHandler.loadProperties(args[0]);
+		final long firstSeed = Long.parseLong(args[1]);
+		final long lastSeed = Long.parseLong(args[2]);
+		final String folder = args.length > 3 ? args[3]
+				: String.join(File.separator, FileHandler.MAP_PATH, "previews");
+		new PreviewBatch(parameters, folder).run(firstSeed, lastSeed);
+	}
+
+	/**
+	 * Shrinks a map by averaging every square of scale by scale pixels, or the part
+	 * of it inside the map at its right and bottom edges.
+	 */
+	private static void downsample(final int[] map, final int sizeX, final int sizeY, final int scale,
+			final int[] thumbnail, final int thumbnailSizeX, final int thumbnailSizeY) {
+		for (int thumbnailY = 0; thumbnailY < thumbnailSizeY; ++thumbnailY) {
+			for (int thumbnailX = 0; thumbnailX < thumbnailSizeX; ++thumbnailX) {
+				final int toY = Math.min((thumbnailY + 1) * scale, sizeY);
+				final int toX = Math.min((thumbnailX + 1) * scale, sizeX);
+				long alpha = 0L, red = 0L, green = 0L, blue = 0L;
+				for (int y = thumbnailY * scale; y < toY; ++y) {
+					for (int x = thumbnailX * scale; x < toX; ++x) {
+						final int pixel = map[(y * sizeX) + x];
+						alpha += pixel >>> 24;
+						red += (pixel >>> 16) & 0xFF;
+						green += (pixel >>> 8) & 0xFF;
+						blue += pixel & 0xFF;
+					}
+				}
+				final long count = (long) (toY - (thumbnailY * scale)) * (toX - (thumbnailX * scale));
+				thumbnail[(thumbnailY * thumbnailSizeX) + thumbnailX] = (int) (((alpha / count) << 24)
+						| ((red / count) << 16) | ((green / count) << 8) | (blue / count));
+			}
+		}
+	}
+
+	/**
+	 * Adds every tile of the playable area of a world to its summary statistics,
+	 * reading the land and the water of each plate a row at a time.
+	 */
+	private static void summarize(final World world, final Summary summary, final Buffers buffers) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		for (int plateY = 0; plateY < world.getTectonicPlateCountY(); ++plateY) {
+			for (int plateX = 0; plateX < world.getTectonicPlateCountX(); ++plateX) {
+				final TectonicPlate tectonicPlate = world.getTectonicPlate(plateX, plateY);
+				if (tectonicPlate == null) {
+					continue;
+				}
+				final int fromX = Math.max(world.getPlayableMinX() - tectonicPlate.getCoordinateX(), 0);
+				final int toX = Math.min((world.getPlayableMaxX() - tectonicPlate.getCoordinateX()) + 1,
+						tectonicPlateSize);
+				final int fromY = Math.max(world.getPlayableMinY() - tectonicPlate.getCoordinateY(), 0);
+				final int toY = Math.min((world.getPlayableMaxY() - tectonicPlate.getCoordinateY()) + 1,
+						tectonicPlateSize);
+				for (int y = fromY; y < toY; ++y) {
+					tectonicPlate.getLayer(Layer.LAND).getRun(fromX, y, buffers.land, 0, toX - fromX);
+					tectonicPlate.getLayer(Layer.WATER).getRun(fromX, y, buffers.water, 0, toX - fromX);
+					for (int x = 0; x < (toX - fromX); ++x) {
+						summary.add(buffers.land[x], buffers.water[x]);
+					}
+				}
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads to preview worlds on: as many as processors, or
+	 * fewer if the worlds being generated at once wouldn't fit in the memory that
+	 * is free, but at least one.
+	 */
+	public int getThreadCount() {
+		final Runtime runtime = Runtime.getRuntime();
+		final long freeMemory = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		// Only the plates of the playable area are allocated and generated
+		final long playableSize = 1L << this.playableSizeExponent;
+		final long worldMemory = playableSize * playableSize * PreviewBatch.BYTES_PER_TILE;
+		return (int) Math.max(1L, Math.min(runtime.availableProcessors(), freeMemory / worldMemory));
+	}
+
+	/**
+	 * Previews the worlds of every seed from the first to the last, both
+	 * inclusive, writing their thumbnails and then the index of all of them.
+	 */
+	public void run(final long firstSeed, final long lastSeed) {
+		new File(this.folder).mkdirs();
+		final int threadCount = this.getThreadCount();
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Summary>> summaries = new ArrayList<>();
+			for (long seed = firstSeed; seed <= lastSeed; ++seed) {
+				final long worldSeed = seed;
+				summaries.add(executor.submit(() -> this.preview(worldSeed)));
+				if (seed == Long.MAX_VALUE) {
+					break;
+				}
+			}
+			try (final PrintWriter writer = new PrintWriter(
+					new FileWriter(new File(this.folder, "index.json"), FileHandler.DEFAULT_CHARSET))) {
+				writer.println("{");
+				writer.println(String.format(Locale.ROOT,
+						"\t\"parameters\": {\"terrainShape\": \"%s\", \"era\": \"%s\", "
+								+ "\"tectonicPlateSizeExponent\": %d, \"worldSizeExponent\": %d, "
+								+ "\"playableSizeExponent\": %d},",
+						this.terrainShape.getName(), this.era.getName(), this.tectonicPlateSizeExponent,
+						this.worldSizeExponent, this.playableSizeExponent));
+				writer.println("\t\"worlds\": [");
+				for (int index = 0; index < summaries.size(); ++index) {
+					final Summary summary = summaries.get(index).get();
+					writer.println("\t\t" + summary.toJson() + (index < (summaries.size() - 1) ? "," : ""));
+				}
+				writer.println("\t]");
+				writer.println("}");
+			} catch (final IOException exception) {
+				throw Exceptions.savingException(exception);
+			} catch (final InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			} catch (final ExecutionException exception) {
+				throw new RuntimeException(exception.getCause());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generates the world of a seed on the calling thread, writes its thumbnail and
+	 * returns its summary statistics.
+	 */
+	private Summary preview(final long seed) {
+		final long startTime = System.nanoTime();
+		final World world = new World(BigInteger.valueOf(seed).toByteArray(), this.terrainShape, this.era,
+				this.tectonicPlateSizeExponent, this.worldSizeExponent, this.crustThicknessFactor, this.seaLevelFactor,
+				this.roughnessFactor, this.axisTilt, this.distanceToSunFactor, this.playableSizeExponent);
+		new BasicGenerator(world).generate();
+		final Summary summary = new Summary();
+		summary.seed = seed;
+		summary.generationTime = System.nanoTime() - startTime;
+		summary.thumbnail = seed + ".png";
+		final int sizeX = world.getPlayableSizeX();
+		final int sizeY = world.getPlayableSizeY();
+		final int scale = Math.max(1,
+				((Math.max(sizeX, sizeY) + this.thumbnailSize) - 1) / this.thumbnailSize);
+		final int thumbnailSizeX = ((sizeX + scale) - 1) / scale;
+		final int thumbnailSizeY = ((sizeY + scale) - 1) / scale;
+		final Buffers buffers = PreviewBatch.BUFFERS.get();
+		buffers.ensureCapacity(sizeX * sizeY, thumbnailSizeX * thumbnailSizeY, world.getTectonicPlateSize());
+		new MapExporter(null).render(world, this.style, 0, sizeX, 0, sizeY, buffers.map);
+		PreviewBatch.downsample(buffers.map, sizeX, sizeY, scale, buffers.thumbnail, thumbnailSizeX, thumbnailSizeY);
+		final BufferedImage image = new BufferedImage(thumbnailSizeX, thumbnailSizeY, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, thumbnailSizeX, thumbnailSizeY, buffers.thumbnail, 0, thumbnailSizeX);
+		FileHandler.saveImage(image, this.folder, summary.thumbnail);
+		PreviewBatch.summarize(world, summary, buffers);
+		return summary;
+	}
+
+}
@@ -18,22 +18,20 @@
 
 package exe;
 
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigInteger;
 
-import javax.imageio.ImageIO;
-
 import entity.world.World;
-import entity.world.TectonicPlate.Tile;
+import exe.graphics.MapStyle;
 import exe.io.FileHandler;
+import exe.io.MapExporter;
+import exe.io.WorldCache;
 import generator.BasicGenerator;
 import type.Era;
 import type.TerrainShape;
-import util.math.IMath;
 
 /**
  * @author Javier Centeno Vega <jacenve@telefonica.net>
@@ -138,76 +136,31 @@ public class PrintWorld {
 		} else {
 			playableSizeExponent = Integer.parseInt(playableSizeExponentString);
 		}
+		System.out.println("Input the layers or the colorizers to print separated by commas or press enter to pick a"
+				+ " default value.");
+		final MapStyle style = MapStyle.getMapStyle(bufferedReader.readLine());
+		System.out.println("Input a path for the map or press enter to pick a default value.");
+		String mapPath;
+		final String mapPathString = bufferedReader.readLine();
+		if (mapPathString.isEmpty()) {
+			mapPath = String.join(File.separator, FileHandler.MAP_PATH, "world.png");
+		} else {
+			mapPath = mapPathString;
+		}
 		final World world = new World(seed.toByteArray(), terrainShape, era, tectonicPlateSizeExponent,
 				worldSizeExponent, crustThicknessFactor, seaLevelFactor, roughnessFactor, axisTilt, distanceToSunFactor,
 				playableSizeExponent);
 		final BasicGenerator generator = new BasicGenerator(world);
-		generator.generate();
-		PrintWorld.print(world, "world");
-	}
-
-	public static void print(final World world, final String fileName) {
-		final BufferedImage bufferedImage = new BufferedImage(world.getPlayableSizeX(), world.getPlayableSizeY(),
-				BufferedImage.TYPE_INT_ARGB);
-		for (int tileY = world.getPlayableMaxY(), pixelY = 0; tileY >= world.getPlayableMinY(); --tileY, ++pixelY) {
-			for (int tileX = world.getPlayableMinX(), pixelX = 0; tileX <= world.getPlayableMaxX(); ++tileX, ++pixelX) {
-				int color = 0;
-				final Tile tile = world.getTile(tileX, tileY);
-				final int localMagma = tile.getMagma();
-				final int localLand = tile.getLand();
-				final int localWater = tile.getWater();
-				final int localPollution = tile.getPollution();
-				final int localTemperature = tile.getCurrentTemperature();
-				if ((localMagma >= localLand) && (localMagma >= localWater) && (localMagma >= localPollution)) {
-					color |= 0xFF << 24;// alpha
-					color |= (0xFF - PrintWorld
-							.toUnsignedByteWithoutOverflow(localMagma - IMath.maximum(localLand, localWater))) << 16;// red
-					color |= 0x00 << 8;// green
-					color |= 0x00 << 0;// blue
-				} else if ((localLand >= localMagma) && (localLand >= localWater) && (localLand >= localPollution)) {
-					color |= 0xFF << 24;// alpha
-					color |= 0x00 << 16;// red
-					color |= (0xFF - PrintWorld.toUnsignedByteWithoutOverflow(localLand)) << 8;// green
-					color |= 0x00 << 0;// blue
-				} else if ((localWater >= localMagma) && (localWater >= localLand) && (localWater >= localPollution)) {
-					if (localTemperature < 0) {
-						color |= 0xFF << 24;// alpha
-						color |= 0xFF << 16;// red
-						color |= 0xFF << 8;// green
-						color |= 0xFF << 0;// blue
-					} else {
-						color |= 0xFF << 24;// alpha
-						color |= 0x00 << 16;// red
-						color |= 0x00 << 8;// green
-						color |= (0xFF - PrintWorld
-								.toUnsignedByteWithoutOverflow(localWater - IMath.maximum(localMagma, localLand))) << 0;// blue
-					}
-				} else if ((localPollution >= localMagma) && (localPollution >= localLand)
-						&& (localPollution >= localWater)) {
-					color |= 0xFF << 24;// alpha
-					color |= 0x00 << 16;// red
-					color |= 0x00 << 8;// green
-					color |= 0x00 << 0;// blue
-				}
-				bufferedImage.setRGB(pixelX, pixelY, color);
-			}
-		}
-		final File file = new File("C:\\Users\\jacen\\Desktop\\" + fileName + ".png");
-		try {
-			ImageIO.write(bufferedImage, "PNG", file);
-		} catch (final IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	public static int toUnsignedByteWithoutOverflow(final int x) {
-		if (x > 0xFF) {
-			return 0xFF;
-		}
-		if (x < 0) {
-			return 0;
+		// Worlds generated before with the same parameters are loaded instead
+		final WorldCache worldCache = new WorldCache(WorldCache.DEFAULT_MAXIMUM_SIZE, FileHandler.CACHE_PATH, "world");
+		final String key = WorldCache.getKey(generator.getVersion(), seed.toByteArray(), terrainShape, era,
+				tectonicPlateSizeExponent, worldSizeExponent, crustThicknessFactor, seaLevelFactor, roughnessFactor,
+				axisTilt, distanceToSunFactor, playableSizeExponent);
+		if (!worldCache.load(key, world)) {
+			generator.generate();
+			worldCache.store(key, world);
 		}
-		return x;
+		new MapExporter().export(world, style, mapPath);
 	}
 
 }
@@ -0,0 +1,219 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe;
+
+import java.util.concurrent.locks.LockSupport;
+
+import entity.world.World;
+import exe.graphics.IsometricRenderer;
+import exe.graphics.IsometricSnapshot;
+import util.TripleBuffer;
+
+/**
+ * Simulates a world on a thread of its own at a given number of ticks per
+ * second, and after every tick, or whenever the camera moves, captures what the
+ * isometric view shows into a snapshot which it publishes through a triple
+ * buffer. The thread that paints takes the latest snapshot whenever it wants,
+ * so neither thread ever waits for the other and ticks and frames take as long
+ * as they take independently.
+ *
+ * Once started, the world and the renderer, except for its camera, belong to
+ * the thread of the simulation until it is stopped.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class Simulation {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Longest time in nanoseconds the thread sleeps before checking whether the
+	 * camera moved.
+	 */
+	private static final long IDLE_TIME = 4000000L;
+	/**
+	 * Most ticks the simulation catches up on after falling behind, after which
+	 * the ticks it missed are skipped.
+	 */
+	private static final int MAXIMUM_CATCH_UP = 4;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * World simulated.
+	 */
+	private final World world;
+	/**
+	 * Renderer the snapshots are captured with.
+	 */
+	private final IsometricRenderer renderer;
+	/**
+	 * Snapshots handed to the thread that paints.
+	 */
+	private final TripleBuffer<IsometricSnapshot> snapshots = new TripleBuffer<>(IsometricSnapshot::new);
+	/**
+	 * Nanoseconds between ticks, or 0 while paused.
+	 */
+	private volatile long tickPeriod;
+	/**
+	 * Whether the thread keeps running.
+	 */
+	private volatile boolean running;
+	/**
+	 * Number of ticks simulated so far.
+	 */
+	private volatile long tickCount;
+	/**
+	 * Nanoseconds the last tick took.
+	 */
+	private volatile long tickTime;
+	/**
+	 * Thread the world is simulated on.
+	 */
+	private Thread thread;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a simulation of a world at a number of ticks per second, 0 being
+	 * paused.
+	 */
+	public Simulation(final World world, final IsometricRenderer renderer, final double ticksPerSecond) {
+		this.world = world;
+		this.renderer = renderer;
+		this.setTicksPerSecond(ticksPerSecond);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * Get the triple buffer the snapshots are published through. Only the thread
+	 * that paints may update it and read its front buffer.
+	 */
+	public TripleBuffer<IsometricSnapshot> getSnapshots() {
+		return this.snapshots;
+	}
+
+	public long getTickCount() {
+		return this.tickCount;
+	}
+
+	/**
+	 * Get the nanoseconds the last tick took.
+	 */
+	public long getTickTime() {
+		return this.tickTime;
+	}
+
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Sets the number of ticks per second, 0 being paused.
+	 */
+	public void setTicksPerSecond(final double ticksPerSecond) {
+		this.tickPeriod = ticksPerSecond <= 0.0d ? 0L : Math.max(1L, (long) (1000000000.0d / ticksPerSecond));
+		if (this.thread != null) {
+			LockSupport.unpark(this.thread);
+		}
+	}
+
+	/**
+	 * Starts simulating on a new thread.
+	 */
+	public synchronized void start() {
+		if (this.running) {
+			return;
+		}
+		this.running = true;
+		this.thread = new Thread(this::run, "Simulation");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stops simulating and waits for the thread to finish its tick.
+	 */
+	public synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		LockSupport.unpark(this.thread);
+		try {
+			this.thread.join();
+		} catch (final InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+		this.thread = null;
+	}
+
+	/**
+	 * Runs ticks when they are due and publishes snapshots after them or after the
+	 * camera moves, sleeping in between.
+	 */
+	private void run() {
+		this.publish();
+		long nextTick = System.nanoTime() + this.tickPeriod;
+		while (this.running) {
+			final long tickPeriod = this.tickPeriod;
+			final long now = System.nanoTime();
+			if ((tickPeriod > 0L) && ((now - nextTick) >= 0L)) {
+				this.world.tick();
+				this.tickTime = System.nanoTime() - now;
+				++this.tickCount;
+				nextTick += tickPeriod;
+				if ((now - nextTick) > (Simulation.MAXIMUM_CATCH_UP * tickPeriod)) {
+					nextTick = now + tickPeriod;
+				}
+				this.publish();
+			} else if (this.renderer.hasCameraMoved()) {
+				this.publish();
+			} else {
+				if (tickPeriod == 0L) {
+					nextTick = now;
+				}
+				final long idleTime = tickPeriod == 0L ? Simulation.IDLE_TIME
+						: Math.min(Simulation.IDLE_TIME, nextTick - now);
+				LockSupport.parkNanos(idleTime);
+			}
+		}
+	}
+
+	/**
+	 * Captures a snapshot and publishes it.
+	 */
+	private void publish() {
+		this.renderer.capture(this.snapshots.getBack(), this.tickCount);
+		this.snapshots.publish();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.math.BigInteger;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import type.Era;
+import type.MineralType;
+import type.SoilType;
+import type.TerrainShape;
+
+/**
+ * This class offers methods shared by the benchmarks of the game.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class Benchmarks {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates a world with the default parameters of PrintWorld and the given seed
+	 * and size exponents.
+	 */
+	public static World newWorld(final long seed, final int tectonicPlateSizeExponent, final int worldSizeExponent,
+			final int playableAreaSizeExponent) {
+		return new World(BigInteger.valueOf(seed).toByteArray(), TerrainShape.getTerrainShape("flat"),
+				Era.getEra("1700"), tectonicPlateSizeExponent, worldSizeExponent, 1.0d, 1.0d, 8.0d, 0.15d, 1.0d,
+				playableAreaSizeExponent);
+	}
+
+	/**
+	 * Computes a checksum of the magma, land, water, soil and minerals of every
+	 * tile of the given world. Two worlds with the same checksum are assumed to be
+	 * identical.
+	 */
+	public static long checksum(final World world) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		long checksum = 1L;
+		for (int plateY = 0; plateY < world.getTectonicPlateCountY(); ++plateY) {
+			for (int plateX = 0; plateX < world.getTectonicPlateCountX(); ++plateX) {
+				final TectonicPlate tectonicPlate = world.getTectonicPlate(plateX, plateY);
+				checksum = (checksum * 31L)
+						+ Benchmarks.checksum(tectonicPlate, tectonicPlateSize, Layer.MAGMA, Layer.LAND, Layer.WATER);
+				checksum = (checksum * 31L) + Benchmarks.soilChecksum(tectonicPlate, tectonicPlateSize);
+			}
+		}
+		return checksum;
+	}
+
+	/**
+	 * Computes a checksum of the given layers of every tile of a tectonic plate.
+	 */
+	public static long checksum(final TectonicPlate tectonicPlate, final int tectonicPlateSize,
+			final Layer... layers) {
+		long checksum = 1L;
+		for (final Layer layer : layers) {
+			for (int y = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x) {
+					checksum = (checksum * 31L) + tectonicPlate.getLayer(layer).get(x, y);
+				}
+			}
+		}
+		return checksum;
+	}
+
+	/**
+	 * Computes a checksum of the soil and the minerals of every tile of a tectonic
+	 * plate.
+	 */
+	public static long soilChecksum(final TectonicPlate tectonicPlate, final int tectonicPlateSize) {
+		long checksum = 1L;
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				final SoilType soilType = tectonicPlate.getSoilTypes().get(x, y);
+				final MineralType mineralType = tectonicPlate.getMineralTypes().get(x, y);
+				checksum = (checksum * 31L) + (soilType == null ? 0L : soilType.getId() + 1L);
+				checksum = (checksum * 31L) + (mineralType == null ? 0L : mineralType.getId() + 1L);
+			}
+		}
+		return checksum;
+	}
+
+	/**
+	 * Parses the argument at the given index as an integer, or returns the default
+	 * value if there's no such argument.
+	 */
+	public static int intArgument(final String[] args, final int index, final int defaultValue) {
+		return index < args.length ? Integer.parseInt(args[index]) : defaultValue;
+	}
+
+	/**
+	 * Parses the argument at the given index as a long, or returns the default
+	 * value if there's no such argument.
+	 */
+	public static long longArgument(final String[] args, final int index, final long defaultValue) {
+		return index < args.length ? Long.parseLong(args[index]) : defaultValue;
+	}
+
+}
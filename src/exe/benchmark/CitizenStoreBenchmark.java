@@ -0,0 +1,111 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import entity.city.Citizen;
+import entity.city.CitizenStore;
+import entity.city.CitizenStore.Need;
+import entity.world.World;
+import exe.io.FileHandler;
+
+/**
+ * Measures the memory a number of citizens take in the citizen store of a
+ * world, and passing over the food need and the age of every one of them
+ * column by column and through views of the citizens.
+ *
+ * Arguments: citizens and passes. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class CitizenStoreBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final int citizenCount = Benchmarks.intArgument(args, 0, 1000000);
+		final int passes = Benchmarks.intArgument(args, 1, 10);
+		final World world = Benchmarks.newWorld(0L, 4, 6, 4);
+		final CitizenStore citizenStore = world.getCitizenStore();
+		final long usedMemory = CitizenStoreBenchmark.getUsedMemory();
+		citizenStore.ensureCapacity(citizenCount);
+		for (int index = 0; index < citizenCount; ++index) {
+			citizenStore.add(null, null, null).setNeed(Need.FOOD, (byte) (index % 100));
+		}
+		final long storeMemory = CitizenStoreBenchmark.getUsedMemory() - usedMemory;
+		System.out.println("citizens\t" + citizenStore.getSize());
+		System.out.println("column bytes per citizen\t" + ((double) citizenStore.getMemoryUsage() / citizenCount));
+		System.out.println("heap bytes per citizen\t" + ((double) storeMemory / citizenCount));
+		// Warm up
+		CitizenStoreBenchmark.sumColumns(citizenStore);
+		CitizenStoreBenchmark.sumViews(citizenStore);
+		long startTime = System.nanoTime();
+		long columnSum = 0L;
+		for (int pass = 0; pass < passes; ++pass) {
+			columnSum += CitizenStoreBenchmark.sumColumns(citizenStore);
+		}
+		final long columnTime = System.nanoTime() - startTime;
+		startTime = System.nanoTime();
+		long viewSum = 0L;
+		for (int pass = 0; pass < passes; ++pass) {
+			viewSum += CitizenStoreBenchmark.sumViews(citizenStore);
+		}
+		final long viewTime = System.nanoTime() - startTime;
+		System.out.println("column pass ms\t" + ((columnTime / passes) / 1000000.0d));
+		System.out.println("view pass ms\t" + ((viewTime / passes) / 1000000.0d));
+		System.out.println("identical\t" + (columnSum == viewSum));
+	}
+
+	/**
+	 * Sums the food need and the age of every citizen reading the columns.
+	 */
+	private static long sumColumns(final CitizenStore citizenStore) {
+		final byte[] foodNeeds = citizenStore.getNeeds(Need.FOOD);
+		long sum = 0L;
+		for (int citizen = 0; citizen < citizenStore.getSize(); ++citizen) {
+			sum += foodNeeds[citizen] + citizenStore.getAge(citizen);
+		}
+		return sum;
+	}
+
+	/**
+	 * Sums the food need and the age of every citizen through views.
+	 */
+	private static long sumViews(final CitizenStore citizenStore) {
+		long sum = 0L;
+		for (final Citizen citizen : citizenStore) {
+			sum += citizen.getNeed(Need.FOOD) + citizen.getAge();
+		}
+		return sum;
+	}
+
+	/**
+	 * Get the bytes of heap in use after collecting garbage.
+	 */
+	private static long getUsedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
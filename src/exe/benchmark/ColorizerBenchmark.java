@@ -0,0 +1,132 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.TectonicPlate.Tile;
+import entity.world.World;
+import exe.graphics.Colorizer;
+import exe.graphics.LayerBlend;
+import exe.graphics.LayerComposite;
+import exe.graphics.MapStyle;
+import exe.io.FileHandler;
+import exe.io.MapExporter;
+import generator.BasicGenerator;
+
+/**
+ * Measures drawing the map of a generated world with every colorizer, with the
+ * composite of the highest layers and with a blend of several colorizers, and
+ * reports whether the soil colors of the tiles read from their table match the
+ * colors computed from their temperature and humidity.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class ColorizerBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Names of the colorizers measured.
+	 */
+	private static final String[] COLORIZERS = new String[] { "height", "waterDepth", "temperature", "humidity",
+			"pollution", "soilType", "mineralType", "plantType" };
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 12);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 11);
+		final int repetitions = Benchmarks.intArgument(args, 4, 5);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		final MapExporter mapExporter = new MapExporter(null);
+		System.out.println("style\tbest ms");
+		for (final String name : ColorizerBenchmark.COLORIZERS) {
+			ColorizerBenchmark.measure(mapExporter, world, name, Colorizer.getColorizer(name), repetitions);
+		}
+		ColorizerBenchmark.measure(mapExporter, world, "composite", new LayerComposite(), repetitions);
+		ColorizerBenchmark.measure(mapExporter, world, "blend",
+				new LayerBlend(0xFF000000).add(Colorizer.height(), 0xFF).add(Colorizer.waterDepth(), 0xFF)
+						.add(Colorizer.soilType(), 0x60).add(Colorizer.pollution(), 0xFF),
+				repetitions);
+		boolean identical = true;
+		for (int y = world.getPlayableMinY(); y <= world.getPlayableMaxY(); ++y) {
+			for (int x = world.getPlayableMinX(); x <= world.getPlayableMaxX(); ++x) {
+				final Tile tile = world.getTile(x, y);
+				identical &= tile.getSoilColor() == ColorizerBenchmark.computeSoilColor(tile.getCurrentTemperature(),
+						tile.getHumidity());
+			}
+		}
+		System.out.println("identical soil colors\t" + identical);
+	}
+
+	/**
+	 * Measures drawing the map of a world with a style and prints the best time.
+	 */
+	private static void measure(final MapExporter mapExporter, final World world, final String name,
+			final MapStyle style, final int repetitions) {
+		long bestTime = Long.MAX_VALUE;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			final long startTime = System.nanoTime();
+			mapExporter.render(world, style);
+			bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+		}
+		System.out.println(name + "\t" + (bestTime / 1000000L));
+	}
+
+	/**
+	 * Computes the soil color of a temperature and a humidity with the branches
+	 * the table of soil colors is filled with.
+	 */
+	private static int computeSoilColor(final int temperature, final int humidity) {
+		int deltaTemperature;
+		int deltaHumidity;
+		if (temperature <= -32) {
+			deltaTemperature = 0;
+		} else if (temperature >= 32) {
+			deltaTemperature = 16;
+		} else {
+			deltaTemperature = (temperature + 32) / 4;
+		}
+		if (humidity <= -48) {
+			deltaHumidity = 96;
+		} else if (humidity >= 0) {
+			deltaHumidity = 0;
+		} else {
+			deltaHumidity = -2 * humidity;
+		}
+		final int baseColor = 112 + deltaHumidity;
+		return 0xFF000000 | ((baseColor + deltaTemperature) << 16) | (baseColor << 8)
+				| (baseColor - deltaTemperature);
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import api.RandomGenerator;
+import entity.Entity;
+import entity.city.Citizen;
+import entity.world.Outbox;
+import entity.world.RandomStreams;
+import entity.world.TickScheduler;
+import entity.world.World;
+import exe.io.FileHandler;
+import type.Sickness;
+
+/**
+ * Measures ticking a world of citizens who meet at workplaces and infect each
+ * other, on a single thread and on pools of several sizes, and reports whether
+ * every run leaves the citizens with the same sicknesses.
+ *
+ * Arguments: seed, citizens, workplaces, citizens per workplace and ticks. All
+ * of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class DeterministicTickBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Sizes of the pools the world is ticked on, 0 being the calling thread.
+	 */
+	private static final int[] THREAD_COUNTS = new int[] { 0, 1, 2, 4, 8 };
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Place where some citizens spend the month together, spreading their
+	 * sicknesses as buildings do.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class Workplace extends Entity {
+
+		/**
+		 * Citizens that work here.
+		 */
+		private final Citizen[] citizens;
+
+		public Workplace(final World world, final Citizen[] citizens) {
+			super(world);
+			this.citizens = citizens;
+			world.getTickScheduler().register(TickScheduler.Phase.PRODUCTION, this);
+		}
+
+		@Override
+		public void tick(final Outbox outbox) {
+			Citizen.spreadSicknesses(this.citizens, this.getSimulationPRNG(), outbox);
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int citizenCount = Benchmarks.intArgument(args, 1, 100000);
+		final int workplaceCount = Benchmarks.intArgument(args, 2, 10000);
+		final int citizensPerWorkplace = Benchmarks.intArgument(args, 3, 16);
+		final int ticks = Benchmarks.intArgument(args, 4, 12);
+		long firstChecksum = 0L;
+		boolean identical = true;
+		for (final int threadCount : DeterministicTickBenchmark.THREAD_COUNTS) {
+			final ForkJoinPool pool = threadCount == 0 ? null : new ForkJoinPool(threadCount);
+			final World world = Benchmarks.newWorld(seed, 4, 6, 4);
+			world.getTickScheduler().setPool(pool);
+			final List<Citizen> citizens = DeterministicTickBenchmark.populate(world, citizenCount, workplaceCount,
+					citizensPerWorkplace);
+			final long startTime = System.nanoTime();
+			for (int tick = 0; tick < ticks; ++tick) {
+				world.tick();
+			}
+			final long totalTime = System.nanoTime() - startTime;
+			if (pool != null) {
+				pool.shutdown();
+			}
+			long checksum = 1L;
+			int infectedCount = 0;
+			for (final Citizen citizen : citizens) {
+				checksum = (checksum * 31L) + citizen.getCurrentSicknessAmount();
+				final Sickness[] sicknesses = citizen.getSicknesses();
+				for (final Sickness sickness : sicknesses) {
+					checksum = (checksum * 31L) + sickness.getId();
+				}
+				if (sicknesses.length > 0) {
+					++infectedCount;
+				}
+			}
+			if (threadCount == 0) {
+				firstChecksum = checksum;
+			} else {
+				identical &= checksum == firstChecksum;
+			}
+			System.out.println(threadCount + " threads ms per tick\t" + ((totalTime / ticks) / 1000000.0d));
+			System.out.println(threadCount + " threads citizens infected\t" + infectedCount);
+		}
+		System.out.println("identical\t" + identical);
+	}
+
+	/**
+	 * Creates citizens, a few of them sick, and workplaces where they meet.
+	 */
+	private static List<Citizen> populate(final World world, final int citizenCount, final int workplaceCount,
+			final int citizensPerWorkplace) {
+		final RandomGenerator PRNG = world.getPRNG(RandomStreams.Purpose.SIMULATION, 0L);
+		final List<Sickness> sicknesses = Sickness.getAllSicknesses();
+		final List<Citizen> citizens = new ArrayList<>(citizenCount);
+		for (int index = 0; index < citizenCount; ++index) {
+			final Citizen citizen = world.getCitizenStore().add(null, null, null);
+			if (PRNG.generateUniformInteger(100) == 0) {
+				citizen.infect(sicknesses.get(PRNG.generateUniformInteger(sicknesses.size())));
+			}
+			citizens.add(citizen);
+		}
+		for (int index = 0; index < workplaceCount; ++index) {
+			final Citizen[] workers = new Citizen[citizensPerWorkplace];
+			for (int worker = 0; worker < citizensPerWorkplace; ++worker) {
+				workers[worker] = citizens.get(PRNG.generateUniformInteger(citizenCount));
+			}
+			new Workplace(world, workers);
+		}
+		return citizens;
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+
+import entity.world.World;
+import exe.Exceptions;
+import exe.Industry;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+import generator.Pipeline;
+
+/**
+ * Measures the construction and the generation of worlds for several
+ * combinations of size exponents and appends the results to a tab separated
+ * file, one line per combination, so that the results of different versions of
+ * the generator can be compared.
+ *
+ * Every combination is generated once to warm up the virtual machine and then
+ * the given number of times. The median time of the construction of the world
+ * and of its generation, the mean memory allocated by both and the peak heap
+ * used by the last repetition are reported.
+ *
+ * Arguments: seed, repetitions, path of the results file and any number of
+ * combinations written as tectonic plate size exponent, world size exponent and
+ * playable area size exponent separated by colons, such as 5:10:8. All of them
+ * are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class GenerationBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Combinations of size exponents measured when none are given.
+	 */
+	private static final String[] DEFAULT_COMBINATIONS = new String[] { "4:10:8", "5:10:8", "5:11:9", "5:12:10",
+			"6:12:10" };
+	/**
+	 * Header of the results file.
+	 */
+	private static final String HEADER = "industry version\tgenerator version\tseed\ttectonic plate size exponent\t"
+			+ "world size exponent\tplayable area size exponent\tconstruction ms\tgeneration ms\tallocated KiB\t"
+			+ "peak heap KiB\tchecksum";
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int repetitions = Benchmarks.intArgument(args, 1, 5);
+		final String path = args.length > 2 ? args[2] : "generation-benchmark.tsv";
+		final String[] combinations = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length)
+				: GenerationBenchmark.DEFAULT_COMBINATIONS;
+		final File file = new File(path);
+		final boolean newFile = !file.exists() || file.length() == 0L;
+		try (final PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+			if (newFile) {
+				writer.println(GenerationBenchmark.HEADER);
+			}
+			System.out.println(GenerationBenchmark.HEADER);
+			for (final String combination : combinations) {
+				final String[] exponents = combination.split(":");
+				final String line = GenerationBenchmark.measure(seed, repetitions, Integer.parseInt(exponents[0]),
+						Integer.parseInt(exponents[1]), Integer.parseInt(exponents[2]));
+				writer.println(line);
+				writer.flush();
+				System.out.println(line);
+			}
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+	/**
+	 * Measures the construction and the generation of a world with the given
+	 * parameters and returns a line of the results file.
+	 */
+	private static String measure(final long seed, final int repetitions, final int tectonicPlateSizeExponent,
+			final int worldSizeExponent, final int playableAreaSizeExponent) {
+		// Warm up
+		final World warmUpWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		final BasicGenerator warmUpGenerator = new BasicGenerator(warmUpWorld);
+		warmUpGenerator.generate();
+		final String generatorVersion = warmUpGenerator.getVersion();
+		final long checksum = Benchmarks.checksum(warmUpWorld);
+		final long[] constructionTimes = new long[repetitions];
+		final long[] generationTimes = new long[repetitions];
+		long allocatedBytes = 0L;
+		long peakHeap = 0L;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			System.gc();
+			GenerationBenchmark.resetPeakHeap();
+			final long startAllocatedBytes = Pipeline.getAllocatedBytes();
+			long startTime = System.nanoTime();
+			final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+					playableAreaSizeExponent);
+			constructionTimes[repetition] = System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			new BasicGenerator(world).generate();
+			generationTimes[repetition] = System.nanoTime() - startTime;
+			allocatedBytes += Pipeline.getAllocatedBytes() - startAllocatedBytes;
+			peakHeap = GenerationBenchmark.getPeakHeap();
+		}
+		return Industry.VERSION + "\t" + generatorVersion + "\t" + seed + "\t" + tectonicPlateSizeExponent + "\t"
+				+ worldSizeExponent + "\t" + playableAreaSizeExponent + "\t"
+				+ (GenerationBenchmark.median(constructionTimes) / 1000000L) + "\t"
+				+ (GenerationBenchmark.median(generationTimes) / 1000000L) + "\t"
+				+ ((allocatedBytes / repetitions) >> 10) + "\t" + (peakHeap >> 10) + "\t" + checksum;
+	}
+
+	/**
+	 * Get the median of the given times.
+	 */
+	private static long median(final long[] times) {
+		final long[] sortedTimes = times.clone();
+		Arrays.sort(sortedTimes);
+		return sortedTimes[sortedTimes.length / 2];
+	}
+
+	/**
+	 * Resets the peak usage of every memory pool of the heap.
+	 */
+	private static void resetPeakHeap() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Get the sum of the peak usage of every memory pool of the heap since it was
+	 * last reset.
+	 */
+	private static long getPeakHeap() {
+		long peakHeap = 0L;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peakHeap += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peakHeap;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.World;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+
+/**
+ * Measures how the generation of a world scales with the number of cores the
+ * basic generator runs on, from one core up to the given maximum.
+ *
+ * Every run generates the same world and its checksum is compared against the
+ * one generated on the calling thread, so any difference between the parallel
+ * and the sequential generation is reported.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent, maximum number of cores and repetitions per number of
+ * cores. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class GeneratorScalingBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 8);
+		final int maximumCores = Benchmarks.intArgument(args, 4, Runtime.getRuntime().availableProcessors());
+		final int repetitions = Benchmarks.intArgument(args, 5, 3);
+		// The sequential generation is the reference for both time and result
+		final World referenceWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		long startTime = System.nanoTime();
+		new BasicGenerator(referenceWorld).generate();
+		final long referenceTime = System.nanoTime() - startTime;
+		final long referenceChecksum = Benchmarks.checksum(referenceWorld);
+		System.out.println("cores\tbest ms\tspeedup\tidentical");
+		System.out.println("seq\t" + (referenceTime / 1000000L) + "\t1.00\ttrue");
+		for (int cores = 1; cores <= maximumCores; ++cores) {
+			final ForkJoinPool pool = new ForkJoinPool(cores);
+			long bestTime = Long.MAX_VALUE;
+			boolean identical = true;
+			for (int repetition = 0; repetition < repetitions; ++repetition) {
+				final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+						playableAreaSizeExponent);
+				startTime = System.nanoTime();
+				new BasicGenerator(world, pool).generate();
+				bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+				identical &= Benchmarks.checksum(world) == referenceChecksum;
+			}
+			pool.shutdown();
+			System.out.println(cores + "\t" + (bestTime / 1000000L) + "\t"
+					+ String.format("%.2f", (double) referenceTime / (double) bestTime) + "\t" + identical);
+		}
+	}
+
+}
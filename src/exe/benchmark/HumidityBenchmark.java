@@ -0,0 +1,179 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+import generator.CoastProfile;
+import generator.DistanceTransform;
+import generator.Interpolation;
+import generator.Kernel;
+
+/**
+ * Compares the humidity pass of the basic generator, which adds the profile of
+ * a coast at the distance of every tile to the closest flooded tile, against
+ * stamping a blob around every flooded tile, on the flooded tiles of a
+ * generated world.
+ *
+ * Reports the time each of them takes and how much the water levels they give
+ * differ, as the mean and maximum difference and the share of tiles that get a
+ * different level.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class HumidityBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final int repetitions = Benchmarks.intArgument(args, 4, 3);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world).generate();
+		// We gather the land and the flooded tiles of the playable area
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int sizeX = world.getTectonicPlateCountX() * tectonicPlateSize;
+		final int sizeY = world.getTectonicPlateCountY() * tectonicPlateSize;
+		final int[] land = new int[sizeX * sizeY];
+		final int[] water = new int[sizeX * sizeY];
+		final boolean[] flooded = new boolean[sizeX * sizeY];
+		int floodedCount = 0;
+		for (int plateY = 0; plateY < world.getTectonicPlateCountY(); ++plateY) {
+			for (int plateX = 0; plateX < world.getTectonicPlateCountX(); ++plateX) {
+				final TectonicPlate tectonicPlate = world.getTectonicPlate(plateX, plateY);
+				for (int y = 0; y < tectonicPlateSize; ++y) {
+					for (int x = 0; x < tectonicPlateSize; ++x) {
+						final int index = (((plateY * tectonicPlateSize) + y) * sizeX) + (plateX * tectonicPlateSize)
+								+ x;
+						land[index] = tectonicPlate.getLayer(Layer.LAND).get(x, y);
+						water[index] = tectonicPlate.getLayer(Layer.WATER).get(x, y);
+						flooded[index] = water[index] >= land[index];
+						floodedCount += flooded[index] ? 1 : 0;
+					}
+				}
+			}
+		}
+		final Kernel kernel = new Kernel(Interpolation.SMOOTHSTEP, tectonicPlateSize, tectonicPlateSize);
+		System.out.println("tiles\t" + (sizeX * sizeY));
+		System.out.println("flooded\t" + floodedCount);
+		System.out.println("radius\t" + kernel.getRadius());
+		// Distance transform
+		long bestTime = Long.MAX_VALUE;
+		int[] transformed = null;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			final long startTime = System.nanoTime();
+			transformed = HumidityBenchmark.transform(land, flooded, world.getBaseWater(), sizeX, sizeY, kernel);
+			bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+		}
+		System.out.println("transform ms\t" + (bestTime / 1000000L));
+		// Stamps
+		bestTime = Long.MAX_VALUE;
+		int[] stamped = null;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			final long startTime = System.nanoTime();
+			stamped = HumidityBenchmark.stamp(land, flooded, world.getBaseWater(), sizeX, sizeY, kernel);
+			bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+		}
+		System.out.println("stamps ms\t" + (bestTime / 1000000L));
+		// Differences between both
+		long totalDifference = 0;
+		int maximumDifference = 0;
+		int differentCount = 0;
+		boolean matchesGenerator = true;
+		for (int index = 0; index < (sizeX * sizeY); ++index) {
+			final int difference = Math.abs(transformed[index] - stamped[index]);
+			totalDifference += difference;
+			maximumDifference = Math.max(maximumDifference, difference);
+			differentCount += difference != 0 ? 1 : 0;
+			matchesGenerator &= flooded[index] || (transformed[index] == water[index]);
+		}
+		System.out.println("mean difference\t" + String.format("%.3f", (double) totalDifference / (sizeX * sizeY)));
+		System.out.println("maximum difference\t" + maximumDifference);
+		System.out.println("different tiles\t" + String.format("%.2f%%", (100.0d * differentCount) / (sizeX * sizeY)));
+		System.out.println("matches generator\t" + matchesGenerator);
+	}
+
+	/**
+	 * Water level of every tile that isn't flooded, from the distance to the
+	 * closest flooded tile.
+	 */
+	private static int[] transform(final int[] land, final boolean[] flooded, final int baseWater, final int sizeX,
+			final int sizeY, final Kernel kernel) {
+		final int[] distances = new int[sizeX * sizeY];
+		for (int index = 0; index < (sizeX * sizeY); ++index) {
+			distances[index] = flooded[index] ? 0 : DistanceTransform.INFINITY;
+		}
+		DistanceTransform.transform(distances, sizeX, sizeY);
+		final CoastProfile profile = new CoastProfile(kernel);
+		final int[] water = new int[sizeX * sizeY];
+		for (int index = 0; index < (sizeX * sizeY); ++index) {
+			if (!flooded[index]) {
+				water[index] = (int) Math.min((long) baseWater + profile.at(distances[index]), land[index] - 1);
+			}
+		}
+		return water;
+	}
+
+	/**
+	 * Water level of every tile that isn't flooded, from a blob stamped around
+	 * every flooded tile.
+	 */
+	private static int[] stamp(final int[] land, final boolean[] flooded, final int baseWater, final int sizeX,
+			final int sizeY, final Kernel kernel) {
+		final int radius = kernel.getRadius();
+		final long[] humidity = new long[sizeX * sizeY];
+		for (int centerY = 0; centerY < sizeY; ++centerY) {
+			for (int centerX = 0; centerX < sizeX; ++centerX) {
+				if (!flooded[(centerY * sizeX) + centerX]) {
+					continue;
+				}
+				final int fromX = Math.max(centerX - radius, 0);
+				final int toX = Math.min(centerX + radius, sizeX - 1);
+				for (int y = Math.max(centerY - radius, 0); y <= Math.min(centerY + radius, sizeY - 1); ++y) {
+					for (int x = fromX; x <= toX; ++x) {
+						humidity[(y * sizeX) + x] += kernel.at(centerX - x, centerY - y);
+					}
+				}
+			}
+		}
+		final int[] water = new int[sizeX * sizeY];
+		for (int index = 0; index < (sizeX * sizeY); ++index) {
+			if (!flooded[index]) {
+				water[index] = (int) Math.min(baseWater + humidity[index], land[index] - 1);
+			}
+		}
+		return water;
+	}
+
+}
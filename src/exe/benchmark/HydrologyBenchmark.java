@@ -0,0 +1,126 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+import generator.Hydrology;
+
+/**
+ * Measures the hydrology of the land of a generated world: the priority flood
+ * that fills its depressions, and the accumulation of the flow of its
+ * watersheds on the calling thread and on a pool.
+ *
+ * Reports the time each of them takes, the number of watersheds, lake tiles
+ * and river tiles, and whether both accumulations are the same.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class HydrologyBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final int repetitions = Benchmarks.intArgument(args, 4, 3);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world).newPipeline().remove("hydrology").run();
+		// We gather the land of the playable area
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int sizeX = world.getTectonicPlateCountX() * tectonicPlateSize;
+		final int sizeY = world.getTectonicPlateCountY() * tectonicPlateSize;
+		final int[] land = new int[sizeX * sizeY];
+		for (int plateY = 0; plateY < world.getTectonicPlateCountY(); ++plateY) {
+			for (int plateX = 0; plateX < world.getTectonicPlateCountX(); ++plateX) {
+				final TectonicPlate tectonicPlate = world.getTectonicPlate(plateX, plateY);
+				for (int y = 0; y < tectonicPlateSize; ++y) {
+					for (int x = 0; x < tectonicPlateSize; ++x) {
+						final int index = (((plateY * tectonicPlateSize) + y) * sizeX) + (plateX * tectonicPlateSize)
+								+ x;
+						land[index] = tectonicPlate.getLayer(Layer.LAND).get(x, y);
+					}
+				}
+			}
+		}
+		System.out.println("tiles\t" + (sizeX * sizeY));
+		final ForkJoinPool pool = new ForkJoinPool();
+		long bestFloodTime = Long.MAX_VALUE;
+		long bestSequentialTime = Long.MAX_VALUE;
+		long bestParallelTime = Long.MAX_VALUE;
+		Hydrology sequential = null;
+		Hydrology parallel = null;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			// Flood
+			long startTime = System.nanoTime();
+			sequential = new Hydrology(land.clone(), sizeX, sizeY);
+			sequential.flood(world.getBaseWater());
+			bestFloodTime = Math.min(bestFloodTime, System.nanoTime() - startTime);
+			parallel = new Hydrology(land.clone(), sizeX, sizeY);
+			parallel.flood(world.getBaseWater());
+			// Accumulation on the calling thread
+			startTime = System.nanoTime();
+			for (int watershed = 1; watershed <= sequential.getWatershedCount(); ++watershed) {
+				sequential.accumulate(watershed);
+			}
+			bestSequentialTime = Math.min(bestSequentialTime, System.nanoTime() - startTime);
+			// Accumulation on the pool
+			final Hydrology pooled = parallel;
+			startTime = System.nanoTime();
+			pool.submit(() -> IntStream.rangeClosed(1, pooled.getWatershedCount()).parallel()
+					.forEach(pooled::accumulate)).join();
+			bestParallelTime = Math.min(bestParallelTime, System.nanoTime() - startTime);
+		}
+		pool.shutdown();
+		final int riverArea = Math.max((tectonicPlateSize * tectonicPlateSize) / 4, 1);
+		int lakeCount = 0;
+		int riverCount = 0;
+		boolean identical = true;
+		for (int index = 0; index < (sizeX * sizeY); ++index) {
+			lakeCount += sequential.getSurface(index) > land[index] ? 1 : 0;
+			riverCount += sequential.getAccumulation(index) >= riverArea ? 1 : 0;
+			identical &= sequential.getAccumulation(index) == parallel.getAccumulation(index);
+		}
+		System.out.println("watersheds\t" + sequential.getWatershedCount());
+		System.out.println("lake tiles\t" + lakeCount);
+		System.out.println("river tiles\t" + riverCount);
+		System.out.println("flood ms\t" + (bestFloodTime / 1000000L));
+		System.out.println("accumulation ms\t" + (bestSequentialTime / 1000000L));
+		System.out.println("parallel accumulation ms\t" + (bestParallelTime / 1000000L));
+		System.out.println("identical\t" + identical);
+	}
+
+}
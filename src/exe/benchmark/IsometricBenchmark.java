@@ -0,0 +1,121 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.World;
+import exe.graphics.IsometricRenderer;
+import exe.graphics.IsometricSnapshot;
+import exe.graphics.SpriteAtlas;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+
+/**
+ * Measures drawing whole frames of the isometric view of a generated world
+ * while scrolling across it, and repainting only the rectangle where a tile
+ * changed, and reports whether the repainted frame matches a whole frame drawn
+ * after the change.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent, frames, view width and view height. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class IsometricBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final int frames = Benchmarks.intArgument(args, 4, 100);
+		final int width = Benchmarks.intArgument(args, 5, 1280);
+		final int height = Benchmarks.intArgument(args, 6, 720);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		final IsometricRenderer renderer = new IsometricRenderer(world, SpriteAtlas.createTiles());
+		renderer.setSize(width, height);
+		final int centerX = (world.getPlayableMinX() + world.getPlayableMaxX()) / 2;
+		final int centerY = (world.getPlayableMinY() + world.getPlayableMaxY()) / 2;
+		renderer.centerOn(centerX, centerY);
+		final BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		// Warm up and then scroll a step per frame
+		IsometricBenchmark.draw(renderer, frame, null);
+		long startTime = System.nanoTime();
+		for (int step = 0; step < frames; ++step) {
+			renderer.scroll(7, 3);
+			IsometricBenchmark.draw(renderer, frame, null);
+		}
+		final long scrollingTime = System.nanoTime() - startTime;
+		System.out.println("tiles in view\t" + renderer.getTileCount());
+		System.out.println("scrolling ms per frame\t" + ((scrollingTime / frames) / 1000000.0d));
+		startTime = System.nanoTime();
+		for (int step = 0; step < frames; ++step) {
+			IsometricBenchmark.draw(renderer, frame, null);
+		}
+		final long stillTime = System.nanoTime() - startTime;
+		System.out.println("still ms per frame\t" + ((stillTime / frames) / 1000000.0d));
+		// Raise the land of the tile at the center of the view
+		renderer.centerOn(centerX, centerY);
+		final IsometricSnapshot drawn = new IsometricSnapshot();
+		renderer.capture(drawn, 0L);
+		IsometricBenchmark.draw(renderer, frame, null);
+		world.getTile(centerX, centerY).addLand(64);
+		startTime = System.nanoTime();
+		final IsometricSnapshot snapshot = new IsometricSnapshot();
+		renderer.capture(snapshot, 1L);
+		final Rectangle changes = snapshot.getChanges(drawn);
+		IsometricBenchmark.draw(renderer, frame, changes);
+		final long changeTime = System.nanoTime() - startTime;
+		System.out.println("changed rectangle\t" + changes.width + "x" + changes.height);
+		System.out.println("changed ms\t" + (changeTime / 1000000.0d));
+		final BufferedImage expected = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		IsometricBenchmark.draw(renderer, expected, null);
+		System.out.println("identical\t" + Arrays.equals(((DataBufferInt) frame.getRaster().getDataBuffer()).getData(),
+				((DataBufferInt) expected.getRaster().getDataBuffer()).getData()));
+	}
+
+	/**
+	 * Draws the view into an image, clipped to a rectangle unless it is null.
+	 */
+	private static void draw(final IsometricRenderer renderer, final BufferedImage image, final Rectangle clip) {
+		final Graphics2D graphics = image.createGraphics();
+		if (clip != null) {
+			graphics.setClip(clip);
+		}
+		renderer.render(graphics);
+		graphics.dispose();
+	}
+
+}
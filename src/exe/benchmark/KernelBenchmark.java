@@ -0,0 +1,138 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import util.integermatrix.Kernels;
+import util.integermatrix.ScalarKernels;
+
+/**
+ * Measures the kernels used by the bulk operations of integer matrices against
+ * the scalar kernels on arrays of every width, and reports whether both produce
+ * the same results. The vector kernels are only measured if they're built and
+ * the jdk.incubator.vector module is added, as the README explains.
+ *
+ * Arguments: size of the arrays and repetitions. Both of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class KernelBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		final int size = Benchmarks.intArgument(args, 0, 1 << 20);
+		final int repetitions = Benchmarks.intArgument(args, 1, 200);
+		final Kernels kernels = Kernels.getKernels();
+		final Kernels scalarKernels = new ScalarKernels();
+		final SplittableRandom random = new SplittableRandom(0L);
+		final byte[] bytes = new byte[size];
+		final short[] shorts = new short[size];
+		final int[] ints = new int[size];
+		for (int i = 0; i < size; ++i) {
+			ints[i] = random.nextInt(-64, 64);
+			shorts[i] = (short) ints[i];
+			bytes[i] = (byte) ints[i];
+		}
+		System.out.println("kernels\t" + kernels.getName());
+		System.out.println("operation\twidth\tkernels ms\tscalar ms\tidentical");
+		for (final Kernels measuredKernels : new Kernels[] { kernels, scalarKernels }) {
+			// Warm up both kernels before measuring either of them
+			KernelBenchmark.run(measuredKernels, bytes.clone(), shorts.clone(), ints.clone(), repetitions);
+		}
+		final long[] times = KernelBenchmark.run(kernels, bytes.clone(), shorts.clone(), ints.clone(), repetitions);
+		final byte[] scalarBytes = bytes.clone();
+		final short[] scalarShorts = shorts.clone();
+		final int[] scalarInts = ints.clone();
+		final long[] scalarTimes = KernelBenchmark.run(scalarKernels, scalarBytes, scalarShorts, scalarInts,
+				repetitions);
+		final byte[] vectorBytes = bytes.clone();
+		final short[] vectorShorts = shorts.clone();
+		final int[] vectorInts = ints.clone();
+		KernelBenchmark.run(kernels, vectorBytes, vectorShorts, vectorInts, repetitions);
+		final boolean identical = Arrays.equals(vectorBytes, scalarBytes) && Arrays.equals(vectorShorts, scalarShorts)
+				&& Arrays.equals(vectorInts, scalarInts);
+		final String[] operations = new String[] { "add", "set where at most", "minimum/maximum" };
+		final String[] widths = new String[] { "byte", "short", "int" };
+		for (int operation = 0; operation < operations.length; ++operation) {
+			for (int width = 0; width < widths.length; ++width) {
+				final int index = (operation * widths.length) + width;
+				System.out.println(operations[operation] + "\t" + widths[width] + "\t" + (times[index] / 1000000L)
+						+ "\t" + (scalarTimes[index] / 1000000L) + "\t" + identical);
+			}
+		}
+	}
+
+	/**
+	 * Runs every operation on arrays of every width the given number of times and
+	 * returns the time taken by each operation and width. The operations keep the
+	 * numbers within the range of a byte so the arrays of every width hold the
+	 * same numbers.
+	 */
+	private static long[] run(final Kernels kernels, final byte[] bytes, final short[] shorts, final int[] ints,
+			final int repetitions) {
+		final long[] times = new long[9];
+		final byte[] otherBytes = bytes.clone();
+		final short[] otherShorts = shorts.clone();
+		final int[] otherInts = ints.clone();
+		long checksum = 0L;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			final int value = (repetition & 1) == 0 ? 1 : -1;
+			long startTime = System.nanoTime();
+			kernels.add(bytes, value);
+			times[0] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			kernels.add(shorts, value);
+			times[1] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			kernels.add(ints, value);
+			times[2] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			kernels.setWhereAtMost(bytes, otherBytes, -32, -32);
+			times[3] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			kernels.setWhereAtMost(shorts, otherShorts, -32, -32);
+			times[4] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			kernels.setWhereAtMost(ints, otherInts, -32, -32);
+			times[5] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			checksum += kernels.minimum(bytes) + kernels.maximum(bytes);
+			times[6] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			checksum += kernels.minimum(shorts) + kernels.maximum(shorts);
+			times[7] += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			checksum += kernels.minimum(ints) + kernels.maximum(ints);
+			times[8] += System.nanoTime() - startTime;
+		}
+		// Keep the reductions from being optimized away
+		if (checksum == Long.MIN_VALUE) {
+			System.out.println(checksum);
+		}
+		return times;
+	}
+
+}
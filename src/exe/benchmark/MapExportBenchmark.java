@@ -0,0 +1,138 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.TectonicPlate.Tile;
+import entity.world.World;
+import exe.graphics.LayerComposite;
+import exe.graphics.MapStyle;
+import exe.io.FileHandler;
+import exe.io.MapExporter;
+import generator.BasicGenerator;
+
+/**
+ * Measures the drawing of the map of a generated world by the map exporter, on
+ * the calling thread and on a pool, against drawing it a tile at a time, and
+ * reports whether all of them draw the same pixels.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class MapExportBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 12);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 11);
+		final int repetitions = Benchmarks.intArgument(args, 4, 5);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		final MapExporter sequentialExporter = new MapExporter(null);
+		final MapExporter parallelExporter = new MapExporter();
+		final MapStyle style = new LayerComposite();
+		final int[] reference = MapExportBenchmark.pixels(MapExportBenchmark.renderTiles(world));
+		long tileTime = Long.MAX_VALUE;
+		long sequentialTime = Long.MAX_VALUE;
+		long parallelTime = Long.MAX_VALUE;
+		boolean identical = true;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			long startTime = System.nanoTime();
+			MapExportBenchmark.renderTiles(world);
+			tileTime = Math.min(tileTime, System.nanoTime() - startTime);
+			startTime = System.nanoTime();
+			final BufferedImage sequentialImage = sequentialExporter.render(world, style);
+			sequentialTime = Math.min(sequentialTime, System.nanoTime() - startTime);
+			startTime = System.nanoTime();
+			final BufferedImage parallelImage = parallelExporter.render(world, style);
+			parallelTime = Math.min(parallelTime, System.nanoTime() - startTime);
+			identical &= Arrays.equals(MapExportBenchmark.pixels(sequentialImage), reference)
+					&& Arrays.equals(MapExportBenchmark.pixels(parallelImage), reference);
+		}
+		System.out.println("pixels\t" + reference.length);
+		System.out.println("tiles ms\t" + (tileTime / 1000000L));
+		System.out.println("sequential ms\t" + (sequentialTime / 1000000L));
+		System.out.println("parallel ms\t" + (parallelTime / 1000000L));
+		System.out.println("identical\t" + identical);
+	}
+
+	/**
+	 * Get the pixels of an image.
+	 */
+	private static int[] pixels(final BufferedImage image) {
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Draws the map of a world a tile at a time with the same colors as the map
+	 * exporter.
+	 */
+	private static BufferedImage renderTiles(final World world) {
+		final BufferedImage image = new BufferedImage(world.getPlayableSizeX(), world.getPlayableSizeY(),
+				BufferedImage.TYPE_INT_ARGB);
+		for (int tileY = world.getPlayableMaxY(), pixelY = 0; tileY >= world.getPlayableMinY(); --tileY, ++pixelY) {
+			for (int tileX = world.getPlayableMinX(), pixelX = 0; tileX <= world.getPlayableMaxX(); ++tileX, ++pixelX) {
+				final Tile tile = world.getTile(tileX, tileY);
+				final int magma = tile.getMagma();
+				final int land = tile.getLand();
+				final int water = tile.getWater();
+				final int pollution = tile.getPollution();
+				int color;
+				if ((magma >= land) && (magma >= water) && (magma >= pollution)) {
+					color = 0xFF000000 | ((0xFF - MapExportBenchmark.clamp(magma - Math.max(land, water))) << 16);
+				} else if ((land >= magma) && (land >= water) && (land >= pollution)) {
+					color = 0xFF000000 | ((0xFF - MapExportBenchmark.clamp(land)) << 8);
+				} else if ((water >= magma) && (water >= land) && (water >= pollution)) {
+					if (tile.getCurrentTemperature() < 0) {
+						color = 0xFFFFFFFF;
+					} else {
+						color = 0xFF000000 | (0xFF - MapExportBenchmark.clamp(water - Math.max(magma, land)));
+					}
+				} else {
+					color = 0xFF000000;
+				}
+				image.setRGB(pixelX, pixelY, color);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Clamps a number to the range of an unsigned byte.
+	 */
+	private static int clamp(final int x) {
+		return Math.min(Math.max(x, 0), 0xFF);
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.World;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+import generator.Pipeline;
+
+/**
+ * Runs the pipeline of the basic generator and reports the level, the time and
+ * the memory allocated by each of its stages. Then writes a checkpoint after the
+ * water stage, resumes a new world from it and reports whether the result is
+ * the same as the one of the whole pipeline.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and path of the folder of the checkpoints. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class PipelineBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final String path = args.length > 4 ? args[4]
+				: String.join(File.separator, System.getProperty("java.io.tmpdir"), "industry.checkpoints");
+		final ForkJoinPool pool = new ForkJoinPool();
+		// Whole pipeline
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		final Pipeline pipeline = new BasicGenerator(world, pool).newPipeline().setCheckpointPath(path)
+				.checkpointAfter("water");
+		pipeline.run();
+		System.out.println("stage\tlevel\tms\tallocated KiB");
+		for (final Pipeline.Metrics metrics : pipeline.getMetrics()) {
+			System.out.println(metrics);
+		}
+		final long checksum = Benchmarks.checksum(world);
+		// Resumed pipeline
+		final World resumedWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		final Pipeline resumedPipeline = new BasicGenerator(resumedWorld, pool).newPipeline()
+				.setCheckpointPath(path);
+		resumedPipeline.resume("water");
+		for (final Pipeline.Metrics metrics : resumedPipeline.getMetrics()) {
+			System.out.println("resumed " + metrics);
+		}
+		System.out.println("identical\t" + (Benchmarks.checksum(resumedWorld) == checksum));
+		new File(path, "water.plates").delete();
+		new File(path).delete();
+		pool.shutdown();
+	}
+
+}
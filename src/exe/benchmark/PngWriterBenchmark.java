@@ -0,0 +1,106 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import entity.world.World;
+import exe.graphics.LayerComposite;
+import exe.graphics.MapStyle;
+import exe.io.FileHandler;
+import exe.io.MapExporter;
+import exe.io.PngWriter;
+import generator.BasicGenerator;
+
+/**
+ * Measures writing the map of a generated world with the streaming PNG writer
+ * in bands of the given number of rows against writing the whole image with
+ * ImageIO, and reports the size of both files, the memory held by the bands and
+ * whether the streamed file reads back as the same pixels.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and rows per band. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class PngWriterBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) throws IOException {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 12);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 11);
+		final int bandRows = Benchmarks.intArgument(args, 4, 64);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		final MapExporter mapExporter = new MapExporter();
+		final MapStyle style = new LayerComposite();
+		final int sizeX = world.getPlayableSizeX();
+		final int sizeY = world.getPlayableSizeY();
+		final File streamedFile = File.createTempFile("industry", ".png");
+		final File imageIOFile = File.createTempFile("industry", ".png");
+		// Streamed
+		long startTime = System.nanoTime();
+		final int[] pixels = new int[bandRows * sizeX];
+		try (final PngWriter pngWriter = new PngWriter(new BufferedOutputStream(new FileOutputStream(streamedFile)),
+				sizeX, sizeY, ForkJoinPool.commonPool(), Deflater.DEFAULT_COMPRESSION)) {
+			for (int fromRow = 0; fromRow < sizeY; fromRow += bandRows) {
+				final int toRow = Math.min(fromRow + bandRows, sizeY);
+				mapExporter.render(world, style, fromRow, toRow, pixels);
+				pngWriter.writeRows(pixels, toRow - fromRow);
+			}
+		}
+		final long streamedTime = System.nanoTime() - startTime;
+		// ImageIO
+		startTime = System.nanoTime();
+		final BufferedImage image = mapExporter.render(world, style);
+		ImageIO.write(image, "PNG", imageIOFile);
+		final long imageIOTime = System.nanoTime() - startTime;
+		final BufferedImage streamedImage = ImageIO.read(streamedFile);
+		final boolean identical = Arrays.equals(streamedImage.getRGB(0, 0, sizeX, sizeY, null, 0, sizeX),
+				image.getRGB(0, 0, sizeX, sizeY, null, 0, sizeX));
+		System.out.println("pixels\t" + ((long) sizeX * sizeY));
+		System.out.println("band KiB\t" + ((pixels.length * 4L) >> 10));
+		System.out.println("streamed ms\t" + (streamedTime / 1000000L));
+		System.out.println("streamed KiB\t" + (streamedFile.length() >> 10));
+		System.out.println("imageio ms\t" + (imageIOTime / 1000000L));
+		System.out.println("imageio KiB\t" + (imageIOFile.length() >> 10));
+		System.out.println("identical\t" + identical);
+		streamedFile.delete();
+		imageIOFile.delete();
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.World;
+import exe.Simulation;
+import exe.graphics.IsometricRenderer;
+import exe.graphics.IsometricSnapshot;
+import exe.graphics.SpriteAtlas;
+import exe.io.FileHandler;
+import generator.BasicGenerator;
+import util.TripleBuffer;
+
+/**
+ * Measures painting frames of the isometric view of a generated world from the
+ * snapshots of a simulation running on its own thread while scrolling, and
+ * reports the time of frames and ticks apart, and whether any snapshot painted
+ * mixed the date of one tick with the tick of another.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent, ticks per second, frames, view width and view height. All
+ * of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class SimulationBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Nanoseconds between frames.
+	 */
+	private static final long FRAME_PERIOD = 16000000L;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final int ticksPerSecond = Benchmarks.intArgument(args, 4, 100);
+		final int frames = Benchmarks.intArgument(args, 5, 200);
+		final int width = Benchmarks.intArgument(args, 6, 1280);
+		final int height = Benchmarks.intArgument(args, 7, 720);
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		// Ticks only advance the month, so that's what every snapshot is checked on
+		final int firstMonth = world.getDate().getMonth();
+		final IsometricRenderer renderer = new IsometricRenderer(world, SpriteAtlas.createTiles());
+		renderer.setSize(width, height);
+		renderer.centerOn((world.getPlayableMinX() + world.getPlayableMaxX()) / 2,
+				(world.getPlayableMinY() + world.getPlayableMaxY()) / 2);
+		final Simulation simulation = new Simulation(world, renderer, ticksPerSecond);
+		final TripleBuffer<IsometricSnapshot> snapshots = simulation.getSnapshots();
+		final IsometricSnapshot drawn = new IsometricSnapshot();
+		final BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		simulation.start();
+		long frameTime = 0L;
+		long longestFrameTime = 0L;
+		long tickTime = 0L;
+		int snapshotCount = 0;
+		int tornCount = 0;
+		int backwardsCount = 0;
+		final long startTime = System.nanoTime();
+		for (int step = 0; step < frames; ++step) {
+			if ((step % 4) == 0) {
+				renderer.scroll(7, 3);
+			}
+			final long frameStartTime = System.nanoTime();
+			if (snapshots.update()) {
+				final IsometricSnapshot snapshot = snapshots.getFront();
+				if (((firstMonth + snapshot.getTick()) % 12) != snapshot.getDate().getMonth()) {
+					++tornCount;
+				}
+				if (snapshot.getTick() < drawn.getTick()) {
+					++backwardsCount;
+				}
+				final Rectangle changes = snapshot.getChanges(drawn);
+				drawn.copy(snapshot);
+				if (changes != null) {
+					final Graphics2D graphics = frame.createGraphics();
+					graphics.setClip(changes);
+					renderer.draw(graphics, drawn);
+					graphics.dispose();
+				}
+				++snapshotCount;
+			}
+			final long frameEndTime = System.nanoTime();
+			frameTime += frameEndTime - frameStartTime;
+			longestFrameTime = Math.max(longestFrameTime, frameEndTime - frameStartTime);
+			tickTime += simulation.getTickTime();
+			final long nextFrameTime = frameStartTime + SimulationBenchmark.FRAME_PERIOD;
+			while ((System.nanoTime() - nextFrameTime) < 0L) {
+				Thread.onSpinWait();
+			}
+		}
+		final long totalTime = System.nanoTime() - startTime;
+		simulation.stop();
+		System.out.println("tiles in view\t" + drawn.getTileCount());
+		System.out.println("ticks\t" + simulation.getTickCount());
+		System.out.println("ticks per second\t" + ((simulation.getTickCount() * 1000000000.0d) / totalTime));
+		System.out.println("tick ms\t" + ((tickTime / frames) / 1000000.0d));
+		System.out.println("snapshots painted\t" + snapshotCount);
+		System.out.println("frame ms\t" + ((frameTime / frames) / 1000000.0d));
+		System.out.println("longest frame ms\t" + (longestFrameTime / 1000000.0d));
+		System.out.println("torn snapshots\t" + tornCount);
+		System.out.println("snapshots older than the one painted before\t" + backwardsCount);
+	}
+
+}
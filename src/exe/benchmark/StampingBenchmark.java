@@ -0,0 +1,95 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.Random;
+
+import generator.Interpolation;
+import generator.KernelCache;
+import generator.StampBatch;
+import util.integermatrix.IntegerMatrix;
+import util.integermatrix.SmallIntegerMatrix;
+
+/**
+ * Measures the strategies of a stamp batch on a square area split into square
+ * regions, with a number of blobs of the same radius and height at random
+ * centers. Every strategy must give the same layers, and any difference is
+ * reported.
+ *
+ * Arguments: seed, number of blobs, radius of the blobs, side of the regions,
+ * regions per side of the area and repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class StampingBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int blobs = Benchmarks.intArgument(args, 1, 4096);
+		final int radius = Benchmarks.intArgument(args, 2, 31);
+		final int size = Benchmarks.intArgument(args, 3, 63);
+		final int regions = Benchmarks.intArgument(args, 4, 8);
+		final int repetitions = Benchmarks.intArgument(args, 5, 3);
+		final Random random = new Random(seed);
+		final int side = size * regions;
+		final int[] centersX = new int[blobs];
+		final int[] centersY = new int[blobs];
+		for (int blob = 0; blob < blobs; ++blob) {
+			centersX[blob] = random.nextInt(side);
+			centersY[blob] = random.nextInt(side);
+		}
+		System.out.println("strategy\tbest ms\tidentical");
+		long referenceChecksum = 0L;
+		for (final StampBatch.Strategy strategy : StampBatch.Strategy.values()) {
+			long bestTime = Long.MAX_VALUE;
+			long checksum = 0L;
+			for (int repetition = 0; repetition < repetitions; ++repetition) {
+				final long startTime = System.nanoTime();
+				final StampBatch batch = new StampBatch(new KernelCache(1 << 22), strategy);
+				for (int blob = 0; blob < blobs; ++blob) {
+					batch.add(Interpolation.SMOOTHSTEP, centersX[blob], centersY[blob], radius, radius);
+				}
+				checksum = 1L;
+				for (int regionY = 0; regionY < regions; ++regionY) {
+					for (int regionX = 0; regionX < regions; ++regionX) {
+						final IntegerMatrix layer = new SmallIntegerMatrix(size, size);
+						batch.apply(layer, regionX * size, regionY * size, size);
+						for (int y = 0; y < size; ++y) {
+							for (int x = 0; x < size; ++x) {
+								checksum = (checksum * 31L) + layer.get(x, y);
+							}
+						}
+					}
+				}
+				bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+			}
+			if (strategy == StampBatch.Strategy.DIRECT) {
+				referenceChecksum = checksum;
+			}
+			System.out.println(strategy + "\t" + (bestTime / 1000000L) + "\t" + (checksum == referenceChecksum));
+		}
+	}
+
+}
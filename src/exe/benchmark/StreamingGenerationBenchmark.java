@@ -0,0 +1,138 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.io.FileHandler;
+import exe.io.PlateStore;
+import generator.BasicGenerator;
+
+/**
+ * Compares generating a world in bands of rows of plates spilled to a plate
+ * store against generating it in memory at once. Reports the time and the peak
+ * heap of each of them, the size of the store, and whether the plates read back
+ * from the store are the same as the ones generated in memory. Generation in
+ * bands has no hydrology, so neither has the one in memory. Also compares the
+ * plate at the center of a world generated in bands with the same plate of a
+ * world generated with hydrology, whose magma and land have to be the same, and
+ * reports how many of its tiles hydrology changes the water, soil or minerals
+ * of.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent, rows of plates per band and path of the store. All of
+ * them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class StreamingGenerationBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final int bandRows = Benchmarks.intArgument(args, 4, 1);
+		final String path = args.length > 5 ? args[5]
+				: String.join(File.separator, System.getProperty("java.io.tmpdir"), "industry.plates");
+		System.out.println("mode\tms\tpeak heap MiB");
+		// Generation in memory
+		System.gc();
+		StreamingGenerationBenchmark.resetPeakHeap();
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		long startTime = System.nanoTime();
+		new BasicGenerator(world).newPipeline().remove("hydrology").run();
+		long time = System.nanoTime() - startTime;
+		System.out.println("memory\t" + (time / 1000000L) + "\t" + (StreamingGenerationBenchmark.getPeakHeap() >> 20));
+		final long checksum = Benchmarks.checksum(world);
+		// Generation in bands
+		System.gc();
+		StreamingGenerationBenchmark.resetPeakHeap();
+		final World streamedWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		startTime = System.nanoTime();
+		try (final PlateStore plateStore = PlateStore.create(streamedWorld, path)) {
+			new BasicGenerator(streamedWorld).generate(bandRows, plateStore::write);
+		}
+		time = System.nanoTime() - startTime;
+		System.out.println("bands\t" + (time / 1000000L) + "\t" + (StreamingGenerationBenchmark.getPeakHeap() >> 20));
+		System.out.println("store MiB\t" + String.format("%.2f", new File(path).length() / (1024.0d * 1024.0d)));
+		try (final PlateStore plateStore = PlateStore.open(path)) {
+			plateStore.readAll(streamedWorld);
+		}
+		System.out.println("identical\t" + (Benchmarks.checksum(streamedWorld) == checksum));
+		new File(path).delete();
+		// Generation with hydrology
+		final World fullWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(fullWorld).generate();
+		final int plateX = fullWorld.getTectonicPlateCountX() / 2;
+		final int plateY = fullWorld.getTectonicPlateCountY() / 2;
+		final TectonicPlate streamedPlate = streamedWorld.getTectonicPlate(plateX, plateY);
+		final TectonicPlate fullPlate = fullWorld.getTectonicPlate(plateX, plateY);
+		final int tectonicPlateSize = fullWorld.getTectonicPlateSize();
+		System.out.println("plate terrain identical\t"
+				+ (Benchmarks.checksum(streamedPlate, tectonicPlateSize, Layer.MAGMA, Layer.LAND) == Benchmarks
+						.checksum(fullPlate, tectonicPlateSize, Layer.MAGMA, Layer.LAND)));
+		int hydrologyTiles = 0;
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				if ((streamedPlate.getLayer(Layer.WATER).get(x, y) != fullPlate.getLayer(Layer.WATER).get(x, y))
+						|| (streamedPlate.getSoilTypes().get(x, y) != fullPlate.getSoilTypes().get(x, y))
+						|| (streamedPlate.getMineralTypes().get(x, y) != fullPlate.getMineralTypes().get(x, y))) {
+					++hydrologyTiles;
+				}
+			}
+		}
+		System.out.println("plate tiles changed by hydrology\t" + hydrologyTiles);
+	}
+
+	private static void resetPeakHeap() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static long getPeakHeap() {
+		long peak = 0L;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.Entity;
+import entity.world.TickScheduler;
+import entity.world.TickScheduler.Phase;
+import entity.world.World;
+
+/**
+ * Measures ticking a world whose phases have entities that only work on their
+ * own state, first on a single thread and then with every phase concurrent, and
+ * reports how long each phase took and whether both runs left the entities in
+ * the same state.
+ *
+ * Arguments: entities per phase, work per entity and ticks. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class TickSchedulerBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Entity that scrambles a number of its own a number of times every tick.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class Workload extends Entity {
+
+		/**
+		 * Times the state is scrambled every tick.
+		 */
+		private final int work;
+		/**
+		 * Number scrambled.
+		 */
+		private long state;
+
+		public Workload(final World world, final int work, final long state) {
+			super(world);
+			this.work = work;
+			this.state = state;
+		}
+
+		@Override
+		public void tick() {
+			long state = this.state;
+			for (int step = 0; step < this.work; ++step) {
+				state ^= state << 13;
+				state ^= state >>> 7;
+				state ^= state << 17;
+			}
+			this.state = state;
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		final int entitiesPerPhase = Benchmarks.intArgument(args, 0, 100000);
+		final int work = Benchmarks.intArgument(args, 1, 200);
+		final int ticks = Benchmarks.intArgument(args, 2, 10);
+		final long sequentialChecksum = TickSchedulerBenchmark.run("sequential", null, entitiesPerPhase, work, ticks);
+		final long concurrentChecksum = TickSchedulerBenchmark.run("concurrent", ForkJoinPool.commonPool(),
+				entitiesPerPhase, work, ticks);
+		System.out.println("identical\t" + (sequentialChecksum == concurrentChecksum));
+	}
+
+	/**
+	 * Ticks a new world with the given entities on the given pool, or on the
+	 * calling thread if it is null, prints the time of every phase and returns a
+	 * checksum of the state of the entities.
+	 */
+	private static long run(final String name, final ForkJoinPool pool, final int entitiesPerPhase, final int work,
+			final int ticks) {
+		final World world = Benchmarks.newWorld(0L, 4, 6, 4);
+		final TickScheduler tickScheduler = world.getTickScheduler();
+		tickScheduler.setPool(pool);
+		final List<Workload> workloads = new ArrayList<>();
+		for (final Phase phase : Phase.values()) {
+			tickScheduler.setConcurrent(phase, true);
+			for (int index = 0; index < entitiesPerPhase; ++index) {
+				final Workload workload = new Workload(world, work, workloads.size() + 1L);
+				workloads.add(workload);
+				tickScheduler.register(phase, workload);
+			}
+		}
+		// Warm up
+		world.tick();
+		final long[] phaseTimes = new long[Phase.values().length];
+		final long startTime = System.nanoTime();
+		for (int tick = 0; tick < ticks; ++tick) {
+			world.tick();
+			for (final Phase phase : Phase.values()) {
+				phaseTimes[phase.ordinal()] += tickScheduler.getPhaseTime(phase);
+			}
+		}
+		final long totalTime = System.nanoTime() - startTime;
+		for (final Phase phase : Phase.values()) {
+			System.out.println(name + " " + phase.name().toLowerCase() + " ms per tick\t"
+					+ ((phaseTimes[phase.ordinal()] / ticks) / 1000000.0d));
+		}
+		System.out.println(name + " ms per tick\t" + ((totalTime / ticks) / 1000000.0d));
+		long checksum = 1L;
+		for (final Workload workload : workloads) {
+			checksum = (checksum * 31L) + workload.state;
+		}
+		return checksum;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.graphics.LayerComposite;
+import exe.graphics.MapStyle;
+import exe.io.FileHandler;
+import exe.io.TilePyramidExporter;
+import generator.BasicGenerator;
+
+/**
+ * Measures exporting the map of a generated world as a pyramid of tiles, then
+ * exporting it again unchanged and once more after raising the land of a single
+ * tile of the world, and reports how many tiles each export wrote and whether
+ * the last pyramid matches one exported from scratch into a folder next to it.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and path of the folder of the pyramid. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class TilePyramidBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 6);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 12);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 11);
+		final String path = args.length > 4 ? args[4]
+				: String.join(File.separator, System.getProperty("java.io.tmpdir"), "industry.tiles");
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		new BasicGenerator(world, ForkJoinPool.commonPool()).generate();
+		final TilePyramidExporter exporter = new TilePyramidExporter(ForkJoinPool.commonPool());
+		final MapStyle style = new LayerComposite();
+		System.out.println("maximum zoom\t" + TilePyramidExporter.getMaximumZoom(world));
+		System.out.println("export\tms\twritten tiles");
+		long startTime = System.nanoTime();
+		int writtenTiles = exporter.export(world, style, path);
+		System.out.println("first\t" + ((System.nanoTime() - startTime) / 1000000L) + "\t" + writtenTiles);
+		startTime = System.nanoTime();
+		writtenTiles = exporter.export(world, style, path);
+		System.out.println("unchanged\t" + ((System.nanoTime() - startTime) / 1000000L) + "\t" + writtenTiles);
+		final TectonicPlate tectonicPlate = world.getTectonicPlate(0, 0);
+		tectonicPlate.getLayer(Layer.LAND).add(0, 0, 1 << 10);
+		startTime = System.nanoTime();
+		writtenTiles = exporter.export(world, style, path);
+		System.out.println("one tile changed\t" + ((System.nanoTime() - startTime) / 1000000L) + "\t" + writtenTiles);
+		final File freshFolder = new File(path + ".fresh");
+		TilePyramidBenchmark.delete(freshFolder);
+		exporter.export(world, style, freshFolder.getPath());
+		System.out.println("identical\t" + TilePyramidBenchmark.equalTiles(new File(path).toPath(),
+				freshFolder.toPath(), TilePyramidExporter.getMaximumZoom(world)));
+	}
+
+	/**
+	 * Get whether the PNG files of the tiles of two pyramids hold the same bytes.
+	 */
+	private static boolean equalTiles(final Path folder, final Path otherFolder, final int maximumZoom) {
+		try {
+			for (int zoom = 0; zoom <= maximumZoom; ++zoom) {
+				final Path zoomFolder = otherFolder.resolve(Integer.toString(zoom));
+				final Path[] files;
+				try (final Stream<Path> paths = Files.walk(zoomFolder)) {
+					files = paths.filter(Files::isRegularFile).toArray(Path[]::new);
+				}
+				for (final Path file : files) {
+					final Path tile = folder.resolve(otherFolder.relativize(file));
+					if (!Files.isRegularFile(tile)
+							|| !Arrays.equals(Files.readAllBytes(tile), Files.readAllBytes(file))) {
+						return false;
+					}
+				}
+			}
+			return true;
+		} catch (final IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * Deletes a file or a folder and everything in it, if it exists.
+	 */
+	private static void delete(final File file) {
+		final File[] files = file.listFiles();
+		if (files != null) {
+			for (final File child : files) {
+				TilePyramidBenchmark.delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
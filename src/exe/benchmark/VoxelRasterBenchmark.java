@@ -0,0 +1,183 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import util.RangeTask;
+import util.voxelraster.VoxelRaster;
+
+/**
+ * Measures the memory taken by the voxel models of the buildings of a city,
+ * stored in dense arrays and in chunked rasters, and the time taken to compress
+ * and decompress them all in parallel, and reports whether every raster holds
+ * the same voxels as its dense array before and after compressing it. A raster
+ * whose voxel at the origin is overwritten with many more values than a palette
+ * can index is also checked before and after compressing it.
+ *
+ * The buildings are boxes of walls with windows, floors and a roof, standing in
+ * the lower part of a taller box of air.
+ *
+ * Arguments: seed, number of buildings and repetitions. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class VoxelRasterBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Size of the box of every model in voxels.
+	 */
+	private static final int SIZE_X = 64, SIZE_Y = 64, SIZE_Z = 192;
+	/**
+	 * Values of the voxels of the models.
+	 */
+	private static final int AIR = 0, WALL = 1, WINDOW = 2, FLOOR = 3, ROOF = 4;
+	/**
+	 * Number of values the voxel at the origin of the overwritten raster is set
+	 * to.
+	 */
+	private static final int OVERWRITES = 70000;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int buildingCount = Benchmarks.intArgument(args, 1, 200);
+		final int repetitions = Benchmarks.intArgument(args, 2, 3);
+		final SplittableRandom random = new SplittableRandom(seed);
+		final int[][] denseModels = new int[buildingCount][];
+		final VoxelRaster[] rasters = new VoxelRaster[buildingCount];
+		long denseBytes = 0L;
+		long rasterBytes = 0L;
+		for (int building = 0; building < buildingCount; ++building) {
+			final int width = 16 + random.nextInt(VoxelRasterBenchmark.SIZE_X - 16);
+			final int depth = 16 + random.nextInt(VoxelRasterBenchmark.SIZE_Y - 16);
+			final int height = 8 + random.nextInt(VoxelRasterBenchmark.SIZE_Z - 8);
+			denseModels[building] = VoxelRasterBenchmark.drawBuilding(width, depth, height);
+			rasters[building] = new VoxelRaster(VoxelRasterBenchmark.SIZE_X, VoxelRasterBenchmark.SIZE_Y,
+					VoxelRasterBenchmark.SIZE_Z, denseModels[building]);
+			denseBytes += 16L + (4L * denseModels[building].length);
+			rasterBytes += rasters[building].getMemoryUsage();
+		}
+		System.out.println("dense KiB\t" + (denseBytes >> 10));
+		System.out.println("raster KiB\t" + (rasterBytes >> 10));
+		System.out.println("ratio\t" + (denseBytes / (double) rasterBytes));
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final byte[][] compressed = new byte[buildingCount][];
+		final VoxelRaster[] decompressed = new VoxelRaster[buildingCount];
+		long bestCompressionTime = Long.MAX_VALUE;
+		long bestDecompressionTime = Long.MAX_VALUE;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			long startTime = System.nanoTime();
+			RangeTask.run(pool, building -> compressed[building] = rasters[building].compress(), buildingCount, 1);
+			bestCompressionTime = Math.min(bestCompressionTime, System.nanoTime() - startTime);
+			startTime = System.nanoTime();
+			RangeTask.run(pool, building -> decompressed[building] = VoxelRaster.decompress(compressed[building]),
+					buildingCount, 1);
+			bestDecompressionTime = Math.min(bestDecompressionTime, System.nanoTime() - startTime);
+		}
+		long compressedBytes = 0L;
+		for (final byte[] bytes : compressed) {
+			compressedBytes += bytes.length;
+		}
+		System.out.println("compressed KiB\t" + (compressedBytes >> 10));
+		System.out.println("compression ms\t" + (bestCompressionTime / 1000000L));
+		System.out.println("decompression ms\t" + (bestDecompressionTime / 1000000L));
+		boolean identical = true;
+		for (int building = 0; building < buildingCount; ++building) {
+			identical &= Arrays.equals(denseModels[building], VoxelRasterBenchmark.toArray(rasters[building]));
+			identical &= Arrays.equals(denseModels[building], VoxelRasterBenchmark.toArray(decompressed[building]));
+		}
+		System.out.println("identical\t" + identical);
+		System.out.println("overwritten identical\t" + VoxelRasterBenchmark.checkOverwrites());
+	}
+
+	/**
+	 * Overwrites the voxel at the origin of a raster of a single chunk with the
+	 * values from 1 to {@link #OVERWRITES}, with a single different voxel beside
+	 * it, and checks that it holds the last value before and after compressing
+	 * the raster.
+	 */
+	private static boolean checkOverwrites() {
+		final int size = VoxelRaster.CHUNK_SIZE;
+		final int[] expected = new int[size * size * size];
+		expected[1] = -1;
+		expected[0] = VoxelRasterBenchmark.OVERWRITES;
+		final VoxelRaster raster = new VoxelRaster(size, size, size);
+		raster.set(1, 0, 0, -1);
+		for (int value = 1; value <= VoxelRasterBenchmark.OVERWRITES; ++value) {
+			raster.set(0, 0, 0, value);
+		}
+		return Arrays.equals(expected, VoxelRasterBenchmark.toArray(raster))
+				&& Arrays.equals(expected, VoxelRasterBenchmark.toArray(VoxelRaster.decompress(raster.compress())));
+	}
+
+	/**
+	 * Draws a building of the given size in the corner of a model, x first, then
+	 * y, then z.
+	 */
+	private static int[] drawBuilding(final int width, final int depth, final int height) {
+		final int[] model = new int[VoxelRasterBenchmark.SIZE_X * VoxelRasterBenchmark.SIZE_Y
+				* VoxelRasterBenchmark.SIZE_Z];
+		for (int z = 0; z < height; ++z) {
+			for (int y = 0; y < depth; ++y) {
+				for (int x = 0; x < width; ++x) {
+					final boolean wall = (x == 0) || (y == 0) || (x == (width - 1)) || (y == (depth - 1));
+					int voxel = VoxelRasterBenchmark.AIR;
+					if (z == (height - 1)) {
+						voxel = VoxelRasterBenchmark.ROOF;
+					} else if ((z % 4) == 0) {
+						voxel = VoxelRasterBenchmark.FLOOR;
+					} else if (wall) {
+						voxel = (((z % 4) == 2) && (((x + y) % 3) == 1)) ? VoxelRasterBenchmark.WINDOW
+								: VoxelRasterBenchmark.WALL;
+					}
+					model[(VoxelRasterBenchmark.SIZE_X * ((VoxelRasterBenchmark.SIZE_Y * z) + y)) + x] = voxel;
+				}
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Reads the voxels of a raster into an array, x first, then y, then z.
+	 */
+	private static int[] toArray(final VoxelRaster raster) {
+		final int[] array = new int[raster.getSizeX() * raster.getSizeY() * raster.getSizeZ()];
+		for (int z = 0; z < raster.getSizeZ(); ++z) {
+			for (int y = 0; y < raster.getSizeY(); ++y) {
+				for (int x = 0; x < raster.getSizeX(); ++x) {
+					array[(raster.getSizeX() * ((raster.getSizeY() * z) + y)) + x] = raster.get(x, y, z);
+				}
+			}
+		}
+		return array;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import entity.world.Terrain.Orientation;
+import exe.graphics.VoxelRenderer;
+import exe.graphics.VoxelRenderer.Projection;
+import exe.graphics.VoxelRenderer.Sprite;
+import util.voxelraster.VoxelRaster;
+
+/**
+ * Measures projecting the voxel models of a few kinds of buildings with every
+ * projection, on the calling thread and on a pool, and getting the sprites of a
+ * city's worth of buildings of those kinds from the cache.
+ *
+ * Arguments: seed, number of kinds of buildings, number of buildings and
+ * repetitions. All of them are optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class VoxelRendererBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Colors of the values of the voxels of the models: walls, windows, floors,
+	 * roofs and translucent glass.
+	 */
+	private static final int[] COLORS = new int[] { 0, 0xFFB08060, 0xFF4080C0, 0xFF808080, 0xFF603020,
+			0x8080C0FF };
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int kindCount = Benchmarks.intArgument(args, 1, 16);
+		final int buildingCount = Benchmarks.intArgument(args, 2, 10000);
+		final int repetitions = Benchmarks.intArgument(args, 3, 3);
+		final SplittableRandom random = new SplittableRandom(seed);
+		final VoxelRaster[] models = new VoxelRaster[kindCount];
+		for (int kind = 0; kind < kindCount; ++kind) {
+			models[kind] = VoxelRendererBenchmark.buildModel(random);
+		}
+		System.out.println("projection\tsequential ms\tparallel ms");
+		for (final Projection projection : Projection.values()) {
+			final long sequentialTime = VoxelRendererBenchmark.measure(
+					new VoxelRenderer(null, VoxelRendererBenchmark.COLORS), models, projection, repetitions);
+			final long parallelTime = VoxelRendererBenchmark.measure(
+					new VoxelRenderer(ForkJoinPool.commonPool(), VoxelRendererBenchmark.COLORS), models, projection,
+					repetitions);
+			System.out.println(projection + "\t" + (sequentialTime / 1000000.0d) + "\t" + (parallelTime / 1000000.0d));
+		}
+		final VoxelRenderer renderer = new VoxelRenderer(ForkJoinPool.commonPool(), VoxelRendererBenchmark.COLORS);
+		final Orientation[] orientations = Orientation.values();
+		long pixelCount = 0L;
+		final long startTime = System.nanoTime();
+		for (int building = 0; building < buildingCount; ++building) {
+			final Sprite sprite = renderer.getSprite(models[random.nextInt(kindCount)], Projection.ISOMETRIC,
+					orientations[random.nextInt(orientations.length)]);
+			pixelCount += sprite.pixels.length;
+		}
+		System.out.println("cached city ms\t" + ((System.nanoTime() - startTime) / 1000000L) + "\t" + pixelCount);
+	}
+
+	/**
+	 * Measures the best time of projecting every model in every orientation
+	 * without caching.
+	 */
+	private static long measure(final VoxelRenderer renderer, final VoxelRaster[] models,
+			final Projection projection, final int repetitions) {
+		long bestTime = Long.MAX_VALUE;
+		for (int repetition = 0; repetition < repetitions; ++repetition) {
+			final long startTime = System.nanoTime();
+			for (final VoxelRaster model : models) {
+				for (final Orientation orientation : Orientation.values()) {
+					renderer.render(model, projection, orientation);
+				}
+			}
+			bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+		}
+		return bestTime;
+	}
+
+	/**
+	 * Builds the model of a building: floors of walls with windows, a glass
+	 * annex and a roof.
+	 */
+	private static VoxelRaster buildModel(final SplittableRandom random) {
+		final int width = 16 + random.nextInt(48);
+		final int depth = 16 + random.nextInt(48);
+		final int height = 8 + random.nextInt(120);
+		final VoxelRaster model = new VoxelRaster(64, 64, 128);
+		model.fill(0, 0, 0, width, depth, height, 1);
+		for (int floor = 2; floor < height; floor += 4) {
+			model.fill(0, 2, floor, width, depth - 2, floor + 1, 2);
+			model.fill(2, 0, floor, width - 2, depth, floor + 1, 2);
+			model.fill(1, 1, floor, width - 1, depth - 1, floor + 1, 3);
+		}
+		model.fill(0, 0, height - 1, width, depth, height, 4);
+		model.fill(0, depth / 2, 0, Math.min(width + 8, 64), Math.min(depth + 8, 64), Math.min(height, 12), 5);
+		model.fill(0, 0, 0, width, depth, Math.min(height, 12), 1);
+		model.compact();
+		return model;
+	}
+
+}
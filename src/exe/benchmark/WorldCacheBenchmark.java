@@ -0,0 +1,103 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.benchmark;
+
+import java.io.File;
+import java.math.BigInteger;
+
+import entity.world.World;
+import exe.io.FileHandler;
+import exe.io.WorldCache;
+import generator.BasicGenerator;
+import type.Era;
+import type.TerrainShape;
+
+/**
+ * Measures generating a world and storing it in a world cache against loading
+ * it back from the cache. Reports the time of each of them, whether the world
+ * loaded is the same as the one generated, and whether changing a parameter
+ * misses the cache.
+ *
+ * Arguments: seed, tectonic plate size exponent, world size exponent, playable
+ * area size exponent and path of the folder of the cache. All of them are
+ * optional.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class WorldCacheBenchmark {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	public static void main(final String[] args) {
+		FileHandler.loadClass("exe.Industry");
+		final long seed = Benchmarks.longArgument(args, 0, 0L);
+		final int tectonicPlateSizeExponent = Benchmarks.intArgument(args, 1, 5);
+		final int worldSizeExponent = Benchmarks.intArgument(args, 2, 10);
+		final int playableAreaSizeExponent = Benchmarks.intArgument(args, 3, 9);
+		final String path = args.length > 4 ? args[4]
+				: String.join(File.separator, System.getProperty("java.io.tmpdir"), "industry.cache");
+		final WorldCache worldCache = new WorldCache(WorldCache.DEFAULT_MAXIMUM_SIZE, path);
+		worldCache.clear();
+		// Miss
+		final World world = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		final String generatorVersion = new BasicGenerator(world).getVersion();
+		final String key = WorldCacheBenchmark.getKey(generatorVersion, seed, tectonicPlateSizeExponent,
+				worldSizeExponent, playableAreaSizeExponent, 1.0d);
+		long startTime = System.nanoTime();
+		if (!worldCache.load(key, world)) {
+			new BasicGenerator(world).generate();
+			worldCache.store(key, world);
+		}
+		long time = System.nanoTime() - startTime;
+		System.out.println("miss ms\t" + (time / 1000000L));
+		// Hit
+		final World cachedWorld = Benchmarks.newWorld(seed, tectonicPlateSizeExponent, worldSizeExponent,
+				playableAreaSizeExponent);
+		startTime = System.nanoTime();
+		final boolean hit = worldCache.load(key, cachedWorld);
+		time = System.nanoTime() - startTime;
+		System.out.println("hit ms\t" + (time / 1000000L));
+		System.out.println("hit\t" + hit);
+		System.out.println("identical\t" + (Benchmarks.checksum(cachedWorld) == Benchmarks.checksum(world)));
+		// Another sea level
+		final String otherKey = WorldCacheBenchmark.getKey(generatorVersion, seed, tectonicPlateSizeExponent,
+				worldSizeExponent, playableAreaSizeExponent, 1.5d);
+		System.out.println("other parameters miss\t" + !worldCache.contains(otherKey));
+		worldCache.clear();
+		new File(path).delete();
+	}
+
+	/**
+	 * Computes the key of a world with the parameters of Benchmarks.newWorld and
+	 * the given sea level factor.
+	 */
+	private static String getKey(final String generatorVersion, final long seed,
+			final int tectonicPlateSizeExponent, final int worldSizeExponent, final int playableAreaSizeExponent,
+			final double seaLevelFactor) {
+		return WorldCache.getKey(generatorVersion, BigInteger.valueOf(seed).toByteArray(),
+				TerrainShape.getTerrainShape("flat"), Era.getEra("1700"), tectonicPlateSizeExponent, worldSizeExponent,
+				1.0d, seaLevelFactor, 8.0d, 0.15d, 1.0d, playableAreaSizeExponent);
+	}
+
+}
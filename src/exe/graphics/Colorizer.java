@@ -0,0 +1,407 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import type.MineralType;
+import type.PlantType;
+import type.SoilType;
+import type.Type;
+import util.integermatrix.IntegerMatrix;
+import util.integermatrix.ObjectMatrix;
+
+/**
+ * This class colors the tiles of a world by a single value of each tile, such
+ * as its height or its soil type. The color of every value in a range is
+ * computed once when the colorizer is created and kept in a table, so coloring
+ * a tile takes a single read of the table. Values are quantized by dropping
+ * their lowest bits, and values outside of the range take the color of the
+ * closest end of the range.
+ *
+ * Colors may be translucent, so that several colorizers can be blended by a
+ * LayerBlend. Values a colorizer doesn't apply to, such as the depth of the
+ * water of a dry tile or the soil type of a tile without soil, are transparent.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.graphics.LayerBlend
+ * @since 0.1
+ *
+ */
+public class Colorizer implements MapStyle {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Color of the values a colorizer doesn't apply to.
+	 */
+	public static final int TRANSPARENT = 0x00000000;
+	/**
+	 * Fraction of a turn between the hues of consecutive types, which spreads the
+	 * hues of any number of types evenly.
+	 */
+	private static final float HUE_STEP = 0.618034f;
+	/**
+	 * Values of the runs painted by every thread, grown when a run is longer than
+	 * them.
+	 */
+	private static final ThreadLocal<int[][]> VALUES = ThreadLocal.withInitial(() -> new int[1][0]);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Name of this colorizer.
+	 */
+	private final String name;
+	/**
+	 * Source of the values of the tiles.
+	 */
+	private final Source source;
+	/**
+	 * Smallest value of the table.
+	 */
+	private final int minimum;
+	/**
+	 * Number of lowest bits dropped from the values.
+	 */
+	private final int shift;
+	/**
+	 * Colors of the quantized values, from the minimum up.
+	 */
+	private final int[] table;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Inner classes
+
+	/**
+	 * This interface represents a value of the tiles of a world.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static interface Source {
+
+		/**
+		 * Reads the values of a run of consecutive tiles of a plate along the x axis.
+		 *
+		 * @param tectonicPlate
+		 *                          Plate the tiles belong to.
+		 * @param x
+		 *                          x index of the first tile of the run in the plate.
+		 * @param y
+		 *                          y index of the tiles of the run in the plate.
+		 * @param values
+		 *                          Array the values are put in, starting at index 0.
+		 * @param length
+		 *                          Number of tiles of the run.
+		 */
+		public void read(TectonicPlate tectonicPlate, int x, int y, int[] values, int length);
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a colorizer of the values of a source between a minimum and a
+	 * maximum, computing the color of every quantized value with the given
+	 * function. The function gets the smallest value of every quantum.
+	 *
+	 * @param name
+	 *                    Name of the colorizer, which must tell it apart from
+	 *                    every other colorizer.
+	 * @param source
+	 *                    Source of the values of the tiles.
+	 * @param minimum
+	 *                    Smallest value with a color of its own.
+	 * @param maximum
+	 *                    Largest value with a color of its own.
+	 * @param shift
+	 *                    Number of lowest bits dropped from the values.
+	 * @param color
+	 *                    Function from a value to its ARGB color.
+	 */
+	public Colorizer(final String name, final Source source, final int minimum, final int maximum, final int shift,
+			final IntUnaryOperator color) {
+		this.name = name;
+		this.source = source;
+		this.minimum = minimum;
+		this.shift = shift;
+		this.table = new int[((maximum - minimum) >> shift) + 1];
+		for (int index = 0; index < this.table.length; ++index) {
+			this.table[index] = color.applyAsInt(minimum + (index << shift));
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates a colorizer of the height of the land, from dark blue for the deepest
+	 * sea floors through green lowlands and brown hills to white peaks.
+	 */
+	public static Colorizer height() {
+		return new Colorizer("height", Colorizer.layer(Layer.LAND), -256, 255, 0,
+				value -> Colorizer.gradient(value, new int[] { -256, -1, 0, 32, 128, 255 },
+						new int[] { 0xFF000030, 0xFF3060A0, 0xFF207020, 0xFF90A050, 0xFF806040, 0xFFFFFFFF }));
+	}
+
+	/**
+	 * Creates a colorizer of the depth of the water above the land, from light blue
+	 * for shallow water to dark blue for deep water. Dry tiles are transparent.
+	 */
+	public static Colorizer waterDepth() {
+		return new Colorizer("waterDepth", Colorizer.difference(Layer.WATER, Layer.LAND), 0, 255, 0,
+				value -> value <= 0 ? Colorizer.TRANSPARENT
+						: Colorizer.gradient(value, new int[] { 1, 32, 255 },
+								new int[] { 0xFF80C0FF, 0xFF2050C0, 0xFF000040 }));
+	}
+
+	/**
+	 * Creates a colorizer of the current temperature, from blue for freezing
+	 * through white at 0 to red for scorching. Magma is colored as the hottest
+	 * temperature.
+	 */
+	public static Colorizer temperature() {
+		return new Colorizer("temperature", Colorizer.temperatureSource(), -64, 63, 0,
+				value -> Colorizer.gradient(value, new int[] { -64, -16, 0, 16, 63 },
+						new int[] { 0xFF000080, 0xFF4080FF, 0xFFFFFFFF, 0xFFFF8040, 0xFF800000 }));
+	}
+
+	/**
+	 * Creates a colorizer of the humidity, the water level minus the land level,
+	 * from brown for dry land to green for wet land. Flooded tiles are blue.
+	 */
+	public static Colorizer humidity() {
+		return new Colorizer("humidity", Colorizer.difference(Layer.WATER, Layer.LAND), -128, 1, 0,
+				value -> value > 0 ? 0xFF2050C0
+						: Colorizer.gradient(value, new int[] { -128, -48, 0 },
+								new int[] { 0xFFA08050, 0xFFC0C060, 0xFF208020 }));
+	}
+
+	/**
+	 * Creates a colorizer of the pollution, from transparent for clean tiles to
+	 * opaque black for the most polluted ones.
+	 */
+	public static Colorizer pollution() {
+		return new Colorizer("pollution", Colorizer.layer(Layer.POLLUTION), 0, 255, 0, value -> value << 24);
+	}
+
+	/**
+	 * Creates a colorizer of the soil types, with a different hue for every type.
+	 */
+	public static Colorizer soilType() {
+		return Colorizer.types("soilType", TectonicPlate::getSoilTypes, SoilType.getAllSoilTypes());
+	}
+
+	/**
+	 * Creates a colorizer of the mineral types, with a different hue for every
+	 * type.
+	 */
+	public static Colorizer mineralType() {
+		return Colorizer.types("mineralType", TectonicPlate::getMineralTypes, MineralType.getAllMineralTypes());
+	}
+
+	/**
+	 * Creates a colorizer of the plant types, with a different hue for every type.
+	 */
+	public static Colorizer plantType() {
+		return Colorizer.types("plantType", TectonicPlate::getPlantTypes, PlantType.getAllPlantTypes());
+	}
+
+	/**
+	 * Creates a colorizer with the given name, which is the name of one of the
+	 * methods that create colorizers, or returns null if there's none.
+	 */
+	public static Colorizer getColorizer(final String name) {
+		switch (name) {
+		case "height":
+			return Colorizer.height();
+		case "waterDepth":
+			return Colorizer.waterDepth();
+		case "temperature":
+			return Colorizer.temperature();
+		case "humidity":
+			return Colorizer.humidity();
+		case "pollution":
+			return Colorizer.pollution();
+		case "soilType":
+			return Colorizer.soilType();
+		case "mineralType":
+			return Colorizer.mineralType();
+		case "plantType":
+			return Colorizer.plantType();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Get a source of the values of a layer.
+	 */
+	public static Source layer(final Layer layer) {
+		return (tectonicPlate, x, y, values, length) -> tectonicPlate.getLayer(layer).getRun(x, y, values, 0,
+				length);
+	}
+
+	/**
+	 * Get a source of the difference between the values of two layers.
+	 */
+	public static Source difference(final Layer layer, final Layer subtractedLayer) {
+		return (tectonicPlate, x, y, values, length) -> {
+			final IntegerMatrix subtracted = tectonicPlate.getLayer(subtractedLayer);
+			tectonicPlate.getLayer(layer).getRun(x, y, values, 0, length);
+			for (int i = 0; i < length; ++i) {
+				values[i] -= subtracted.get(x + i, y);
+			}
+		};
+	}
+
+	/**
+	 * Get a source of the current temperature.
+	 */
+	public static Source temperatureSource() {
+		return (tectonicPlate, x, y, values, length) -> {
+			for (int i = 0; i < length; ++i) {
+				values[i] = tectonicPlate.getCurrentTemperature(x + i, y);
+			}
+		};
+	}
+
+	/**
+	 * Creates a colorizer of the types of a grid of a plate, whose values are the
+	 * id of the type plus one, or 0 for no type.
+	 */
+	private static <T extends Type> Colorizer types(final String name,
+			final Function<TectonicPlate, ObjectMatrix<T>> grid, final List<T> types) {
+		long maximumId = -1L;
+		for (final T type : types) {
+			maximumId = Math.max(maximumId, type.getId());
+		}
+		final Source source = (tectonicPlate, x, y, values, length) -> {
+			final ObjectMatrix<T> matrix = grid.apply(tectonicPlate);
+			for (int i = 0; i < length; ++i) {
+				final T type = matrix.get(x + i, y);
+				values[i] = type == null ? 0 : (int) type.getId() + 1;
+			}
+		};
+		return new Colorizer(name, source, 0, (int) maximumId + 1, 0, value -> value == 0 ? Colorizer.TRANSPARENT
+				: Color.HSBtoRGB(((value - 1) * Colorizer.HUE_STEP) % 1.0f, 0.6f, 0.85f));
+	}
+
+	/**
+	 * Interpolates linearly between the colors of the stops that surround a value.
+	 * Values outside of the stops take the color of the closest stop.
+	 */
+	public static int gradient(final int value, final int[] stops, final int[] colors) {
+		if (value <= stops[0]) {
+			return colors[0];
+		}
+		for (int stop = 1; stop < stops.length; ++stop) {
+			if (value <= stops[stop]) {
+				return Colorizer.interpolate(colors[stop - 1], colors[stop], value - stops[stop - 1],
+						stops[stop] - stops[stop - 1]);
+			}
+		}
+		return colors[colors.length - 1];
+	}
+
+	/**
+	 * Interpolates every channel of two colors, at the given fraction of the way
+	 * from the first to the second.
+	 */
+	public static int interpolate(final int from, final int to, final int numerator, final int denominator) {
+		int color = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			final int fromChannel = (from >>> shift) & 0xFF;
+			final int toChannel = (to >>> shift) & 0xFF;
+			color |= (fromChannel + (((toChannel - fromChannel) * numerator) / denominator)) << shift;
+		}
+		return color;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the color of a value.
+	 */
+	public int getColor(final int value) {
+		final long index = ((long) value - this.minimum) >> this.shift;
+		if (index <= 0L) {
+			return this.table[0];
+		} else if (index >= this.table.length) {
+			return this.table[this.table.length - 1];
+		}
+		return this.table[(int) index];
+	}
+
+	/**
+	 * Colors a run of consecutive tiles of a plate along the x axis.
+	 *
+	 * @param tectonicPlate
+	 *                          Plate the tiles belong to.
+	 * @param x
+	 *                          x index of the first tile of the run in the plate.
+	 * @param y
+	 *                          y index of the tiles of the run in the plate.
+	 * @param length
+	 *                          Number of tiles of the run.
+	 * @param values
+	 *                          Array of at least the length of the run to read the
+	 *                          values into.
+	 * @param colors
+	 *                          Array the ARGB colors of the tiles are put in.
+	 * @param offset
+	 *                          Index in the array of the color of the first tile.
+	 */
+	public void colorize(final TectonicPlate tectonicPlate, final int x, final int y, final int length,
+			final int[] values, final int[] colors, final int offset) {
+		this.source.read(tectonicPlate, x, y, values, length);
+		for (int i = 0; i < length; ++i) {
+			colors[offset + i] = this.getColor(values[i]);
+		}
+	}
+
+	@Override
+	public String getKey() {
+		return this.name;
+	}
+
+	@Override
+	public void paint(final TectonicPlate tectonicPlate, final int x, final int y, final int length,
+			final int[] pixels, final int offset) {
+		final int[][] values = Colorizer.VALUES.get();
+		if (values[0].length < length) {
+			values[0] = new int[length];
+		}
+		this.colorize(tectonicPlate, x, y, length, values[0], pixels, offset);
+	}
+
+}
@@ -20,12 +20,28 @@ package exe.graphics;
 
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JPanel;
+import javax.swing.Timer;
+
+import entity.world.World;
+import exe.Simulation;
 
 /**
  * This class handles graphics.
  *
+ * Draws a world in an isometric view that can be scrolled by dragging it with
+ * the mouse or with the arrow keys. The world is simulated on a thread of its
+ * own, and the panel only paints the snapshots it publishes, so painting never
+ * waits for a tick to end. Scrolling draws the whole view again, while changes
+ * to the tiles in view only repaint the rectangles they affect.
+ *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
  * @version 0.1
  * @since 0.1
@@ -41,9 +57,47 @@ public class IPanel extends JPanel {
 	 */
 	private static final long serialVersionUID = 103030817126573410L;
 
+	/**
+	 * Milliseconds between checks for new snapshots.
+	 */
+	private static final int FRAME_DELAY = 16;
+	/**
+	 * Ticks simulated per second.
+	 */
+	private static final double TICKS_PER_SECOND = 1.0d;
+	/**
+	 * Area the date is written on.
+	 */
+	private static final Rectangle DATE_AREA = new Rectangle(0, 0, 256, 24);
+	/**
+	 * Pixels scrolled by every press of an arrow key.
+	 */
+	private static final int SCROLL_STEP = 32;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
+	/**
+	 * Atlas of the sprites of the tiles, loaded once at startup.
+	 */
+	private final SpriteAtlas spriteAtlas;
+	/**
+	 * Renderer of the world shown, or null if none is.
+	 */
+	private IsometricRenderer renderer;
+	/**
+	 * Simulation of the world shown, or null if none is.
+	 */
+	private Simulation simulation;
+	/**
+	 * Copy of the snapshot last asked to be painted.
+	 */
+	private final IsometricSnapshot drawn = new IsometricSnapshot();
+	/**
+	 * Last position of the mouse while dragging the view.
+	 */
+	private int dragX, dragY;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Class initializer
 
@@ -51,10 +105,104 @@ public class IPanel extends JPanel {
 	// Instance initializers
 
 	public IPanel() {
+		this.spriteAtlas = SpriteAtlas.loadTiles();
+		this.setFocusable(true);
+		final MouseAdapter mouseAdapter = new MouseAdapter() {
+
+			@Override
+			public void mousePressed(final MouseEvent event) {
+				IPanel.this.dragX = event.getX();
+				IPanel.this.dragY = event.getY();
+				IPanel.this.requestFocusInWindow();
+			}
+
+			@Override
+			public void mouseDragged(final MouseEvent event) {
+				IPanel.this.scroll(IPanel.this.dragX - event.getX(), IPanel.this.dragY - event.getY());
+				IPanel.this.dragX = event.getX();
+				IPanel.this.dragY = event.getY();
+			}
+
+		};
+		this.addMouseListener(mouseAdapter);
+		this.addMouseMotionListener(mouseAdapter);
+		this.addKeyListener(new KeyAdapter() {
+
+			@Override
+			public void keyPressed(final KeyEvent event) {
+				switch (event.getKeyCode()) {
+				case KeyEvent.VK_LEFT:
+					IPanel.this.scroll(-IPanel.SCROLL_STEP, 0);
+					break;
+				case KeyEvent.VK_RIGHT:
+					IPanel.this.scroll(IPanel.SCROLL_STEP, 0);
+					break;
+				case KeyEvent.VK_UP:
+					IPanel.this.scroll(0, -IPanel.SCROLL_STEP);
+					break;
+				case KeyEvent.VK_DOWN:
+					IPanel.this.scroll(0, IPanel.SCROLL_STEP);
+					break;
+				default:
+					break;
+				}
+			}
+
+		});
+		new Timer(IPanel.FRAME_DELAY, event -> this.repaintChanges()).start();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
-	// Class methods
+	// Instance methods
+
+	/**
+	 * Shows a world, centering the view on the center of its playable area, and
+	 * starts simulating it, stopping the simulation of the world shown before.
+	 */
+	public void setWorld(final World world) {
+		if (this.simulation != null) {
+			this.simulation.stop();
+		}
+		this.renderer = new IsometricRenderer(world, this.spriteAtlas);
+		this.renderer.setSize(this.getWidth(), this.getHeight());
+		this.renderer.centerOn((world.getPlayableMinX() + world.getPlayableMaxX()) / 2,
+				(world.getPlayableMinY() + world.getPlayableMaxY()) / 2);
+		world.getTickScheduler().setPool(ForkJoinPool.commonPool());
+		this.simulation = new Simulation(world, this.renderer, IPanel.TICKS_PER_SECOND);
+		this.simulation.start();
+	}
+
+	public Simulation getSimulation() {
+		return this.simulation;
+	}
+
+	/**
+	 * Moves the view by the given number of pixels. The view is painted again
+	 * once the simulation publishes a snapshot of it.
+	 */
+	public void scroll(final int deltaX, final int deltaY) {
+		if (this.renderer != null) {
+			this.renderer.scroll(deltaX, deltaY);
+		}
+	}
+
+	/**
+	 * Takes the latest snapshot, if there is a new one, and repaints the
+	 * rectangles where it differs from the one painted before.
+	 */
+	private void repaintChanges() {
+		if ((this.simulation != null) && this.simulation.getSnapshots().update()) {
+			final IsometricSnapshot snapshot = this.simulation.getSnapshots().getFront();
+			Rectangle changes = snapshot.getChanges(this.drawn);
+			if (!snapshot.getDate().equals(this.drawn.getDate())) {
+				changes = changes == null ? IPanel.DATE_AREA : changes.union(IPanel.DATE_AREA);
+			}
+			this.drawn.copy(snapshot);
+			if (changes != null) {
+				this.repaint(changes);
+			}
+		}
+	}
 
 	@Override
 	public void paintComponent(final Graphics graphics) {
@@ -71,8 +219,12 @@ public class IPanel extends JPanel {
 		 * corners
 		 */
 
-		// TODO: In order to draw an image, use the method:
-		// graphics.drawImage(img, x, y, null);
+		if (this.renderer != null) {
+			this.renderer.setSize(this.getWidth(), this.getHeight());
+			this.renderer.draw(graphics2D, this.drawn);
+			graphics2D.setColor(this.getForeground());
+			graphics2D.drawString(this.drawn.getDate().getDateString(), 8, 16);
+		}
 	}
 
 }
@@ -0,0 +1,465 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import entity.element.Element;
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import util.idate.IDate;
+import util.integermatrix.ObjectMatrix;
+
+/**
+ * This class draws the playable area of a world in an isometric view, with
+ * north at the back. Every tile is drawn as a sprite raised by the height of its
+ * surface.
+ *
+ * The tiles in view, the order in which they are drawn and where, are computed
+ * once per position of the camera and reused by every frame drawn from it.
+ * Frames only draw the tiles that can reach the clip of the graphics they are
+ * drawn on, so repainting the rectangles where tiles changed, as given by
+ * {@link IsometricSnapshot#getChanges(IsometricSnapshot)}, only draws those
+ * tiles and the ones overlapping them.
+ *
+ * Drawing is split in capturing the tiles in view into a snapshot, which reads
+ * the world, and drawing the snapshot, which doesn't, so that the thread that
+ * simulates the world can capture snapshots for the thread that paints them.
+ * The camera can be moved from any thread, and the move is seen by the next
+ * capture.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class IsometricRenderer {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Half of the width of the top of a tile in pixels.
+	 */
+	private static final int HALF_WIDTH = SpriteAtlas.TILE_WIDTH / 2;
+	/**
+	 * Half of the height of the top of a tile in pixels.
+	 */
+	private static final int HALF_HEIGHT = SpriteAtlas.TILE_HEIGHT / 2;
+	/**
+	 * Shift that turns the height of the surface of a tile into the pixels it is
+	 * raised by.
+	 */
+	private static final int ELEVATION_SHIFT = 2;
+	/**
+	 * Highest surface drawn, above which every tile is drawn at the same height.
+	 */
+	private static final int MAXIMUM_SURFACE = 255;
+	/**
+	 * Most pixels a tile can be raised by.
+	 */
+	private static final int MAXIMUM_ELEVATION = IsometricRenderer.MAXIMUM_SURFACE >> IsometricRenderer.ELEVATION_SHIFT;
+	/**
+	 * Color drawn where there are no tiles.
+	 */
+	private static final Color BACKGROUND = Color.BLACK;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * World drawn.
+	 */
+	private final World world;
+	/**
+	 * Atlas of the sprites of the tiles.
+	 */
+	private final SpriteAtlas spriteAtlas;
+	/**
+	 * Sprites of magma and ice.
+	 */
+	private final int magmaSprite, iceSprite;
+	/**
+	 * Sprite drawn over tiles with an element on them.
+	 */
+	private final int elementSprite;
+	/**
+	 * Sprites of the shades of water and land.
+	 */
+	private final int[] waterSprites, landSprites;
+	/**
+	 * Position of the top left corner of the view relative to the top of the
+	 * northwestern tile and size of the view, in pixels. Replaced as a whole
+	 * whenever the camera moves.
+	 */
+	private volatile int[] camera = new int[4];
+	/**
+	 * Camera the tiles in view were computed for.
+	 */
+	private int[] viewCamera;
+	/**
+	 * Number of tiles in view.
+	 */
+	private int tileCount;
+	/**
+	 * Position of the top of every tile in view relative to the view, before
+	 * raising it, in the order the tiles are drawn.
+	 */
+	private int[] screenX = new int[0], screenY = new int[0];
+	/**
+	 * Position of every tile in view in its plate.
+	 */
+	private int[] plateX = new int[0], plateY = new int[0];
+	/**
+	 * Index of the plate of every tile in view among the plates in view.
+	 */
+	private int[] plates = new int[0];
+	/**
+	 * Indices of the plates in view in the world, as x and y pairs.
+	 */
+	private int[] plateIndices = new int[0];
+	/**
+	 * Plates in view, looked up again on every frame since they may be unloaded
+	 * and loaded again.
+	 */
+	private TectonicPlate[] viewPlates = new TectonicPlate[0];
+	/**
+	 * Snapshot captured and drawn by {@link #render(Graphics2D)}.
+	 */
+	private final IsometricSnapshot snapshot = new IsometricSnapshot();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a renderer of a world with the sprites of an atlas. The atlas has to
+	 * have the sprites magma, ice, water.0 to water.3, land.0 to land.7 and
+	 * element, but tiles whose sprite is missing are simply not drawn.
+	 */
+	public IsometricRenderer(final World world, final SpriteAtlas spriteAtlas) {
+		this.world = world;
+		this.spriteAtlas = spriteAtlas;
+		this.magmaSprite = spriteAtlas.getSprite("magma");
+		this.iceSprite = spriteAtlas.getSprite("ice");
+		this.elementSprite = spriteAtlas.getSprite("element");
+		this.waterSprites = new int[SpriteAtlas.WATER_SHADES];
+		for (int shade = 0; shade < this.waterSprites.length; ++shade) {
+			this.waterSprites[shade] = spriteAtlas.getSprite("water." + shade);
+		}
+		this.landSprites = new int[SpriteAtlas.LAND_SHADES];
+		for (int shade = 0; shade < this.landSprites.length; ++shade) {
+			this.landSprites[shade] = spriteAtlas.getSprite("land." + shade);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Divides two integers rounding towards positive infinity.
+	 */
+	private static int ceilDiv(final int dividend, final int divisor) {
+		return -Math.floorDiv(-dividend, divisor);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	public World getWorld() {
+		return this.world;
+	}
+
+	public int getOriginX() {
+		return this.camera[0];
+	}
+
+	public int getOriginY() {
+		return this.camera[1];
+	}
+
+	/**
+	 * Get the number of tiles in view, computing them if the view changed.
+	 */
+	public int getTileCount() {
+		this.updateView();
+		return this.tileCount;
+	}
+
+	/**
+	 * Get whether the camera moved since the tiles in view were last computed.
+	 */
+	public boolean hasCameraMoved() {
+		return this.camera != this.viewCamera;
+	}
+
+	/**
+	 * Moves the camera to the given position and size.
+	 */
+	private synchronized void setCamera(final int originX, final int originY, final int width, final int height) {
+		final int[] camera = this.camera;
+		if ((originX != camera[0]) || (originY != camera[1]) || (width != camera[2]) || (height != camera[3])) {
+			this.camera = new int[] { originX, originY, width, height };
+		}
+	}
+
+	/**
+	 * Moves the top left corner of the view to the given position relative to the
+	 * top of the northwestern tile, in pixels.
+	 */
+	public synchronized void setOrigin(final int originX, final int originY) {
+		this.setCamera(originX, originY, this.camera[2], this.camera[3]);
+	}
+
+	/**
+	 * Resizes the view.
+	 */
+	public synchronized void setSize(final int width, final int height) {
+		this.setCamera(this.camera[0], this.camera[1], width, height);
+	}
+
+	/**
+	 * Moves the view by the given number of pixels.
+	 */
+	public synchronized void scroll(final int deltaX, final int deltaY) {
+		this.setOrigin(this.camera[0] + deltaX, this.camera[1] + deltaY);
+	}
+
+	/**
+	 * Moves the view so that the tile at the given coordinates is at its center.
+	 */
+	public synchronized void centerOn(final int coordinateX, final int coordinateY) {
+		final int column = coordinateX - this.world.getPlayableMinX();
+		final int row = this.world.getPlayableMaxY() - coordinateY;
+		this.setOrigin(((column - row) * IsometricRenderer.HALF_WIDTH) - (this.camera[2] / 2),
+				((column + row) * IsometricRenderer.HALF_HEIGHT) - (this.camera[3] / 2));
+	}
+
+	/**
+	 * Draws the tiles in view that can reach the clip of the given graphics, or
+	 * every tile in view if it has no clip.
+	 */
+	public void render(final Graphics2D graphics) {
+		this.capture(this.snapshot, 0L);
+		this.draw(graphics, this.snapshot);
+	}
+
+	/**
+	 * Fills a snapshot with the tiles in view, the tick and the date of the world.
+	 */
+	public void capture(final IsometricSnapshot snapshot, final long tick) {
+		this.updateView();
+		final int[] camera = this.viewCamera;
+		snapshot.originX = camera[0];
+		snapshot.originY = camera[1];
+		snapshot.width = camera[2];
+		snapshot.height = camera[3];
+		snapshot.tileCount = this.tileCount;
+		snapshot.ensureCapacity(this.tileCount);
+		snapshot.tick = tick;
+		final IDate date = this.world.getDate();
+		snapshot.date.setYear((short) date.getYear());
+		snapshot.date.setMonth((byte) date.getMonth());
+		for (int plate = 0; plate < this.viewPlates.length; ++plate) {
+			this.viewPlates[plate] = this.world.getTectonicPlate(this.plateIndices[2 * plate],
+					this.plateIndices[(2 * plate) + 1]);
+		}
+		for (int tile = 0; tile < this.tileCount; ++tile) {
+			snapshot.left[tile] = this.screenX[tile] - IsometricRenderer.HALF_WIDTH;
+			final TectonicPlate tectonicPlate = this.viewPlates[this.plates[tile]];
+			if (tectonicPlate == null) {
+				snapshot.top[tile] = this.screenY[tile];
+				snapshot.sprite[tile] = -1;
+				snapshot.element[tile] = -1;
+				continue;
+			}
+			final int x = this.plateX[tile];
+			final int y = this.plateY[tile];
+			final int magma = tectonicPlate.getLayer(Layer.MAGMA).get(x, y);
+			final int land = tectonicPlate.getLayer(Layer.LAND).get(x, y);
+			final int water = tectonicPlate.getLayer(Layer.WATER).get(x, y);
+			final int surface = Math.min(Math.max(Math.max(magma, Math.max(land, water)), 0),
+					IsometricRenderer.MAXIMUM_SURFACE);
+			final ObjectMatrix<Element> elements = tectonicPlate.getElements();
+			snapshot.top[tile] = this.screenY[tile] - (surface >> IsometricRenderer.ELEVATION_SHIFT);
+			snapshot.sprite[tile] = this.getSprite(tectonicPlate, x, y, magma, land, water);
+			snapshot.element[tile] = elements.get(x, y) == null ? -1 : this.elementSprite;
+		}
+	}
+
+	/**
+	 * Draws the tiles of a snapshot that can reach the clip of the given graphics,
+	 * or every one of them if it has no clip. Doesn't read the world, so it can run
+	 * while another thread simulates it.
+	 */
+	public void draw(final Graphics2D graphics, final IsometricSnapshot snapshot) {
+		final Rectangle clip = graphics.getClipBounds();
+		final int clipMinX = clip == null ? 0 : clip.x;
+		final int clipMinY = clip == null ? 0 : clip.y;
+		final int clipMaxX = clip == null ? snapshot.width : clip.x + clip.width;
+		final int clipMaxY = clip == null ? snapshot.height : clip.y + clip.height;
+		graphics.setColor(IsometricRenderer.BACKGROUND);
+		graphics.fillRect(clipMinX, clipMinY, clipMaxX - clipMinX, clipMaxY - clipMinY);
+		for (int tile = 0; tile < snapshot.tileCount; ++tile) {
+			final int left = snapshot.left[tile];
+			final int top = snapshot.top[tile];
+			if ((left >= clipMaxX) || ((left + SpriteAtlas.TILE_WIDTH) <= clipMinX) || (top >= clipMaxY)
+					|| ((top + SpriteAtlas.SPRITE_HEIGHT) <= clipMinY)) {
+				continue;
+			}
+			this.spriteAtlas.draw(graphics, snapshot.sprite[tile], left, top);
+			this.spriteAtlas.draw(graphics, snapshot.element[tile], left, top);
+		}
+	}
+
+	/**
+	 * Get the sprite of a tile from the heights of its layers, choosing its kind
+	 * as the map colors it: after the highest of magma, land and water.
+	 */
+	private int getSprite(final TectonicPlate tectonicPlate, final int x, final int y, final int magma,
+			final int land, final int water) {
+		if ((magma >= land) && (magma >= water)) {
+			return this.magmaSprite;
+		} else if (water > land) {
+			if (tectonicPlate.getCurrentTemperature(x, y) < 0) {
+				return this.iceSprite;
+			}
+			final int shade = (int) Math.min(((long) water - land) >> 6, this.waterSprites.length - 1);
+			return this.waterSprites[shade];
+		}
+		final int shade = Math.min(Math.max(land, 0), IsometricRenderer.MAXIMUM_SURFACE) >> 5;
+		return this.landSprites[Math.min(shade, this.landSprites.length - 1)];
+	}
+
+	/**
+	 * Computes the tiles in view and the order in which they are drawn if the view
+	 * changed since they were last computed.
+	 *
+	 * The top of the tile at column c and row r of the playable area is at (c - r)
+	 * half widths and (c + r) half heights from the top of the northwestern one,
+	 * so every diagonal c + r is a row of the view. The diagonals are drawn from
+	 * the back to the front, and the tiles of a diagonal don't overlap each other.
+	 */
+	private void updateView() {
+		final int[] camera = this.camera;
+		if (camera == this.viewCamera) {
+			return;
+		}
+		this.viewCamera = camera;
+		final int originX = camera[0];
+		final int originY = camera[1];
+		final int width = camera[2];
+		final int height = camera[3];
+		final int sizeX = this.world.getPlayableSizeX();
+		final int sizeY = this.world.getPlayableSizeY();
+		// Diagonals whose tiles can reach the view at any elevation
+		final int fromDiagonal = Math.max(
+				Math.floorDiv(originY - SpriteAtlas.SPRITE_HEIGHT, IsometricRenderer.HALF_HEIGHT) + 1, 0);
+		final int toDiagonal = Math.min(
+				IsometricRenderer.ceilDiv(originY + height + IsometricRenderer.MAXIMUM_ELEVATION,
+						IsometricRenderer.HALF_HEIGHT),
+				(sizeX + sizeY) - 1);
+		// Differences c - r of the tiles that can reach the view
+		final int fromDifference = Math.floorDiv(originX - IsometricRenderer.HALF_WIDTH,
+				IsometricRenderer.HALF_WIDTH) + 1;
+		final int toDifference = IsometricRenderer.ceilDiv(originX + width + IsometricRenderer.HALF_WIDTH,
+				IsometricRenderer.HALF_WIDTH);
+		int tileCount = 0;
+		for (int pass = 0; pass < 2; ++pass) {
+			if (pass == 1) {
+				this.allocate(tileCount);
+				tileCount = 0;
+			}
+			for (int diagonal = fromDiagonal; diagonal < toDiagonal; ++diagonal) {
+				int difference = Math.max(fromDifference, Math.max(-diagonal, diagonal - (2 * (sizeY - 1))));
+				// The difference and the diagonal have the same parity
+				difference += (difference - diagonal) & 1;
+				final int lastDifference = Math.min(toDifference - 1, Math.min(diagonal, (2 * (sizeX - 1)) - diagonal));
+				for (; difference <= lastDifference; difference += 2) {
+					if (pass == 1) {
+						this.addTile(tileCount, (diagonal + difference) / 2, (diagonal - difference) / 2, originX,
+								originY);
+					}
+					++tileCount;
+				}
+			}
+		}
+		this.tileCount = tileCount;
+		this.indexPlates();
+	}
+
+	/**
+	 * Makes room for the given number of tiles in view.
+	 */
+	private void allocate(final int tileCount) {
+		if (this.screenX.length < tileCount) {
+			this.screenX = new int[tileCount];
+			this.screenY = new int[tileCount];
+			this.plateX = new int[tileCount];
+			this.plateY = new int[tileCount];
+			this.plates = new int[tileCount];
+		}
+	}
+
+	/**
+	 * Adds the tile at a column and row of the playable area to the tiles in view.
+	 * Its plate is stored as its index in the world until the plates in view are
+	 * indexed.
+	 */
+	private void addTile(final int tile, final int column, final int row, final int originX, final int originY) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int fromY = this.world.getPlayableMaxY() - this.world.getPlayableMinY();
+		this.screenX[tile] = ((column - row) * IsometricRenderer.HALF_WIDTH) - originX;
+		this.screenY[tile] = ((column + row) * IsometricRenderer.HALF_HEIGHT) - originY;
+		final int indexY = fromY - row;
+		this.plateX[tile] = column % tectonicPlateSize;
+		this.plateY[tile] = indexY % tectonicPlateSize;
+		this.plates[tile] = ((indexY / tectonicPlateSize) * this.world.getTectonicPlateCountX())
+				+ (column / tectonicPlateSize);
+	}
+
+	/**
+	 * Replaces the index in the world of the plate of every tile in view by its
+	 * index among the plates in view.
+	 */
+	private void indexPlates() {
+		final int plateCountX = this.world.getTectonicPlateCountX();
+		final int[] worldPlates = Arrays.copyOf(this.plates, this.tileCount);
+		Arrays.sort(worldPlates);
+		int plateCount = 0;
+		for (int tile = 0; tile < worldPlates.length; ++tile) {
+			if ((tile == 0) || (worldPlates[tile] != worldPlates[tile - 1])) {
+				worldPlates[plateCount++] = worldPlates[tile];
+			}
+		}
+		this.plateIndices = new int[2 * plateCount];
+		for (int plate = 0; plate < plateCount; ++plate) {
+			this.plateIndices[2 * plate] = worldPlates[plate] % plateCountX;
+			this.plateIndices[(2 * plate) + 1] = worldPlates[plate] / plateCountX;
+		}
+		this.viewPlates = new TectonicPlate[plateCount];
+		for (int tile = 0; tile < this.tileCount; ++tile) {
+			this.plates[tile] = Arrays.binarySearch(worldPlates, 0, plateCount, this.plates[tile]);
+		}
+	}
+
+}
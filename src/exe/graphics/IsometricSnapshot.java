@@ -0,0 +1,151 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.awt.Rectangle;
+
+import util.idate.IDate;
+
+/**
+ * This class holds what the isometric view of a world shows at a given moment:
+ * the position of the camera, the sprites of the tiles in view and where they
+ * are drawn, in the order they are drawn, the tick and the date.
+ *
+ * A snapshot is filled by {@link IsometricRenderer#capture} and drawn by
+ * {@link IsometricRenderer#draw}, which may run on different threads as long as
+ * a snapshot isn't filled and drawn at once. Snapshots handed over through a
+ * {@link util.TripleBuffer} are never.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class IsometricSnapshot {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Position of the top left corner of the view relative to the top of the
+	 * northwestern tile, in pixels.
+	 */
+	int originX, originY;
+	/**
+	 * Size of the view in pixels.
+	 */
+	int width, height;
+	/**
+	 * Number of tiles in view.
+	 */
+	int tileCount;
+	/**
+	 * Position of the top left corner of the sprite of every tile in view relative
+	 * to the view, in the order the tiles are drawn.
+	 */
+	int[] left = new int[0], top = new int[0];
+	/**
+	 * Sprite of every tile in view, and of the element on it or -1 if there's
+	 * none.
+	 */
+	int[] sprite = new int[0], element = new int[0];
+	/**
+	 * Number of ticks simulated before this snapshot was filled.
+	 */
+	long tick;
+	/**
+	 * Date of the world.
+	 */
+	final IDate date = new IDate((short) 0, (byte) 0);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	public long getTick() {
+		return this.tick;
+	}
+
+	public IDate getDate() {
+		return this.date;
+	}
+
+	public int getTileCount() {
+		return this.tileCount;
+	}
+
+	/**
+	 * Makes room for the given number of tiles in view.
+	 */
+	void ensureCapacity(final int tileCount) {
+		if (this.left.length < tileCount) {
+			this.left = new int[tileCount];
+			this.top = new int[tileCount];
+			this.sprite = new int[tileCount];
+			this.element = new int[tileCount];
+		}
+	}
+
+	/**
+	 * Makes this snapshot a copy of another one.
+	 */
+	public void copy(final IsometricSnapshot snapshot) {
+		this.originX = snapshot.originX;
+		this.originY = snapshot.originY;
+		this.width = snapshot.width;
+		this.height = snapshot.height;
+		this.tileCount = snapshot.tileCount;
+		this.ensureCapacity(snapshot.tileCount);
+		System.arraycopy(snapshot.left, 0, this.left, 0, snapshot.tileCount);
+		System.arraycopy(snapshot.top, 0, this.top, 0, snapshot.tileCount);
+		System.arraycopy(snapshot.sprite, 0, this.sprite, 0, snapshot.tileCount);
+		System.arraycopy(snapshot.element, 0, this.element, 0, snapshot.tileCount);
+		this.tick = snapshot.tick;
+		this.date.setYear((short) snapshot.date.getYear());
+		this.date.setMonth((byte) snapshot.date.getMonth());
+	}
+
+	/**
+	 * Get the rectangle of the view where this snapshot draws differently from
+	 * another one: the whole view if the camera moved, or else the sprites of the
+	 * tiles that changed, where they were and where they are.
+	 *
+	 * @return The rectangle, or null if they draw the same tiles.
+	 */
+	public Rectangle getChanges(final IsometricSnapshot snapshot) {
+		if ((this.originX != snapshot.originX) || (this.originY != snapshot.originY)
+				|| (this.width != snapshot.width) || (this.height != snapshot.height)
+				|| (this.tileCount != snapshot.tileCount)) {
+			return new Rectangle(0, 0, this.width, this.height);
+		}
+		Rectangle changes = null;
+		for (int tile = 0; tile < this.tileCount; ++tile) {
+			if ((this.left[tile] != snapshot.left[tile]) || (this.top[tile] != snapshot.top[tile])
+					|| (this.sprite[tile] != snapshot.sprite[tile]) || (this.element[tile] != snapshot.element[tile])) {
+				final int left = Math.min(this.left[tile], snapshot.left[tile]);
+				final int right = Math.max(this.left[tile], snapshot.left[tile]) + SpriteAtlas.TILE_WIDTH;
+				final int top = Math.min(this.top[tile], snapshot.top[tile]);
+				final int bottom = Math.max(this.top[tile], snapshot.top[tile]) + SpriteAtlas.SPRITE_HEIGHT;
+				final Rectangle change = new Rectangle(left, top, right - left, bottom - top);
+				changes = changes == null ? change : changes.union(change);
+			}
+		}
+		return changes;
+	}
+
+}
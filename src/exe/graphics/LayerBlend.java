@@ -0,0 +1,148 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import entity.world.TectonicPlate;
+
+/**
+ * This class colors the tiles of a world by blending the colors given to them
+ * by several colorizers in a single pass. The colorizers are laid over a
+ * background color in the order in which they were added, each with the
+ * opacity it was added with times the alpha of its colors.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.graphics.Colorizer
+ * @since 0.1
+ *
+ */
+public class LayerBlend implements MapStyle {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Values and colors of the runs painted by every thread, grown when a run is
+	 * longer than them.
+	 */
+	private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][0]);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * ARGB color under every colorizer.
+	 */
+	private final int background;
+	/**
+	 * Colorizers of this blend, from the bottom up.
+	 */
+	private final List<Colorizer> colorizers;
+	/**
+	 * Opacity of each colorizer, between 0 and 255.
+	 */
+	private final List<Integer> opacities;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a blend with no colorizers over the given ARGB background color.
+	 */
+	public LayerBlend(final int background) {
+		this.background = background;
+		this.colorizers = new ArrayList<>();
+		this.opacities = new ArrayList<>();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Lays a color over another with the given opacity times the alpha of the
+	 * color laid over.
+	 */
+	private static int over(final int color, final int overColor, final int opacity) {
+		final int alpha = ((overColor >>> 24) * opacity) / 0xFF;
+		if (alpha == 0) {
+			return color;
+		}
+		final int inverseAlpha = 0xFF - alpha;
+		final int resultAlpha = alpha + (((color >>> 24) * inverseAlpha) / 0xFF);
+		int result = resultAlpha << 24;
+		for (int shift = 0; shift < 24; shift += 8) {
+			final int channel = ((((overColor >>> shift) & 0xFF) * alpha) + (((color >>> shift) & 0xFF) * inverseAlpha))
+					/ 0xFF;
+			result |= channel << shift;
+		}
+		return result;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Adds a colorizer on top of the colorizers of this blend.
+	 *
+	 * @param colorizer
+	 *                      Colorizer to add.
+	 * @param opacity
+	 *                      Opacity of the colorizer, between 0 and 255.
+	 * @return This blend.
+	 */
+	public LayerBlend add(final Colorizer colorizer, final int opacity) {
+		this.colorizers.add(colorizer);
+		this.opacities.add(Math.min(Math.max(opacity, 0), 0xFF));
+		return this;
+	}
+
+	@Override
+	public String getKey() {
+		final StringBuilder key = new StringBuilder("blend ").append(Integer.toHexString(this.background));
+		for (int layer = 0; layer < this.colorizers.size(); ++layer) {
+			key.append(' ').append(this.colorizers.get(layer).getKey()).append('@').append(this.opacities.get(layer));
+		}
+		return key.toString();
+	}
+
+	@Override
+	public void paint(final TectonicPlate tectonicPlate, final int x, final int y, final int length,
+			final int[] pixels, final int offset) {
+		Arrays.fill(pixels, offset, offset + length, this.background);
+		final int[][] rows = LayerBlend.ROWS.get();
+		if (rows[0].length < length) {
+			rows[0] = new int[length];
+			rows[1] = new int[length];
+		}
+		final int[] values = rows[0];
+		final int[] colors = rows[1];
+		for (int layer = 0; layer < this.colorizers.size(); ++layer) {
+			final int opacity = this.opacities.get(layer);
+			this.colorizers.get(layer).colorize(tectonicPlate, x, y, length, values, colors, 0);
+			for (int i = 0; i < length; ++i) {
+				pixels[offset + i] = LayerBlend.over(pixels[offset + i], colors[i], opacity);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+
+/**
+ * This class colors every tile with the color of the highest of the selected
+ * layers at it: red for magma, green for land, blue for water, white for frozen
+ * water and black for pollution. The shade of the color shows how far the
+ * highest layer is above the others. Layers that aren't selected are ignored, so
+ * selecting only land and water draws the terrain without its volcanoes.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class LayerComposite implements MapStyle {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Layers selected by default.
+	 */
+	public static final Set<Layer> DEFAULT_LAYERS = Collections
+			.unmodifiableSet(EnumSet.of(Layer.MAGMA, Layer.LAND, Layer.WATER, Layer.POLLUTION));
+	/**
+	 * Layers that can be selected, in the order in which their rows are read.
+	 */
+	private static final Layer[] COMPOSED_LAYERS = new Layer[] { Layer.MAGMA, Layer.LAND, Layer.WATER,
+			Layer.POLLUTION };
+	/**
+	 * Value given to the layers that aren't selected, which is never the highest
+	 * and is left out of the shade of the highest.
+	 */
+	private static final int IGNORED = Integer.MIN_VALUE;
+	/**
+	 * Rows of the layers that can be selected of every thread, followed by rows of
+	 * the magma and land under water when they aren't selected, grown when a run is
+	 * longer than them.
+	 */
+	private static final ThreadLocal<int[][]> ROWS = ThreadLocal
+			.withInitial(() -> new int[LayerComposite.COMPOSED_LAYERS.length + 2][0]);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether each of the layers that can be selected is selected.
+	 */
+	private final boolean[] selected;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a composite of the default layers.
+	 */
+	public LayerComposite() {
+		this(LayerComposite.DEFAULT_LAYERS);
+	}
+
+	/**
+	 * Creates a composite of the given layers. Layers other than magma, land,
+	 * water and pollution are ignored.
+	 */
+	public LayerComposite(final Set<Layer> layers) {
+		this.selected = new boolean[LayerComposite.COMPOSED_LAYERS.length];
+		for (int layer = 0; layer < this.selected.length; ++layer) {
+			this.selected[layer] = layers.contains(LayerComposite.COMPOSED_LAYERS[layer]);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the color of a tile from the heights of its layers.
+	 */
+	private static int getColor(final int magma, final int land, final int water, final int pollution,
+			final boolean frozen) {
+		if ((magma >= land) && (magma >= water) && (magma >= pollution)) {
+			return 0xFF000000
+					| ((0xFF - LayerComposite.toUnsignedByte(LayerComposite.getDepth(magma, land, water))) << 16);
+		} else if ((land >= water) && (land >= pollution)) {
+			return 0xFF000000 | ((0xFF - LayerComposite.toUnsignedByte(land)) << 8);
+		} else if (water >= pollution) {
+			if (frozen) {
+				return 0xFFFFFFFF;
+			}
+			return 0xFF000000 | (0xFF - LayerComposite.toUnsignedByte(LayerComposite.getDepth(water, magma, land)));
+		}
+		return 0xFF000000;
+	}
+
+	/**
+	 * Get how far the highest layer is above the highest of two other layers. If
+	 * both of them are ignored, the highest layer is shaded by its own height, as
+	 * land is.
+	 */
+	private static long getDepth(final int highest, final int other, final int another) {
+		final int below = Math.max(other, another);
+		if (below == LayerComposite.IGNORED) {
+			return highest;
+		}
+		return (long) highest - below;
+	}
+
+	/**
+	 * Get whether the water of a tile is frozen, as its temperature is below zero
+	 * unless magma covers it.
+	 */
+	private static boolean isFrozen(final TectonicPlate tectonicPlate, final double latitudeVariation,
+			final int magma, final int land, final int water) {
+		if ((magma >= land) && (magma >= water)) {
+			return false;
+		}
+		return tectonicPlate.getTemperature(latitudeVariation, Math.max(land, water)) < 0;
+	}
+
+	/**
+	 * Clamps a number to the range of an unsigned byte.
+	 */
+	private static int toUnsignedByte(final long x) {
+		if (x > 0xFF) {
+			return 0xFF;
+		}
+		if (x < 0) {
+			return 0;
+		}
+		return (int) x;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	@Override
+	public String getKey() {
+		final StringBuilder key = new StringBuilder("composite");
+		for (int layer = 0; layer < this.selected.length; ++layer) {
+			if (this.selected[layer]) {
+				key.append(' ').append(LayerComposite.COMPOSED_LAYERS[layer]);
+			}
+		}
+		return key.toString();
+	}
+
+	@Override
+	public void paint(final TectonicPlate tectonicPlate, final int x, final int y, final int length,
+			final int[] pixels, final int offset) {
+		final int[][] rows = LayerComposite.ROWS.get();
+		if (rows[0].length < length) {
+			for (int row = 0; row < rows.length; ++row) {
+				rows[row] = new int[length];
+			}
+		}
+		for (int layer = 0; layer < this.selected.length; ++layer) {
+			if (this.selected[layer]) {
+				tectonicPlate.getLayer(LayerComposite.COMPOSED_LAYERS[layer]).getRun(x, y, rows[layer], 0, length);
+			} else {
+				Arrays.fill(rows[layer], 0, length, LayerComposite.IGNORED);
+			}
+		}
+		final boolean waterSelected = this.selected[2];
+		// The temperature is only needed to tell whether the water is frozen, and it
+		// depends on the magma and land under the water even if they aren't selected
+		int[] surfaceMagma = rows[0];
+		int[] surfaceLand = rows[1];
+		if (waterSelected && !this.selected[0]) {
+			surfaceMagma = rows[rows.length - 2];
+			tectonicPlate.getLayer(Layer.MAGMA).getRun(x, y, surfaceMagma, 0, length);
+		}
+		if (waterSelected && !this.selected[1]) {
+			surfaceLand = rows[rows.length - 1];
+			tectonicPlate.getLayer(Layer.LAND).getRun(x, y, surfaceLand, 0, length);
+		}
+		// Only the height of the tiles changes the temperature along the row
+		final double latitudeVariation = waterSelected
+				? tectonicPlate.getLatitudeVariation(y, tectonicPlate.getCurrentDeltaAngle())
+				: 0.0d;
+		for (int i = 0; i < length; ++i) {
+			final int magma = rows[0][i];
+			final int land = rows[1][i];
+			final int water = rows[2][i];
+			final int pollution = rows[3][i];
+			final boolean frozen = waterSelected && (water > magma) && (water > land) && (water >= pollution)
+					&& LayerComposite.isFrozen(tectonicPlate, latitudeVariation, surfaceMagma[i], surfaceLand[i],
+							water);
+			pixels[offset + i] = LayerComposite.getColor(magma, land, water, pollution, frozen);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+
+/**
+ * This interface represents a way of coloring the tiles of a world on a map
+ * with a pixel per tile.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.io.MapExporter
+ * @since 0.1
+ *
+ */
+public interface MapStyle {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the style named by a list of layers or colorizers separated by commas.
+	 * Layers are composed by a {@link LayerComposite}. Colorizers are blended by a
+	 * {@link LayerBlend} over black, the first one opaque and every other one laid
+	 * over it at half opacity. An empty list names the default composite.
+	 *
+	 * @throws IllegalArgumentException
+	 *                                      If any of the names isn't a layer or a
+	 *                                      colorizer.
+	 */
+	public static MapStyle getMapStyle(final String names) {
+		if (names.trim().isEmpty()) {
+			return new LayerComposite();
+		}
+		final String[] splitNames = names.split(",");
+		if (Colorizer.getColorizer(splitNames[0].trim()) == null) {
+			final Set<Layer> layers = EnumSet.noneOf(Layer.class);
+			for (final String name : splitNames) {
+				layers.add(Layer.valueOf(name.trim().toUpperCase()));
+			}
+			return new LayerComposite(layers);
+		}
+		final LayerBlend layerBlend = new LayerBlend(0xFF000000);
+		for (int i = 0; i < splitNames.length; ++i) {
+			final Colorizer colorizer = Colorizer.getColorizer(splitNames[i].trim());
+			if (colorizer == null) {
+				throw new IllegalArgumentException("Unknown colorizer: " + splitNames[i].trim());
+			}
+			layerBlend.add(colorizer, i == 0 ? 0xFF : 0x80);
+		}
+		return layerBlend;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Paints a run of consecutive tiles of a plate along the x axis into
+	 * consecutive pixels. Different threads may paint different runs at once.
+	 *
+	 * @param tectonicPlate
+	 *                          Plate the tiles belong to.
+	 * @param x
+	 *                          x index of the first tile of the run in the plate.
+	 * @param y
+	 *                          y index of the tiles of the run in the plate.
+	 * @param length
+	 *                          Number of tiles of the run.
+	 * @param pixels
+	 *                          Array the ARGB colors of the tiles are put in.
+	 * @param offset
+	 *                          Index in the array of the color of the first tile.
+	 */
+	public void paint(TectonicPlate tectonicPlate, int x, int y, int length, int[] pixels, int offset);
+
+	/**
+	 * Get a key that tells this style apart from every style that colors the same
+	 * tiles differently, so that maps drawn before in the same style don't need
+	 * to be drawn again.
+	 */
+	public String getKey();
+
+}
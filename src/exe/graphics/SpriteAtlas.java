@@ -0,0 +1,256 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import exe.io.FileHandler;
+
+/**
+ * This class holds the sprites of the isometric view packed in a single image,
+ * so that drawing any of them copies from the same image. Every sprite is the
+ * top of a tile, a diamond twice as wide as it is high, above the sides of the
+ * column of ground under it, which hide the gaps left by lower tiles in front.
+ *
+ * An atlas is loaded from an image and a properties file with the same name
+ * which maps the name of every sprite to the position of its top left corner in
+ * the image as "x,y".
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class SpriteAtlas {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Width of the top of a tile in pixels.
+	 */
+	public static final int TILE_WIDTH = 64;
+	/**
+	 * Height of the top of a tile in pixels.
+	 */
+	public static final int TILE_HEIGHT = 32;
+	/**
+	 * Height of the sides of the column under the top of a tile in pixels.
+	 */
+	public static final int SIDE_HEIGHT = 64;
+	/**
+	 * Height of a sprite in pixels.
+	 */
+	public static final int SPRITE_HEIGHT = SpriteAtlas.TILE_HEIGHT + SpriteAtlas.SIDE_HEIGHT;
+	/**
+	 * Number of shades of land, from the lowest to the highest.
+	 */
+	public static final int LAND_SHADES = 8;
+	/**
+	 * Number of shades of water, from the shallowest to the deepest.
+	 */
+	public static final int WATER_SHADES = 4;
+	/**
+	 * Number of sprites in every row of the default atlas.
+	 */
+	private static final int DEFAULT_COLUMNS = 8;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Image the sprites are packed in.
+	 */
+	private final BufferedImage image;
+	/**
+	 * Index of every sprite by name.
+	 */
+	private final Map<String, Integer> indices = new HashMap<>();
+	/**
+	 * Position of the top left corner of every sprite in the image.
+	 */
+	private final int[] spriteX, spriteY;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates an atlas of the sprites packed in an image.
+	 *
+	 * @param image
+	 *                      Image the sprites are packed in.
+	 * @param positions
+	 *                      Position of the top left corner of every sprite in the
+	 *                      image as "x,y", by name.
+	 */
+	public SpriteAtlas(final BufferedImage image, final Properties positions) {
+		this.image = image;
+		this.spriteX = new int[positions.size()];
+		this.spriteY = new int[positions.size()];
+		for (final String name : positions.stringPropertyNames()) {
+			final String[] position = positions.getProperty(name).split(",");
+			final int index = this.indices.size();
+			this.spriteX[index] = Integer.parseInt(position[0].trim());
+			this.spriteY[index] = Integer.parseInt(position[1].trim());
+			this.indices.put(name, index);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Loads the atlas whose image is at the given path, joining the elements of the
+	 * path using the path separator character. The positions of the sprites are
+	 * read from the properties file next to it with the same name.
+	 */
+	public static SpriteAtlas load(final String... path) {
+		final String[] positionsPath = path.clone();
+		final String name = positionsPath[positionsPath.length - 1];
+		positionsPath[positionsPath.length - 1] = name.substring(0, name.lastIndexOf('.')) + ".properties";
+		return new SpriteAtlas(FileHandler.loadImage(path), FileHandler.loadProperties(positionsPath));
+	}
+
+	/**
+	 * Loads the atlas of the tiles from the graphics folder, or draws the default
+	 * one if the graphics folder doesn't have it.
+	 */
+	public static SpriteAtlas loadTiles() {
+		if (new File(String.join(File.separator, FileHandler.GRAPHIC_PATH, "atlas", "tiles.png")).isFile()) {
+			return SpriteAtlas.load(FileHandler.GRAPHIC_PATH, "atlas", "tiles.png");
+		}
+		return SpriteAtlas.createTiles();
+	}
+
+	/**
+	 * Draws the default atlas of the tiles: magma, ice, the shades of water and
+	 * the shades of land, the latter colored as the height colorizer colors them,
+	 * and a block marking elements.
+	 */
+	public static SpriteAtlas createTiles() {
+		final Colorizer height = Colorizer.height();
+		final Colorizer waterDepth = Colorizer.waterDepth();
+		final Map<String, Integer> colors = new HashMap<>();
+		colors.put("magma", 0xFFD04010);
+		colors.put("ice", 0xFFE8F0FF);
+		for (int shade = 0; shade < SpriteAtlas.WATER_SHADES; ++shade) {
+			colors.put("water." + shade, waterDepth.getColor(1 + (shade * (256 / SpriteAtlas.WATER_SHADES))));
+		}
+		for (int shade = 0; shade < SpriteAtlas.LAND_SHADES; ++shade) {
+			colors.put("land." + shade, height.getColor((shade * (256 / SpriteAtlas.LAND_SHADES))
+					+ (128 / SpriteAtlas.LAND_SHADES)));
+		}
+		final int rowCount = (colors.size() / SpriteAtlas.DEFAULT_COLUMNS) + 1;
+		final BufferedImage image = new BufferedImage(SpriteAtlas.DEFAULT_COLUMNS * SpriteAtlas.TILE_WIDTH,
+				rowCount * SpriteAtlas.SPRITE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final Properties positions = new Properties();
+		final Graphics2D graphics = image.createGraphics();
+		int index = 0;
+		for (final Map.Entry<String, Integer> entry : colors.entrySet()) {
+			final int x = (index % SpriteAtlas.DEFAULT_COLUMNS) * SpriteAtlas.TILE_WIDTH;
+			final int y = (index / SpriteAtlas.DEFAULT_COLUMNS) * SpriteAtlas.SPRITE_HEIGHT;
+			SpriteAtlas.drawTile(graphics, x, y, new Color(entry.getValue(), true));
+			positions.setProperty(entry.getKey(), x + "," + y);
+			++index;
+		}
+		final int x = (index % SpriteAtlas.DEFAULT_COLUMNS) * SpriteAtlas.TILE_WIDTH;
+		final int y = (index / SpriteAtlas.DEFAULT_COLUMNS) * SpriteAtlas.SPRITE_HEIGHT;
+		SpriteAtlas.drawElement(graphics, x, y, new Color(0xFF909090, true));
+		positions.setProperty("element", x + "," + y);
+		graphics.dispose();
+		return new SpriteAtlas(image, positions);
+	}
+
+	/**
+	 * Draws the sprite of a tile of a color with its top left corner at the given
+	 * position: the top in that color and the sides in darker shades of it.
+	 */
+	private static void drawTile(final Graphics2D graphics, final int x, final int y, final Color color) {
+		final int halfWidth = SpriteAtlas.TILE_WIDTH / 2;
+		final int halfHeight = SpriteAtlas.TILE_HEIGHT / 2;
+		final int left = x;
+		final int center = x + halfWidth;
+		final int right = x + SpriteAtlas.TILE_WIDTH;
+		final int middle = y + halfHeight;
+		final int bottom = y + SpriteAtlas.TILE_HEIGHT;
+		graphics.setColor(color.darker());
+		graphics.fillPolygon(new int[] { left, center, center, left },
+				new int[] { middle, bottom, bottom + SpriteAtlas.SIDE_HEIGHT, middle + SpriteAtlas.SIDE_HEIGHT }, 4);
+		graphics.setColor(color.darker().darker());
+		graphics.fillPolygon(new int[] { center, right, right, center },
+				new int[] { bottom, middle, middle + SpriteAtlas.SIDE_HEIGHT, bottom + SpriteAtlas.SIDE_HEIGHT }, 4);
+		graphics.setColor(color);
+		graphics.fillPolygon(new int[] { left, center, right, center }, new int[] { middle, y, middle, bottom }, 4);
+	}
+
+	/**
+	 * Draws the sprite of a block marking an element with its top left corner at
+	 * the given position: a cube half as wide as a tile standing on its top.
+	 */
+	private static void drawElement(final Graphics2D graphics, final int x, final int y, final Color color) {
+		final int quarterWidth = SpriteAtlas.TILE_WIDTH / 4;
+		final int quarterHeight = SpriteAtlas.TILE_HEIGHT / 4;
+		final int left = x + quarterWidth;
+		final int center = left + quarterWidth;
+		final int right = center + quarterWidth;
+		final int middle = y + quarterHeight;
+		final int bottom = middle + quarterHeight;
+		final int side = 2 * quarterHeight;
+		graphics.setColor(color.darker());
+		graphics.fillPolygon(new int[] { left, center, center, left },
+				new int[] { middle, bottom, bottom + side, middle + side }, 4);
+		graphics.setColor(color.darker().darker());
+		graphics.fillPolygon(new int[] { center, right, right, center },
+				new int[] { bottom, middle, middle + side, bottom + side }, 4);
+		graphics.setColor(color);
+		graphics.fillPolygon(new int[] { left, center, right, center }, new int[] { middle, y, middle, bottom }, 4);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the index of the sprite with the given name, or -1 if there's none.
+	 */
+	public int getSprite(final String name) {
+		final Integer index = this.indices.get(name);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Draws a sprite with its top left corner at the given position. Does nothing
+	 * for the index -1.
+	 */
+	public void draw(final Graphics2D graphics, final int sprite, final int x, final int y) {
+		if (sprite < 0) {
+			return;
+		}
+		final int spriteX = this.spriteX[sprite];
+		final int spriteY = this.spriteY[sprite];
+		graphics.drawImage(this.image, x, y, x + SpriteAtlas.TILE_WIDTH, y + SpriteAtlas.SPRITE_HEIGHT, spriteX,
+				spriteY, spriteX + SpriteAtlas.TILE_WIDTH, spriteY + SpriteAtlas.SPRITE_HEIGHT, null);
+	}
+
+}
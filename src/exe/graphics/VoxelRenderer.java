@@ -0,0 +1,477 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.graphics;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import entity.world.Terrain.Orientation;
+import util.RangeTask;
+import util.voxelraster.VoxelRaster;
+
+/**
+ * This class projects voxel rasters to sprites: seen from the top, from the
+ * front or isometrically from the top front right corner, after rotating them
+ * a number of quarter turns given by an orientation.
+ *
+ * Every pixel of a sprite is the projection of a ray of voxels, which is walked
+ * from the front to the back, blending the colors of the voxels it crosses until
+ * they are opaque. The walk only crosses the box of chunks of the raster that
+ * aren't air, and the columns of pixels are projected in parallel.
+ *
+ * The sprites of a raster are cached by projection and orientation, so models
+ * shared by many elements are only projected once. The cache holds rasters
+ * weakly, so the sprites of a raster are dropped along with it once nothing
+ * else uses it. Rasters that change have to be invalidated.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class VoxelRenderer {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Shades of the top, the right and the left faces of voxels in isometric
+	 * projections, out of 255.
+	 */
+	private static final int TOP_SHADE = 255, RIGHT_SHADE = 204, LEFT_SHADE = 153;
+	/**
+	 * Number of orientations, which the sprites of a raster are indexed by within
+	 * each projection.
+	 */
+	private static final int ORIENTATION_COUNT = Orientation.values().length;
+	/**
+	 * Number of sprites a raster can have.
+	 */
+	private static final int SPRITE_COUNT = Projection.values().length * VoxelRenderer.ORIENTATION_COUNT;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Pool the columns of pixels are projected on, or null to project them on the
+	 * calling thread.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * ARGB color of every voxel value. Values outside of it are air.
+	 */
+	private final int[] colors;
+	/**
+	 * Sprites projected so far of every raster, compared by identity, indexed by
+	 * projection and then by orientation.
+	 */
+	private final Map<VoxelRaster, AtomicReferenceArray<Sprite>> sprites = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Represents a way of projecting a raster.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Projection {
+		TOP, FRONT, ISOMETRIC
+	}
+
+	/**
+	 * Represents a projected raster as its size and its ARGB pixels, one row after
+	 * another.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static final class Sprite {
+
+		public final int width, height;
+		public final int[] pixels;
+
+		private Sprite(final int width, final int height) {
+			this.width = width;
+			this.height = height;
+			this.pixels = new int[width * height];
+		}
+
+		/**
+		 * Copies the pixels of this sprite into a new image.
+		 */
+		public BufferedImage toImage() {
+			final BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+			image.setRGB(0, 0, this.width, this.height, this.pixels, 0, this.width);
+			return image;
+		}
+
+	}
+
+	/**
+	 * Reads a raster rotated by a number of quarter turns, in view coordinates: u
+	 * grows to the right, v towards the viewer and w upwards. Also holds the box of
+	 * view coordinates outside of which every voxel is air.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static final class View {
+
+		private final VoxelRaster raster;
+		private final int rotation;
+		/**
+		 * Size of the rotated raster.
+		 */
+		private final int sizeU, sizeV, sizeW;
+		/**
+		 * Box of the chunks that aren't air, the minimums inclusive and the maximums
+		 * exclusive.
+		 */
+		private int minimumU, minimumV, minimumW, maximumU, maximumV, maximumW;
+
+		private View(final VoxelRaster raster, final int rotation) {
+			this.raster = raster;
+			this.rotation = rotation & 3;
+			final boolean turned = (this.rotation & 1) == 1;
+			this.sizeU = turned ? raster.getSizeY() : raster.getSizeX();
+			this.sizeV = turned ? raster.getSizeX() : raster.getSizeY();
+			this.sizeW = raster.getSizeZ();
+			int minimumX = Integer.MAX_VALUE, minimumY = Integer.MAX_VALUE, minimumZ = Integer.MAX_VALUE;
+			int maximumX = 0, maximumY = 0, maximumZ = 0;
+			for (int chunkZ = 0; chunkZ < raster.getChunkCountZ(); ++chunkZ) {
+				for (int chunkY = 0; chunkY < raster.getChunkCountY(); ++chunkY) {
+					for (int chunkX = 0; chunkX < raster.getChunkCountX(); ++chunkX) {
+						if (!raster.isChunkEmpty(chunkX, chunkY, chunkZ)) {
+							minimumX = Math.min(minimumX, chunkX * VoxelRaster.CHUNK_SIZE);
+							minimumY = Math.min(minimumY, chunkY * VoxelRaster.CHUNK_SIZE);
+							minimumZ = Math.min(minimumZ, chunkZ * VoxelRaster.CHUNK_SIZE);
+							maximumX = Math.max(maximumX, (chunkX + 1) * VoxelRaster.CHUNK_SIZE);
+							maximumY = Math.max(maximumY, (chunkY + 1) * VoxelRaster.CHUNK_SIZE);
+							maximumZ = Math.max(maximumZ, (chunkZ + 1) * VoxelRaster.CHUNK_SIZE);
+						}
+					}
+				}
+			}
+			if (minimumX == Integer.MAX_VALUE) {
+				return;
+			}
+			maximumX = Math.min(maximumX, raster.getSizeX());
+			maximumY = Math.min(maximumY, raster.getSizeY());
+			maximumZ = Math.min(maximumZ, raster.getSizeZ());
+			// Turn the corners of the box and take the new minimums and maximums
+			final int cornerU0 = this.toU(minimumX, minimumY);
+			final int cornerU1 = this.toU(maximumX - 1, maximumY - 1);
+			final int cornerV0 = this.toV(minimumX, minimumY);
+			final int cornerV1 = this.toV(maximumX - 1, maximumY - 1);
+			this.minimumU = Math.min(cornerU0, cornerU1);
+			this.maximumU = Math.max(cornerU0, cornerU1) + 1;
+			this.minimumV = Math.min(cornerV0, cornerV1);
+			this.maximumV = Math.max(cornerV0, cornerV1) + 1;
+			this.minimumW = minimumZ;
+			this.maximumW = maximumZ;
+		}
+
+		/**
+		 * Get the u coordinate of a column of the raster.
+		 */
+		private int toU(final int x, final int y) {
+			switch (this.rotation) {
+			case 0:
+				return x;
+			case 1:
+				return (this.raster.getSizeY() - 1) - y;
+			case 2:
+				return (this.raster.getSizeX() - 1) - x;
+			default:
+				return y;
+			}
+		}
+
+		/**
+		 * Get the v coordinate of a column of the raster.
+		 */
+		private int toV(final int x, final int y) {
+			switch (this.rotation) {
+			case 0:
+				return y;
+			case 1:
+				return x;
+			case 2:
+				return (this.raster.getSizeY() - 1) - y;
+			default:
+				return (this.raster.getSizeX() - 1) - x;
+			}
+		}
+
+		/**
+		 * Get the voxel at the given view coordinates, or 0 outside of the raster.
+		 */
+		private int get(final int u, final int v, final int w) {
+			if ((u < 0) || (v < 0) || (w < 0) || (u >= this.sizeU) || (v >= this.sizeV) || (w >= this.sizeW)) {
+				return 0;
+			}
+			switch (this.rotation) {
+			case 0:
+				return this.raster.get(u, v, w);
+			case 1:
+				return this.raster.get(v, (this.sizeU - 1) - u, w);
+			case 2:
+				return this.raster.get((this.sizeU - 1) - u, (this.sizeV - 1) - v, w);
+			default:
+				return this.raster.get((this.sizeV - 1) - v, u, w);
+			}
+		}
+
+	}
+
+	/**
+	 * Blends the colors of the voxels crossed by a ray from the front to the back.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static final class Ray {
+
+		/**
+		 * Sums of the channels of the colors blended so far, premultiplied by their
+		 * alpha, and the alpha blended so far, all of them out of 255.
+		 */
+		private int red, green, blue, alpha;
+
+		private void reset() {
+			this.red = 0;
+			this.green = 0;
+			this.blue = 0;
+			this.alpha = 0;
+		}
+
+		/**
+		 * Blends a color behind the colors blended so far, darkened by a shade out of
+		 * 255.
+		 *
+		 * @return Whether the ray is opaque, so that the voxels behind are hidden.
+		 */
+		private boolean blend(final int color, final int shade) {
+			final int weight = (((color >>> 24) * (255 - this.alpha)) + 127) / 255;
+			this.red += (((color >>> 16) & 0xFF) * shade * weight) / (255 * 255);
+			this.green += (((color >>> 8) & 0xFF) * shade * weight) / (255 * 255);
+			this.blue += ((color & 0xFF) * shade * weight) / (255 * 255);
+			this.alpha += weight;
+			return this.alpha >= 255;
+		}
+
+		/**
+		 * Get the blended color.
+		 */
+		private int getColor() {
+			if (this.alpha == 0) {
+				return 0;
+			}
+			final int alpha = Math.min(this.alpha, 255);
+			return (alpha << 24) | (Math.min((this.red * 255) / alpha, 255) << 16)
+					| (Math.min((this.green * 255) / alpha, 255) << 8) | Math.min((this.blue * 255) / alpha, 255);
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a renderer.
+	 *
+	 * @param pool
+	 *                   Pool the columns of pixels are projected on, or null to
+	 *                   project them on the calling thread.
+	 * @param colors
+	 *                   ARGB color of every voxel value. Values outside of it are
+	 *                   air, as is 0 whatever its color.
+	 */
+	public VoxelRenderer(final ForkJoinPool pool, final int[] colors) {
+		this.pool = pool;
+		this.colors = colors.clone();
+		if (this.colors.length > 0) {
+			this.colors[0] = 0;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the sprite of a raster seen with a projection after rotating it as an
+	 * orientation, projecting it only the first time it is asked for. Threads
+	 * asking for the same sprite at once may project it more than once, but they
+	 * all get the same one.
+	 */
+	public Sprite getSprite(final VoxelRaster raster, final Projection projection, final Orientation orientation) {
+		final AtomicReferenceArray<Sprite> rasterSprites = this.sprites.computeIfAbsent(raster,
+				key -> new AtomicReferenceArray<>(VoxelRenderer.SPRITE_COUNT));
+		final int index = (projection.ordinal() * VoxelRenderer.ORIENTATION_COUNT) + orientation.ordinal();
+		final Sprite sprite = rasterSprites.get(index);
+		if (sprite != null) {
+			return sprite;
+		}
+		final Sprite rendered = this.render(raster, projection, orientation);
+		return rasterSprites.compareAndSet(index, null, rendered) ? rendered : rasterSprites.get(index);
+	}
+
+	/**
+	 * Forgets the cached sprites of a raster, which has to be called after
+	 * changing it.
+	 */
+	public void invalidate(final VoxelRaster raster) {
+		this.sprites.remove(raster);
+	}
+
+	/**
+	 * Projects a raster with a projection after rotating it as an orientation,
+	 * without caching it.
+	 */
+	public Sprite render(final VoxelRaster raster, final Projection projection, final Orientation orientation) {
+		final View view = new View(raster, orientation.getRotation());
+		switch (projection) {
+		case TOP:
+			return this.renderTop(view);
+		case FRONT:
+			return this.renderFront(view);
+		default:
+			return this.renderIsometric(view);
+		}
+	}
+
+	/**
+	 * Get the color of a voxel value.
+	 */
+	private int getColor(final int voxel) {
+		return (voxel <= 0) || (voxel >= this.colors.length) ? 0 : this.colors[voxel];
+	}
+
+	/**
+	 * Projects a view from the top, with the front at the bottom, walking every
+	 * column of voxels from the top down.
+	 */
+	private Sprite renderTop(final View view) {
+		final Sprite sprite = new Sprite(view.sizeU, view.sizeV);
+		RangeTask.run(this.pool, u -> {
+			final Ray ray = new Ray();
+			for (int v = view.minimumV; v < view.maximumV; ++v) {
+				ray.reset();
+				for (int w = view.maximumW - 1; w >= view.minimumW; --w) {
+					final int color = this.getColor(view.get(u, v, w));
+					if ((color != 0) && ray.blend(color, VoxelRenderer.TOP_SHADE)) {
+						break;
+					}
+				}
+				sprite.pixels[(v * sprite.width) + u] = ray.getColor();
+			}
+		}, view.maximumU, 8);
+		return sprite;
+	}
+
+	/**
+	 * Projects a view from the front, with the top at the top, walking every row
+	 * of voxels from the front to the back.
+	 */
+	private Sprite renderFront(final View view) {
+		final Sprite sprite = new Sprite(view.sizeU, view.sizeW);
+		RangeTask.run(this.pool, u -> {
+			final Ray ray = new Ray();
+			for (int w = view.minimumW; w < view.maximumW; ++w) {
+				ray.reset();
+				for (int v = view.maximumV - 1; v >= view.minimumV; --v) {
+					final int color = this.getColor(view.get(u, v, w));
+					if ((color != 0) && ray.blend(color, VoxelRenderer.TOP_SHADE)) {
+						break;
+					}
+				}
+				sprite.pixels[(((view.sizeW - 1) - w) * sprite.width) + u] = ray.getColor();
+			}
+		}, view.maximumU, 8);
+		return sprite;
+	}
+
+	/**
+	 * Projects a view isometrically, looking from the top front right corner.
+	 *
+	 * The voxels (t, t - a, t - a - c) for every t form the ray (a, c), drawn as
+	 * two pixels one above the other at column a and row a + 2c, offset so that
+	 * both start at 0. Its voxel nearest to the viewer is the one with the largest
+	 * t, and its voxels are shaded by the face the viewer sees of them.
+	 */
+	private Sprite renderIsometric(final View view) {
+		final int offsetA = view.sizeV - 1;
+		final int offsetRow = (view.sizeV - 1) + (2 * (view.sizeW - 1));
+		final Sprite sprite = new Sprite(view.sizeU + view.sizeV - 1,
+				(view.sizeU + (3 * view.sizeV) + (2 * view.sizeW)) - 3);
+		RangeTask.run(this.pool, column -> {
+			final int a = column - offsetA;
+			final Ray ray = new Ray();
+			for (int c = 1 - view.sizeW; c < view.sizeV; ++c) {
+				final int fromT = Math.max(Math.max(view.minimumU, a + view.minimumV), a + c + view.minimumW);
+				final int toT = Math.min(Math.min(view.maximumU, a + view.maximumV), a + c + view.maximumW);
+				if (fromT >= toT) {
+					continue;
+				}
+				ray.reset();
+				for (int t = toT - 1; t >= fromT; --t) {
+					final int u = t;
+					final int v = t - a;
+					final int w = v - c;
+					final int color = this.getColor(view.get(u, v, w));
+					if (color == 0) {
+						continue;
+					}
+					final int shade;
+					if (this.getColor(view.get(u, v, w + 1)) == 0) {
+						shade = VoxelRenderer.TOP_SHADE;
+					} else if (this.getColor(view.get(u + 1, v, w)) == 0) {
+						shade = VoxelRenderer.RIGHT_SHADE;
+					} else {
+						shade = VoxelRenderer.LEFT_SHADE;
+					}
+					if (ray.blend(color, shade)) {
+						break;
+					}
+				}
+				final int row = a + (2 * c) + offsetRow;
+				final int pixel = ray.getColor();
+				sprite.pixels[(row * sprite.width) + column] = pixel;
+				sprite.pixels[((row + 1) * sprite.width) + column] = pixel;
+			}
+		}, sprite.width, 8);
+		return sprite;
+	}
+
+}
@@ -58,6 +58,10 @@ public class FileHandler {
 	 * Path to the audio folder.
 	 */
 	public static final String AUDIO_PATH;
+	/**
+	 * Path to the cache folder.
+	 */
+	public static final String CACHE_PATH;
 	/**
 	 * Path to the configuration folder.
 	 */
@@ -78,6 +82,10 @@ public class FileHandler {
 	 * Path to the internationalization folder.
 	 */
 	public static final String I18N_PATH;
+	/**
+	 * Path to the map folder.
+	 */
+	public static final String MAP_PATH;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Class initializer
@@ -95,11 +103,13 @@ public class FileHandler {
 			e.printStackTrace();
 		}
 		AUDIO_PATH = paths.getProperty("audio").replace('/', File.separatorChar);
+		CACHE_PATH = paths.getProperty("cache").replace('/', File.separatorChar);
 		CONFIGURATION_PATH = paths.getProperty("configuration").replace('/', File.separatorChar);
 		DATA_PATH = paths.getProperty("data").replace('/', File.separatorChar);
 		FONT_PATH = paths.getProperty("font").replace('/', File.separatorChar);
 		GRAPHIC_PATH = paths.getProperty("graphic").replace('/', File.separatorChar);
 		I18N_PATH = paths.getProperty("i18n").replace('/', File.separatorChar);
+		MAP_PATH = paths.getProperty("map").replace('/', File.separatorChar);
 		// set to null so it can be garbage collected
 		paths = null;
 	}
@@ -0,0 +1,341 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.io;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.Exceptions;
+import exe.graphics.MapStyle;
+import type.Type;
+import util.RangeTask;
+import util.integermatrix.IntegerMatrix;
+
+/**
+ * This class draws the playable area of a world as a map with a pixel per tile
+ * and exports it as a PNG image.
+ *
+ * The tiles are colored by a map style, such as a LayerComposite of the
+ * highest layers or a LayerBlend of colorizers.
+ *
+ * The tiles of each plate are colored a row at a time and the colors are
+ * written straight into the pixels of the image, with the plates drawn in parallel on
+ * the pool of the exporter if it has one. Exported maps are drawn in bands of
+ * rows that are written by a PngWriter as they are done, so the memory used
+ * doesn't grow with the size of the map.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.graphics.MapStyle
+ * @since 0.1
+ *
+ */
+public class MapExporter {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Number of pixels of the bands of rows an exported map is written in.
+	 */
+	private static final int BAND_PIXELS = 1 << 22;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Pool the plates are drawn on, or null to draw them on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates an exporter that draws the plates on the common pool.
+	 */
+	public MapExporter() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an exporter that draws the plates on the given pool, or on the
+	 * calling thread if it's null.
+	 */
+	public MapExporter(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Adds a number to a 64 bit FNV-1a hash.
+	 */
+	static long hash(final long hash, final int value) {
+		return (hash ^ (value & 0xFFFFFFFFL)) * 0x100000001B3L;
+	}
+
+	/**
+	 * Adds the id of a type plus one, or 0 for no type, to a 64 bit FNV-1a hash.
+	 */
+	private static long hash(final long hash, final Type type) {
+		return MapExporter.hash(hash, type == null ? 0 : (int) type.getId() + 1);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Draws the playable area of a world.
+	 *
+	 * @param world
+	 *                   World to draw.
+	 * @param style
+	 *                   Style the tiles are colored with.
+	 * @return An image of the playable area with north at the top.
+	 */
+	public BufferedImage render(final World world, final MapStyle style) {
+		final BufferedImage image = new BufferedImage(world.getPlayableSizeX(), world.getPlayableSizeY(),
+				BufferedImage.TYPE_INT_ARGB);
+		this.render(world, style, 0, world.getPlayableSizeY(),
+				((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+		return image;
+	}
+
+	/**
+	 * Draws a band of rows of the map of the playable area of a world, with north
+	 * at the top.
+	 *
+	 * @param world
+	 *                    World to draw.
+	 * @param style
+	 *                    Style the tiles are colored with.
+	 * @param fromRow
+	 *                    First row of the map to draw.
+	 * @param toRow
+	 *                    Row of the map after the last one to draw.
+	 * @param pixels
+	 *                    Array the ARGB pixels of the rows are put in, one row
+	 *                    after another starting at index 0.
+	 */
+	public void render(final World world, final MapStyle style, final int fromRow, final int toRow,
+			final int[] pixels) {
+		this.render(world, style, 0, world.getPlayableSizeX(), fromRow, toRow, pixels);
+	}
+
+	/**
+	 * Draws a rectangle of the map of the playable area of a world, with north at
+	 * the top.
+	 *
+	 * @param world
+	 *                       World to draw.
+	 * @param style
+	 *                       Style the tiles are colored with.
+	 * @param fromColumn
+	 *                       First column of the map to draw.
+	 * @param toColumn
+	 *                       Column of the map after the last one to draw.
+	 * @param fromRow
+	 *                       First row of the map to draw.
+	 * @param toRow
+	 *                       Row of the map after the last one to draw.
+	 * @param pixels
+	 *                       Array the ARGB pixels of the rectangle are put in, one
+	 *                       row after another starting at index 0.
+	 */
+	public void render(final World world, final MapStyle style, final int fromColumn, final int toColumn,
+			final int fromRow, final int toRow, final int[] pixels) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int minimumX = world.getPlayableMinX() + fromColumn;
+		final int maximumX = world.getPlayableMinX() + (toColumn - 1);
+		// The rows go from the largest coordinate down
+		final int minimumY = world.getPlayableMaxY() - (toRow - 1);
+		final int maximumY = world.getPlayableMaxY() - fromRow;
+		final int fromPlateX = fromColumn / tectonicPlateSize;
+		final int toPlateX = Math.min(((toColumn - 1) / tectonicPlateSize) + 1, world.getTectonicPlateCountX());
+		final int fromPlateY = (minimumY - world.getPlayableMinY()) / tectonicPlateSize;
+		final int toPlateY = Math.min(((maximumY - world.getPlayableMinY()) / tectonicPlateSize) + 1,
+				world.getTectonicPlateCountY());
+		final int plateCountX = toPlateX - fromPlateX;
+		RangeTask.run(this.pool, index -> {
+			final TectonicPlate tectonicPlate = world.getTectonicPlate(fromPlateX + (index % plateCountX),
+					fromPlateY + (index / plateCountX));
+			if (tectonicPlate != null) {
+				this.render(world, tectonicPlate, style, minimumX, maximumX, minimumY, maximumY, pixels);
+			}
+		}, (toPlateY - fromPlateY) * plateCountX, 1);
+	}
+
+	/**
+	 * Draws the tiles of a plate that are in the playable area and in the given
+	 * rectangle of coordinates into the pixels of that rectangle of the map.
+	 */
+	private void render(final World world, final TectonicPlate tectonicPlate, final MapStyle style,
+			final int minimumX, final int maximumX, final int minimumY, final int maximumY, final int[] pixels) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int sizeX = (maximumX - minimumX) + 1;
+		final int coordinateX = tectonicPlate.getCoordinateX();
+		final int coordinateY = tectonicPlate.getCoordinateY();
+		final int fromX = Math.max(minimumX - coordinateX, 0);
+		final int toX = Math.min((maximumX - coordinateX) + 1, tectonicPlateSize);
+		final int fromY = Math.max(minimumY - coordinateY, 0);
+		final int toY = Math.min((maximumY - coordinateY) + 1, tectonicPlateSize);
+		if ((fromX >= toX) || (fromY >= toY)) {
+			return;
+		}
+		for (int y = fromY; y < toY; ++y) {
+			style.paint(tectonicPlate, fromX, y, toX - fromX, pixels,
+					((maximumY - (coordinateY + y)) * sizeX) + ((coordinateX + fromX) - minimumX));
+		}
+	}
+
+	/**
+	 * Computes a hash of everything a map style can read of the tiles of a
+	 * rectangle of the map of the playable area of a world: the layers and the
+	 * types of every tile, and the month its current temperature depends on. A
+	 * rectangle with the same hash as before is drawn the same by any style, so it
+	 * doesn't need to be drawn again. The plates are read on the calling thread.
+	 *
+	 * @param world
+	 *                       World whose tiles are hashed.
+	 * @param seed
+	 *                       Hash the tiles are added to.
+	 * @param fromColumn
+	 *                       First column of the map to hash.
+	 * @param toColumn
+	 *                       Column of the map after the last one to hash.
+	 * @param fromRow
+	 *                       First row of the map to hash.
+	 * @param toRow
+	 *                       Row of the map after the last one to hash.
+	 * @return The hash with the tiles of the rectangle added.
+	 */
+	public long hashSources(final World world, final long seed, final int fromColumn, final int toColumn,
+			final int fromRow, final int toRow) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int minimumX = world.getPlayableMinX() + fromColumn;
+		final int maximumX = world.getPlayableMinX() + (toColumn - 1);
+		final int minimumY = world.getPlayableMaxY() - (toRow - 1);
+		final int maximumY = world.getPlayableMaxY() - fromRow;
+		final int fromPlateX = fromColumn / tectonicPlateSize;
+		final int toPlateX = Math.min(((toColumn - 1) / tectonicPlateSize) + 1, world.getTectonicPlateCountX());
+		final int fromPlateY = (minimumY - world.getPlayableMinY()) / tectonicPlateSize;
+		final int toPlateY = Math.min(((maximumY - world.getPlayableMinY()) / tectonicPlateSize) + 1,
+				world.getTectonicPlateCountY());
+		long hash = MapExporter.hash(seed, world.getDate().getMonth());
+		final int[] values = new int[tectonicPlateSize];
+		for (int plateY = fromPlateY; plateY < toPlateY; ++plateY) {
+			for (int plateX = fromPlateX; plateX < toPlateX; ++plateX) {
+				final TectonicPlate tectonicPlate = world.getTectonicPlate(plateX, plateY);
+				if (tectonicPlate != null) {
+					hash = this.hashSources(world, tectonicPlate, minimumX, maximumX, minimumY, maximumY, hash,
+							values);
+				}
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Adds the layers and the types of the tiles of a plate that are in the
+	 * playable area and in the given rectangle of coordinates to a hash.
+	 *
+	 * @param values
+	 *                   Array of at least the size of a plate to read the runs of
+	 *                   the layers into.
+	 */
+	private long hashSources(final World world, final TectonicPlate tectonicPlate, final int minimumX,
+			final int maximumX, final int minimumY, final int maximumY, final long seed, final int[] values) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int coordinateX = tectonicPlate.getCoordinateX();
+		final int coordinateY = tectonicPlate.getCoordinateY();
+		final int fromX = Math.max(minimumX - coordinateX, 0);
+		final int toX = Math.min((maximumX - coordinateX) + 1, tectonicPlateSize);
+		final int fromY = Math.max(minimumY - coordinateY, 0);
+		final int toY = Math.min((maximumY - coordinateY) + 1, tectonicPlateSize);
+		if ((fromX >= toX) || (fromY >= toY)) {
+			return seed;
+		}
+		long hash = seed;
+		for (final Layer layer : Layer.values()) {
+			final IntegerMatrix matrix = tectonicPlate.getLayer(layer);
+			for (int y = fromY; y < toY; ++y) {
+				matrix.getRun(fromX, y, values, 0, toX - fromX);
+				for (int i = 0; i < (toX - fromX); ++i) {
+					hash = MapExporter.hash(hash, values[i]);
+				}
+			}
+		}
+		for (int y = fromY; y < toY; ++y) {
+			for (int x = fromX; x < toX; ++x) {
+				hash = MapExporter.hash(hash, tectonicPlate.getSoilTypes().get(x, y));
+				hash = MapExporter.hash(hash, tectonicPlate.getMineralTypes().get(x, y));
+				hash = MapExporter.hash(hash, tectonicPlate.getPlantTypes().get(x, y));
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Draws the playable area of a world and writes it to a PNG file, creating
+	 * its folder if needed. The map is drawn and written a band of rows at a time,
+	 * so maps of any size can be exported.
+	 *
+	 * @param world
+	 *                   World to draw.
+	 * @param style
+	 *                   Style the tiles are colored with.
+	 * @param path
+	 *                   Path of the file.
+	 */
+	public void export(final World world, final MapStyle style, final String... path) {
+		final File file = new File(String.join(File.separator, path));
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final int sizeX = world.getPlayableSizeX();
+		final int sizeY = world.getPlayableSizeY();
+		final int bandRows = Math.max(MapExporter.BAND_PIXELS / sizeX, 1);
+		final int[] pixels = new int[bandRows * sizeX];
+		try (final PngWriter pngWriter = new PngWriter(new BufferedOutputStream(new FileOutputStream(file)), sizeX,
+				sizeY, this.pool, Deflater.DEFAULT_COMPRESSION)) {
+			for (int fromRow = 0; fromRow < sizeY; fromRow += bandRows) {
+				final int toRow = Math.min(fromRow + bandRows, sizeY);
+				Arrays.fill(pixels, 0);
+				this.render(world, style, fromRow, toRow, pixels);
+				pngWriter.writeRows(pixels, toRow - fromRow);
+			}
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+}
@@ -0,0 +1,475 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import exe.Exceptions;
+import type.MineralType;
+import type.SoilType;
+import util.integermatrix.IntegerMatrix;
+import util.integermatrix.ObjectMatrix;
+
+/**
+ * This class represents a file that stores the tectonic plates of a world so
+ * that they don't need to be in memory at the same time. Plates can be written
+ * and read back in any order.
+ *
+ * The file starts with a header with the number of plates along each axis and
+ * the size of the plates, followed by an index with the offset and length of
+ * the record of every plate, 0 for plates that haven't been written. Records
+ * are appended after the index as plates are written, and the index is updated
+ * right away, so the file is consistent after every write. Stores that are
+ * opened instead of created are only read.
+ *
+ * A record holds the magma flow of a plate, its integer layers and the ids of
+ * its soil and mineral types, 0 for none and the id plus one otherwise. Every
+ * grid is stored with the smallest width of integer that fits all of its
+ * values and the whole record is deflated.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class PlateStore implements Closeable {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Number that identifies plate stores, "IPS2" in ASCII.
+	 */
+	private static final int MAGIC_NUMBER = 0x49505332;
+	/**
+	 * Length of the header of a plate store in bytes.
+	 */
+	private static final int HEADER_LENGTH = 4 * Integer.BYTES;
+	/**
+	 * Length of an entry of the index of a plate store in bytes.
+	 */
+	private static final int INDEX_ENTRY_LENGTH = Long.BYTES + Integer.BYTES;
+	/**
+	 * Layers stored for every plate, in the order they're stored.
+	 */
+	private static final Layer[] LAYERS = Layer.values();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * File of this store.
+	 */
+	private final RandomAccessFile file;
+	/**
+	 * Number of plates of this store along the x and y axes.
+	 */
+	private final int plateCountX, plateCountY;
+	/**
+	 * Length of the side of the plates of this store.
+	 */
+	private final int tectonicPlateSize;
+	/**
+	 * Offset of the record of every plate in row-major order, 0 if it hasn't been
+	 * written.
+	 */
+	private final long[] offsets;
+	/**
+	 * Length of the record of every plate in row-major order.
+	 */
+	private final int[] lengths;
+	/**
+	 * Compressor of the records written to this store.
+	 */
+	private final Deflater deflater;
+	/**
+	 * Decompressor of the records read from this store.
+	 */
+	private final Inflater inflater;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	private PlateStore(final RandomAccessFile file, final int plateCountX, final int plateCountY,
+			final int tectonicPlateSize) {
+		this.file = file;
+		this.plateCountX = plateCountX;
+		this.plateCountY = plateCountY;
+		this.tectonicPlateSize = tectonicPlateSize;
+		this.offsets = new long[plateCountX * plateCountY];
+		this.lengths = new int[plateCountX * plateCountY];
+		this.deflater = new Deflater(Deflater.BEST_SPEED);
+		this.inflater = new Inflater();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates an empty store for the plates of the given world at the given path,
+	 * joining the elements of the path using the path separator character and
+	 * replacing any file there was. Throws any exception generated in the process
+	 * as an unchecked exception.
+	 */
+	public static PlateStore create(final World world, final String... path) {
+		final String joinedPath = String.join(File.separator, path);
+		try {
+			final RandomAccessFile file = new RandomAccessFile(joinedPath, "rw");
+			final PlateStore plateStore = new PlateStore(file, world.getTectonicPlateCountX(),
+					world.getTectonicPlateCountY(), world.getTectonicPlateSize());
+			file.setLength(0);
+			file.writeInt(PlateStore.MAGIC_NUMBER);
+			file.writeInt(plateStore.plateCountX);
+			file.writeInt(plateStore.plateCountY);
+			file.writeInt(plateStore.tectonicPlateSize);
+			file.write(new byte[plateStore.offsets.length * PlateStore.INDEX_ENTRY_LENGTH]);
+			return plateStore;
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+	/**
+	 * Opens the store at the given path for reading, joining the elements of the
+	 * path using the path separator character. The file is left untouched and
+	 * closed again if it isn't a whole plate store. Throws any exception generated
+	 * in the process as an unchecked exception.
+	 */
+	public static PlateStore open(final String... path) {
+		final String joinedPath = String.join(File.separator, path);
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(joinedPath, "r");
+			if (file.readInt() != PlateStore.MAGIC_NUMBER) {
+				throw new IOException("Not a plate store: " + joinedPath);
+			}
+			final int plateCountX = file.readInt();
+			final int plateCountY = file.readInt();
+			final int tectonicPlateSize = file.readInt();
+			final long fileLength = file.length();
+			final long indexLength = (long) plateCountX * plateCountY * PlateStore.INDEX_ENTRY_LENGTH;
+			if ((plateCountX <= 0) || (plateCountY <= 0) || (tectonicPlateSize <= 0)
+					|| (indexLength > (fileLength - PlateStore.HEADER_LENGTH))) {
+				throw new IOException("Malformed plate store header: " + joinedPath);
+			}
+			// The index is read whole before anything else is allocated
+			final ByteBuffer index = ByteBuffer.wrap(new byte[(int) indexLength]);
+			file.readFully(index.array());
+			final PlateStore plateStore = new PlateStore(file, plateCountX, plateCountY, tectonicPlateSize);
+			for (int entry = 0; entry < plateStore.offsets.length; ++entry) {
+				final long offset = index.getLong();
+				final int length = index.getInt();
+				if ((offset != 0L) && ((offset < (PlateStore.HEADER_LENGTH + indexLength)) || (length < Integer.BYTES)
+						|| ((offset + length) > fileLength))) {
+					plateStore.close();
+					throw new IOException("Malformed plate store index: " + joinedPath);
+				}
+				plateStore.offsets[entry] = offset;
+				plateStore.lengths[entry] = length;
+			}
+			return plateStore;
+		} catch (final IOException exception) {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (final IOException closingException) {
+					exception.addSuppressed(closingException);
+				}
+			}
+			throw Exceptions.loadingException(exception);
+		}
+	}
+
+	/**
+	 * Encodes the magma flow, the integer layers and the soil and mineral types of
+	 * a plate, uncompressed.
+	 */
+	public static byte[] encode(final TectonicPlate tectonicPlate) {
+		final int tectonicPlateSize = tectonicPlate.getTerrain().getTectonicPlateSize();
+		final int[] grid = new int[tectonicPlateSize * tectonicPlateSize];
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(tectonicPlate.magmaFlowX);
+			output.writeInt(tectonicPlate.magmaFlowY);
+			for (final Layer layer : PlateStore.LAYERS) {
+				final IntegerMatrix matrix = tectonicPlate.getLayer(layer);
+				for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+					for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+						grid[index] = matrix.get(x, y);
+					}
+				}
+				PlateStore.writeGrid(output, grid);
+			}
+			final ObjectMatrix<SoilType> soilTypes = tectonicPlate.getSoilTypes();
+			for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+					final SoilType soilType = soilTypes.get(x, y);
+					grid[index] = soilType == null ? 0 : (int) soilType.getId() + 1;
+				}
+			}
+			PlateStore.writeGrid(output, grid);
+			final ObjectMatrix<MineralType> mineralTypes = tectonicPlate.getMineralTypes();
+			for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+					final MineralType mineralType = mineralTypes.get(x, y);
+					grid[index] = mineralType == null ? 0 : (int) mineralType.getId() + 1;
+				}
+			}
+			PlateStore.writeGrid(output, grid);
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a plate encoded by {@link #encode(TectonicPlate)} into a new plate
+	 * of the given world with the given indices.
+	 *
+	 * @return The new plate.
+	 */
+	public static TectonicPlate decode(final World world, final int plateIndexX, final int plateIndexY,
+			final byte[] bytes) {
+		final int tectonicPlateSize = world.getTectonicPlateSize();
+		final int[] grid = new int[tectonicPlateSize * tectonicPlateSize];
+		try (final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			final int magmaFlowX = input.readInt();
+			final int magmaFlowY = input.readInt();
+			final TectonicPlate tectonicPlate = world.newTectonicPlate(plateIndexX, plateIndexY, magmaFlowX,
+					magmaFlowY, null);
+			for (final Layer layer : PlateStore.LAYERS) {
+				final IntegerMatrix matrix = tectonicPlate.getLayer(layer);
+				PlateStore.readGrid(input, grid);
+				for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+					for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+						matrix.set(x, y, grid[index]);
+					}
+				}
+			}
+			// Types are only looked up if there are any, so that plates without them
+			// don't need the data of the game
+			final ObjectMatrix<SoilType> soilTypes = tectonicPlate.getSoilTypes();
+			PlateStore.readGrid(input, grid);
+			for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+					if (grid[index] != 0) {
+						soilTypes.set(x, y, SoilType.getSoilType(grid[index] - 1));
+					}
+				}
+			}
+			final ObjectMatrix<MineralType> mineralTypes = tectonicPlate.getMineralTypes();
+			PlateStore.readGrid(input, grid);
+			for (int y = 0, index = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x, ++index) {
+					if (grid[index] != 0) {
+						mineralTypes.set(x, y, MineralType.getMineralType(grid[index] - 1));
+					}
+				}
+			}
+			return tectonicPlate;
+		} catch (final IOException exception) {
+			throw Exceptions.loadingException(exception);
+		}
+	}
+
+	/**
+	 * Writes a grid of integers with the smallest width of integer that fits all
+	 * of its values, preceded by the width.
+	 */
+	private static void writeGrid(final DataOutputStream output, final int[] grid) throws IOException {
+		int minimum = 0;
+		int maximum = 0;
+		for (final int value : grid) {
+			minimum = Math.min(minimum, value);
+			maximum = Math.max(maximum, value);
+		}
+		final int width;
+		if ((minimum >= Byte.MIN_VALUE) && (maximum <= Byte.MAX_VALUE)) {
+			width = Byte.BYTES;
+		} else if ((minimum >= Short.MIN_VALUE) && (maximum <= Short.MAX_VALUE)) {
+			width = Short.BYTES;
+		} else {
+			width = Integer.BYTES;
+		}
+		output.writeByte(width);
+		for (final int value : grid) {
+			switch (width) {
+			case Byte.BYTES:
+				output.writeByte(value);
+				break;
+			case Short.BYTES:
+				output.writeShort(value);
+				break;
+			default:
+				output.writeInt(value);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Reads a grid of integers written by
+	 * {@link #writeGrid(DataOutputStream, int[])}.
+	 */
+	private static void readGrid(final DataInputStream input, final int[] grid) throws IOException {
+		final int width = input.readByte();
+		for (int index = 0; index < grid.length; ++index) {
+			switch (width) {
+			case Byte.BYTES:
+				grid[index] = input.readByte();
+				break;
+			case Short.BYTES:
+				grid[index] = input.readShort();
+				break;
+			default:
+				grid[index] = input.readInt();
+				break;
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get whether the plate with the given indices has been written to this store.
+	 */
+	public synchronized boolean contains(final int plateIndexX, final int plateIndexY) {
+		return this.offsets[(plateIndexY * this.plateCountX) + plateIndexX] != 0;
+	}
+
+	/**
+	 * Writes a plate to this store, replacing the record it had, if any. The old
+	 * record is left unused in the file.
+	 */
+	public synchronized void write(final TectonicPlate tectonicPlate) {
+		final byte[] bytes = PlateStore.encode(tectonicPlate);
+		this.deflater.reset();
+		this.deflater.setInput(bytes);
+		this.deflater.finish();
+		byte[] compressed = new byte[Math.max(64, bytes.length / 2)];
+		int compressedLength = 0;
+		while (!this.deflater.finished()) {
+			if (compressedLength == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			compressedLength += this.deflater.deflate(compressed, compressedLength,
+					compressed.length - compressedLength);
+		}
+		final int index = (tectonicPlate.plateIndexY * this.plateCountX) + tectonicPlate.plateIndexX;
+		try {
+			final long offset = this.file.length();
+			this.file.seek(offset);
+			this.file.writeInt(bytes.length);
+			this.file.write(compressed, 0, compressedLength);
+			this.file.seek(PlateStore.HEADER_LENGTH + ((long) index * PlateStore.INDEX_ENTRY_LENGTH));
+			this.file.writeLong(offset);
+			this.file.writeInt(Integer.BYTES + compressedLength);
+			this.offsets[index] = offset;
+			this.lengths[index] = Integer.BYTES + compressedLength;
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+	/**
+	 * Reads the plate with the given indices from this store into the given
+	 * world, replacing the plate it had, if any.
+	 *
+	 * @return The plate read, or null if it hasn't been written to this store.
+	 */
+	public synchronized TectonicPlate read(final World world, final int plateIndexX, final int plateIndexY) {
+		this.checkWorld(world);
+		final int index = (plateIndexY * this.plateCountX) + plateIndexX;
+		if (this.offsets[index] == 0) {
+			return null;
+		}
+		try {
+			final byte[] compressed = new byte[this.lengths[index] - Integer.BYTES];
+			this.file.seek(this.offsets[index]);
+			final byte[] bytes = new byte[this.file.readInt()];
+			this.file.readFully(compressed);
+			this.inflater.reset();
+			this.inflater.setInput(compressed);
+			int length = 0;
+			while (length < bytes.length) {
+				final int inflated = this.inflater.inflate(bytes, length, bytes.length - length);
+				if ((inflated == 0) && (this.inflater.finished() || this.inflater.needsInput())) {
+					throw new IOException("Truncated plate record");
+				}
+				length += inflated;
+			}
+			return PlateStore.decode(world, plateIndexX, plateIndexY, bytes);
+		} catch (final IOException | DataFormatException exception) {
+			throw Exceptions.loadingException(exception);
+		}
+	}
+
+	/**
+	 * Reads every plate written to this store into the given world.
+	 */
+	public void readAll(final World world) {
+		this.checkWorld(world);
+		for (int plateIndexY = 0; plateIndexY < this.plateCountY; ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < this.plateCountX; ++plateIndexX) {
+				this.read(world, plateIndexX, plateIndexY);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the plates of this store have the size and number of those of
+	 * the given world, throwing an unchecked exception otherwise.
+	 */
+	private void checkWorld(final World world) {
+		if ((world.getTectonicPlateCountX() != this.plateCountX)
+				|| (world.getTectonicPlateCountY() != this.plateCountY)
+				|| (world.getTectonicPlateSize() != this.tectonicPlateSize)) {
+			throw Exceptions.loadingException(new IOException("Plate store of " + this.plateCountX + "x"
+					+ this.plateCountY + " plates of " + this.tectonicPlateSize + " tiles doesn't match the world"));
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		this.deflater.end();
+		this.inflater.end();
+		try {
+			this.file.close();
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+}
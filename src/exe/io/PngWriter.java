@@ -0,0 +1,312 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import util.RangeTask;
+
+/**
+ * This class writes a PNG image a band of rows at a time, so images larger than
+ * what fits in memory can be written with memory bounded by the size of a band.
+ *
+ * Every band is split into chunks that are filtered and compressed in parallel,
+ * each with its own deflater primed with the data that precedes it. Every chunk
+ * but the last one ends in a sync flush, so the chunks put together form a
+ * single deflate stream, and each of them is written as soon as its band is
+ * done as an IDAT chunk of the image.
+ *
+ * The pixels are given as ARGB integers, like those of the images of type
+ * BufferedImage.TYPE_INT_ARGB, and written as 8 bit RGBA with the sub filter.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class PngWriter implements Closeable {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Signature at the start of every PNG file.
+	 */
+	private static final byte[] SIGNATURE = new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	/**
+	 * Bytes of every pixel.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+	/**
+	 * Number of uncompressed bytes compressed by each deflater.
+	 */
+	private static final int CHUNK_SIZE = 1 << 17;
+	/**
+	 * Number of bytes of data preceding a chunk its deflater is primed with, which
+	 * is as far back as deflate can refer to.
+	 */
+	private static final int DICTIONARY_SIZE = 1 << 15;
+	/**
+	 * Byte of the sub filter, which stores every byte of a row as its difference
+	 * with the same byte of the pixel to its left.
+	 */
+	private static final byte SUB_FILTER = 1;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Stream the image is written to.
+	 */
+	private final DataOutputStream output;
+	/**
+	 * Size of the image in pixels.
+	 */
+	private final int width, height;
+	/**
+	 * Pool the chunks are compressed on, or null to compress them on the calling
+	 * thread.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Compression level of the deflaters.
+	 */
+	private final int level;
+	/**
+	 * Checksum of all of the uncompressed data written so far.
+	 */
+	private final Adler32 adler32;
+	/**
+	 * Last uncompressed bytes written, which prime the deflater of the next
+	 * chunk.
+	 */
+	private byte[] dictionary;
+	/**
+	 * Number of rows written so far.
+	 */
+	private int rows;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a writer of an image of the given size and writes its header.
+	 *
+	 * @param output
+	 *                   Stream the image is written to.
+	 * @param width
+	 *                   Width of the image in pixels.
+	 * @param height
+	 *                   Height of the image in pixels.
+	 * @param pool
+	 *                   Pool the chunks are compressed on, or null to compress
+	 *                   them on the calling thread.
+	 * @param level
+	 *                   Compression level, from 0 to 9 or
+	 *                   Deflater.DEFAULT_COMPRESSION.
+	 */
+	public PngWriter(final OutputStream output, final int width, final int height, final ForkJoinPool pool,
+			final int level) throws IOException {
+		if ((width <= 0) || (height <= 0) || (((long) width * PngWriter.BYTES_PER_PIXEL) + 1L > Integer.MAX_VALUE)) {
+			throw new IllegalArgumentException("width:" + width + "; height:" + height);
+		}
+		this.output = new DataOutputStream(output);
+		this.width = width;
+		this.height = height;
+		this.pool = pool;
+		this.level = level;
+		this.adler32 = new Adler32();
+		this.dictionary = new byte[0];
+		this.rows = 0;
+		this.output.write(PngWriter.SIGNATURE);
+		final ByteArrayOutputStream header = new ByteArrayOutputStream();
+		final DataOutputStream headerOutput = new DataOutputStream(header);
+		headerOutput.writeInt(width);
+		headerOutput.writeInt(height);
+		// Bit depth 8, color type RGBA, deflate, adaptive filters, no interlacing
+		headerOutput.write(new byte[] { 8, 6, 0, 0, 0 });
+		this.writeChunk("IHDR", header.toByteArray(), 0, header.size());
+		// The zlib header of the image data: deflate with a 32 KiB window
+		this.writeChunk("IDAT", new byte[] { 0x78, (byte) 0x9C }, 0, 2);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the width of the image in pixels.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Get the height of the image in pixels.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Writes the next rows of the image, from top to bottom.
+	 *
+	 * @param pixels
+	 *                     ARGB pixels of the rows, one row after another.
+	 * @param rowCount
+	 *                     Number of rows to write.
+	 */
+	public void writeRows(final int[] pixels, final int rowCount) throws IOException {
+		if ((rowCount <= 0) || ((this.rows + rowCount) > this.height)) {
+			throw new IllegalArgumentException("rows:" + this.rows + "; rowCount:" + rowCount);
+		}
+		final int rowSize = (this.width * PngWriter.BYTES_PER_PIXEL) + 1;
+		if (((long) rowSize * rowCount) > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("rowCount:" + rowCount);
+		}
+		final byte[] data = new byte[rowSize * rowCount];
+		RangeTask.run(this.pool, row -> this.filterRow(pixels, row, data, row * rowSize), rowCount, 16);
+		this.rows += rowCount;
+		final boolean last = this.rows == this.height;
+		final int chunkCount = (data.length + PngWriter.CHUNK_SIZE - 1) / PngWriter.CHUNK_SIZE;
+		final byte[][] compressedChunks = new byte[chunkCount][];
+		final byte[] previousDictionary = this.dictionary;
+		RangeTask.run(this.pool, chunk -> {
+			final int from = chunk * PngWriter.CHUNK_SIZE;
+			final int to = Math.min(from + PngWriter.CHUNK_SIZE, data.length);
+			compressedChunks[chunk] = this.compress(data, from, to, previousDictionary,
+					last && (chunk == (chunkCount - 1)));
+		}, chunkCount, 1);
+		for (final byte[] compressedChunk : compressedChunks) {
+			this.writeChunk("IDAT", compressedChunk, 0, compressedChunk.length);
+		}
+		this.adler32.update(data, 0, data.length);
+		this.dictionary = PngWriter.tail(previousDictionary, data, 0, data.length);
+		if (last) {
+			final byte[] trailer = new byte[4];
+			final long checksum = this.adler32.getValue();
+			trailer[0] = (byte) (checksum >>> 24);
+			trailer[1] = (byte) (checksum >>> 16);
+			trailer[2] = (byte) (checksum >>> 8);
+			trailer[3] = (byte) checksum;
+			this.writeChunk("IDAT", trailer, 0, trailer.length);
+			this.writeChunk("IEND", new byte[0], 0, 0);
+		}
+	}
+
+	/**
+	 * Flushes the stream of this writer and closes it. All of the rows of the
+	 * image must have been written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.rows != this.height) {
+			this.output.close();
+			throw new IOException("Only " + this.rows + " of " + this.height + " rows were written");
+		}
+		this.output.close();
+	}
+
+	/**
+	 * Converts a row of ARGB pixels to RGBA bytes with the sub filter.
+	 */
+	private void filterRow(final int[] pixels, final int row, final byte[] data, final int offset) {
+		data[offset] = PngWriter.SUB_FILTER;
+		int previous = 0;
+		for (int x = 0, pixelIndex = row * this.width, dataIndex = offset + 1; x < this.width; ++x, ++pixelIndex) {
+			final int pixel = pixels[pixelIndex];
+			data[dataIndex++] = (byte) ((pixel >>> 16) - (previous >>> 16));
+			data[dataIndex++] = (byte) ((pixel >>> 8) - (previous >>> 8));
+			data[dataIndex++] = (byte) (pixel - previous);
+			data[dataIndex++] = (byte) ((pixel >>> 24) - (previous >>> 24));
+			previous = pixel;
+		}
+	}
+
+	/**
+	 * Compresses a chunk of data with a deflater primed with the bytes preceding
+	 * it, ending it with a sync flush or, for the last chunk of the image, with
+	 * the end of the stream.
+	 */
+	private byte[] compress(final byte[] data, final int from, final int to, final byte[] previousDictionary,
+			final boolean last) {
+		final Deflater deflater = new Deflater(this.level, true);
+		try {
+			final byte[] chunkDictionary = PngWriter.tail(previousDictionary, data, 0, from);
+			if (chunkDictionary.length > 0) {
+				deflater.setDictionary(chunkDictionary);
+			}
+			deflater.setInput(data, from, to - from);
+			final ByteArrayOutputStream compressed = new ByteArrayOutputStream((to - from) / 2);
+			final byte[] buffer = new byte[1 << 16];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					compressed.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} else {
+				int length;
+				do {
+					length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressed.write(buffer, 0, length);
+				} while (length == buffer.length);
+			}
+			return compressed.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Get the last bytes of the given dictionary followed by the given range of
+	 * data, up to the size of a dictionary.
+	 */
+	private static byte[] tail(final byte[] dictionary, final byte[] data, final int from, final int to) {
+		final int fromData = Math.min(to - from, PngWriter.DICTIONARY_SIZE);
+		final int fromDictionary = Math.min(dictionary.length, PngWriter.DICTIONARY_SIZE - fromData);
+		final byte[] tail = new byte[fromDictionary + fromData];
+		System.arraycopy(dictionary, dictionary.length - fromDictionary, tail, 0, fromDictionary);
+		System.arraycopy(data, to - fromData, tail, fromDictionary, fromData);
+		return tail;
+	}
+
+	/**
+	 * Writes a chunk of the given type with its length and checksum.
+	 */
+	private void writeChunk(final String type, final byte[] data, final int offset, final int length)
+			throws IOException {
+		final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		final CRC32 crc32 = new CRC32();
+		crc32.update(typeBytes);
+		crc32.update(data, offset, length);
+		this.output.writeInt(length);
+		this.output.write(typeBytes);
+		this.output.write(data, offset, length);
+		this.output.writeInt((int) crc32.getValue());
+	}
+
+}
@@ -0,0 +1,540 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.io;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import entity.world.World;
+import exe.Exceptions;
+import exe.graphics.MapStyle;
+
+/**
+ * This class exports the map of the playable area of a world as a pyramid of
+ * square tiles of 256 pixels, as used by slippy map viewers. The tile x, y of
+ * zoom z is written to the file z/x/y.png of the folder of the pyramid. At the
+ * finest zoom a pixel is a tile of the world, and every coarser zoom halves the
+ * size of the map until it fits in a single tile at zoom 0.
+ *
+ * The tiles of the finest zoom are drawn from the terrain by a map exporter,
+ * and every other tile is scaled down from the four tiles below it instead of
+ * drawing the terrain again. The pyramid is built depth first in parallel, so
+ * only a few tiles per zoom are held in memory at once.
+ *
+ * A hash of what every tile is drawn from is stored in a file next to the
+ * tiles: the style, the layers and types of the tiles of the world under a tile
+ * of the finest zoom, and the hashes of the four tiles below any other tile.
+ * Exporting the map again hashes the world first, which is much cheaper than
+ * drawing it, and then only draws and writes the tiles whose hash changed or
+ * whose file is missing. The unchanged tiles beside them that their parents are
+ * scaled down from are read back from their files instead of being drawn.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.io.MapExporter
+ * @since 0.1
+ *
+ */
+public class TilePyramidExporter {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Size of the side of the tiles in pixels.
+	 */
+	public static final int TILE_SIZE = 256;
+	/**
+	 * Name of the file of the hashes of the tiles of a pyramid.
+	 */
+	private static final String HASHES_FILE_NAME = "tiles.hashes";
+	/**
+	 * Extension of the files of the tiles.
+	 */
+	private static final String EXTENSION = ".png";
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Pool the tiles are built on, or null to build them on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Exporter the tiles of the finest zoom are drawn with. Every tile is drawn on
+	 * a single thread, since the tiles themselves are built in parallel.
+	 */
+	private final MapExporter mapExporter;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Inner classes
+
+	/**
+	 * Action applied to a tile of the pyramid, which may apply itself to the four
+	 * tiles below it.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	@FunctionalInterface
+	private static interface TileAction<T> {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		public T apply(int zoom, int x, int y);
+
+	}
+
+	/**
+	 * Task that applies an action to a tile.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class TileTask<T> extends RecursiveTask<T> {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Class fields
+
+		private static final long serialVersionUID = 5384028465722081652L;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * Action applied to the tile.
+		 */
+		private final TileAction<T> action;
+		/**
+		 * Zoom and indices of the tile.
+		 */
+		private final int zoom, x, y;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		private TileTask(final TileAction<T> action, final int zoom, final int x, final int y) {
+			this.action = action;
+			this.zoom = zoom;
+			this.x = x;
+			this.y = y;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		protected T compute() {
+			return this.action.apply(this.zoom, this.x, this.y);
+		}
+
+	}
+
+	/**
+	 * State of a single export of a pyramid.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class Export {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * World drawn.
+		 */
+		private final World world;
+		/**
+		 * Style the tiles are colored with.
+		 */
+		private final MapStyle style;
+		/**
+		 * Folder of the pyramid.
+		 */
+		private final File folder;
+		/**
+		 * Finest zoom of the pyramid.
+		 */
+		private final int maximumZoom;
+		/**
+		 * Hash of the key of the style, which the hash of every tile starts from.
+		 */
+		private final long styleHash;
+		/**
+		 * Hashes of the tiles of the last export and of this one.
+		 */
+		private final Properties oldHashes, hashes;
+		/**
+		 * Keys of the tiles that have to be written, because their hash changed or
+		 * their file is missing, or because a tile below them has to.
+		 */
+		private final Set<String> changedTiles;
+		/**
+		 * Number of tiles written.
+		 */
+		private final AtomicInteger writtenTiles;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		private Export(final World world, final MapStyle style, final File folder, final int maximumZoom,
+				final Properties oldHashes) {
+			this.world = world;
+			this.style = style;
+			this.folder = folder;
+			this.maximumZoom = maximumZoom;
+			long styleHash = 0xCBF29CE484222325L;
+			for (final char character : style.getKey().toCharArray()) {
+				styleHash = MapExporter.hash(styleHash, character);
+			}
+			this.styleHash = styleHash;
+			this.oldHashes = oldHashes;
+			this.hashes = new Properties();
+			this.changedTiles = ConcurrentHashMap.newKeySet();
+			this.writtenTiles = new AtomicInteger();
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates an exporter that builds the tiles on the given pool, or on the
+	 * calling thread if it's null.
+	 */
+	public TilePyramidExporter(final ForkJoinPool pool) {
+		this.pool = pool;
+		this.mapExporter = new MapExporter(null);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the finest zoom of the pyramid of the map of a world, at which a pixel
+	 * is a tile of the world.
+	 */
+	public static int getMaximumZoom(final World world) {
+		final int size = Math.max(world.getPlayableSizeX(), world.getPlayableSizeY());
+		int zoom = 0;
+		while ((TilePyramidExporter.TILE_SIZE << zoom) < size) {
+			++zoom;
+		}
+		return zoom;
+	}
+
+	/**
+	 * Get the key of a tile in the hashes of a pyramid.
+	 */
+	private static String getKey(final int zoom, final int x, final int y) {
+		return zoom + "/" + x + "/" + y;
+	}
+
+	/**
+	 * Scales the pixels of a tile down to a quarter of their size into a quadrant
+	 * of another tile, averaging every channel of every square of four pixels.
+	 */
+	private static void downsample(final int[] pixels, final int[] quadrantPixels, final int quadrantX,
+			final int quadrantY) {
+		final int size = TilePyramidExporter.TILE_SIZE;
+		final int half = size / 2;
+		for (int y = 0; y < half; ++y) {
+			for (int x = 0; x < half; ++x) {
+				final int index = (2 * y * size) + (2 * x);
+				final int topLeft = pixels[index];
+				final int topRight = pixels[index + 1];
+				final int bottomLeft = pixels[index + size];
+				final int bottomRight = pixels[index + size + 1];
+				int color = 0;
+				for (int shift = 0; shift < 32; shift += 8) {
+					final int sum = ((topLeft >>> shift) & 0xFF) + ((topRight >>> shift) & 0xFF)
+							+ ((bottomLeft >>> shift) & 0xFF) + ((bottomRight >>> shift) & 0xFF);
+					color |= ((sum + 2) / 4) << shift;
+				}
+				quadrantPixels[(((quadrantY * half) + y) * size) + (quadrantX * half) + x] = color;
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Exports the map of the playable area of a world as a pyramid of tiles in the
+	 * folder at the given path, joining the elements of the path using the path
+	 * separator character. Throws any exception generated in the process as an
+	 * unchecked exception.
+	 *
+	 * @param world
+	 *                   World to draw.
+	 * @param style
+	 *                   Style the tiles are colored with.
+	 * @param path
+	 *                   Path of the folder of the pyramid.
+	 * @return Number of tiles written, which doesn't count the tiles that didn't
+	 *         change since the last export.
+	 */
+	public int export(final World world, final MapStyle style, final String... path) {
+		final File folder = new File(String.join(File.separator, path));
+		folder.mkdirs();
+		final File hashesFile = new File(folder, TilePyramidExporter.HASHES_FILE_NAME);
+		final Properties oldHashes = new Properties();
+		if (hashesFile.isFile()) {
+			try (final InputStream input = new FileInputStream(hashesFile)) {
+				oldHashes.load(input);
+			} catch (final IOException exception) {
+				// Without hashes every tile is written again
+				oldHashes.clear();
+			}
+		}
+		final Export export = new Export(world, style, folder, TilePyramidExporter.getMaximumZoom(world),
+				oldHashes);
+		// The tiles are hashed before any of them is drawn, so that only the ones
+		// that changed are drawn
+		this.apply((zoom, x, y) -> this.hash(export, zoom, x, y), 0, 0, 0);
+		this.apply((zoom, x, y) -> this.build(export, zoom, x, y, false), 0, 0, 0);
+		// The hashes are written last and replace the old ones at once, so they
+		// never describe tiles that weren't written
+		final File temporaryFile = new File(folder, TilePyramidExporter.HASHES_FILE_NAME + ".tmp");
+		try {
+			try (final OutputStream output = new FileOutputStream(temporaryFile)) {
+				export.hashes.store(output, null);
+			}
+			Files.move(temporaryFile.toPath(), hashesFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException exception) {
+			temporaryFile.delete();
+			throw Exceptions.savingException(exception);
+		}
+		return export.writtenTiles.get();
+	}
+
+	/**
+	 * Applies an action to a tile, on the pool of this exporter if it has one.
+	 */
+	private <T> T apply(final TileAction<T> action, final int zoom, final int x, final int y) {
+		if (this.pool == null) {
+			return action.apply(zoom, x, y);
+		}
+		return this.pool.invoke(new TileTask<>(action, zoom, x, y));
+	}
+
+	/**
+	 * Applies an action to the four tiles below a tile, in parallel if this
+	 * exporter has a pool.
+	 *
+	 * @return The results of the action for the top left, top right, bottom left
+	 *         and bottom right tiles.
+	 */
+	private <T> Object[] applyToChildren(final TileAction<T> action, final int zoom, final int x, final int y) {
+		final Object[] results = new Object[4];
+		if (this.pool == null) {
+			for (int child = 0; child < 4; ++child) {
+				results[child] = action.apply(zoom + 1, (2 * x) + (child & 1), (2 * y) + (child >> 1));
+			}
+		} else {
+			final TileTask<?>[] tasks = new TileTask<?>[4];
+			for (int child = 0; child < 4; ++child) {
+				tasks[child] = new TileTask<>(action, zoom + 1, (2 * x) + (child & 1), (2 * y) + (child >> 1));
+			}
+			RecursiveTask.invokeAll(tasks);
+			for (int child = 0; child < 4; ++child) {
+				results[child] = tasks[child].join();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Get whether the tile with the given zoom and indices is outside of the map.
+	 */
+	private boolean isOutside(final Export export, final int zoom, final int x, final int y) {
+		final int span = TilePyramidExporter.TILE_SIZE << (export.maximumZoom - zoom);
+		return ((long) x * span >= export.world.getPlayableSizeX())
+				|| ((long) y * span >= export.world.getPlayableSizeY());
+	}
+
+	/**
+	 * Hashes the tile with the given zoom and indices and the tiles below it, and
+	 * marks the ones that have to be written.
+	 *
+	 * @return The hash of the tile, or null if it's outside of the map.
+	 */
+	private Long hash(final Export export, final int zoom, final int x, final int y) {
+		if (this.isOutside(export, zoom, x, y)) {
+			return null;
+		}
+		final String key = TilePyramidExporter.getKey(zoom, x, y);
+		long hash = export.styleHash;
+		boolean changed = false;
+		if (zoom == export.maximumZoom) {
+			final int size = TilePyramidExporter.TILE_SIZE;
+			final int fromColumn = x * size;
+			final int fromRow = y * size;
+			hash = this.mapExporter.hashSources(export.world, hash, fromColumn,
+					Math.min(fromColumn + size, export.world.getPlayableSizeX()), fromRow,
+					Math.min(fromRow + size, export.world.getPlayableSizeY()));
+		} else {
+			final Object[] children = this.applyToChildren((childZoom, childX, childY) -> this.hash(export,
+					childZoom, childX, childY), zoom, x, y);
+			for (int child = 0; child < 4; ++child) {
+				final Long childHash = (Long) children[child];
+				if (childHash != null) {
+					hash = MapExporter.hash(MapExporter.hash(hash, (int) (childHash >>> 32)), childHash.intValue());
+					changed |= export.changedTiles.contains(
+							TilePyramidExporter.getKey(zoom + 1, (2 * x) + (child & 1), (2 * y) + (child >> 1)));
+				} else {
+					hash = MapExporter.hash(hash, 0);
+				}
+			}
+		}
+		final String hexHash = Long.toHexString(hash);
+		if (changed || !hexHash.equals(export.oldHashes.getProperty(key)) || !this.getFile(export, zoom, x, y)
+				.isFile()) {
+			export.changedTiles.add(key);
+		}
+		export.hashes.setProperty(key, hexHash);
+		return hash;
+	}
+
+	/**
+	 * Builds the tile with the given zoom and indices if it has to be written and
+	 * writes it, or reads it from its file if it didn't change but its pixels are
+	 * needed by the tile above it.
+	 *
+	 * @param needed
+	 *                   Whether the pixels of the tile are needed by the tile
+	 *                   above it.
+	 * @return The pixels of the tile, or null if it's outside of the map or they
+	 *         aren't needed.
+	 */
+	private int[] build(final Export export, final int zoom, final int x, final int y, final boolean needed) {
+		if (this.isOutside(export, zoom, x, y)) {
+			return null;
+		}
+		final File file = this.getFile(export, zoom, x, y);
+		// A tile that didn't change has no tiles below it that did either, so its
+		// file already holds what building it would draw
+		if (!export.changedTiles.contains(TilePyramidExporter.getKey(zoom, x, y))) {
+			if (!needed) {
+				return null;
+			}
+			final int[] pixels = TilePyramidExporter.read(file);
+			if (pixels != null) {
+				return pixels;
+			}
+			// A file that can't be read is built and written again
+		}
+		final World world = export.world;
+		final int size = TilePyramidExporter.TILE_SIZE;
+		final int[] pixels = new int[size * size];
+		if (zoom == export.maximumZoom) {
+			final int fromColumn = x * size;
+			final int toColumn = Math.min(fromColumn + size, world.getPlayableSizeX());
+			final int fromRow = y * size;
+			final int toRow = Math.min(fromRow + size, world.getPlayableSizeY());
+			final int width = toColumn - fromColumn;
+			final int[] region = new int[width * (toRow - fromRow)];
+			this.mapExporter.render(world, export.style, fromColumn, toColumn, fromRow, toRow, region);
+			for (int row = 0; row < (toRow - fromRow); ++row) {
+				System.arraycopy(region, row * width, pixels, row * size, width);
+			}
+		} else {
+			// Every tile below is needed to scale this one down, but only the ones that
+			// changed are built again
+			final Object[] children = this.applyToChildren((childZoom, childX, childY) -> this.build(export,
+					childZoom, childX, childY, true), zoom, x, y);
+			for (int child = 0; child < 4; ++child) {
+				if (children[child] != null) {
+					TilePyramidExporter.downsample((int[]) children[child], pixels, child & 1, child >> 1);
+				}
+			}
+		}
+		this.write(pixels, file);
+		export.writtenTiles.incrementAndGet();
+		return pixels;
+	}
+
+	/**
+	 * Reads the pixels of a tile from its PNG file.
+	 *
+	 * @return The pixels, or null if the file can't be read or isn't a tile.
+	 */
+	private static int[] read(final File file) {
+		final BufferedImage image;
+		try {
+			image = ImageIO.read(file);
+		} catch (final IOException exception) {
+			return null;
+		}
+		final int size = TilePyramidExporter.TILE_SIZE;
+		if ((image == null) || (image.getWidth() != size) || (image.getHeight() != size)) {
+			return null;
+		}
+		return image.getRGB(0, 0, size, size, null, 0, size);
+	}
+
+	/**
+	 * Get the file of the tile with the given zoom and indices.
+	 */
+	private File getFile(final Export export, final int zoom, final int x, final int y) {
+		return new File(export.folder, String.join(File.separator, Integer.toString(zoom), Integer.toString(x),
+				y + TilePyramidExporter.EXTENSION));
+	}
+
+	/**
+	 * Writes the pixels of a tile to a PNG file, creating its folder if needed.
+	 */
+	private void write(final int[] pixels, final File file) {
+		file.getParentFile().mkdirs();
+		try (final PngWriter pngWriter = new PngWriter(new BufferedOutputStream(new FileOutputStream(file)),
+				TilePyramidExporter.TILE_SIZE, TilePyramidExporter.TILE_SIZE, null, Deflater.DEFAULT_COMPRESSION)) {
+			pngWriter.writeRows(pixels, TilePyramidExporter.TILE_SIZE);
+		} catch (final IOException exception) {
+			throw Exceptions.savingException(exception);
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package exe.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import entity.world.World;
+import exe.Exceptions;
+import exe.Industry;
+import type.Era;
+import type.TerrainShape;
+
+/**
+ * This class represents a folder of generated worlds, so that generating a
+ * world with the same parameters as an earlier one can load it instead.
+ *
+ * Every world is stored as a plate store named after a hash of everything its
+ * plates depend on: the version of the game and of the generator, the seed, the
+ * terrain shape, the era and every exponent and factor of the world. Changing
+ * any of them gives a different name, so a world is never loaded for other
+ * parameters.
+ *
+ * The folder is bounded in size. Loading a world marks it as used, and storing
+ * one removes the worlds used least recently until the folder fits.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see exe.io.PlateStore
+ * @since 0.1
+ *
+ */
+public class WorldCache {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Extension of the files of the worlds of a cache.
+	 */
+	private static final String EXTENSION = ".plates";
+	/**
+	 * Extension of the files of the worlds being stored.
+	 */
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	/**
+	 * Default maximum size of a cache in bytes, 1 GiB.
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE = 1L << 30;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Folder of this cache.
+	 */
+	private final File folder;
+	/**
+	 * Maximum size of the worlds of this cache in bytes.
+	 */
+	private final long maximumSize;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a cache in the folder at the given path, joining the elements of the
+	 * path using the path separator character. The folder is created if it
+	 * doesn't exist.
+	 *
+	 * @param maximumSize
+	 *                        Maximum size of the worlds of the cache in bytes.
+	 * @param path
+	 *                        Path of the folder.
+	 */
+	public WorldCache(final long maximumSize, final String... path) {
+		this.folder = new File(String.join(File.separator, path));
+		this.folder.mkdirs();
+		this.maximumSize = maximumSize;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Computes the key of the world generated with the given parameters by a
+	 * generator of the given version, as the hexadecimal SHA-256 hash of all of
+	 * them and the version of the game.
+	 */
+	public static String getKey(final String generatorVersion, final byte[] seed, final TerrainShape terrainShape,
+			final Era era, final int tectonicPlateSizeExponent, final int worldSizeExponent,
+			final double crustThicknessFactor, final double seaLevelFactor, final double roughnessFactor,
+			final double axisTilt, final double distanceToSunFactor, final int playableAreaSizeExponent) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception);
+		}
+		// Variable length fields are preceded by their length so that no two sets of
+		// parameters are written the same
+		final byte[] gameVersion = Industry.VERSION.getBytes(StandardCharsets.UTF_8);
+		final byte[] version = generatorVersion.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer parameters = ByteBuffer
+				.allocate((3 * Integer.BYTES) + gameVersion.length + version.length + seed.length + (3 * Long.BYTES)
+						+ 2 + (3 * Integer.BYTES) + (5 * Long.BYTES));
+		parameters.putInt(gameVersion.length).put(gameVersion);
+		parameters.putInt(version.length).put(version);
+		parameters.putInt(seed.length).put(seed);
+		parameters.putLong(terrainShape.getId());
+		parameters.put((byte) (terrainShape.getCycleX() ? 1 : 0));
+		parameters.put((byte) (terrainShape.getCycleY() ? 1 : 0));
+		parameters.putLong(era.getId());
+		parameters.putLong(era.getStartingYear());
+		parameters.putInt(tectonicPlateSizeExponent);
+		parameters.putInt(worldSizeExponent);
+		parameters.putInt(playableAreaSizeExponent);
+		parameters.putLong(Double.doubleToLongBits(crustThicknessFactor));
+		parameters.putLong(Double.doubleToLongBits(seaLevelFactor));
+		parameters.putLong(Double.doubleToLongBits(roughnessFactor));
+		parameters.putLong(Double.doubleToLongBits(axisTilt));
+		parameters.putLong(Double.doubleToLongBits(distanceToSunFactor));
+		final byte[] hash = digest.digest(parameters.array());
+		final StringBuilder key = new StringBuilder(hash.length * 2);
+		for (final byte value : hash) {
+			key.append(Character.forDigit((value >>> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the file of the world with the given key.
+	 */
+	private File getFile(final String key) {
+		return new File(this.folder, key + WorldCache.EXTENSION);
+	}
+
+	/**
+	 * Get whether this cache has the world with the given key.
+	 */
+	public boolean contains(final String key) {
+		return this.getFile(key).isFile();
+	}
+
+	/**
+	 * Reads the plates of the world with the given key into the given world, which
+	 * has to have been created with the same parameters, and marks it as used. A
+	 * file that can't be read is removed as if it had never been stored.
+	 *
+	 * @return Whether this cache had the world.
+	 */
+	public boolean load(final String key, final World world) {
+		final File file = this.getFile(key);
+		if (!file.isFile()) {
+			return false;
+		}
+		try (final PlateStore plateStore = PlateStore.open(file.getPath())) {
+			plateStore.readAll(world);
+		} catch (final RuntimeException exception) {
+			file.delete();
+			return false;
+		}
+		file.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Stores every plate of the given world under the given key, then removes the
+	 * worlds used least recently until this cache fits its maximum size. The world
+	 * just stored is always kept. Throws any exception generated in the process as
+	 * an unchecked exception.
+	 */
+	public void store(final String key, final World world) {
+		final File file = this.getFile(key);
+		final File temporaryFile = new File(this.folder, key + WorldCache.EXTENSION + WorldCache.TEMPORARY_EXTENSION);
+		// The world is written to a file of its own first, so that a world is never
+		// loaded halfway written
+		try (final PlateStore plateStore = PlateStore.create(world, temporaryFile.getPath())) {
+			for (int plateIndexY = 0; plateIndexY < world.getTectonicPlateCountY(); ++plateIndexY) {
+				for (int plateIndexX = 0; plateIndexX < world.getTectonicPlateCountX(); ++plateIndexX) {
+					plateStore.write(world.getTectonicPlate(plateIndexX, plateIndexY));
+				}
+			}
+		}
+		try {
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException exception) {
+			temporaryFile.delete();
+			throw Exceptions.savingException(exception);
+		}
+		file.setLastModified(System.currentTimeMillis());
+		this.evict(file);
+	}
+
+	/**
+	 * Removes the worlds used least recently until this cache fits its maximum
+	 * size, keeping the given file.
+	 */
+	private void evict(final File keptFile) {
+		final File[] files = this.folder
+				.listFiles((final File folder, final String name) -> name.endsWith(WorldCache.EXTENSION));
+		if (files == null) {
+			return;
+		}
+		long size = 0L;
+		for (final File file : files) {
+			size += file.length();
+		}
+		final List<File> candidates = new ArrayList<>(Arrays.asList(files));
+		candidates.remove(keptFile);
+		candidates.sort(Comparator.comparingLong(File::lastModified));
+		for (final File file : candidates) {
+			if (size <= this.maximumSize) {
+				break;
+			}
+			final long length = file.length();
+			if (file.delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	/**
+	 * Removes every world of this cache.
+	 */
+	public void clear() {
+		final File[] files = this.folder
+				.listFiles((final File folder, final String name) -> name.endsWith(WorldCache.EXTENSION));
+		if (files != null) {
+			for (final File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+}
@@ -18,14 +18,53 @@
 
 package generator;
 
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import api.RandomGenerator;
+import entity.world.RandomStreams;
 import entity.world.TectonicPlate;
 import entity.world.World;
-import entity.world.TectonicPlate.Tile;
-import entity.world.Terrain.TectonicPlateIterable.TectonicPlateIterator;
+import entity.world.TectonicPlate.Layer;
+import util.RangeTask;
+import util.integermatrix.IntegerMatrix;
+import util.integermatrix.SimpleIntegerMatrix;
 
 /**
  * This class defines a basic map generator.
  *
+ * The passes of this generator are applied plate by plate, with every plate
+ * computing its own tiles from the blobs of the plates around it, so they can
+ * be run in parallel on a fork/join pool without any two tasks writing to the
+ * same tile. The result is the same regardless of the pool used.
+ *
+ * Humidity is the exception, as it depends on the distance to the closest
+ * flooded tile. It is found with a distance transform over the whole playable
+ * area, whose columns and rows are also split among the tasks of the pool.
+ *
+ * Worlds too large for memory can be generated in bands of rows of plates,
+ * handing every band over to be stored once it's finished and keeping only the
+ * rows around it the next band needs.
+ *
+ * Worlds can also be generated lazily, generating the plates of the region
+ * players start with right away and every other plate the first time it's
+ * accessed. A plate only needs the magma flows of the plates around it, which
+ * come from their own random streams, so it's the same whenever it's generated.
+ *
+ * Neither worlds generated in bands nor lazy worlds have hydrology, as it
+ * depends on the whole playable area at once: they have no lakes, no rivers and
+ * no watersheds, and their humidity only comes from the sea. Their plates are
+ * the same as the ones of the pipeline without its hydrology stage, which
+ * leaves the magma and the land of every tile the same as generating the whole
+ * world at once, but not its water, its soil nor its minerals.
+ *
+ * Generating the whole world at once is done by a pipeline of stages, so every
+ * stage can be timed, checkpointed and run again on its own. Its hydrology
+ * stage floods the playable area from the sea to fill its depressions into
+ * lakes and to find the land draining through every tile, which carves rivers.
+ *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
  * @version 0.1
  * @since 0.1
@@ -36,8 +75,40 @@ public class BasicGenerator implements Generator {
 	////////////////////////////////////////////////////////////////////////////////
 	// Class fields
 
+	/**
+	 * Version of the worlds this generator generates. Has to change along with
+	 * anything that changes the worlds generated from the same parameters, so that
+	 * worlds cached by older versions aren't used.
+	 */
+	private static final String VERSION = "basic-1";
 	private static final int HUMIDITY_RADIUS = 1;
 	private static final int HUMIDITY_MAGNITUDE = 1;
+	/**
+	 * Maximum number of plates a task of a parallel pass handles without splitting
+	 * itself.
+	 */
+	private static final int PLATES_PER_TASK = 2;
+	/**
+	 * Maximum number of rows or columns a task of a parallel distance transform
+	 * handles without splitting itself.
+	 */
+	private static final int LINES_PER_TASK = 64;
+	/**
+	 * Maximum number of watersheds a task of a parallel flow accumulation handles
+	 * without splitting itself.
+	 */
+	private static final int WATERSHEDS_PER_TASK = 64;
+	/**
+	 * A tile carries a river if the land that drains through it is at least the
+	 * area of a plate divided by this. Rivers get one level deeper every time the
+	 * land they drain doubles.
+	 */
+	private static final int RIVER_AREA_DIVISOR = 4;
+	/**
+	 * Kernels of the blobs stamped by the generators, shared between them. Holds
+	 * up to 16 MiB of kernels.
+	 */
+	private static final KernelCache KERNELS = new KernelCache(1 << 22);
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
@@ -46,145 +117,637 @@ public class BasicGenerator implements Generator {
 	 * World to be generated.
 	 */
 	private final World world;
+	/**
+	 * Pool the passes of this generator are run on, null if they're run on the
+	 * calling thread.
+	 */
+	private final ForkJoinPool pool;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Action applied to every tectonic plate of the world in one of the passes of
+	 * this generator. An action may only write to the plate it is applied to.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	@FunctionalInterface
+	private static interface PlatePass {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		public void apply(TectonicPlate tectonicPlate);
+
+	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializers
 
+	/**
+	 * Creates a generator that runs all of its passes on the calling thread.
+	 */
 	public BasicGenerator(final World world) {
+		this(world, null);
+	}
+
+	/**
+	 * Creates a generator that runs its passes on the given pool.
+	 *
+	 * @param world
+	 *                  World to be generated.
+	 * @param pool
+	 *                  Pool the passes are run on, or null to run them on the
+	 *                  calling thread.
+	 */
+	public BasicGenerator(final World world, final ForkJoinPool pool) {
 		this.world = world;
+		this.pool = pool;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	/**
-	 * Adds a blob of magma given by an interpolation function with a certain radius
-	 * and height, centered at coordinates x, y.
+	 * Applies an action to every index from 0 to count, on the pool of this
+	 * generator if it has one.
+	 */
+	private void runRange(final IntConsumer action, final int count, final int grain) {
+		RangeTask.run(this.pool, action, count, grain);
+	}
+
+	/**
+	 * Applies a pass to all the plates of the given rows of the world, on the pool
+	 * of this generator if it has one.
+	 */
+	private void runPass(final PlatePass pass, final int fromRow, final int toRow) {
+		final int plateCountX = this.world.getTectonicPlateCountX();
+		final int firstIndex = fromRow * plateCountX;
+		this.runRange(index -> pass.apply(
+				this.world.getTectonicPlate((firstIndex + index) % plateCountX, (firstIndex + index) / plateCountX)),
+				(toRow - fromRow) * plateCountX, BasicGenerator.PLATES_PER_TASK);
+	}
+
+	/**
+	 * Draws the magma flow of the plate with the given indices from its own
+	 * stream, so that plates can be created in any order and still get the same
+	 * flows.
+	 *
+	 * @return The magma flow along the x and y axes.
+	 */
+	private int[] generateMagmaFlow(final int plateIndexX, final int plateIndexY) {
+		final RandomGenerator PRNG = this.world.getPRNG(RandomStreams.Purpose.TECTONIC_PLATE,
+				(plateIndexY * this.world.getTectonicPlateCountX()) + plateIndexX);
+		final int magmaFlowX = PRNG.generateUniformInteger(this.world.getTectonicPlateSize());
+		final int magmaFlowY = PRNG.generateUniformInteger(this.world.getTectonicPlateSize());
+		return new int[] { magmaFlowX, magmaFlowY };
+	}
+
+	/**
+	 * Creates the plates of the given rows of the world with their magma flows.
+	 */
+	private void createTectonicPlates(final int fromRow, final int toRow) {
+		for (int plateIndexY = fromRow; plateIndexY < toRow; ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < this.world.getTectonicPlateCountX(); ++plateIndexX) {
+				final int[] magmaFlow = this.generateMagmaFlow(plateIndexX, plateIndexY);
+				this.world.newTectonicPlate(plateIndexX, plateIndexY, magmaFlow[0], magmaFlow[1], null);
+			}
+		}
+	}
+
+	/**
+	 * Adds the blobs of magma and land of every plate of the world to the given
+	 * batches. Only needs the magma flows, so the plates don't need to exist.
+	 *
+	 * @param magmaStamps
+	 *                        Batch the blobs of magma are added to, or null if
+	 *                        they aren't needed.
+	 * @param landStamps
+	 *                        Batch the blobs of land are added to, or null if
+	 *                        they aren't needed.
 	 */
-	public void addMagma(final Interpolation interpolation, final int x, final int y, final int radius,
-			final int height) {
-		for (final Tile tile : this.world.getTileSet(x - radius, y - radius, x + radius, y + radius)) {
-			if (tile == null) {
-				continue;
+	private void addStamps(final StampBatch magmaStamps, final StampBatch landStamps) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int baseRoughness = this.world.getBaseRoughness();
+		for (int plateIndexY = 0; plateIndexY < this.world.getTectonicPlateCountY(); ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < this.world.getTectonicPlateCountX(); ++plateIndexX) {
+				final int[] magmaFlow = this.generateMagmaFlow(plateIndexX, plateIndexY);
+				final int magmaFlowX = magmaFlow[0];
+				final int magmaFlowY = magmaFlow[1];
+				final int centerX = (plateIndexX * tectonicPlateSize) + ((tectonicPlateSize - 1) / 2)
+						+ this.world.getPlayableMinX();
+				final int centerY = (plateIndexY * tectonicPlateSize) + ((tectonicPlateSize - 1) / 2)
+						+ this.world.getPlayableMinY();
+				final int magnitude = (int) Math.sqrt((magmaFlowX * magmaFlowX) + (magmaFlowY * magmaFlowY));
+				// We set height to (magnitude / maximum magnitude) * (base roughness)
+				final int height = (baseRoughness * magnitude * 4) / (tectonicPlateSize * tectonicPlateSize);
+				if (magmaStamps != null) {
+					magmaStamps.add(Interpolation.SMOOTHSTEP,
+							// The function is centered at the center of the plate minus magma flow.
+							// It's minus because magma is generated at the opposite point of the direction
+							// of its flow
+							centerX - magmaFlowX, centerY - magmaFlowY,
+							// The radius is the magnitude of the vector... obviously
+							magnitude, height);
+				}
+				if (landStamps != null) {
+					landStamps.add(Interpolation.SMOOTHSTEP,
+							// The function is centered at the center of the plate plus magma flow
+							centerX + magmaFlowX, centerY + magmaFlowY,
+							// The radius is the magnitude of the vector... obviously
+							magnitude, height);
+				}
 			}
-			final int iterationX = x - tile.getCoordinateX();
-			final int iterationY = y - tile.getCoordinateY();
-			final int iterationHeight = interpolation.at(iterationX, iterationY, radius, height);
-			tile.addMagma(iterationHeight);
 		}
 	}
 
 	/**
-	 * Adds a blob of land given by an interpolation function with a certain radius
-	 * and height, centered at coordinates x, y.
+	 * Generates the magma of a tectonic plate from the blobs of every plate that
+	 * reach it.
+	 */
+	private void generateMagma(final TectonicPlate tectonicPlate, final StampBatch magmaStamps) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int baseMagma = this.world.getBaseMagma();
+		final IntegerMatrix magma = tectonicPlate.getLayer(Layer.MAGMA);
+		magma.addAll(baseMagma);
+		// The interpolations we use are 0 outside of their radius, so the tiles a
+		// blob would wrap around to in a cycling terrain never get anything added
+		magmaStamps.apply(magma, tectonicPlate.getCoordinateX(), tectonicPlate.getCoordinateY(), tectonicPlateSize);
+	}
+
+	/**
+	 * Generates the land of a tectonic plate from the blobs of every plate that
+	 * reach it.
+	 */
+	private void generateLand(final TectonicPlate tectonicPlate, final StampBatch landStamps) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int baseHeight = this.world.getBaseHeight();
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		land.addAll(baseHeight);
+		landStamps.apply(land, tectonicPlate.getCoordinateX(), tectonicPlate.getCoordinateY(), tectonicPlateSize);
+	}
+
+	/**
+	 * Generates the water of a tectonic plate whose land has been generated.
+	 */
+	private void generateWater(final TectonicPlate tectonicPlate) {
+		final int baseWater = this.world.getBaseWater();
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		final IntegerMatrix water = tectonicPlate.getLayer(Layer.WATER);
+		water.addAll(baseWater);
+		// If land is below sea level, then water level is the sea level
+		// (...the Netherlands would probably disagree but eh)
+		water.setWhereAtMost(land, baseWater, baseWater);
+	}
+
+	/**
+	 * Generates the basic levels, the terrain and the water of a tectonic plate.
+	 *
+	 * @param tectonicPlate
+	 *                          Tectonic plate to generate.
+	 * @param magmaStamps
+	 *                          Blobs of magma of every plate.
+	 * @param landStamps
+	 *                          Blobs of land of every plate.
+	 */
+	private void generateTerrain(final TectonicPlate tectonicPlate, final StampBatch magmaStamps,
+			final StampBatch landStamps) {
+		this.generateMagma(tectonicPlate, magmaStamps);
+		this.generateLand(tectonicPlate, landStamps);
+		this.generateWater(tectonicPlate);
+	}
+
+	/**
+	 * Marks the flooded tiles of a tectonic plate as the sources of a distance
+	 * transform over the playable area.
+	 *
+	 * @param tectonicPlate
+	 *                          Tectonic plate whose tiles are marked.
+	 * @param distances
+	 *                          Grid of the distance transform, in row-major
+	 *                          order.
+	 * @param firstRow
+	 *                          Row of plates the grid starts at.
 	 */
-	public void addLand(final Interpolation interpolation, final int x, final int y, final int radius,
-			final int height) {
-		for (final Tile tile : this.world.getTileSet(x - radius, y - radius, x + radius, y + radius)) {
-			if (tile == null) {
-				continue;
+	private void markFloodedTiles(final TectonicPlate tectonicPlate, final int[] distances, final int firstRow) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int sizeX = this.world.getTectonicPlateCountX() * tectonicPlateSize;
+		final int offset = ((tectonicPlate.plateIndexY - firstRow) * tectonicPlateSize * sizeX)
+				+ (tectonicPlate.plateIndexX * tectonicPlateSize);
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		final IntegerMatrix water = tectonicPlate.getLayer(Layer.WATER);
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				distances[offset + (y * sizeX) + x] = water.get(x, y) >= land.get(x, y) ? 0
+						: DistanceTransform.INFINITY;
 			}
-			final int iterationX = x - tile.getCoordinateX();
-			final int iterationY = y - tile.getCoordinateY();
-			final int iterationHeight = interpolation.at(iterationX, iterationY, radius, height);
-			tile.addLand(iterationHeight);
 		}
 	}
 
 	/**
-	 * Adds a blob of water given by an interpolation function with a certain radius
-	 * and height, centered at coordinates x, y.
+	 * Generates the humidity of a tectonic plate from its distance to the closest
+	 * flooded tile.
+	 *
+	 * Every flooded tile used to add a blob of water to the tiles around it that
+	 * aren't flooded, which made this pass cost as much as the number of flooded
+	 * tiles times the area of a blob. Most flooded tiles belong to seas whose
+	 * blobs add up to the profile of a straight coast, so we add that profile at
+	 * the distance of every tile to the closest flooded one instead, without ever
+	 * flooding it.
+	 *
+	 * @param tectonicPlate
+	 *                          Tectonic plate to generate.
+	 * @param distances
+	 *                          Squared distance of every tile of a range of rows
+	 *                          of plates to the closest flooded tile, in
+	 *                          row-major order.
+	 * @param sizeX
+	 *                          Length of the rows of the distances.
+	 * @param firstColumn
+	 *                          Column of plates the distances start at.
+	 * @param firstRow
+	 *                          Row of plates the distances start at.
+	 * @param profile
+	 *                          Humidity added by the coast at every distance.
 	 */
-	public void addWater(final Interpolation interpolation, final int x, final int y, final int radius,
-			final int height) {
-		for (final Tile tile : this.world.getTileSet(x - radius, y - radius, x + radius, y + radius)) {
-			if (tile == null) {
-				continue;
+	private void generateHumidity(final TectonicPlate tectonicPlate, final int[] distances, final int sizeX,
+			final int firstColumn, final int firstRow, final CoastProfile profile) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int offset = ((tectonicPlate.plateIndexY - firstRow) * tectonicPlateSize * sizeX)
+				+ ((tectonicPlate.plateIndexX - firstColumn) * tectonicPlateSize);
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		final IntegerMatrix water = tectonicPlate.getLayer(Layer.WATER);
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				final int distance = distances[offset + (y * sizeX) + x];
+				// If the tile is already flooded, do nothing
+				if (distance == 0) {
+					continue;
+				}
+				final int humidity = profile.at(distance);
+				if (humidity == 0) {
+					continue;
+				}
+				// If the tile would be flooded, keep it right below the land
+				water.set(x, y, (int) Math.min((long) water.get(x, y) + humidity, land.get(x, y) - 1));
 			}
-			// If the tile is already flooded, do nothing
-			if (tile.getWater() >= tile.getLand()) {
-				continue;
+		}
+	}
+
+	/**
+	 * Generates the humidity of the plates of a band of rows, from the flooded
+	 * tiles of the plates of a window of rows around it. The window must reach as
+	 * far as the humidity of a flooded tile does.
+	 */
+	private void generateHumidity(final int fromRow, final int toRow, final int windowFromRow,
+			final int windowToRow) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		// We find the distance from every tile to the closest flooded tile
+		final int sizeX = this.world.getTectonicPlateCountX() * tectonicPlateSize;
+		final int sizeY = (windowToRow - windowFromRow) * tectonicPlateSize;
+		final int[] distances = new int[sizeX * sizeY];
+		this.runPass(tectonicPlate -> this.markFloodedTiles(tectonicPlate, distances, windowFromRow), windowFromRow,
+				windowToRow);
+		this.runRange(x -> DistanceTransform.transformColumn(distances, sizeX, sizeY, x), sizeX,
+				BasicGenerator.LINES_PER_TASK);
+		this.runRange(y -> DistanceTransform.transformRow(distances, sizeX, y), sizeY,
+				BasicGenerator.LINES_PER_TASK);
+		// We generate the humidity
+		final CoastProfile profile = this.newCoastProfile();
+		this.runPass(tectonicPlate -> this.generateHumidity(tectonicPlate, distances, sizeX, 0, windowFromRow, profile),
+				fromRow, toRow);
+	}
+
+	/**
+	 * Generates the lakes, the rivers and the watersheds of the whole playable
+	 * area. Depressions in the land are filled into lakes up to the height they
+	 * spill at, and tiles enough land drains through carry a river. Depends on
+	 * every plate at once, so worlds generated in bands or lazily don't have it.
+	 */
+	private void generateHydrology() {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int plateCountY = this.world.getTectonicPlateCountY();
+		final int sizeX = this.world.getTectonicPlateCountX() * tectonicPlateSize;
+		final int sizeY = plateCountY * tectonicPlateSize;
+		final int[] heights = new int[sizeX * sizeY];
+		this.runPass(tectonicPlate -> {
+			final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+			final int offset = (tectonicPlate.plateIndexY * tectonicPlateSize * sizeX)
+					+ (tectonicPlate.plateIndexX * tectonicPlateSize);
+			for (int y = 0; y < tectonicPlateSize; ++y) {
+				for (int x = 0; x < tectonicPlateSize; ++x) {
+					heights[offset + (y * sizeX) + x] = land.get(x, y);
+				}
 			}
-			final int iterationX = x - tile.getCoordinateX();
-			final int iterationY = y - tile.getCoordinateY();
-			final int iterationHeight = interpolation.at(iterationX, iterationY, radius, height);
-			tile.addWater(iterationHeight);
-			// If the tile has been flooded, ignore it
-			if (tile.getWater() >= tile.getLand()) {
-				tile.setWater(tile.getLand() - 1);
+		}, 0, plateCountY);
+		// The flood goes through the tiles one at a time, but every watershed drains
+		// on its own
+		final Hydrology hydrology = new Hydrology(heights, sizeX, sizeY);
+		hydrology.flood(this.world.getBaseWater());
+		this.runRange(index -> hydrology.accumulate(index + 1), hydrology.getWatershedCount(),
+				BasicGenerator.WATERSHEDS_PER_TASK);
+		this.runPass(tectonicPlate -> this.generateHydrology(tectonicPlate, hydrology, sizeX), 0, plateCountY);
+	}
+
+	/**
+	 * Fills the lakes, carves the rivers and marks the watersheds of a tectonic
+	 * plate from the drainage of the playable area.
+	 *
+	 * @param tectonicPlate
+	 *                          Tectonic plate to generate.
+	 * @param hydrology
+	 *                          Drainage of the playable area.
+	 * @param sizeX
+	 *                          Length of the rows of the playable area.
+	 */
+	private void generateHydrology(final TectonicPlate tectonicPlate, final Hydrology hydrology, final int sizeX) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int riverArea = Math.max((tectonicPlateSize * tectonicPlateSize) / BasicGenerator.RIVER_AREA_DIVISOR, 1);
+		final int offset = (tectonicPlate.plateIndexY * tectonicPlateSize * sizeX)
+				+ (tectonicPlate.plateIndexX * tectonicPlateSize);
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		final IntegerMatrix water = tectonicPlate.getLayer(Layer.WATER);
+		final IntegerMatrix watersheds = tectonicPlate.getLayer(Layer.WATERSHED);
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				final int index = offset + (y * sizeX) + x;
+				final int watershed = hydrology.getWatershed(index);
+				watersheds.set(x, y, watershed);
+				if (watershed == Hydrology.SEA) {
+					continue;
+				}
+				final int landLevel = land.get(x, y);
+				int waterLevel = water.get(x, y);
+				// A tile below the level its depression spills at is part of a lake
+				final int surface = hydrology.getSurface(index);
+				if (surface > landLevel) {
+					waterLevel = Math.max(waterLevel, surface);
+				}
+				// A tile enough land drains through carries a river, which is one level
+				// deep plus one for every time the land it drains doubles
+				final int drainedRivers = hydrology.getAccumulation(index) / riverArea;
+				if (drainedRivers > 0) {
+					waterLevel = Math.max(waterLevel,
+							landLevel + (Integer.SIZE - Integer.numberOfLeadingZeros(drainedRivers)));
+				}
+				water.set(x, y, waterLevel);
 			}
 		}
 	}
 
-	@Override
-	public void generate() {
-		// Set the variables we'll need
+	/**
+	 * Creates the profile of the humidity added by a coast.
+	 */
+	private CoastProfile newCoastProfile() {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		return new CoastProfile(
+				BasicGenerator.KERNELS.get(Interpolation.SMOOTHSTEP, tectonicPlateSize * BasicGenerator.HUMIDITY_RADIUS,
+						tectonicPlateSize * BasicGenerator.HUMIDITY_MAGNITUDE));
+	}
+
+	/**
+	 * Generates the land of a plate that may not have been generated yet, without
+	 * creating the plate.
+	 */
+	private IntegerMatrix generateLand(final int plateIndexX, final int plateIndexY, final StampBatch landStamps) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final IntegerMatrix land = new SimpleIntegerMatrix(tectonicPlateSize, tectonicPlateSize);
+		land.addAll(this.world.getBaseHeight());
+		landStamps.apply(land, (plateIndexX * tectonicPlateSize) + this.world.getPlayableMinX(),
+				(plateIndexY * tectonicPlateSize) + this.world.getPlayableMinY(), tectonicPlateSize);
+		return land;
+	}
+
+	/**
+	 * Marks the flooded tiles of a plate that may not have been generated yet as
+	 * the sources of a distance transform. Before humidity every tile has its
+	 * water at sea level, so a tile is flooded if its land is at or below sea
+	 * level, and only the land of the plate needs to be generated.
+	 *
+	 * @param land
+	 *                        Land of the plate.
+	 * @param distances
+	 *                        Grid of the distance transform, in row-major order.
+	 * @param sizeX
+	 *                        Length of the rows of the grid.
+	 * @param firstColumn
+	 *                        Column of plates the grid starts at.
+	 * @param firstRow
+	 *                        Row of plates the grid starts at.
+	 */
+	private void markFloodedTiles(final int plateIndexX, final int plateIndexY, final IntegerMatrix land,
+			final int[] distances, final int sizeX, final int firstColumn, final int firstRow) {
 		final int tectonicPlateSize = this.world.getTectonicPlateSize();
-		final int baseMagma = this.world.getBaseMagma();
-		final int baseHeight = this.world.getBaseHeight();
-		final int baseRoughness = this.world.getBaseRoughness();
 		final int baseWater = this.world.getBaseWater();
-		// We fill the terrain with tectonic plates with randomly generated magma flow
-		// vectors
-		TectonicPlateIterator tectonicPlateIterator = (TectonicPlateIterator) this.world.getAllTectonicPlates()
-				.iterator();
-		while (tectonicPlateIterator.hasNext()) {
-			tectonicPlateIterator.next();
-			final int magmaFlowX = this.world.getPRNG().generateUniformInteger(this.world.getTectonicPlateSize());
-			final int magmaFlowY = this.world.getPRNG().generateUniformInteger(this.world.getTectonicPlateSize());
-			tectonicPlateIterator.newTectonicPlate(magmaFlowX, magmaFlowY, null);
-		}
-		// We generate the basic levels
-		for (final Tile tile : this.world.getAllTiles()) {
-			tile.addMagma(baseMagma);
-			tile.addLand(baseHeight);
-			tile.addWater(baseWater);
+		final int offset = ((plateIndexY - firstRow) * tectonicPlateSize * sizeX)
+				+ ((plateIndexX - firstColumn) * tectonicPlateSize);
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				distances[offset + (y * sizeX) + x] = land.get(x, y) <= baseWater ? 0 : DistanceTransform.INFINITY;
+			}
 		}
-		// We generate the terrain
-		tectonicPlateIterator = (TectonicPlateIterator) this.world.getAllTectonicPlates().iterator();
-		while (tectonicPlateIterator.hasNext()) {
-			final TectonicPlate tectonicPlate = tectonicPlateIterator.next();
-			final int magnitude = (int) Math.sqrt((tectonicPlate.magmaFlowX * tectonicPlate.magmaFlowX)
-					+ (tectonicPlate.magmaFlowY * tectonicPlate.magmaFlowY));
-			this.addMagma(
-					// Smoothstep
-					Interpolation.SMOOTHSTEP,
-					// The function is centered at the center of the plate minus magma flow.
-					// It's minus because magma is generated at the opposite point of the direction
-					// of its flow
-					tectonicPlateIterator.getCenterX() - tectonicPlate.magmaFlowX,
-					tectonicPlateIterator.getCenterY() - tectonicPlate.magmaFlowY,
-					// The radius is the magnitude of the vector... obviously
-					magnitude,
-					// We set height to (magnitude / maximum magnitude) * (base roughness)
-					(baseRoughness * magnitude * 4) / (tectonicPlateSize * tectonicPlateSize));
-			this.addLand(
-					// Smoothstep
-					Interpolation.SMOOTHSTEP,
-					// The function is centered at the center of the plate plus magma flow
-					tectonicPlateIterator.getCenterX() + tectonicPlate.magmaFlowX,
-					tectonicPlateIterator.getCenterY() + tectonicPlate.magmaFlowY,
-					// The radius is the magnitude of the vector... obviously
-					magnitude,
-					// We set height to (magnitude / maximum magnitude) * (base roughness)
-					(baseRoughness * magnitude * 4) / (tectonicPlateSize * tectonicPlateSize));
+	}
+
+	/**
+	 * Generates a single plate, without adding it to the world and without
+	 * accessing any other plate. Has no hydrology.
+	 */
+	private TectonicPlate generateTectonicPlate(final int plateIndexX, final int plateIndexY,
+			final StampBatch magmaStamps, final StampBatch landStamps, final CoastProfile profile,
+			final SoilGenerator soilGenerator) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int[] magmaFlow = this.generateMagmaFlow(plateIndexX, plateIndexY);
+		final TectonicPlate tectonicPlate = this.world.createTectonicPlate(plateIndexX, plateIndexY, magmaFlow[0],
+				magmaFlow[1], null);
+		this.generateTerrain(tectonicPlate, magmaStamps, landStamps);
+		// The humidity of the plate depends on the flooded tiles of the plates around
+		// it as far as the humidity of a flooded tile reaches
+		final int halo = BasicGenerator.HUMIDITY_RADIUS;
+		final int fromX = Math.max(plateIndexX - halo, 0);
+		final int fromY = Math.max(plateIndexY - halo, 0);
+		final int toX = Math.min(plateIndexX + halo, this.world.getTectonicPlateCountX() - 1);
+		final int toY = Math.min(plateIndexY + halo, this.world.getTectonicPlateCountY() - 1);
+		final int windowSizeX = (toX - fromX) + 1;
+		final int sizeX = windowSizeX * tectonicPlateSize;
+		final int sizeY = ((toY - fromY) + 1) * tectonicPlateSize;
+		final int[] distances = new int[sizeX * sizeY];
+		final IntegerMatrix[] lands = new IntegerMatrix[windowSizeX * ((toY - fromY) + 1)];
+		for (int y = fromY; y <= toY; ++y) {
+			for (int x = fromX; x <= toX; ++x) {
+				final IntegerMatrix land = this.generateLand(x, y, landStamps);
+				lands[((y - fromY) * windowSizeX) + (x - fromX)] = land;
+				this.markFloodedTiles(x, y, land, distances, sizeX, fromX, fromY);
+			}
 		}
-		// We generate the water
-		for (final Tile tile : this.world.getAllTiles()) {
-			// If land is below sea level, then water level is the sea level
-			// (...the Netherlands would probably disagree but eh)
-			if (tile.getLand() <= this.world.getBaseWater()) {
-				tile.setWater(this.world.getBaseWater());
+		DistanceTransform.transform(distances, sizeX, sizeY);
+		this.generateHumidity(tectonicPlate, distances, sizeX, fromX, fromY, profile);
+		// The soil at the edges depends on the land of the plates next to it, which
+		// the window of the humidity already has
+		soilGenerator.generate(tectonicPlate,
+				(x, y) -> (x < fromX) || (y < fromY) || (x > toX) || (y > toY) ? null
+						: lands[((y - fromY) * windowSizeX) + (x - fromX)]);
+		return tectonicPlate;
+	}
+
+	/**
+	 * Generates the plates of a region of the world right away and sets the world
+	 * to generate every other plate the first time it's accessed. The plates of
+	 * the region are unlocked and the plates generated later are locked, so
+	 * unlocking a plate is what makes the world grow. Every plate is the same as
+	 * it would be if the whole world were generated at once without hydrology.
+	 *
+	 * @param fromPlateIndexX
+	 *                            Index along the x axis of the first plate of the
+	 *                            region.
+	 * @param fromPlateIndexY
+	 *                            Index along the y axis of the first plate of the
+	 *                            region.
+	 * @param toPlateIndexX
+	 *                            Index along the x axis of the last plate of the
+	 *                            region.
+	 * @param toPlateIndexY
+	 *                            Index along the y axis of the last plate of the
+	 *                            region.
+	 */
+	public void generateLazily(final int fromPlateIndexX, final int fromPlateIndexY, final int toPlateIndexX,
+			final int toPlateIndexY) {
+		// Until a plate is accessed, all there is of it is the blobs of its flow
+		final StampBatch magmaStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+		final StampBatch landStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+		this.addStamps(magmaStamps, landStamps);
+		final CoastProfile profile = this.newCoastProfile();
+		final SoilGenerator soilGenerator = new SoilGenerator(this.world);
+		this.world.setTectonicPlateLoader((plateIndexX, plateIndexY) -> {
+			final TectonicPlate tectonicPlate = this.generateTectonicPlate(plateIndexX, plateIndexY, magmaStamps,
+					landStamps, profile, soilGenerator);
+			tectonicPlate.lock();
+			return tectonicPlate;
+		});
+		// We generate the starting region
+		final int regionSizeX = (toPlateIndexX - fromPlateIndexX) + 1;
+		final int regionSizeY = (toPlateIndexY - fromPlateIndexY) + 1;
+		this.runRange(index -> this.world
+				.getTectonicPlate(fromPlateIndexX + (index % regionSizeX), fromPlateIndexY + (index / regionSizeX))
+				.unlock(), regionSizeX * regionSizeY, BasicGenerator.PLATES_PER_TASK);
+	}
+
+	/**
+	 * Generates the world in bands of rows of plates, so that only a band and the
+	 * rows around it the humidity of the band depends on are in memory at the same
+	 * time. Every plate is handed over to the given sink once it's finished, and
+	 * is removed from the world once no other band needs it. The plates handed
+	 * over are the same as the ones the whole world would have if it were
+	 * generated at once without hydrology.
+	 *
+	 * @param bandRows
+	 *                     Number of rows of plates of every band.
+	 * @param sink
+	 *                     Receiver of the finished plates, such as a plate store.
+	 */
+	public void generate(final int bandRows, final Consumer<TectonicPlate> sink) {
+		final int plateCountX = this.world.getTectonicPlateCountX();
+		final int plateCountY = this.world.getTectonicPlateCountY();
+		// The blobs of every plate are known from their flows alone
+		final StampBatch magmaStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+		final StampBatch landStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+		this.addStamps(magmaStamps, landStamps);
+		final SoilGenerator soilGenerator = new SoilGenerator(this.world);
+		// Rows of plates a flooded tile can humidify beyond its own
+		final int halo = BasicGenerator.HUMIDITY_RADIUS;
+		// Rows before this one have their terrain generated
+		int generatedRows = 0;
+		// Rows before this one have been removed from the world
+		int removedRows = 0;
+		for (int fromRow = 0; fromRow < plateCountY; fromRow += bandRows) {
+			final int toRow = Math.min(fromRow + bandRows, plateCountY);
+			final int windowFromRow = Math.max(fromRow - halo, 0);
+			final int windowToRow = Math.min(toRow + halo, plateCountY);
+			// The terrain of a plate doesn't depend on any other plate, so we only
+			// generate the rows that are new to the window
+			this.createTectonicPlates(generatedRows, windowToRow);
+			this.runPass(tectonicPlate -> this.generateTerrain(tectonicPlate, magmaStamps, landStamps),
+					generatedRows, windowToRow);
+			generatedRows = windowToRow;
+			// Humidity never floods a tile, so the rows of the band that are finished
+			// can still be used by the window of the next one
+			this.generateHumidity(fromRow, toRow, windowFromRow, windowToRow);
+			this.runPass(soilGenerator::generate, fromRow, toRow);
+			for (int plateIndexY = fromRow; plateIndexY < toRow; ++plateIndexY) {
+				for (int plateIndexX = 0; plateIndexX < plateCountX; ++plateIndexX) {
+					sink.accept(this.world.getTectonicPlate(plateIndexX, plateIndexY));
+				}
+			}
+			for (; removedRows < Math.max(toRow - halo, 0); ++removedRows) {
+				for (int plateIndexX = 0; plateIndexX < plateCountX; ++plateIndexX) {
+					this.world.removeTectonicPlate(plateIndexX, removedRows);
+				}
 			}
 		}
-		// We generate the humidity
-		for (final Tile tile : this.world.getAllTiles()) {
-			if (tile.getWater() >= tile.getLand()) {
-				this.addWater(Interpolation.SMOOTHSTEP, tile.getCoordinateX(), tile.getCoordinateY(),
-						this.world.getTectonicPlateSize() * BasicGenerator.HUMIDITY_RADIUS,
-						this.world.getTectonicPlateSize() * BasicGenerator.HUMIDITY_MAGNITUDE);
+		for (; removedRows < plateCountY; ++removedRows) {
+			for (int plateIndexX = 0; plateIndexX < plateCountX; ++plateIndexX) {
+				this.world.removeTectonicPlate(plateIndexX, removedRows);
 			}
 		}
+	}
+
+	/**
+	 * Creates the pipeline of the stages that generate the whole world at once.
+	 * The magma and the land don't depend on each other, so they're generated at
+	 * the same time, each of them from its own blobs.
+	 */
+	public Pipeline newPipeline() {
+		final int plateCountY = this.world.getTectonicPlateCountY();
+		final Pipeline pipeline = new Pipeline(this.world, this.pool);
+		// We fill the terrain with tectonic plates with randomly generated magma flow
+		// vectors
+		pipeline.add(Stage.of("tectonics", EnumSet.noneOf(Stage.Product.class),
+				EnumSet.of(Stage.Product.TECTONIC_PLATES), () -> this.createTectonicPlates(0, plateCountY)));
+		// We generate the magma from the blobs of every plate
+		pipeline.add(Stage.of("magma", EnumSet.of(Stage.Product.TECTONIC_PLATES), EnumSet.of(Stage.Product.MAGMA),
+				() -> {
+					final StampBatch magmaStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+					this.addStamps(magmaStamps, null);
+					this.runPass(tectonicPlate -> this.generateMagma(tectonicPlate, magmaStamps), 0, plateCountY);
+				}));
+		// We generate the land from the blobs of every plate
+		pipeline.add(Stage.of("land", EnumSet.of(Stage.Product.TECTONIC_PLATES), EnumSet.of(Stage.Product.LAND),
+				() -> {
+					final StampBatch landStamps = new StampBatch(BasicGenerator.KERNELS, StampBatch.Strategy.AUTOMATIC);
+					this.addStamps(null, landStamps);
+					this.runPass(tectonicPlate -> this.generateLand(tectonicPlate, landStamps), 0, plateCountY);
+				}));
+		// We generate the water
+		pipeline.add(Stage.of("water", EnumSet.of(Stage.Product.TECTONIC_PLATES, Stage.Product.LAND),
+				EnumSet.of(Stage.Product.WATER),
+				() -> this.runPass(tectonicPlate -> this.generateWater(tectonicPlate), 0, plateCountY)));
+		// We fill the lakes and carve the rivers
+		pipeline.add(Stage.of("hydrology", EnumSet.of(Stage.Product.LAND, Stage.Product.WATER),
+				EnumSet.of(Stage.Product.WATER, Stage.Product.WATERSHEDS), () -> this.generateHydrology()));
+		// We generate the humidity
+		pipeline.add(Stage.of("humidity", EnumSet.of(Stage.Product.LAND, Stage.Product.WATER),
+				EnumSet.of(Stage.Product.WATER), () -> this.generateHumidity(0, plateCountY, 0, plateCountY)));
+		// We decide the soil and the minerals in a single pass
+		pipeline.add(Stage.of("soil",
+				EnumSet.of(Stage.Product.MAGMA, Stage.Product.LAND, Stage.Product.WATER),
+				EnumSet.of(Stage.Product.SOIL, Stage.Product.MINERALS), () -> {
+					final SoilGenerator soilGenerator = new SoilGenerator(this.world);
+					this.runPass(soilGenerator::generate, 0, plateCountY);
+				}));
+		return pipeline;
+	}
+
+	@Override
+	public String getVersion() {
+		return BasicGenerator.VERSION;
+	}
+
+	@Override
+	public void generate() {
+		this.newPipeline().run();
 
 		/*
 		 * TODO:
@@ -204,109 +767,6 @@ public class BasicGenerator implements Generator {
 		 *
 		 * Maybe mountains influence number of mountains in the direction they point at.
 		 */
-
-		/*
-		 * TODO:
-		 *
-		 * basalt type: extrusive igneous granularity: 0 fertility: 0
-		 *
-		 * feldspar type: general igneous granularity: 0 fertility: 0
-		 *
-		 * marble type: metamorphic (appears when slope is mad high) granularity: 0
-		 * fertility: 0
-		 *
-		 * limestone type: sedimentary granularity: 0 fertility: 0 sand type:
-		 * sedimentary granularity: 1 fertility: 1 silt type: sedimentary granularity: 2
-		 * fertility: 3 clay type: sedimentary granularity: 3 fertility: 2 peat type:
-		 * sedimentary granularity: 4 fertility: 4
-		 *
-		 *
-		 * bauxite rarity: 31
-		 *
-		 * cassiterite rarity: 5
-		 *
-		 * cinnabar rarity: 2
-		 *
-		 * coal rarity: 194
-		 *
-		 * cuprite rarity: 22
-		 *
-		 * galena rarity: 14
-		 *
-		 * gem rarity: 2
-		 *
-		 * goldore rarity: 1
-		 *
-		 * gypsum rarity: 4
-		 *
-		 * ironore rarity: 97
-		 *
-		 * naturalgas rarity: 157
-		 *
-		 * niter rarity: 46
-		 *
-		 * petroleum rarity: 148
-		 *
-		 * phosphate rarity: 50
-		 *
-		 * salt rarity: 60
-		 *
-		 * sulfur rarity: 45
-		 *
-		 * uraninite rarity: 3
-		 *
-		 * water rarity: 40
-		 *
-		 * wolframite rarity: 3
-		 *
-		 *
-		 * Okay, so here's how this shit should work.
-		 *
-		 * SoilGenerator{
-		 *
-		 * decide soil:
-		 *
-		 *
-		 * int granularity = temperature + humidity - height - slope;
-		 *
-		 * slope >~ 0: curvature > 0: (sedimentary rocks)
-		 *
-		 * granularity > 0: sandstone
-		 *
-		 * granularity >> 0: sand
-		 *
-		 * granularity >>> 0: silt
-		 *
-		 * granularity >>>> 0: clay
-		 *
-		 * curvature < 0: (igneous rocks) feldspar
-		 *
-		 * slope >> 0: (metamorphic rocks) marble
-		 *
-		 *
-		 * magma > height: basalt, set height to magma + 1 except if slope(magma) == 0
-		 *
-		 *
-		 * decide ore:
-		 *
-		 * sedimentary: cassiterite, cuprite, galena, ironore, naturalgas, petroleum,
-		 * phosphate, uraninite, water
-		 *
-		 * igneous: bauxite, cassiterite, goldore, wolframite
-		 *
-		 * metamorphic : bauxite, goldore
-		 *
-		 *
-		 * the closer magma is to surface, the purer mineral deposits are
-		 *
-		 * REMEMBER, PLANTS CANNOT SPAWN IN A TILE WHERE A SOILTYPE EXISTS NOR ON SLOPED
-		 * TERRAIN
-		 *
-		 * REMEMBER, MINERALDEPOSITS AND SOILTYPES CANNOT SPAWN IN SLOPED TILES
-		 *
-		 * }
-		 *
-		 */
 	}
 
 }
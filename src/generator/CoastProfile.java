@@ -0,0 +1,90 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+/**
+ * This class represents the height a straight coast adds to the tiles inland
+ * when every tile of the sea stamps the same kernel, as a function of the
+ * distance to the coast. It lets passes that stamp a kernel around every tile
+ * of a large body of water be approximated from the distance to the closest
+ * one.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.DistanceTransform
+ * @since 0.1
+ *
+ */
+public class CoastProfile {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Radius of the kernel this profile was made from.
+	 */
+	private final int radius;
+	/**
+	 * Height added at every whole distance to the coast, up to the radius.
+	 */
+	private final int[] heights;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates the profile of a coast whose tiles all stamp the given kernel.
+	 */
+	public CoastProfile(final Kernel kernel) {
+		this.radius = kernel.getRadius();
+		this.heights = new int[this.radius + 1];
+		// A tile at distance d from the coast gets the columns of the kernel from d
+		// to the radius
+		long height = 0;
+		for (int x = this.radius; x >= 0; --x) {
+			for (int y = -this.radius; y <= this.radius; ++y) {
+				height += kernel.at(x, y);
+			}
+			this.heights[x] = (int) Math.min(height, Integer.MAX_VALUE);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the height added to a tile at the given squared distance from the coast.
+	 *
+	 * @param squaredDistance
+	 *                            Squared distance to the closest tile of the sea,
+	 *                            as given by a distance transform.
+	 * @return Height added to the tile, 0 if the coast is out of reach.
+	 */
+	public int at(final int squaredDistance) {
+		if (squaredDistance == DistanceTransform.INFINITY) {
+			return 0;
+		}
+		final int distance = (int) Math.sqrt(squaredDistance);
+		if (distance > this.radius) {
+			return 0;
+		}
+		return this.heights[distance];
+	}
+
+}
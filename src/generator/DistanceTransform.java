@@ -0,0 +1,143 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+/**
+ * This class computes exact euclidean distance transforms of grids of
+ * integers in linear time, using the separable algorithm of Felzenszwalb and
+ * Huttenlocher: a pass along every column followed by a pass along every row.
+ *
+ * The grids are arrays in row-major order where sources are 0 and every other
+ * position is INFINITY. After both passes every position holds the squared
+ * distance to its closest source. Columns are independent of each other and so
+ * are rows, so each pass can be split among threads.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class DistanceTransform {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Value of the positions of a grid that have no source in reach.
+	 */
+	public static final int INFINITY = Integer.MAX_VALUE;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Computes the squared distance transform of a grid.
+	 *
+	 * @param grid
+	 *                  Grid in row-major order, 0 at sources and INFINITY elsewhere.
+	 * @param sizeX
+	 *                  Size of the grid along the x axis.
+	 * @param sizeY
+	 *                  Size of the grid along the y axis.
+	 */
+	public static void transform(final int[] grid, final int sizeX, final int sizeY) {
+		for (int x = 0; x < sizeX; ++x) {
+			DistanceTransform.transformColumn(grid, sizeX, sizeY, x);
+		}
+		for (int y = 0; y < sizeY; ++y) {
+			DistanceTransform.transformRow(grid, sizeX, y);
+		}
+	}
+
+	/**
+	 * First pass of the transform. Replaces a column of a grid of sources with the
+	 * squared distance to the closest source in the same column.
+	 */
+	public static void transformColumn(final int[] grid, final int sizeX, final int sizeY, final int x) {
+		// Closest source above
+		int source = -1;
+		for (int y = 0, index = x; y < sizeY; ++y, index += sizeX) {
+			if (grid[index] == 0) {
+				source = y;
+			} else if (source >= 0) {
+				grid[index] = (y - source) * (y - source);
+			}
+		}
+		// Closest source below
+		source = -1;
+		for (int y = sizeY - 1, index = x + ((sizeY - 1) * sizeX); y >= 0; --y, index -= sizeX) {
+			if (grid[index] == 0) {
+				source = y;
+			} else if (source >= 0) {
+				grid[index] = Math.min(grid[index], (source - y) * (source - y));
+			}
+		}
+	}
+
+	/**
+	 * Second pass of the transform. Replaces a row of a grid that has already been
+	 * through the first pass with the squared euclidean distance to the closest
+	 * source, as the lower envelope of the parabolas rooted at every position of
+	 * the row.
+	 */
+	public static void transformRow(final int[] grid, final int sizeX, final int y) {
+		final int rowOffset = y * sizeX;
+		// Positions of the parabolas of the lower envelope
+		final int[] locations = new int[sizeX];
+		// Positions where each parabola of the lower envelope starts to be the lowest
+		final double[] boundaries = new double[sizeX + 1];
+		// Values of the row before this pass
+		final int[] values = new int[sizeX];
+		System.arraycopy(grid, rowOffset, values, 0, sizeX);
+		int parabola = -1;
+		for (int q = 0; q < sizeX; ++q) {
+			if (values[q] == DistanceTransform.INFINITY) {
+				continue;
+			}
+			double intersection = Double.NEGATIVE_INFINITY;
+			while (parabola >= 0) {
+				final int location = locations[parabola];
+				intersection = (((double) values[q] + ((double) q * q))
+						- ((double) values[location] + ((double) location * location))) / (2.0d * (q - location));
+				if (intersection <= boundaries[parabola]) {
+					--parabola;
+					intersection = Double.NEGATIVE_INFINITY;
+				} else {
+					break;
+				}
+			}
+			++parabola;
+			locations[parabola] = q;
+			boundaries[parabola] = intersection;
+			boundaries[parabola + 1] = Double.POSITIVE_INFINITY;
+		}
+		if (parabola < 0) {
+			// No sources in reach of this row
+			return;
+		}
+		for (int q = 0, current = 0; q < sizeX; ++q) {
+			while (boundaries[current + 1] < q) {
+				++current;
+			}
+			final int distance = q - locations[current];
+			grid[rowOffset + q] = (distance * distance) + values[locations[current]];
+		}
+	}
+
+}
@@ -33,4 +33,10 @@ public interface Generator {
 
 	public void generate();
 
+	/**
+	 * Get the version of the worlds this generator generates, which changes
+	 * whenever the same parameters would give a different world.
+	 */
+	public String getVersion();
+
 }
@@ -0,0 +1,313 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import java.util.Arrays;
+
+/**
+ * This class computes the drainage of a grid of heights using the priority
+ * flood of Barnes, Lehman and Mulla: the grid is flooded from its outlets
+ * upwards, always from the lowest tile reached so far, and every depression
+ * is filled up to the height it spills at, which turns it into a lake.
+ *
+ * The outlets are the tiles at or below sea level and the tiles on the border
+ * of the grid, where water leaves it. Every other tile drains into the
+ * neighbour, out of its eight, it was flooded from, so water always finds its
+ * way to an outlet, even across lakes and flat land. The tiles that drain into
+ * the same land tile next to an outlet make up a watershed.
+ *
+ * Heights are integers, so the queue of the flood is an array of buckets, one
+ * per height, and the flood takes linear time in the number of tiles plus the
+ * range of heights. The flood itself is sequential, but the flow accumulated
+ * by every watershed is independent of every other one, so watersheds can be
+ * handled by different threads.
+ *
+ * The grids are arrays in row-major order.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class Hydrology {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Direction of the tiles that don't drain into any other tile.
+	 */
+	public static final byte OUTLET = -1;
+	/**
+	 * Watershed of the tiles at or below sea level.
+	 */
+	public static final int SEA = 0;
+	/**
+	 * Direction of the tiles the flood hasn't reached yet.
+	 */
+	private static final byte UNREACHED = -2;
+	/**
+	 * Offsets of the eight neighbours of a tile, where the opposite of direction d
+	 * is direction (d + 4) % 8.
+	 */
+	private static final int[] DELTAS_X = new int[] { 1, 1, 0, -1, -1, -1, 0, 1 };
+	private static final int[] DELTAS_Y = new int[] { 0, 1, 1, 1, 0, -1, -1, -1 };
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Size of the grid.
+	 */
+	private final int sizeX, sizeY;
+	/**
+	 * Heights of the grid, raised to the level of the lakes once it has been
+	 * flooded.
+	 */
+	private final int[] surface;
+	/**
+	 * Direction every tile drains into.
+	 */
+	private final byte[] directions;
+	/**
+	 * Watershed every tile belongs to.
+	 */
+	private final int[] watersheds;
+	/**
+	 * Number of tiles that drain through every tile, itself included.
+	 */
+	private int[] accumulation;
+	/**
+	 * Land tiles grouped by watershed, each group in the order the flood reached
+	 * them, so that every tile comes after the one it drains into.
+	 */
+	private int[] order;
+	/**
+	 * Start of the group of every watershed in the order. The group of watershed w
+	 * goes from starts[w] to starts[w + 1].
+	 */
+	private int[] starts;
+	/**
+	 * Number of watersheds, not counting the sea.
+	 */
+	private int watershedCount;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates the drainage of a grid of heights. Takes ownership of the grid.
+	 *
+	 * @param heights
+	 *                    Heights of the grid in row-major order.
+	 * @param sizeX
+	 *                    Size of the grid along the x axis.
+	 * @param sizeY
+	 *                    Size of the grid along the y axis.
+	 */
+	public Hydrology(final int[] heights, final int sizeX, final int sizeY) {
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.surface = heights;
+		this.directions = new byte[sizeX * sizeY];
+		this.watersheds = new int[sizeX * sizeY];
+		this.watershedCount = 0;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Floods the grid from its outlets, filling its depressions and finding the
+	 * direction and the watershed of every tile.
+	 *
+	 * @param seaLevel
+	 *                     Height up to which tiles are part of the sea.
+	 */
+	public void flood(final int seaLevel) {
+		final int tileCount = this.sizeX * this.sizeY;
+		if (tileCount == 0) {
+			this.order = new int[0];
+			this.starts = new int[2];
+			this.accumulation = new int[0];
+			return;
+		}
+		int minimumHeight = Integer.MAX_VALUE;
+		int maximumHeight = Integer.MIN_VALUE;
+		for (final int height : this.surface) {
+			minimumHeight = Math.min(minimumHeight, height);
+			maximumHeight = Math.max(maximumHeight, height);
+		}
+		// Queue of tiles by height, where every bucket is a list of tiles linked
+		// through next in the order they were added
+		final int[] heads = new int[(maximumHeight - minimumHeight) + 1];
+		final int[] tails = new int[heads.length];
+		final int[] next = new int[tileCount];
+		Arrays.fill(heads, -1);
+		Arrays.fill(this.directions, Hydrology.UNREACHED);
+		// Order the flood reached the tiles in
+		final int[] floodOrder = new int[tileCount];
+		int floodCount = 0;
+		// We start from the sea and from the border
+		for (int y = 0, index = 0; y < this.sizeY; ++y) {
+			for (int x = 0; x < this.sizeX; ++x, ++index) {
+				final boolean sea = this.surface[index] <= seaLevel;
+				if (sea || (x == 0) || (y == 0) || (x == (this.sizeX - 1)) || (y == (this.sizeY - 1))) {
+					this.directions[index] = Hydrology.OUTLET;
+					this.watersheds[index] = sea ? Hydrology.SEA : ++this.watershedCount;
+					Hydrology.push(heads, tails, next, this.surface[index] - minimumHeight, index);
+				}
+			}
+		}
+		for (int bucket = 0; bucket < heads.length;) {
+			final int index = heads[bucket];
+			if (index < 0) {
+				++bucket;
+				continue;
+			}
+			heads[bucket] = next[index];
+			floodOrder[floodCount++] = index;
+			final int x = index % this.sizeX;
+			final int y = index / this.sizeX;
+			for (int direction = 0; direction < 8; ++direction) {
+				final int neighbourX = x + Hydrology.DELTAS_X[direction];
+				final int neighbourY = y + Hydrology.DELTAS_Y[direction];
+				if ((neighbourX < 0) || (neighbourY < 0) || (neighbourX >= this.sizeX) || (neighbourY >= this.sizeY)) {
+					continue;
+				}
+				final int neighbour = (neighbourY * this.sizeX) + neighbourX;
+				if (this.directions[neighbour] != Hydrology.UNREACHED) {
+					continue;
+				}
+				// The neighbour drains into this tile
+				this.directions[neighbour] = (byte) ((direction + 4) & 7);
+				// Land next to the sea starts a watershed of its own
+				this.watersheds[neighbour] = this.watersheds[index] == Hydrology.SEA ? ++this.watershedCount
+						: this.watersheds[index];
+				// A neighbour lower than this tile is in a depression, which fills up to here
+				if (this.surface[neighbour] < this.surface[index]) {
+					this.surface[neighbour] = this.surface[index];
+				}
+				// Tiles are never added below the bucket being emptied
+				Hydrology.push(heads, tails, next, this.surface[neighbour] - minimumHeight, neighbour);
+			}
+		}
+		// We group the land tiles by watershed keeping the order of the flood
+		this.starts = new int[this.watershedCount + 2];
+		for (int index = 0; index < tileCount; ++index) {
+			if (this.watersheds[index] != Hydrology.SEA) {
+				++this.starts[this.watersheds[index]];
+			}
+		}
+		for (int watershed = 1; watershed <= this.watershedCount; ++watershed) {
+			this.starts[watershed] += this.starts[watershed - 1];
+		}
+		this.order = new int[this.starts[this.watershedCount]];
+		for (int position = floodCount - 1; position >= 0; --position) {
+			final int index = floodOrder[position];
+			if (this.watersheds[index] != Hydrology.SEA) {
+				this.order[--this.starts[this.watersheds[index]]] = index;
+			}
+		}
+		this.starts[this.watershedCount + 1] = this.order.length;
+		// The links of the queue aren't needed anymore
+		Arrays.fill(next, 0);
+		this.accumulation = next;
+	}
+
+	/**
+	 * Adds a tile at the end of a bucket of a queue.
+	 */
+	private static void push(final int[] heads, final int[] tails, final int[] next, final int bucket,
+			final int index) {
+		next[index] = -1;
+		if (heads[bucket] < 0) {
+			heads[bucket] = index;
+		} else {
+			next[tails[bucket]] = index;
+		}
+		tails[bucket] = index;
+	}
+
+	/**
+	 * Accumulates the flow of a watershed, from the tiles furthest from its outlet
+	 * to the ones closest to it. Only writes to the tiles of the watershed, so
+	 * different watersheds can be accumulated at the same time once the grid has
+	 * been flooded.
+	 *
+	 * @param watershed
+	 *                      Watershed to accumulate, from 1 to the number of
+	 *                      watersheds.
+	 */
+	public void accumulate(final int watershed) {
+		for (int position = this.starts[watershed + 1] - 1; position >= this.starts[watershed]; --position) {
+			final int index = this.order[position];
+			// Every tile drains itself and the tiles that drain into it, which come after
+			// it in the order
+			++this.accumulation[index];
+			final int direction = this.directions[index];
+			if (direction != Hydrology.OUTLET) {
+				final int downstream = index + (Hydrology.DELTAS_Y[direction] * this.sizeX)
+						+ Hydrology.DELTAS_X[direction];
+				if (this.watersheds[downstream] == watershed) {
+					this.accumulation[downstream] += this.accumulation[index];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the number of watersheds, not counting the sea.
+	 */
+	public int getWatershedCount() {
+		return this.watershedCount;
+	}
+
+	/**
+	 * Get the height of the surface of a tile, which is the level of its lake if
+	 * it's in one.
+	 */
+	public int getSurface(final int index) {
+		return this.surface[index];
+	}
+
+	/**
+	 * Get the direction a tile drains into, as the index of one of its eight
+	 * neighbours counterclockwise from the one along the x axis, or OUTLET.
+	 */
+	public byte getDirection(final int index) {
+		return this.directions[index];
+	}
+
+	/**
+	 * Get the watershed of a tile, or SEA.
+	 */
+	public int getWatershed(final int index) {
+		return this.watersheds[index];
+	}
+
+	/**
+	 * Get the number of tiles that drain through a tile, itself included, or 0 if
+	 * it's part of the sea.
+	 */
+	public int getAccumulation(final int index) {
+		return this.accumulation[index];
+	}
+
+}
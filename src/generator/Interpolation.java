@@ -48,6 +48,11 @@ public interface Interpolation {
 			return 0;
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	/**
@@ -64,6 +69,11 @@ public interface Interpolation {
 			return (int) (input * height);
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	/**
@@ -81,6 +91,11 @@ public interface Interpolation {
 			return (int) (input * height);
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	/**
@@ -117,6 +132,11 @@ public interface Interpolation {
 			return (int) (((-2 * inputThirdPower) + (3 * inputSecondPower)) * height);
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	/**
@@ -139,6 +159,11 @@ public interface Interpolation {
 			return (int) ((((6 * inputFifthPower) - (15 * inputFourthPower)) + (10 * inputThirdPower)) * height);
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	/**
@@ -164,6 +189,11 @@ public interface Interpolation {
 					+ (35 * inputFourthPower)) * height);
 		}
 
+		@Override
+		public boolean isMirrored() {
+			return true;
+		}
+
 	};
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -187,4 +217,16 @@ public interface Interpolation {
 	 */
 	public int at(int x, int y, int radius, int height);
 
+	/**
+	 * Get whether this interpolation function gives the same height at x, y as at
+	 * -x, y and at x, -y. The kernels of mirrored functions only need to be stored
+	 * for one of the signs of y.
+	 *
+	 * @return Whether this interpolation function is symmetric along both axes.
+	 * @see generator.Kernel
+	 */
+	public default boolean isMirrored() {
+		return false;
+	}
+
 }
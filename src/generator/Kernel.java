@@ -0,0 +1,136 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+/**
+ * This class represents an interpolation function with a certain radius and
+ * height materialized as a dense square of integers, so that stamping it on a
+ * layer doesn't need to evaluate the function at every tile.
+ *
+ * Values are stored in rows along the x axis, each of them as wide as the
+ * kernel, so a row can be added to a layer as a single run. For mirrored
+ * interpolation functions the rows at y and -y are the same and are only
+ * stored once.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.KernelCache
+ * @since 0.1
+ *
+ */
+public class Kernel {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Radius of this kernel.
+	 */
+	private final int radius;
+	/**
+	 * Length of the side of this kernel.
+	 */
+	private final int width;
+	/**
+	 * Whether the rows at y and -y share storage.
+	 */
+	private final boolean mirrored;
+	/**
+	 * Values of this kernel by rows. The value at column k of a row is the height
+	 * at x = radius - k, which is the one for the tile radius - k tiles before the
+	 * center.
+	 */
+	private final int[] values;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Materializes the given interpolation function with the given radius and
+	 * height.
+	 */
+	public Kernel(final Interpolation interpolation, final int radius, final int height) {
+		this.radius = radius;
+		this.width = (2 * radius) + 1;
+		this.mirrored = interpolation.isMirrored();
+		final int rows = this.mirrored ? radius + 1 : this.width;
+		this.values = new int[rows * this.width];
+		for (int row = 0; row < rows; ++row) {
+			final int y = this.mirrored ? row : row - radius;
+			final int rowOffset = row * this.width;
+			for (int column = 0; column < this.width; ++column) {
+				if (this.mirrored && (column > radius)) {
+					// The right half of a mirrored row is the left half reversed
+					this.values[rowOffset + column] = this.values[(rowOffset + this.width) - 1 - column];
+				} else {
+					this.values[rowOffset + column] = interpolation.at(radius - column, y, radius, height);
+				}
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the radius of this kernel.
+	 */
+	public int getRadius() {
+		return this.radius;
+	}
+
+	/**
+	 * Get the number of integers stored by this kernel.
+	 */
+	public int size() {
+		return this.values.length;
+	}
+
+	/**
+	 * Get the values of this kernel by rows. Must not be modified.
+	 *
+	 * @see #getRowOffset(int)
+	 */
+	public int[] getValues() {
+		return this.values;
+	}
+
+	/**
+	 * Get the index in the values of this kernel of the first column of the row
+	 * at the given y. The column at index k of the row holds the height for the
+	 * tile at radius - k along the x axis from the center.
+	 *
+	 * @param y
+	 *              Difference between the y coordinate of the center and the one
+	 *              of the tile, between -radius and radius.
+	 */
+	public int getRowOffset(final int y) {
+		return (this.mirrored ? Math.abs(y) : y + this.radius) * this.width;
+	}
+
+	/**
+	 * Get the height of this kernel at x, y. Equivalent to the at method of the
+	 * interpolation function it was created from for x, y between -radius and
+	 * radius.
+	 */
+	public int at(final int x, final int y) {
+		return this.values[(this.getRowOffset(y) + this.radius) - x];
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the most recently used kernels so that interpolation
+ * functions are only materialized once per radius and height. The cache is
+ * bounded by the total number of integers stored by its kernels, evicting the
+ * least recently used ones first. It may be shared between threads.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.Kernel
+ * @since 0.1
+ *
+ */
+public class KernelCache {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Maximum number of integers stored by the kernels of this cache.
+	 */
+	private final long capacity;
+	/**
+	 * Number of integers stored by the kernels of this cache.
+	 */
+	private long size;
+	/**
+	 * Kernels of this cache in access order.
+	 */
+	private final LinkedHashMap<Key, Kernel> kernels;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Parameters a kernel is materialized from.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class Key {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		private final Interpolation interpolation;
+		private final int radius, height;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		private Key(final Interpolation interpolation, final int radius, final int height) {
+			this.interpolation = interpolation;
+			this.radius = radius;
+			this.height = height;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		public int hashCode() {
+			return (((System.identityHashCode(this.interpolation) * 31) + this.radius) * 31) + this.height;
+		}
+
+		@Override
+		public boolean equals(final Object object) {
+			if (object instanceof Key) {
+				final Key key = (Key) object;
+				return (key.interpolation == this.interpolation) && (key.radius == this.radius)
+						&& (key.height == this.height);
+			} else {
+				return false;
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a cache whose kernels store at most the given number of integers.
+	 * The most recently used kernel is always kept even if it's larger.
+	 */
+	public KernelCache(final long capacity) {
+		this.capacity = capacity;
+		this.size = 0;
+		this.kernels = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the kernel of the given interpolation function with the given radius
+	 * and height, materializing it if it isn't cached.
+	 */
+	public Kernel get(final Interpolation interpolation, final int radius, final int height) {
+		final Key key = new Key(interpolation, radius, height);
+		synchronized (this) {
+			final Kernel kernel = this.kernels.get(key);
+			if (kernel != null) {
+				return kernel;
+			}
+		}
+		// Materialize outside of the lock so other threads can keep using the cache
+		final Kernel kernel = new Kernel(interpolation, radius, height);
+		synchronized (this) {
+			final Kernel cachedKernel = this.kernels.get(key);
+			if (cachedKernel != null) {
+				return cachedKernel;
+			}
+			this.kernels.put(key, kernel);
+			this.size += kernel.size();
+			final Iterator<Map.Entry<Key, Kernel>> iterator = this.kernels.entrySet().iterator();
+			while ((this.size > this.capacity) && (this.kernels.size() > 1)) {
+				this.size -= iterator.next().getValue().size();
+				iterator.remove();
+			}
+		}
+		return kernel;
+	}
+
+	/**
+	 * Removes all kernels from this cache.
+	 */
+	public synchronized void clear() {
+		this.kernels.clear();
+		this.size = 0;
+	}
+
+}
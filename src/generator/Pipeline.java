@@ -0,0 +1,459 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import entity.world.TectonicPlate;
+import entity.world.World;
+import exe.io.PlateStore;
+
+/**
+ * This class represents a sequence of generation stages. Stages are added in
+ * an order they could be run one after the other, and the pipeline finds which
+ * of them don't depend on each other from the products they read and write: a
+ * stage depends on every earlier stage that writes something it reads or
+ * writes, or that reads something it writes.
+ *
+ * Stages are run in levels, every stage in the level after the ones it depends
+ * on, and the stages of a level are run at the same time on the pool of the
+ * pipeline if it has one. The time and the memory allocated by every stage are
+ * measured.
+ *
+ * The world can be checkpointed to a plate store after the level of a stage,
+ * and the pipeline can be resumed from a checkpoint, so that later stages can
+ * be run again without running the ones before. Checkpoints hold the tectonic
+ * plates and their integer layers.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.Stage
+ * @since 0.1
+ *
+ */
+public class Pipeline {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Extension of the files of checkpoints.
+	 */
+	private static final String CHECKPOINT_EXTENSION = ".plates";
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * World generated by this pipeline.
+	 */
+	private final World world;
+	/**
+	 * Pool the stages of a level are run on, null if they're run one after the
+	 * other on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Stages of this pipeline in the order they were added.
+	 */
+	private final List<Stage> stages;
+	/**
+	 * Level of every stage of this pipeline.
+	 */
+	private final List<Integer> levels;
+	/**
+	 * Names of the stages after whose level a checkpoint is written.
+	 */
+	private final Set<String> checkpoints;
+	/**
+	 * Path of the folder checkpoints are written to, or null if there isn't any.
+	 */
+	private String[] checkpointPath;
+	/**
+	 * Metrics of the stages run by the last run of this pipeline.
+	 */
+	private final List<Metrics> metrics;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Measurements of a run of a stage.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static class Metrics {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		private final String stageName;
+		private final int level;
+		private final long wallTime;
+		private final long allocatedBytes;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		private Metrics(final String stageName, final int level, final long wallTime, final long allocatedBytes) {
+			this.stageName = stageName;
+			this.level = level;
+			this.wallTime = wallTime;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Get the name of the stage measured.
+		 */
+		public String getStageName() {
+			return this.stageName;
+		}
+
+		/**
+		 * Get the level the stage was run in.
+		 */
+		public int getLevel() {
+			return this.level;
+		}
+
+		/**
+		 * Get the wall time the stage took in nanoseconds.
+		 */
+		public long getWallTime() {
+			return this.wallTime;
+		}
+
+		/**
+		 * Get the bytes allocated by all threads while the stage ran, which includes
+		 * the ones of the stages run at the same time, or -1 if the virtual machine
+		 * can't measure them.
+		 */
+		public long getAllocatedBytes() {
+			return this.allocatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return this.stageName + "\t" + this.level + "\t" + (this.wallTime / 1000000L) + "\t"
+					+ (this.allocatedBytes >> 10);
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates an empty pipeline for the given world.
+	 *
+	 * @param world
+	 *                  World generated by the pipeline.
+	 * @param pool
+	 *                  Pool the stages of a level are run on, or null to run them
+	 *                  on the calling thread.
+	 */
+	public Pipeline(final World world, final ForkJoinPool pool) {
+		this.world = world;
+		this.pool = pool;
+		this.stages = new ArrayList<>();
+		this.levels = new ArrayList<>();
+		this.checkpoints = new HashSet<>();
+		this.checkpointPath = null;
+		this.metrics = new ArrayList<>();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the bytes allocated so far by all live threads, or -1 if the virtual
+	 * machine can't measure them.
+	 */
+	public static long getAllocatedBytes() {
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return -1L;
+		}
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+			return -1L;
+		}
+		long allocatedBytes = 0L;
+		for (final long threadAllocatedBytes : allocationBean
+				.getThreadAllocatedBytes(allocationBean.getAllThreadIds())) {
+			if (threadAllocatedBytes > 0L) {
+				allocatedBytes += threadAllocatedBytes;
+			}
+		}
+		return allocatedBytes;
+	}
+
+	/**
+	 * Whether any of the products of one set is in the other.
+	 */
+	private static boolean intersects(final Set<Stage.Product> products, final Set<Stage.Product> otherProducts) {
+		for (final Stage.Product product : products) {
+			if (otherProducts.contains(product)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Adds a stage after the ones added so far.
+	 *
+	 * @return This pipeline.
+	 */
+	public Pipeline add(final Stage stage) {
+		int level = 0;
+		for (int index = 0; index < this.stages.size(); ++index) {
+			final Stage previousStage = this.stages.get(index);
+			if (Pipeline.intersects(previousStage.getOutputs(), stage.getInputs())
+					|| Pipeline.intersects(previousStage.getOutputs(), stage.getOutputs())
+					|| Pipeline.intersects(previousStage.getInputs(), stage.getOutputs())) {
+				level = Math.max(level, this.levels.get(index) + 1);
+			}
+		}
+		this.stages.add(stage);
+		this.levels.add(level);
+		return this;
+	}
+
+	/**
+	 * Removes the stage with the given name, so that the stages that depended on
+	 * it only depend on the others.
+	 *
+	 * @return This pipeline.
+	 */
+	public Pipeline remove(final String stageName) {
+		final List<Stage> remainingStages = new ArrayList<>(this.stages);
+		remainingStages.remove(this.indexOf(stageName));
+		this.checkpoints.remove(stageName);
+		this.stages.clear();
+		this.levels.clear();
+		for (final Stage stage : remainingStages) {
+			this.add(stage);
+		}
+		return this;
+	}
+
+	/**
+	 * Set the folder checkpoints are written to and read from.
+	 *
+	 * @param path
+	 *                 Path of the folder, whose elements are joined using the
+	 *                 path separator character.
+	 * @return This pipeline.
+	 */
+	public Pipeline setCheckpointPath(final String... path) {
+		this.checkpointPath = path.clone();
+		return this;
+	}
+
+	/**
+	 * Writes a checkpoint after the level of the stage with the given name
+	 * whenever this pipeline is run.
+	 *
+	 * @return This pipeline.
+	 */
+	public Pipeline checkpointAfter(final String stageName) {
+		this.indexOf(stageName);
+		this.checkpoints.add(stageName);
+		return this;
+	}
+
+	/**
+	 * Get the names of the stages of this pipeline in the order they were added.
+	 */
+	public List<String> getStageNames() {
+		final List<String> stageNames = new ArrayList<>();
+		for (final Stage stage : this.stages) {
+			stageNames.add(stage.getName());
+		}
+		return stageNames;
+	}
+
+	/**
+	 * Get the metrics of the stages run by the last run of this pipeline, in the
+	 * order they finished.
+	 */
+	public List<Metrics> getMetrics() {
+		synchronized (this.metrics) {
+			return Collections.unmodifiableList(new ArrayList<>(this.metrics));
+		}
+	}
+
+	/**
+	 * Runs every stage of this pipeline.
+	 */
+	public void run() {
+		this.run(0);
+	}
+
+	/**
+	 * Reads the checkpoint written after the level of the stage with the given
+	 * name into the world and runs the stages of the levels after it.
+	 */
+	public void resume(final String stageName) {
+		if (this.checkpointPath == null) {
+			throw new IllegalStateException("No checkpoint path set");
+		}
+		final int level = this.levels.get(this.indexOf(stageName));
+		try (final PlateStore plateStore = PlateStore.open(this.getCheckpointFile(stageName))) {
+			plateStore.readAll(this.world);
+		}
+		this.run(level + 1);
+	}
+
+	/**
+	 * Runs the stages of the given level and the ones after it.
+	 */
+	private void run(final int fromLevel) {
+		synchronized (this.metrics) {
+			this.metrics.clear();
+		}
+		int lastLevel = -1;
+		for (final int level : this.levels) {
+			lastLevel = Math.max(lastLevel, level);
+		}
+		for (int level = fromLevel; level <= lastLevel; ++level) {
+			final List<Stage> levelStages = new ArrayList<>();
+			for (int index = 0; index < this.stages.size(); ++index) {
+				if (this.levels.get(index) == level) {
+					levelStages.add(this.stages.get(index));
+				}
+			}
+			final int currentLevel = level;
+			if ((this.pool == null) || (levelStages.size() == 1)) {
+				for (final Stage stage : levelStages) {
+					this.runStage(stage, currentLevel);
+				}
+			} else {
+				final List<RecursiveAction> tasks = new ArrayList<>();
+				for (final Stage stage : levelStages) {
+					tasks.add(new RecursiveAction() {
+
+						private static final long serialVersionUID = 2937185604921837462L;
+
+						@Override
+						protected void compute() {
+							Pipeline.this.runStage(stage, currentLevel);
+						}
+
+					});
+				}
+				this.pool.invoke(new RecursiveAction() {
+
+					private static final long serialVersionUID = -6517206248916027034L;
+
+					@Override
+					protected void compute() {
+						ForkJoinTask.invokeAll(tasks);
+					}
+
+				});
+			}
+			for (final Stage stage : levelStages) {
+				if (this.checkpoints.contains(stage.getName())) {
+					this.writeCheckpoint(stage.getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a stage and measures it.
+	 */
+	private void runStage(final Stage stage, final int level) {
+		final long startAllocatedBytes = Pipeline.getAllocatedBytes();
+		final long startTime = System.nanoTime();
+		stage.run();
+		final long wallTime = System.nanoTime() - startTime;
+		final long endAllocatedBytes = Pipeline.getAllocatedBytes();
+		final long allocatedBytes = (startAllocatedBytes < 0L) || (endAllocatedBytes < 0L) ? -1L
+				: Math.max(endAllocatedBytes - startAllocatedBytes, 0L);
+		synchronized (this.metrics) {
+			this.metrics.add(new Metrics(stage.getName(), level, wallTime, allocatedBytes));
+		}
+	}
+
+	/**
+	 * Writes every plate of the world to the checkpoint of the stage with the given
+	 * name.
+	 */
+	private void writeCheckpoint(final String stageName) {
+		if (this.checkpointPath == null) {
+			throw new IllegalStateException("No checkpoint path set");
+		}
+		new File(String.join(File.separator, this.checkpointPath)).mkdirs();
+		try (final PlateStore plateStore = PlateStore.create(this.world, this.getCheckpointFile(stageName))) {
+			for (int plateIndexY = 0; plateIndexY < this.world.getTectonicPlateCountY(); ++plateIndexY) {
+				for (int plateIndexX = 0; plateIndexX < this.world.getTectonicPlateCountX(); ++plateIndexX) {
+					final TectonicPlate tectonicPlate = this.world.getTectonicPlate(plateIndexX, plateIndexY);
+					if (tectonicPlate != null) {
+						plateStore.write(tectonicPlate);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the path of the file of the checkpoint of the stage with the given name.
+	 */
+	private String[] getCheckpointFile(final String stageName) {
+		final String[] checkpointFile = new String[this.checkpointPath.length + 1];
+		System.arraycopy(this.checkpointPath, 0, checkpointFile, 0, this.checkpointPath.length);
+		checkpointFile[this.checkpointPath.length] = stageName + Pipeline.CHECKPOINT_EXTENSION;
+		return checkpointFile;
+	}
+
+	/**
+	 * Index of the stage with the given name.
+	 */
+	private int indexOf(final String stageName) {
+		for (int index = 0; index < this.stages.size(); ++index) {
+			if (this.stages.get(index).getName().equals(stageName)) {
+				return index;
+			}
+		}
+		throw new IllegalArgumentException("No such stage: " + stageName);
+	}
+
+}
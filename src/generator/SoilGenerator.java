@@ -0,0 +1,320 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import api.RandomGenerator;
+import entity.world.RandomStreams;
+import entity.world.TectonicPlate;
+import entity.world.TectonicPlate.Layer;
+import entity.world.World;
+import type.MineralType;
+import type.SoilType;
+import util.integermatrix.IntegerMatrix;
+import util.integermatrix.ObjectMatrix;
+
+/**
+ * This class decides the soil and the mineral deposit of every tile of a
+ * tectonic plate in a single pass over its layers.
+ *
+ * Tiles where magma reaches the surface are extrusive igneous rock. Otherwise
+ * steep tiles are metamorphic rock, convex tiles are igneous rock and the rest
+ * are sedimentary rock, whose granularity grows with temperature and humidity
+ * and shrinks with height and slope.
+ *
+ * Flat dry tiles may have a mineral deposit of one of the minerals of their
+ * rock class, which are more common the closer magma is to the surface. The
+ * classes of rock every mineral type is found in and its rarity are part of its
+ * data. The minerals of every class are spread over a table in proportion to
+ * their rarities, so a deposit is a single draw and a lookup in the table.
+ *
+ * Slopes and curvatures at the edges of a plate are found from the land of the
+ * plates next to it, so that they don't change from one side of an edge to the
+ * other.
+ *
+ * Soil types without data are skipped.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class SoilGenerator {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Keys of the sedimentary soil types from the finest to the coarsest.
+	 */
+	private static final String[] SEDIMENTARY_SOIL_KEYS = new String[] { "limestone", "sand", "silt", "clay",
+			"peat" };
+	private static final String IGNEOUS_SOIL_KEY = "feldspar";
+	private static final String EXTRUSIVE_SOIL_KEY = "basalt";
+	private static final String METAMORPHIC_SOIL_KEY = "marble";
+	/**
+	 * Keys of the rock classes mineral types can be found in.
+	 */
+	private static final String SEDIMENTARY_ROCK_KEY = "sedimentary";
+	private static final String IGNEOUS_ROCK_KEY = "igneous";
+	private static final String METAMORPHIC_ROCK_KEY = "metamorphic";
+	/**
+	 * Slope up to which a tile is flat.
+	 */
+	private static final int FLAT_SLOPE = 1;
+	/**
+	 * Slope from which a tile is metamorphic rock.
+	 */
+	private static final int STEEP_SLOPE = 4;
+	/**
+	 * Granularity every sedimentary soil type covers.
+	 */
+	private static final int GRANULARITY_STEP = 2;
+	/**
+	 * One in this many flat dry tiles has a mineral deposit where magma is right
+	 * under the surface. One more tile is added for every time the roughness of
+	 * the world magma is deeper.
+	 */
+	private static final int MINERAL_SCARCITY = 16;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * World whose plates this generator decides the soil of.
+	 */
+	private final World world;
+	private final SoilType[] sedimentarySoils;
+	private final SoilType igneousSoil;
+	private final SoilType extrusiveSoil;
+	private final SoilType metamorphicSoil;
+	/**
+	 * Mineral types of every rock class, each of them repeated as many times as its
+	 * rarity.
+	 */
+	private final MineralType[] sedimentaryMinerals;
+	private final MineralType[] igneousMinerals;
+	private final MineralType[] metamorphicMinerals;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Gives the land of the tectonic plates next to the one whose soil is decided.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	@FunctionalInterface
+	public static interface LandSource {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Get the land of the tectonic plate with the given indices, or null if there
+		 * is no such plate.
+		 */
+		public IntegerMatrix getLand(int plateIndexX, int plateIndexY);
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a generator of the soil of the plates of the given world.
+	 */
+	public SoilGenerator(final World world) {
+		this.world = world;
+		this.sedimentarySoils = SoilType.getSoilTypes(SoilGenerator.SEDIMENTARY_SOIL_KEYS);
+		this.igneousSoil = SoilType.getSoilType(SoilGenerator.IGNEOUS_SOIL_KEY);
+		this.extrusiveSoil = SoilType.getSoilType(SoilGenerator.EXTRUSIVE_SOIL_KEY);
+		this.metamorphicSoil = SoilType.getSoilType(SoilGenerator.METAMORPHIC_SOIL_KEY);
+		this.sedimentaryMinerals = SoilGenerator.newMineralTable(SoilGenerator.SEDIMENTARY_ROCK_KEY);
+		this.igneousMinerals = SoilGenerator.newMineralTable(SoilGenerator.IGNEOUS_ROCK_KEY);
+		this.metamorphicMinerals = SoilGenerator.newMineralTable(SoilGenerator.METAMORPHIC_ROCK_KEY);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates the table of the mineral types found in the rock class with the
+	 * given key, with every one of them repeated as many times as its rarity. A
+	 * uniform index into the table picks every mineral type in proportion to its
+	 * rarity.
+	 */
+	private static MineralType[] newMineralTable(final String rockClass) {
+		int length = 0;
+		for (final MineralType mineralType : MineralType.getAllMineralTypes()) {
+			if (mineralType.isFoundIn(rockClass)) {
+				length += mineralType.getRarity();
+			}
+		}
+		final MineralType[] table = new MineralType[length];
+		int index = 0;
+		for (final MineralType mineralType : MineralType.getAllMineralTypes()) {
+			if (mineralType.isFoundIn(rockClass)) {
+				for (int end = index + mineralType.getRarity(); index < end; ++index) {
+					table[index] = mineralType;
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Copies the land along an edge of a tectonic plate, one tile beyond it, into
+	 * the given border. If there is no plate beyond the edge, the land of the edge
+	 * itself is copied.
+	 *
+	 * @param border
+	 *                         Border the land is copied into.
+	 * @param neighbour
+	 *                         Land of the plate beyond the edge, or null if there
+	 *                         is none.
+	 * @param land
+	 *                         Land of the plate.
+	 * @param x
+	 *                         Coordinate along the x axis of the first tile of the
+	 *                         edge in the neighbour, or -1 if the edge is a row.
+	 * @param y
+	 *                         Coordinate along the y axis of the first tile of the
+	 *                         edge in the neighbour, or -1 if the edge is a
+	 *                         column.
+	 */
+	private static void copyBorder(final int[] border, final IntegerMatrix neighbour, final IntegerMatrix land,
+			final int x, final int y) {
+		final int size = border.length;
+		final IntegerMatrix source = neighbour == null ? land : neighbour;
+		// The edge of the plate itself is at the opposite side of the edge of its
+		// neighbour
+		final int sourceX = neighbour == null ? (size - 1) - x : x;
+		final int sourceY = neighbour == null ? (size - 1) - y : y;
+		for (int index = 0; index < size; ++index) {
+			border[index] = x < 0 ? source.get(index, sourceY) : source.get(sourceX, index);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Decides the soil type and the mineral type of every tile of a tectonic
+	 * plate, reading the land of the plates next to it from the world.
+	 */
+	public void generate(final TectonicPlate tectonicPlate) {
+		this.generate(tectonicPlate, (plateIndexX, plateIndexY) -> {
+			final TectonicPlate neighbour = this.world.getTectonicPlate(plateIndexX, plateIndexY);
+			return neighbour == null ? null : neighbour.getLayer(Layer.LAND);
+		});
+	}
+
+	/**
+	 * Decides the soil type and the mineral type of every tile of a tectonic
+	 * plate. Only reads the layers of the plate and the land of the plates next to
+	 * it and only writes its soil and mineral types, so plates can be generated in
+	 * parallel. The result only depends on the plate and on the land next to it.
+	 *
+	 * @param tectonicPlate
+	 *                          Tectonic plate to generate.
+	 * @param landSource
+	 *                          Source of the land of the plates next to it.
+	 */
+	public void generate(final TectonicPlate tectonicPlate, final LandSource landSource) {
+		final int tectonicPlateSize = this.world.getTectonicPlateSize();
+		final int baseWater = this.world.getBaseWater();
+		final int depthStep = Math.max(this.world.getBaseRoughness(), 1);
+		final IntegerMatrix magma = tectonicPlate.getLayer(Layer.MAGMA);
+		final IntegerMatrix land = tectonicPlate.getLayer(Layer.LAND);
+		final IntegerMatrix water = tectonicPlate.getLayer(Layer.WATER);
+		final ObjectMatrix<SoilType> soilTypes = tectonicPlate.getSoilTypes();
+		final ObjectMatrix<MineralType> mineralTypes = tectonicPlate.getMineralTypes();
+		final RandomGenerator PRNG = this.world.getPRNG(RandomStreams.Purpose.SOIL,
+				(tectonicPlate.plateIndexY * this.world.getTectonicPlateCountX()) + tectonicPlate.plateIndexX);
+		// The land one tile beyond every edge of the plate
+		final int last = tectonicPlateSize - 1;
+		final int[] leftBorder = new int[tectonicPlateSize];
+		final int[] rightBorder = new int[tectonicPlateSize];
+		final int[] upBorder = new int[tectonicPlateSize];
+		final int[] downBorder = new int[tectonicPlateSize];
+		SoilGenerator.copyBorder(leftBorder,
+				landSource.getLand(tectonicPlate.plateIndexX - 1, tectonicPlate.plateIndexY), land, last, -1);
+		SoilGenerator.copyBorder(rightBorder,
+				landSource.getLand(tectonicPlate.plateIndexX + 1, tectonicPlate.plateIndexY), land, 0, -1);
+		SoilGenerator.copyBorder(upBorder,
+				landSource.getLand(tectonicPlate.plateIndexX, tectonicPlate.plateIndexY - 1), land, -1, last);
+		SoilGenerator.copyBorder(downBorder,
+				landSource.getLand(tectonicPlate.plateIndexX, tectonicPlate.plateIndexY + 1), land, -1, 0);
+		for (int y = 0; y < tectonicPlateSize; ++y) {
+			for (int x = 0; x < tectonicPlateSize; ++x) {
+				final int magmaLevel = magma.get(x, y);
+				final int landLevel = land.get(x, y);
+				final int waterLevel = water.get(x, y);
+				final int left = x > 0 ? land.get(x - 1, y) : leftBorder[y];
+				final int right = x < last ? land.get(x + 1, y) : rightBorder[y];
+				final int up = y > 0 ? land.get(x, y - 1) : upBorder[x];
+				final int down = y < last ? land.get(x, y + 1) : downBorder[x];
+				// Half the sum of the absolute central differences along both axes
+				final int slope = (Math.abs(right - left) + Math.abs(down - up)) / 2;
+				// Sign of the laplacian: positive in hollows and negative on crests
+				final int curvature = ((left + right + up + down) - (4 * landLevel));
+				final SoilType soilType;
+				final MineralType[] minerals;
+				if (magmaLevel >= landLevel) {
+					soilType = this.extrusiveSoil;
+					minerals = this.igneousMinerals;
+				} else if (slope >= SoilGenerator.STEEP_SLOPE) {
+					soilType = this.metamorphicSoil;
+					minerals = this.metamorphicMinerals;
+				} else if (curvature < 0) {
+					soilType = this.igneousSoil;
+					minerals = this.igneousMinerals;
+				} else {
+					// Temperatures and humidities are taken within the same ranges as the color
+					// of the soil, and the sea floor is as high as sea level
+					final int temperature = Math.min(Math.max(tectonicPlate.getTemperature(x, y, 0d), -32), 32);
+					final int humidity = Math.min(waterLevel - landLevel, 0);
+					final int height = Math.max(landLevel - baseWater, 0);
+					final int granularity = ((temperature + humidity) - height) - slope;
+					final int level = Math.min(Math.max(granularity / SoilGenerator.GRANULARITY_STEP, 0),
+							this.sedimentarySoils.length - 1);
+					soilType = this.sedimentarySoils[level];
+					minerals = this.sedimentaryMinerals;
+				}
+				soilTypes.set(x, y, soilType);
+				// Mineral deposits can't appear in sloped or flooded tiles
+				MineralType mineralType = null;
+				if ((slope <= SoilGenerator.FLAT_SLOPE) && (waterLevel < landLevel) && (minerals.length > 0)) {
+					// The closer magma is to the surface, the more deposits there are
+					final int depth = Math.max(landLevel - magmaLevel, 0);
+					final int scarcity = SoilGenerator.MINERAL_SCARCITY + (depth / depthStep);
+					final int draw = PRNG.generateUniformInteger(minerals.length * scarcity);
+					if (draw < minerals.length) {
+						mineralType = minerals[draw];
+					}
+				}
+				mineralTypes.set(x, y, mineralType);
+			}
+		}
+	}
+
+}
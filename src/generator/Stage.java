@@ -0,0 +1,152 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * This interface establishes the functions a stage of a generation pipeline
+ * should have. A stage declares the products of generation it reads and the
+ * ones it writes, which the pipeline uses to find which stages can run at the
+ * same time.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.Pipeline
+ * @since 0.1
+ *
+ */
+public interface Stage {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Products of generation stages read and write.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Product {
+
+		/**
+		 * The tectonic plates themselves and their magma flows.
+		 */
+		TECTONIC_PLATES,
+		/**
+		 * The magma layer of the plates.
+		 */
+		MAGMA,
+		/**
+		 * The land layer of the plates.
+		 */
+		LAND,
+		/**
+		 * The water layer of the plates.
+		 */
+		WATER,
+		/**
+		 * The watershed layer of the plates.
+		 */
+		WATERSHEDS,
+		/**
+		 * The soil types of the plates.
+		 */
+		SOIL,
+		/**
+		 * The mineral types of the plates.
+		 */
+		MINERALS,
+		/**
+		 * The plant types of the plates.
+		 */
+		FLORA,
+		/**
+		 * The animal types of the plates.
+		 */
+		FAUNA;
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates a stage with the given name, inputs and outputs that runs the given
+	 * action.
+	 */
+	public static Stage of(final String name, final Set<Product> inputs, final Set<Product> outputs,
+			final Runnable action) {
+		final Set<Product> inputSet = EnumSet.noneOf(Product.class);
+		inputSet.addAll(inputs);
+		final Set<Product> outputSet = EnumSet.noneOf(Product.class);
+		outputSet.addAll(outputs);
+		return new Stage() {
+
+			@Override
+			public String getName() {
+				return name;
+			}
+
+			@Override
+			public Set<Product> getInputs() {
+				return Collections.unmodifiableSet(inputSet);
+			}
+
+			@Override
+			public Set<Product> getOutputs() {
+				return Collections.unmodifiableSet(outputSet);
+			}
+
+			@Override
+			public void run() {
+				action.run();
+			}
+
+		};
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the name of this stage, unique within its pipeline.
+	 */
+	public String getName();
+
+	/**
+	 * Get the products this stage reads.
+	 */
+	public Set<Product> getInputs();
+
+	/**
+	 * Get the products this stage writes.
+	 */
+	public Set<Product> getOutputs();
+
+	/**
+	 * Runs this stage.
+	 */
+	public void run();
+
+}
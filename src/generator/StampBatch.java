@@ -0,0 +1,405 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import util.integermatrix.IntegerMatrix;
+import util.math.FourierTransform;
+
+/**
+ * This class represents the blobs added to a layer in a phase of generation.
+ * Blobs with the same interpolation function, radius and height are grouped so
+ * that the sum of a whole group over a region is the convolution of the
+ * centers of the group with a single kernel.
+ *
+ * Every group is applied to a region either by stamping its kernel once per
+ * blob or by convolving the centers of the blobs that reach the region with
+ * the kernel through fast Fourier transforms, whichever is estimated to be
+ * cheaper. As blobs are integers and convolutions are rounded, both give the
+ * same result.
+ *
+ * Blobs are added from a single thread and then applied to disjoint regions
+ * from any number of threads. No blobs may be added once the batch is applied.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @see generator.Kernel
+ * @since 0.1
+ *
+ */
+public class StampBatch {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Estimated cost of a butterfly of a fast Fourier transform, relative to the
+	 * cost of adding a value of a kernel to a layer.
+	 */
+	private static final double BUTTERFLY_COST = 4.0d;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Cache the kernels of this batch are taken from.
+	 */
+	private final KernelCache kernels;
+	/**
+	 * Strategy used to apply the groups of this batch.
+	 */
+	private final Strategy strategy;
+	/**
+	 * Groups of blobs of this batch, in the order they were first added.
+	 */
+	private final List<Group> groups;
+	/**
+	 * Whether the blobs of every group are sorted.
+	 */
+	private volatile boolean sorted;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * Ways to apply a group of blobs to a region.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	public static enum Strategy {
+
+		/**
+		 * Stamp the kernel of the group once per blob.
+		 */
+		DIRECT,
+		/**
+		 * Convolve the centers of the blobs with the kernel of the group.
+		 */
+		FOURIER,
+		/**
+		 * Use whichever of the other strategies is estimated to be cheaper.
+		 */
+		AUTOMATIC;
+
+	}
+
+	/**
+	 * Blobs with the same interpolation function, radius and height.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
+	 */
+	private static class Group {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		private final Interpolation interpolation;
+		private final int radius, height;
+		/**
+		 * Centers of the blobs of this group, packed as y in the high half and x in
+		 * the low half so that sorting them sorts the blobs by y.
+		 */
+		private long[] centers;
+		/**
+		 * Number of blobs of this group.
+		 */
+		private int count;
+		/**
+		 * Transforms of the kernel of this group by the length of the side of the
+		 * transform, real and imaginary parts one after the other.
+		 */
+		private final ConcurrentHashMap<Integer, double[][]> spectra;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		private Group(final Interpolation interpolation, final int radius, final int height) {
+			this.interpolation = interpolation;
+			this.radius = radius;
+			this.height = height;
+			this.centers = new long[4];
+			this.count = 0;
+			this.spectra = new ConcurrentHashMap<>();
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates an empty batch that takes its kernels from the given cache and
+	 * applies its groups with the given strategy.
+	 */
+	public StampBatch(final KernelCache kernels, final Strategy strategy) {
+		this.kernels = kernels;
+		this.strategy = strategy;
+		this.groups = new ArrayList<>();
+		this.sorted = true;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	private static long pack(final int x, final int y) {
+		return ((long) y << 32) | (x & 0xFFFFFFFFL);
+	}
+
+	private static int unpackX(final long center) {
+		return (int) center;
+	}
+
+	private static int unpackY(final long center) {
+		return (int) (center >> 32);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Adds a blob of an interpolation function with a certain radius and height,
+	 * centered at coordinates x, y. Blobs without radius are ignored, as they
+	 * have no tiles.
+	 */
+	public void add(final Interpolation interpolation, final int x, final int y, final int radius,
+			final int height) {
+		if (radius == 0) {
+			return;
+		}
+		Group group = null;
+		for (final Group candidate : this.groups) {
+			if ((candidate.interpolation == interpolation) && (candidate.radius == radius)
+					&& (candidate.height == height)) {
+				group = candidate;
+				break;
+			}
+		}
+		if (group == null) {
+			group = new Group(interpolation, radius, height);
+			this.groups.add(group);
+		}
+		if (group.count == group.centers.length) {
+			group.centers = Arrays.copyOf(group.centers, group.count * 2);
+		}
+		group.centers[group.count++] = StampBatch.pack(x, y);
+		this.sorted = false;
+	}
+
+	/**
+	 * Get the largest radius of the blobs of this batch.
+	 */
+	public int getMaximumRadius() {
+		int maximumRadius = 0;
+		for (final Group group : this.groups) {
+			maximumRadius = Math.max(maximumRadius, group.radius);
+		}
+		return maximumRadius;
+	}
+
+	/**
+	 * Adds the part of every blob of this batch that falls within a square region
+	 * to a layer. Regions applied from different threads at the same time must
+	 * not overlap.
+	 *
+	 * @param layer
+	 *                   Layer the blobs are added to, whose origin is the first
+	 *                   tile of the region.
+	 * @param originX
+	 *                   Coordinate x of the first tile of the region.
+	 * @param originY
+	 *                   Coordinate y of the first tile of the region.
+	 * @param size
+	 *                   Length of the side of the region.
+	 */
+	public void apply(final IntegerMatrix layer, final int originX, final int originY, final int size) {
+		this.sort();
+		for (final Group group : this.groups) {
+			// The blobs that reach the region are the ones whose center is within the
+			// radius of it
+			final int from = this.search(group, originY - group.radius);
+			final int to = this.search(group, originY + size + group.radius);
+			int reaching = 0;
+			for (int index = from; index < to; ++index) {
+				final int centerX = StampBatch.unpackX(group.centers[index]);
+				if ((centerX >= (originX - group.radius)) && (centerX < (originX + size + group.radius))) {
+					++reaching;
+				}
+			}
+			if (reaching == 0) {
+				continue;
+			}
+			if (this.useFourier(group, reaching, size)) {
+				this.applyFourier(group, from, to, layer, originX, originY, size);
+			} else {
+				this.applyDirect(group, from, to, layer, originX, originY, size);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the blobs of every group by y if they aren't sorted yet.
+	 */
+	private void sort() {
+		if (this.sorted) {
+			return;
+		}
+		synchronized (this) {
+			if (!this.sorted) {
+				for (final Group group : this.groups) {
+					Arrays.sort(group.centers, 0, group.count);
+				}
+				this.sorted = true;
+			}
+		}
+	}
+
+	/**
+	 * Index of the first blob of a sorted group whose center has a y coordinate of
+	 * at least the given one.
+	 */
+	private int search(final Group group, final int y) {
+		int low = 0;
+		int high = group.count;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (StampBatch.unpackY(group.centers[middle]) < y) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Whether a group is applied to a region through fast Fourier transforms.
+	 */
+	private boolean useFourier(final Group group, final int reaching, final int size) {
+		switch (this.strategy) {
+		case DIRECT:
+			return false;
+		case FOURIER:
+			return true;
+		default:
+			final double kernelSide = (2 * group.radius) + 1;
+			final double directCost = reaching * kernelSide * kernelSide;
+			final int side = Integer.highestOneBit(((size + (2 * group.radius)) * 2) - 1);
+			final double values = (double) side * side;
+			// A forward and an inverse transform, each of them log2(values) / 2
+			// butterflies per value
+			final double fourierCost = StampBatch.BUTTERFLY_COST * values * Math.log(values) / Math.log(2.0d);
+			return fourierCost < directCost;
+		}
+	}
+
+	/**
+	 * Stamps the kernel of a group once per blob of the given range that reaches
+	 * the region.
+	 */
+	private void applyDirect(final Group group, final int from, final int to, final IntegerMatrix layer,
+			final int originX, final int originY, final int size) {
+		final Kernel kernel = this.kernels.get(group.interpolation, group.radius, group.height);
+		final int[] values = kernel.getValues();
+		for (int index = from; index < to; ++index) {
+			final int centerX = StampBatch.unpackX(group.centers[index]);
+			final int centerY = StampBatch.unpackY(group.centers[index]);
+			final int fromX = Math.max(centerX - group.radius, originX) - originX;
+			final int fromY = Math.max(centerY - group.radius, originY) - originY;
+			final int toX = Math.min(centerX + group.radius, (originX + size) - 1) - originX;
+			final int toY = Math.min(centerY + group.radius, (originY + size) - 1) - originY;
+			if ((fromX > toX) || (fromY > toY)) {
+				continue;
+			}
+			// Column of the kernel that falls on the first tile of each run
+			final int column = (originX + fromX) - (centerX - group.radius);
+			for (int y = fromY; y <= toY; ++y) {
+				final int row = kernel.getRowOffset(centerY - (originY + y));
+				layer.addRun(fromX, y, values, row + column, (toX - fromX) + 1);
+			}
+		}
+	}
+
+	/**
+	 * Convolves the centers of the blobs of the given range that reach the region
+	 * with the kernel of a group and adds the result to the region.
+	 */
+	private void applyFourier(final Group group, final int from, final int to, final IntegerMatrix layer,
+			final int originX, final int originY, final int size) {
+		final int radius = group.radius;
+		// The transform must be wide enough for the blobs of the tiles around the
+		// region not to wrap around into it
+		final int side = Integer.highestOneBit(((size + (2 * radius)) * 2) - 1);
+		final double[][] spectrum = group.spectra.computeIfAbsent(side, key -> this.transformKernel(group, key));
+		// The centers are placed relative to the tile radius tiles before the region
+		final double[] real = new double[side * side];
+		final double[] imaginary = new double[side * side];
+		for (int index = from; index < to; ++index) {
+			final int x = (StampBatch.unpackX(group.centers[index]) - originX) + radius;
+			final int y = (StampBatch.unpackY(group.centers[index]) - originY) + radius;
+			if ((x >= 0) && (x < (size + (2 * radius)))) {
+				real[(y * side) + x] += 1.0d;
+			}
+		}
+		FourierTransform.transformGrid(real, imaginary, side, side, false);
+		for (int index = 0; index < (side * side); ++index) {
+			final double productReal = (real[index] * spectrum[0][index]) - (imaginary[index] * spectrum[1][index]);
+			imaginary[index] = (real[index] * spectrum[1][index]) + (imaginary[index] * spectrum[0][index]);
+			real[index] = productReal;
+		}
+		FourierTransform.transformGrid(real, imaginary, side, side, true);
+		final double scale = 1.0d / (side * side);
+		final int[] run = new int[size];
+		for (int y = 0; y < size; ++y) {
+			final int rowOffset = ((y + radius) * side) + radius;
+			for (int x = 0; x < size; ++x) {
+				run[x] = (int) Math.round(real[rowOffset + x] * scale);
+			}
+			layer.addRun(0, y, run, 0, size);
+		}
+	}
+
+	/**
+	 * Transforms the kernel of a group, placed with its center at the origin of a
+	 * transform of the given side and wrapping around it.
+	 */
+	private double[][] transformKernel(final Group group, final int side) {
+		final Kernel kernel = this.kernels.get(group.interpolation, group.radius, group.height);
+		final double[] real = new double[side * side];
+		final double[] imaginary = new double[side * side];
+		for (int y = -group.radius; y <= group.radius; ++y) {
+			for (int x = -group.radius; x <= group.radius; ++x) {
+				// A tile x, y away from a center gets the height at -x, -y
+				real[(((y + side) % side) * side) + ((x + side) % side)] = kernel.at(-x, -y);
+			}
+		}
+		FourierTransform.transformGrid(real, imaginary, side, side, false);
+		return new double[][] { real, imaginary };
+	}
+
+}
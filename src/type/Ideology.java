@@ -99,7 +99,7 @@ public class Ideology extends Type {
 		/**
 		 * Maximum value beliefs can have.
 		 */
-		private static final byte BELIEF_CAP = 100;
+		public static final byte BELIEF_CAP = 100;
 
 		////////////////////////////////////////////////////////////////////////////////
 		// Instance fields
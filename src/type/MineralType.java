@@ -51,6 +51,20 @@ public class MineralType extends Type {
 	 * Global list of all mineral types.
 	 */
 	private static final List<MineralType> ALL_MINERAL_TYPES_LIST;
+	/**
+	 * Keys of the mineral types of the base game, with the rarities and rock
+	 * classes used for them when their data doesn't give them. Mineral types
+	 * without data or defaults are never found.
+	 */
+	private static final String[] DEFAULT_KEYS = new String[] { "bauxite", "cassiterite", "cinnabar", "coal",
+			"cuprite", "galena", "gem", "goldore", "gypsum", "ironore", "naturalgas", "niter", "petroleum", "phosphate",
+			"salt", "sulfur", "uraninite", "water", "wolframite" };
+	private static final int[] DEFAULT_RARITIES = new int[] { 31, 5, 2, 194, 22, 14, 2, 1, 4, 97, 157, 46, 148, 50,
+			60, 45, 3, 40, 3 };
+	private static final String[][] DEFAULT_ROCK_CLASSES = new String[][] { { "igneous", "metamorphic" },
+			{ "sedimentary", "igneous" }, {}, {}, { "sedimentary" }, { "sedimentary" }, {},
+			{ "igneous", "metamorphic" }, {}, { "sedimentary" }, { "sedimentary" }, {}, { "sedimentary" },
+			{ "sedimentary" }, {}, {}, { "sedimentary" }, { "sedimentary" }, { "igneous" } };
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
@@ -70,6 +84,17 @@ public class MineralType extends Type {
 	 */
 	@Externalized
 	private Amount[] production;
+	/**
+	 * How common deposits of this mineral type are, relative to those of other
+	 * mineral types found in the same rock.
+	 */
+	@Externalized
+	private int rarity;
+	/**
+	 * Keys of the classes of rock deposits of this mineral type are found in.
+	 */
+	@Externalized
+	private String[] rockClasses;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Class initializer
@@ -94,6 +119,20 @@ public class MineralType extends Type {
 				mineralType.production[index] = new Amount(Resource.getResource(productionKey), quantity);
 				++index;
 			}
+			// Rarities and rock classes are optional, since older data doesn't have them
+			final Set<String> fields = data.get(key).keys();
+			final int defaultIndex = MineralType.getDefaultIndex(key);
+			if (fields.contains("rarity")) {
+				mineralType.rarity = data.get(key, "rarity").as(int.class);
+			} else {
+				mineralType.rarity = defaultIndex < 0 ? 0 : MineralType.DEFAULT_RARITIES[defaultIndex];
+			}
+			if (fields.contains("rockClasses")) {
+				mineralType.rockClasses = data.get(key, "rockClasses").as(String[].class);
+			} else {
+				mineralType.rockClasses = defaultIndex < 0 ? new String[0]
+						: MineralType.DEFAULT_ROCK_CLASSES[defaultIndex];
+			}
 		}
 	}
 
@@ -117,6 +156,19 @@ public class MineralType extends Type {
 	////////////////////////////////////////////////////////////////////////////////
 	// Class methods
 
+	/**
+	 * Get the index of the defaults of the mineral type with the given key, or -1
+	 * if it has none.
+	 */
+	private static int getDefaultIndex(final String key) {
+		for (int index = 0; index < MineralType.DEFAULT_KEYS.length; ++index) {
+			if (MineralType.DEFAULT_KEYS[index].equals(key)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Gets all the mineral types.
 	 *
@@ -202,4 +254,24 @@ public class MineralType extends Type {
 		return this.production;
 	}
 
+	/**
+	 * Get how common deposits of this mineral type are.
+	 */
+	public int getRarity() {
+		return this.rarity;
+	}
+
+	/**
+	 * Get whether deposits of this mineral type are found in the class of rock
+	 * with the given key.
+	 */
+	public boolean isFoundIn(final String rockClass) {
+		for (final String key : this.rockClasses) {
+			if (key.equals(rockClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
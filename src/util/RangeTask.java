@@ -0,0 +1,100 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Task that applies an action to a range of indices, splitting itself in halves
+ * while the range is large.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class RangeTask extends RecursiveAction {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final long serialVersionUID = -3542871960134875207L;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Action applied by this task to every index of its range.
+	 */
+	private final IntConsumer action;
+	/**
+	 * Range of indices of this task.
+	 */
+	private final int from, to;
+	/**
+	 * Maximum number of indices this task handles without splitting itself.
+	 */
+	private final int grain;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	public RangeTask(final IntConsumer action, final int from, final int to, final int grain) {
+		this.action = action;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Applies an action to every index from 0 to count, on the given pool or on
+	 * the calling thread if the pool is null.
+	 */
+	public static void run(final ForkJoinPool pool, final IntConsumer action, final int count, final int grain) {
+		if (pool == null) {
+			for (int index = 0; index < count; ++index) {
+				action.accept(index);
+			}
+		} else {
+			pool.invoke(new RangeTask(action, 0, count, grain));
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	@Override
+	protected void compute() {
+		if ((this.to - this.from) <= this.grain) {
+			for (int index = this.from; index < this.to; ++index) {
+				this.action.accept(index);
+			}
+		} else {
+			final int middle = (this.from + this.to) >>> 1;
+			RecursiveAction.invokeAll(new RangeTask(this.action, this.from, middle, this.grain),
+					new RangeTask(this.action, middle, this.to, this.grain));
+		}
+	}
+
+}
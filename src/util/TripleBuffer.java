@@ -0,0 +1,132 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands values from a thread that writes them to a thread that reads them
+ * without either ever waiting for the other.
+ *
+ * Holds three buffers: the back one, which only the writer touches, the front
+ * one, which only the reader touches, and the middle one, which holds the
+ * latest value published. Publishing swaps the back buffer with the middle one
+ * and updating swaps the front buffer with the middle one if something was
+ * published since, so the reader always gets the latest value published and
+ * values published in between are overwritten. Both swaps are a single atomic
+ * exchange, which also makes everything written to a buffer before publishing
+ * it visible to the reader after updating.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class TripleBuffer<T> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Mask that extracts the index of the middle buffer from its state.
+	 */
+	private static final int INDEX_MASK = 3;
+	/**
+	 * Flag set in the state of the middle buffer while it holds a value the reader
+	 * hasn't taken.
+	 */
+	private static final int FRESH = 4;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The three buffers.
+	 */
+	private final Object[] buffers;
+	/**
+	 * Index of the middle buffer and whether it is fresh.
+	 */
+	private final AtomicInteger middle;
+	/**
+	 * Index of the back buffer, only touched by the writer.
+	 */
+	private int back;
+	/**
+	 * Index of the front buffer, only touched by the reader.
+	 */
+	private int front;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Creates a triple buffer whose buffers are created by the given supplier.
+	 */
+	public TripleBuffer(final Supplier<T> supplier) {
+		this.buffers = new Object[] { supplier.get(), supplier.get(), supplier.get() };
+		this.front = 0;
+		this.middle = new AtomicInteger(1);
+		this.back = 2;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the back buffer for the writer to write the next value in.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) this.buffers[this.back];
+	}
+
+	/**
+	 * Publishes the back buffer as the latest value, which the writer must not
+	 * touch anymore, and takes another buffer as the back one.
+	 */
+	public void publish() {
+		this.back = this.middle.getAndSet(this.back | TripleBuffer.FRESH) & TripleBuffer.INDEX_MASK;
+	}
+
+	/**
+	 * Takes the latest value published as the front buffer if a value was
+	 * published since the last update.
+	 *
+	 * @return Whether the front buffer changed.
+	 */
+	public boolean update() {
+		if ((this.middle.get() & TripleBuffer.FRESH) == 0) {
+			return false;
+		}
+		this.front = this.middle.getAndSet(this.front) & TripleBuffer.INDEX_MASK;
+		return true;
+	}
+
+	/**
+	 * Get the front buffer for the reader, which holds the latest value taken by
+	 * the last update.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFront() {
+		return (T) this.buffers[this.front];
+	}
+
+}
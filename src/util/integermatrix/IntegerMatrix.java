@@ -80,4 +80,81 @@ public interface IntegerMatrix {
 		this.set(x, y, this.get(x, y) + i);
 	}
 
+	/**
+	 * Adds a run of integer numbers to consecutive integer numbers of a grid along
+	 * the x axis, starting at the indices x, y.
+	 *
+	 * @param x
+	 *                   x index of the first integer of the run in a grid.
+	 * @param y
+	 *                   y index of the integers of the run in a grid.
+	 * @param values
+	 *                   Array containing the integer numbers to be added.
+	 * @param offset
+	 *                   Index in the array of the number to be added at x, y.
+	 * @param length
+	 *                   Number of integers to be added.
+	 */
+	public default void addRun(final int x, final int y, final int[] values, final int offset, final int length) {
+		for (int i = 0; i < length; ++i) {
+			this.add(x + i, y, values[offset + i]);
+		}
+	}
+
+	/**
+	 * Gets a run of consecutive integer numbers of a grid along the x axis,
+	 * starting at the indices x, y.
+	 *
+	 * @param x
+	 *                   x index of the first integer of the run in a grid.
+	 * @param y
+	 *                   y index of the integers of the run in a grid.
+	 * @param values
+	 *                   Array the integer numbers are put in.
+	 * @param offset
+	 *                   Index in the array of the number at x, y.
+	 * @param length
+	 *                   Number of integers to be gotten.
+	 */
+	public default void getRun(final int x, final int y, final int[] values, final int offset, final int length) {
+		for (int i = 0; i < length; ++i) {
+			values[offset + i] = this.get(x + i, y);
+		}
+	}
+
+	/**
+	 * Adds an integer number to every integer number of a grid.
+	 *
+	 * @param i
+	 *              Integer number to be added to every number of a grid.
+	 */
+	public default void addAll(final int i) {
+		for (int y = 0; y < this.sizeY(); ++y) {
+			for (int x = 0; x < this.sizeX(); ++x) {
+				this.add(x, y, i);
+			}
+		}
+	}
+
+	/**
+	 * Puts an integer number at the indices of a grid where another grid of the
+	 * same size holds a number less than or equal to a threshold.
+	 *
+	 * @param other
+	 *                      Grid whose numbers are compared to the threshold.
+	 * @param threshold
+	 *                      Largest number of the other grid whose indices are set.
+	 * @param i
+	 *                      Integer number to be put at the selected indices.
+	 */
+	public default void setWhereAtMost(final IntegerMatrix other, final int threshold, final int i) {
+		for (int y = 0; y < this.sizeY(); ++y) {
+			for (int x = 0; x < this.sizeX(); ++x) {
+				if (other.get(x, y) <= threshold) {
+					this.set(x, y, i);
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,153 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util.integermatrix;
+
+/**
+ * This interface offers bulk operations over the contiguous data of integer
+ * matrices, for each of the widths a SmallIntegerMatrix can store its numbers
+ * in. Operations that take two arrays require them to have the same length.
+ *
+ * The implementation used by the game is obtained through getKernels, which
+ * returns kernels that use the vector instructions of the processor if the
+ * virtual machine offers them and kernels that use plain loops otherwise.
+ *
+ * The vector kernels use the incubating vector API, so they live in a source
+ * folder of their own, src-vector, which is only built when asked for with the
+ * jdk.incubator.vector module added. The rest of the game builds without that
+ * module and without its incubator warning, and getKernels loads the vector
+ * kernels by name, so it falls back to the scalar kernels when they haven't
+ * been built or the module isn't added when the game runs.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public interface Kernels {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Name of the system property that disables the vector kernels when it's
+	 * false.
+	 */
+	public static final String VECTOR_PROPERTY = "industry.vector";
+	/**
+	 * Name of the module that contains the vector API.
+	 */
+	public static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the fastest kernels available. The vector kernels are only loaded if
+	 * they have been built and the vector module is present, so the scalar
+	 * kernels are used otherwise.
+	 */
+	public static Kernels getKernels() {
+		if (Boolean.parseBoolean(System.getProperty(Kernels.VECTOR_PROPERTY, "true"))
+				&& ModuleLayer.boot().findModule(Kernels.VECTOR_MODULE).isPresent()) {
+			try {
+				return (Kernels) Class.forName("util.integermatrix.VectorKernels").getDeclaredConstructor()
+						.newInstance();
+			} catch (final ReflectiveOperationException | LinkageError exception) {
+				// Fall back to the scalar kernels
+			}
+		}
+		return new ScalarKernels();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the name of these kernels.
+	 */
+	public String getName();
+
+	/**
+	 * Adds a value to every number of an array. The results must fit in the
+	 * width of the array.
+	 */
+	public void add(byte[] data, int value);
+
+	/**
+	 * Adds a value to every number of an array. The results must fit in the
+	 * width of the array.
+	 */
+	public void add(short[] data, int value);
+
+	/**
+	 * Adds a value to every number of an array.
+	 */
+	public void add(int[] data, int value);
+
+	/**
+	 * Sets every number of an array whose counterpart in another array is less
+	 * than or equal to a threshold to a value, which must fit in the width of the
+	 * array.
+	 */
+	public void setWhereAtMost(byte[] data, byte[] other, int threshold, int value);
+
+	/**
+	 * Sets every number of an array whose counterpart in another array is less
+	 * than or equal to a threshold to a value, which must fit in the width of the
+	 * array.
+	 */
+	public void setWhereAtMost(short[] data, short[] other, int threshold, int value);
+
+	/**
+	 * Sets every number of an array whose counterpart in another array is less
+	 * than or equal to a threshold to a value.
+	 */
+	public void setWhereAtMost(int[] data, int[] other, int threshold, int value);
+
+	/**
+	 * Get the smallest number of a non empty array.
+	 */
+	public int minimum(byte[] data);
+
+	/**
+	 * Get the smallest number of a non empty array.
+	 */
+	public int minimum(short[] data);
+
+	/**
+	 * Get the smallest number of a non empty array.
+	 */
+	public int minimum(int[] data);
+
+	/**
+	 * Get the largest number of a non empty array.
+	 */
+	public int maximum(byte[] data);
+
+	/**
+	 * Get the largest number of a non empty array.
+	 */
+	public int maximum(short[] data);
+
+	/**
+	 * Get the largest number of a non empty array.
+	 */
+	public int maximum(int[] data);
+
+}
@@ -0,0 +1,142 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util.integermatrix;
+
+/**
+ * This class implements the kernels of integer matrices with plain loops, which
+ * work on any virtual machine.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class ScalarKernels implements Kernels {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+
+	@Override
+	public void add(final byte[] data, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void add(final short[] data, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void add(final int[] data, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			data[i] += value;
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final byte[] data, final byte[] other, final int threshold, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = (byte) value;
+			}
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final short[] data, final short[] other, final int threshold, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = (short) value;
+			}
+		}
+	}
+
+	@Override
+	public void setWhereAtMost(final int[] data, final int[] other, final int threshold, final int value) {
+		for (int i = 0; i < data.length; ++i) {
+			if (other[i] <= threshold) {
+				data[i] = value;
+			}
+		}
+	}
+
+	@Override
+	public int minimum(final byte[] data) {
+		int minimum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int minimum(final short[] data) {
+		int minimum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int minimum(final int[] data) {
+		int minimum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			minimum = Math.min(minimum, data[i]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public int maximum(final byte[] data) {
+		int maximum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+	@Override
+	public int maximum(final short[] data) {
+		int maximum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+	@Override
+	public int maximum(final int[] data) {
+		int maximum = data[0];
+		for (int i = 1; i < data.length; ++i) {
+			maximum = Math.max(maximum, data[i]);
+		}
+		return maximum;
+	}
+
+}
@@ -23,6 +23,9 @@ package util.integermatrix;
  * smallest needed to represent all of the numbers without underflows or
  * overflows so the memory footprint is trimmed to be as small as possible.
  *
+ * Its numbers are stored contiguously, so its bulk operations run on the
+ * kernels returned by Kernels.getKernels.
+ *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
  * @version 0.1
  * @since 0.1
@@ -30,6 +33,14 @@ package util.integermatrix;
  */
 public class SmallIntegerMatrix implements IntegerMatrix {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * Kernels used by the bulk operations of every matrix.
+	 */
+	private static final Kernels KERNELS = Kernels.getKernels();
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
@@ -107,6 +118,162 @@ public class SmallIntegerMatrix implements IntegerMatrix {
 		}
 	}
 
+	/**
+	 * Gets a run of integers straight from the data.
+	 */
+	@Override
+	public void getRun(final int x, final int y, final int[] values, final int offset, final int length) {
+		if (length <= 0) {
+			return;
+		}
+		this.check_range(x, y);
+		this.check_range((x + length) - 1, y);
+		final int start = (this.sizeX * y) + x;
+		if (this.data instanceof byte[]) {
+			final byte[] data = (byte[]) this.data;
+			for (int i = 0; i < length; ++i) {
+				values[offset + i] = data[start + i];
+			}
+		} else if (this.data instanceof short[]) {
+			final short[] data = (short[]) this.data;
+			for (int i = 0; i < length; ++i) {
+				values[offset + i] = data[start + i];
+			}
+		} else if (this.data instanceof int[]) {
+			System.arraycopy(this.data, start, values, offset, length);
+		}
+	}
+
+	/**
+	 * Adds a run of integers, widening the data at most once for the whole run.
+	 */
+	@Override
+	public void addRun(final int x, final int y, final int[] values, final int offset, final int length) {
+		if (length <= 0) {
+			return;
+		}
+		this.check_range(x, y);
+		this.check_range((x + length) - 1, y);
+		final int start = (this.sizeX * y) + x;
+		if (!(this.data instanceof int[])) {
+			// Find the range of the results to know the width they need
+			int minimum = 0;
+			int maximum = 0;
+			for (int i = 0; i < length; ++i) {
+				final int result = this.get(x + i, y) + values[offset + i];
+				minimum = Math.min(minimum, result);
+				maximum = Math.max(maximum, result);
+			}
+			this.widen(minimum, maximum);
+		}
+		if (this.data instanceof byte[]) {
+			final byte[] data = (byte[]) this.data;
+			for (int i = 0; i < length; ++i) {
+				data[start + i] += values[offset + i];
+			}
+		} else if (this.data instanceof short[]) {
+			final short[] data = (short[]) this.data;
+			for (int i = 0; i < length; ++i) {
+				data[start + i] += values[offset + i];
+			}
+		} else if (this.data instanceof int[]) {
+			final int[] data = (int[]) this.data;
+			for (int i = 0; i < length; ++i) {
+				data[start + i] += values[offset + i];
+			}
+		}
+	}
+
+	/**
+	 * Adds an integer to every integer, widening the data at most once.
+	 */
+	@Override
+	public void addAll(final int i) {
+		if (i == 0) {
+			return;
+		}
+		this.widen((long) this.minimum() + i, (long) this.maximum() + i);
+		if (this.data instanceof byte[]) {
+			SmallIntegerMatrix.KERNELS.add((byte[]) this.data, i);
+		} else if (this.data instanceof short[]) {
+			SmallIntegerMatrix.KERNELS.add((short[]) this.data, i);
+		} else if (this.data instanceof int[]) {
+			SmallIntegerMatrix.KERNELS.add((int[]) this.data, i);
+		}
+	}
+
+	/**
+	 * Sets the selected integers with the kernels if the other matrix is a small
+	 * integer matrix whose data is as wide as the data of this one once it can
+	 * hold the integer, and one by one otherwise. This matrix is only widened as
+	 * much as the integer needs.
+	 */
+	@Override
+	public void setWhereAtMost(final IntegerMatrix other, final int threshold, final int i) {
+		this.widen(i, i);
+		if (!this.hasSameWidth(other)) {
+			IntegerMatrix.super.setWhereAtMost(other, threshold, i);
+			return;
+		}
+		final Object otherData = ((SmallIntegerMatrix) other).data;
+		if (this.data instanceof byte[]) {
+			SmallIntegerMatrix.KERNELS.setWhereAtMost((byte[]) this.data, (byte[]) otherData, threshold, i);
+		} else if (this.data instanceof short[]) {
+			SmallIntegerMatrix.KERNELS.setWhereAtMost((short[]) this.data, (short[]) otherData, threshold, i);
+		} else if (this.data instanceof int[]) {
+			SmallIntegerMatrix.KERNELS.setWhereAtMost((int[]) this.data, (int[]) otherData, threshold, i);
+		}
+	}
+
+	/**
+	 * Get the smallest integer of this matrix.
+	 */
+	private int minimum() {
+		if (this.data instanceof byte[]) {
+			return SmallIntegerMatrix.KERNELS.minimum((byte[]) this.data);
+		} else if (this.data instanceof short[]) {
+			return SmallIntegerMatrix.KERNELS.minimum((short[]) this.data);
+		}
+		return SmallIntegerMatrix.KERNELS.minimum((int[]) this.data);
+	}
+
+	/**
+	 * Get the largest integer of this matrix.
+	 */
+	private int maximum() {
+		if (this.data instanceof byte[]) {
+			return SmallIntegerMatrix.KERNELS.maximum((byte[]) this.data);
+		} else if (this.data instanceof short[]) {
+			return SmallIntegerMatrix.KERNELS.maximum((short[]) this.data);
+		}
+		return SmallIntegerMatrix.KERNELS.maximum((int[]) this.data);
+	}
+
+	/**
+	 * Widens the data so that it can hold every integer between the given minimum
+	 * and maximum.
+	 */
+	private void widen(final long minimum, final long maximum) {
+		if (this.data instanceof int[]) {
+			return;
+		}
+		if ((minimum < Short.MIN_VALUE) || (maximum > Short.MAX_VALUE)) {
+			this.toInteger();
+		} else if ((this.data instanceof byte[]) && ((minimum < Byte.MIN_VALUE) || (maximum > Byte.MAX_VALUE))) {
+			this.toShort();
+		}
+	}
+
+	/**
+	 * Get whether another matrix is a small integer matrix of the same size as
+	 * this one whose data has the same width.
+	 */
+	private boolean hasSameWidth(final IntegerMatrix other) {
+		return (other instanceof SmallIntegerMatrix) && (other.sizeX() == this.sizeX)
+				&& (other.sizeY() == this.sizeY)
+				&& (((SmallIntegerMatrix) other).data.getClass() == this.data.getClass());
+	}
+
 	private void toShort() {
 		if (this.data instanceof byte[]) {
 			final byte[] oldData = (byte[]) this.data;
@@ -34,7 +34,8 @@ public class SmallObjectMatrix<T> implements ObjectMatrix<T> {
 	// Instance fields
 
 	/**
-	 * Array of the different types of object this matrix has.
+	 * Array of the different types of object this matrix has. The first one is
+	 * always null, so that the tiles that have never been set are empty.
 	 */
 	private Object[] data;
 	/**
@@ -51,8 +52,8 @@ public class SmallObjectMatrix<T> implements ObjectMatrix<T> {
 
 	public SmallObjectMatrix(final int x, final int y) {
 		this.indices = new SmallIntegerMatrix(x, y);
-		this.data = new Object[1];
-		this.size = 0;
+		this.data = new Object[2];
+		this.size = 1;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -77,7 +78,7 @@ public class SmallObjectMatrix<T> implements ObjectMatrix<T> {
 	@Override
 	public void set(final int x, final int y, final T t) {
 		// If the object is already in this map, just put its index in this tile.
-		for (int index = 0; index < this.data.length; ++index) {
+		for (int index = 0; index < this.size; ++index) {
 			if (this.data[index] == t) {
 				this.indices.set(x, y, index);
 				return;
@@ -0,0 +1,137 @@
+/*
+ * This software is a city building and resource management strategy game.
+ * Copyright (C) 2019 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util.math;
+
+/**
+ * This class contains methods to compute discrete Fourier transforms of
+ * complex sequences whose length is a power of two, with the iterative radix-2
+ * Cooley-Tukey algorithm. Complex values are given as separate arrays of real
+ * and imaginary parts and are transformed in place.
+ *
+ * Inverse transforms aren't scaled, so a forward transform followed by an
+ * inverse one multiplies every value by the number of values.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.1
+ * @since 0.1
+ *
+ */
+public class FourierTransform {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Transforms a sequence of complex values in place.
+	 *
+	 * @param real
+	 *                      Real parts of the sequence.
+	 * @param imaginary
+	 *                      Imaginary parts of the sequence.
+	 * @param offset
+	 *                      Index of the first value of the sequence.
+	 * @param length
+	 *                      Number of values of the sequence, a power of two.
+	 * @param inverse
+	 *                      Whether to compute the inverse transform.
+	 */
+	public static void transform(final double[] real, final double[] imaginary, final int offset, final int length,
+			final boolean inverse) {
+		if (Integer.bitCount(length) != 1) {
+			throw new IllegalArgumentException("Length must be a power of two: " + length);
+		}
+		// Bit reversal permutation
+		for (int index = 1, reversed = 0; index < length; ++index) {
+			int bit = length >> 1;
+			for (; (reversed & bit) != 0; bit >>= 1) {
+				reversed ^= bit;
+			}
+			reversed ^= bit;
+			if (index < reversed) {
+				FourierTransform.swap(real, offset + index, offset + reversed);
+				FourierTransform.swap(imaginary, offset + index, offset + reversed);
+			}
+		}
+		// Butterflies
+		for (int half = 1; half < length; half <<= 1) {
+			final double angle = (inverse ? Math.PI : -Math.PI) / half;
+			final double stepReal = Math.cos(angle);
+			final double stepImaginary = Math.sin(angle);
+			for (int start = 0; start < length; start += half << 1) {
+				double twiddleReal = 1.0d;
+				double twiddleImaginary = 0.0d;
+				for (int index = 0; index < half; ++index) {
+					final int even = offset + start + index;
+					final int odd = even + half;
+					final double oddReal = (real[odd] * twiddleReal) - (imaginary[odd] * twiddleImaginary);
+					final double oddImaginary = (real[odd] * twiddleImaginary) + (imaginary[odd] * twiddleReal);
+					real[odd] = real[even] - oddReal;
+					imaginary[odd] = imaginary[even] - oddImaginary;
+					real[even] += oddReal;
+					imaginary[even] += oddImaginary;
+					final double nextTwiddleReal = (twiddleReal * stepReal) - (twiddleImaginary * stepImaginary);
+					twiddleImaginary = (twiddleReal * stepImaginary) + (twiddleImaginary * stepReal);
+					twiddleReal = nextTwiddleReal;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transforms a grid of complex values in place, in row-major order, first
+	 * along its rows and then along its columns.
+	 *
+	 * @param real
+	 *                      Real parts of the grid.
+	 * @param imaginary
+	 *                      Imaginary parts of the grid.
+	 * @param sizeX
+	 *                      Length of the rows of the grid, a power of two.
+	 * @param sizeY
+	 *                      Length of the columns of the grid, a power of two.
+	 * @param inverse
+	 *                      Whether to compute the inverse transform.
+	 */
+	public static void transformGrid(final double[] real, final double[] imaginary, final int sizeX,
+			final int sizeY, final boolean inverse) {
+		for (int y = 0; y < sizeY; ++y) {
+			FourierTransform.transform(real, imaginary, y * sizeX, sizeX, inverse);
+		}
+		final double[] columnReal = new double[sizeY];
+		final double[] columnImaginary = new double[sizeY];
+		for (int x = 0; x < sizeX; ++x) {
+			for (int y = 0; y < sizeY; ++y) {
+				columnReal[y] = real[(y * sizeX) + x];
+				columnImaginary[y] = imaginary[(y * sizeX) + x];
+			}
+			FourierTransform.transform(columnReal, columnImaginary, 0, sizeY, inverse);
+			for (int y = 0; y < sizeY; ++y) {
+				real[(y * sizeX) + x] = columnReal[y];
+				imaginary[(y * sizeX) + x] = columnImaginary[y];
+			}
+		}
+	}
+
+	private static void swap(final double[] array, final int i, final int j) {
+		final double value = array[i];
+		array[i] = array[j];
+		array[j] = value;
+	}
+
+}
@@ -18,10 +18,34 @@
 
 package util.voxelraster;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 /**
+ * This class represents a box of voxels, every one of them holding an integer,
+ * 0 being empty air.
+ *
+ * The box is divided in cubic chunks of 16 voxels a side. Chunks that are all
+ * air cost nothing and chunks that hold a single value cost that value. Any
+ * other chunk stores a palette of the values it holds and, for every voxel, the
+ * index of its value in the palette with as few bits as the size of the palette
+ * needs. Palettes count the voxels holding each of their values, and a value no
+ * voxel holds any longer is replaced by the next new one, so a palette never
+ * holds more values than a chunk has voxels however many values are written to
+ * it. Values no voxel holds still take their place until {@link #compact()}
+ * removes them and narrows the indices.
+ *
+ * Rasters are compressed by run-length encoding the palette indices of every
+ * chunk and deflating the result, with a deflater and an inflater per thread.
+ *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
  * @version 0.1
  * @since 0.1
@@ -32,8 +56,36 @@ public class VoxelRaster {
 	////////////////////////////////////////////////////////////////////////////////
 	// Class fields
 
-	public static Deflater COMPRESSER = new Deflater();
-	public static Inflater DECOMPRESSER = new Inflater();
+	/**
+	 * Binary logarithm of the length of the side of a chunk.
+	 */
+	public static final int CHUNK_SHIFT = 4;
+	/**
+	 * Length of the side of a chunk in voxels.
+	 */
+	public static final int CHUNK_SIZE = 1 << VoxelRaster.CHUNK_SHIFT;
+	/**
+	 * Mask that extracts the position of a voxel in its chunk from its position
+	 * in the raster.
+	 */
+	private static final int CHUNK_MASK = VoxelRaster.CHUNK_SIZE - 1;
+	/**
+	 * Number of voxels in a chunk.
+	 */
+	private static final int CHUNK_VOLUME = VoxelRaster.CHUNK_SIZE * VoxelRaster.CHUNK_SIZE
+			* VoxelRaster.CHUNK_SIZE;
+	/**
+	 * Tags of the kinds of chunks in compressed rasters.
+	 */
+	private static final byte EMPTY_CHUNK = 0, UNIFORM_CHUNK = 1, PALETTE_CHUNK = 2;
+	/**
+	 * Deflater of every thread, reset after every use.
+	 */
+	private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(Deflater::new);
+	/**
+	 * Inflater of every thread, reset after every use.
+	 */
+	private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
@@ -41,35 +93,549 @@ public class VoxelRaster {
 	/**
 	 * Dimensions of the raster.
 	 */
-	int x, y, z;
+	final int x, y, z;
+	/**
+	 * Dimensions of the raster in chunks.
+	 */
+	private final int chunkCountX, chunkCountY, chunkCountZ;
+	/**
+	 * Chunks of the raster, x first, then y, then z. Null chunks are all air.
+	 */
+	private final Chunk[] chunks;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
 	/**
-	 * Actual contents of the raster.
+	 * Represents the voxels of a chunk as a palette of values and the index of the
+	 * value of every voxel in it. A chunk with a single value has no indices.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.1
+	 * @since 0.1
+	 *
 	 */
-	int[] data;
+	private static final class Chunk {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * Values held by this chunk, of which the first paletteSize are used.
+		 */
+		private int[] palette;
+		/**
+		 * Number of values in the palette.
+		 */
+		private int paletteSize;
+		/**
+		 * Number of voxels holding every value of the palette. Values no voxel holds
+		 * can be replaced by new ones.
+		 */
+		private int[] counts;
+		/**
+		 * Binary logarithm of the number of bits of every index, or -1 if the
+		 * palette has a single value and there are no indices.
+		 */
+		private int bitShift;
+		/**
+		 * Indices of the values of the voxels in the palette, packed in words so
+		 * that none of them straddles two words.
+		 */
+		private long[] indices;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Creates a chunk whose voxels all hold the given value.
+		 */
+		private Chunk(final int value) {
+			this.palette = new int[] { value };
+			this.paletteSize = 1;
+			this.counts = new int[] { VoxelRaster.CHUNK_VOLUME };
+			this.bitShift = -1;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Get whether every voxel of this chunk holds the same value.
+		 */
+		private boolean isUniform() {
+			return this.indices == null;
+		}
+
+		/**
+		 * Get the index in the palette of the value of a voxel.
+		 */
+		private int getIndex(final int voxel) {
+			if (this.indices == null) {
+				return 0;
+			}
+			final int bits = 1 << this.bitShift;
+			final long word = this.indices[voxel >>> (6 - this.bitShift)];
+			return (int) (word >>> ((voxel & ((64 >>> this.bitShift) - 1)) << this.bitShift)) & ((1 << bits) - 1);
+		}
+
+		private void setIndex(final int voxel, final int index) {
+			final int bits = 1 << this.bitShift;
+			final int word = voxel >>> (6 - this.bitShift);
+			final int offset = (voxel & ((64 >>> this.bitShift) - 1)) << this.bitShift;
+			final long mask = ((1L << bits) - 1L) << offset;
+			this.indices[word] = (this.indices[word] & ~mask) | (((long) index << offset) & mask);
+		}
+
+		private int get(final int voxel) {
+			return this.palette[this.getIndex(voxel)];
+		}
+
+		private void set(final int voxel, final int value) {
+			final int oldIndex = this.getIndex(voxel);
+			if (this.palette[oldIndex] == value) {
+				return;
+			}
+			// The old value is released first so that its place can take the new one
+			--this.counts[oldIndex];
+			final int index = this.getPaletteIndex(value);
+			this.setIndex(voxel, index);
+			++this.counts[index];
+		}
+
+		/**
+		 * Get the index of a value in the palette, adding it in the place of a value
+		 * no voxel holds or else at the end, widening the indices, if it isn't there.
+		 */
+		private int getPaletteIndex(final int value) {
+			int freeIndex = -1;
+			for (int index = 0; index < this.paletteSize; ++index) {
+				if (this.palette[index] == value) {
+					return index;
+				} else if ((freeIndex < 0) && (this.counts[index] == 0)) {
+					freeIndex = index;
+				}
+			}
+			if (freeIndex >= 0) {
+				this.palette[freeIndex] = value;
+				return freeIndex;
+			}
+			if (this.paletteSize == this.palette.length) {
+				this.palette = Arrays.copyOf(this.palette, this.palette.length * 2);
+				this.counts = Arrays.copyOf(this.counts, this.palette.length);
+			}
+			this.palette[this.paletteSize] = value;
+			++this.paletteSize;
+			if ((this.indices == null) || (this.paletteSize > (1 << (1 << this.bitShift)))) {
+				this.setBitShift(this.bitShift + 1);
+			}
+			return this.paletteSize - 1;
+		}
+
+		/**
+		 * Repacks the indices with the given binary logarithm of their number of
+		 * bits.
+		 */
+		private void setBitShift(final int bitShift) {
+			final int[] voxelIndices = new int[VoxelRaster.CHUNK_VOLUME];
+			for (int voxel = 0; voxel < voxelIndices.length; ++voxel) {
+				voxelIndices[voxel] = this.getIndex(voxel);
+			}
+			this.bitShift = bitShift;
+			this.indices = new long[VoxelRaster.CHUNK_VOLUME >>> (6 - bitShift)];
+			for (int voxel = 0; voxel < voxelIndices.length; ++voxel) {
+				this.setIndex(voxel, voxelIndices[voxel]);
+			}
+		}
+
+		/**
+		 * Removes the values of the palette no voxel holds and narrows the indices
+		 * to the fewest bits the remaining values need.
+		 */
+		private void compact() {
+			if (this.indices == null) {
+				return;
+			}
+			final int[] voxelIndices = new int[VoxelRaster.CHUNK_VOLUME];
+			final int[] newIndices = new int[this.paletteSize];
+			Arrays.fill(newIndices, -1);
+			int newPaletteSize = 0;
+			for (int voxel = 0; voxel < voxelIndices.length; ++voxel) {
+				final int index = this.getIndex(voxel);
+				if (newIndices[index] < 0) {
+					newIndices[index] = newPaletteSize++;
+				}
+				voxelIndices[voxel] = newIndices[index];
+			}
+			final int[] newPalette = new int[newPaletteSize];
+			final int[] newCounts = new int[newPaletteSize];
+			for (int index = 0; index < this.paletteSize; ++index) {
+				if (newIndices[index] >= 0) {
+					newPalette[newIndices[index]] = this.palette[index];
+					newCounts[newIndices[index]] = this.counts[index];
+				}
+			}
+			this.palette = newPalette;
+			this.paletteSize = newPaletteSize;
+			this.counts = newCounts;
+			if (newPaletteSize == 1) {
+				this.bitShift = -1;
+				this.indices = null;
+				return;
+			}
+			this.bitShift = VoxelRaster.getBitShift(newPaletteSize);
+			this.indices = new long[VoxelRaster.CHUNK_VOLUME >>> (6 - this.bitShift)];
+			for (int voxel = 0; voxel < voxelIndices.length; ++voxel) {
+				this.setIndex(voxel, voxelIndices[voxel]);
+			}
+		}
+
+		/**
+		 * Get an estimate of the bytes of memory this chunk takes.
+		 */
+		private long getMemoryUsage() {
+			return 40L + 32L + (8L * this.palette.length)
+					+ (this.indices == null ? 0L : 16L + (8L * this.indices.length));
+		}
+
+	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializers
 
+	/**
+	 * Creates a raster with the contents of an array holding its voxels x first,
+	 * then y, then z.
+	 */
 	public VoxelRaster(final int x, final int y, final int z, final int[] data) {
+		this(x, y, z);
+		for (int k = 0; k < z; ++k) {
+			for (int j = 0; j < y; ++j) {
+				for (int i = 0; i < x; ++i) {
+					this.set(i, j, k, data[(x * ((y * k) + j)) + i]);
+				}
+			}
+		}
+		this.compact();
+	}
+
+	/**
+	 * Creates a raster of air.
+	 */
+	public VoxelRaster(final int x, final int y, final int z) {
 		this.x = x;
 		this.y = y;
 		this.z = z;
-		this.data = data;
+		this.chunkCountX = VoxelRaster.toChunkCount(x);
+		this.chunkCountY = VoxelRaster.toChunkCount(y);
+		this.chunkCountZ = VoxelRaster.toChunkCount(z);
+		this.chunks = new Chunk[this.chunkCountX * this.chunkCountY * this.chunkCountZ];
 	}
 
-	public VoxelRaster(final int x, final int y, final int z) {
-		this(x, y, z, new int[x * y * z]);
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the number of chunks needed to span the given number of voxels.
+	 */
+	private static int toChunkCount(final int size) {
+		return (size + VoxelRaster.CHUNK_MASK) >> VoxelRaster.CHUNK_SHIFT;
+	}
+
+	/**
+	 * Get the binary logarithm of the fewest bits, among 1, 2, 4, 8 and 16, that
+	 * can index a palette of the given size.
+	 */
+	private static int getBitShift(final int paletteSize) {
+		int bitShift = 0;
+		while ((1 << (1 << bitShift)) < paletteSize) {
+			++bitShift;
+		}
+		return bitShift;
+	}
+
+	/**
+	 * Get the index of a voxel in its chunk from its position in the raster.
+	 */
+	private static int toVoxel(final int x, final int y, final int z) {
+		final int voxelY = ((z & VoxelRaster.CHUNK_MASK) << VoxelRaster.CHUNK_SHIFT) | (y & VoxelRaster.CHUNK_MASK);
+		return (voxelY << VoxelRaster.CHUNK_SHIFT) | (x & VoxelRaster.CHUNK_MASK);
+	}
+
+	/**
+	 * Creates a raster from the bytes returned by {@link #compress()}.
+	 *
+	 * @throws IllegalArgumentException
+	 *                                      If the bytes aren't a compressed raster.
+	 */
+	public static VoxelRaster decompress(final byte[] bytes) {
+		final Inflater inflater = VoxelRaster.INFLATERS.get();
+		final ByteArrayOutputStream inflated = new ByteArrayOutputStream(bytes.length * 4);
+		try {
+			inflater.setInput(bytes);
+			final byte[] buffer = new byte[1 << 16];
+			while (!inflater.finished()) {
+				final int length = inflater.inflate(buffer);
+				if ((length == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IllegalArgumentException("VoxelRaster: Truncated compressed data.");
+				}
+				inflated.write(buffer, 0, length);
+			}
+		} catch (final DataFormatException exception) {
+			throw new IllegalArgumentException("VoxelRaster: Malformed compressed data.", exception);
+		} finally {
+			inflater.reset();
+		}
+		try (final DataInputStream input = new DataInputStream(new ByteArrayInputStream(inflated.toByteArray()))) {
+			final VoxelRaster raster = new VoxelRaster(input.readInt(), input.readInt(), input.readInt());
+			for (int chunk = 0; chunk < raster.chunks.length; ++chunk) {
+				final byte tag = input.readByte();
+				if (tag == VoxelRaster.UNIFORM_CHUNK) {
+					raster.chunks[chunk] = new Chunk(input.readInt());
+				} else if (tag == VoxelRaster.PALETTE_CHUNK) {
+					raster.chunks[chunk] = VoxelRaster.readChunk(input);
+				} else if (tag != VoxelRaster.EMPTY_CHUNK) {
+					throw new IllegalArgumentException("VoxelRaster: Unknown chunk kind " + tag + ".");
+				}
+			}
+			return raster;
+		} catch (final IOException exception) {
+			throw new IllegalArgumentException("VoxelRaster: Truncated compressed data.", exception);
+		}
+	}
+
+	/**
+	 * Reads a chunk with a palette of several values followed by the runs of
+	 * indices of its voxels, every one of them as an index and a length minus 1.
+	 */
+	private static Chunk readChunk(final DataInputStream input) throws IOException {
+		final int paletteSize = input.readInt();
+		if ((paletteSize <= 0) || (paletteSize > VoxelRaster.CHUNK_VOLUME)) {
+			throw new IllegalArgumentException("VoxelRaster: Malformed chunk.");
+		}
+		final int[] palette = new int[paletteSize];
+		for (int index = 0; index < paletteSize; ++index) {
+			palette[index] = input.readInt();
+		}
+		final Chunk chunk = new Chunk(palette[0]);
+		chunk.palette = palette;
+		chunk.paletteSize = paletteSize;
+		chunk.counts = new int[paletteSize];
+		chunk.bitShift = VoxelRaster.getBitShift(paletteSize);
+		chunk.indices = new long[VoxelRaster.CHUNK_VOLUME >>> (6 - chunk.bitShift)];
+		int voxel = 0;
+		while (voxel < VoxelRaster.CHUNK_VOLUME) {
+			final int index = input.readUnsignedShort();
+			final int end = voxel + input.readUnsignedShort() + 1;
+			if ((index >= paletteSize) || (end > VoxelRaster.CHUNK_VOLUME)) {
+				throw new IllegalArgumentException("VoxelRaster: Malformed chunk.");
+			}
+			chunk.counts[index] += end - voxel;
+			for (; voxel < end; ++voxel) {
+				chunk.setIndex(voxel, index);
+			}
+		}
+		return chunk;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
+	public int getSizeX() {
+		return this.x;
+	}
+
+	public int getSizeY() {
+		return this.y;
+	}
+
+	public int getSizeZ() {
+		return this.z;
+	}
+
+	/**
+	 * Get the chunk holding a voxel.
+	 */
+	private int toChunk(final int x, final int y, final int z) {
+		return ((((z >> VoxelRaster.CHUNK_SHIFT) * this.chunkCountY) + (y >> VoxelRaster.CHUNK_SHIFT))
+				* this.chunkCountX) + (x >> VoxelRaster.CHUNK_SHIFT);
+	}
+
 	public int get(final int x, final int y, final int z) {
-		return this.data[(this.x * ((this.y * z) + y)) + x];
+		final Chunk chunk = this.chunks[this.toChunk(x, y, z)];
+		return chunk == null ? 0 : chunk.get(VoxelRaster.toVoxel(x, y, z));
 	}
 
 	public void set(final int x, final int y, final int z, final int d) {
-		this.data[(this.x * ((this.y * z) + y)) + x] = d;
+		final int index = this.toChunk(x, y, z);
+		Chunk chunk = this.chunks[index];
+		if (chunk == null) {
+			if (d == 0) {
+				return;
+			}
+			chunk = new Chunk(0);
+			this.chunks[index] = chunk;
+		}
+		chunk.set(VoxelRaster.toVoxel(x, y, z), d);
+	}
+
+	/**
+	 * Sets every voxel in the box between the given positions, the first one
+	 * inclusive and the second one exclusive, to a value. Chunks entirely in the
+	 * box are replaced by a single value instead of setting their voxels.
+	 */
+	public void fill(final int fromX, final int fromY, final int fromZ, final int toX, final int toY,
+			final int toZ, final int d) {
+		for (int chunkZ = fromZ >> VoxelRaster.CHUNK_SHIFT; (chunkZ << VoxelRaster.CHUNK_SHIFT) < toZ; ++chunkZ) {
+			for (int chunkY = fromY >> VoxelRaster.CHUNK_SHIFT; (chunkY << VoxelRaster.CHUNK_SHIFT) < toY; ++chunkY) {
+				for (int chunkX = fromX >> VoxelRaster.CHUNK_SHIFT; (chunkX << VoxelRaster.CHUNK_SHIFT) < toX;
+						++chunkX) {
+					this.fillChunk(chunkX, chunkY, chunkZ, fromX, fromY, fromZ, toX, toY, toZ, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the voxels of a chunk that are in a box to a value.
+	 */
+	private void fillChunk(final int chunkX, final int chunkY, final int chunkZ, final int fromX, final int fromY,
+			final int fromZ, final int toX, final int toY, final int toZ, final int d) {
+		final int minimumX = Math.max(fromX, chunkX << VoxelRaster.CHUNK_SHIFT);
+		final int minimumY = Math.max(fromY, chunkY << VoxelRaster.CHUNK_SHIFT);
+		final int minimumZ = Math.max(fromZ, chunkZ << VoxelRaster.CHUNK_SHIFT);
+		final int maximumX = Math.min(toX, (chunkX + 1) << VoxelRaster.CHUNK_SHIFT);
+		final int maximumY = Math.min(toY, (chunkY + 1) << VoxelRaster.CHUNK_SHIFT);
+		final int maximumZ = Math.min(toZ, (chunkZ + 1) << VoxelRaster.CHUNK_SHIFT);
+		if (((maximumX - minimumX) == VoxelRaster.CHUNK_SIZE) && ((maximumY - minimumY) == VoxelRaster.CHUNK_SIZE)
+				&& ((maximumZ - minimumZ) == VoxelRaster.CHUNK_SIZE)) {
+			this.chunks[((((chunkZ * this.chunkCountY) + chunkY) * this.chunkCountX) + chunkX)] = d == 0 ? null
+					: new Chunk(d);
+			return;
+		}
+		for (int k = minimumZ; k < maximumZ; ++k) {
+			for (int j = minimumY; j < maximumY; ++j) {
+				for (int i = minimumX; i < maximumX; ++i) {
+					this.set(i, j, k, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the values no voxel holds from the palettes of the chunks, stores
+	 * chunks left with a single value as that value and drops chunks left with
+	 * only air.
+	 */
+	public void compact() {
+		for (int index = 0; index < this.chunks.length; ++index) {
+			final Chunk chunk = this.chunks[index];
+			if (chunk != null) {
+				chunk.compact();
+				if (chunk.isUniform() && (chunk.palette[0] == 0)) {
+					this.chunks[index] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get whether the chunk at the given position in chunks is all air, so that
+	 * passes over the raster can skip it.
+	 */
+	public boolean isChunkEmpty(final int chunkX, final int chunkY, final int chunkZ) {
+		final Chunk chunk = this.chunks[(((chunkZ * this.chunkCountY) + chunkY) * this.chunkCountX) + chunkX];
+		return (chunk == null) || (chunk.isUniform() && (chunk.palette[0] == 0));
+	}
+
+	public int getChunkCountX() {
+		return this.chunkCountX;
+	}
+
+	public int getChunkCountY() {
+		return this.chunkCountY;
+	}
+
+	public int getChunkCountZ() {
+		return this.chunkCountZ;
+	}
+
+	/**
+	 * Get an estimate of the bytes of memory the voxels of this raster take.
+	 */
+	public long getMemoryUsage() {
+		long memoryUsage = 16L + (4L * this.chunks.length);
+		for (final Chunk chunk : this.chunks) {
+			if (chunk != null) {
+				memoryUsage += chunk.getMemoryUsage();
+			}
+		}
+		return memoryUsage;
+	}
+
+	/**
+	 * Compresses this raster with the deflater of the calling thread.
+	 *
+	 * Empty chunks take a byte and uniform chunks their value. The voxels of any
+	 * other chunk are written as runs of the same palette index, in the order
+	 * they are stored, before deflating everything.
+	 */
+	public byte[] compress() {
+		final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		try (final DataOutputStream output = new DataOutputStream(encoded)) {
+			output.writeInt(this.x);
+			output.writeInt(this.y);
+			output.writeInt(this.z);
+			for (final Chunk chunk : this.chunks) {
+				if ((chunk == null) || (chunk.isUniform() && (chunk.palette[0] == 0))) {
+					output.writeByte(VoxelRaster.EMPTY_CHUNK);
+				} else if (chunk.isUniform()) {
+					output.writeByte(VoxelRaster.UNIFORM_CHUNK);
+					output.writeInt(chunk.palette[0]);
+				} else {
+					output.writeByte(VoxelRaster.PALETTE_CHUNK);
+					VoxelRaster.writeChunk(chunk, output);
+				}
+			}
+		} catch (final IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		final Deflater deflater = VoxelRaster.DEFLATERS.get();
+		final ByteArrayOutputStream deflated = new ByteArrayOutputStream(encoded.size() / 4);
+		try {
+			deflater.setInput(encoded.toByteArray());
+			deflater.finish();
+			final byte[] buffer = new byte[1 << 16];
+			while (!deflater.finished()) {
+				deflated.write(buffer, 0, deflater.deflate(buffer));
+			}
+		} finally {
+			deflater.reset();
+		}
+		return deflated.toByteArray();
+	}
+
+	/**
+	 * Writes the palette of a chunk and the runs of indices of its voxels. Indices
+	 * and lengths fit in shorts since a palette never holds more values than a
+	 * chunk has voxels.
+	 */
+	private static void writeChunk(final Chunk chunk, final DataOutputStream output) throws IOException {
+		output.writeInt(chunk.paletteSize);
+		for (int index = 0; index < chunk.paletteSize; ++index) {
+			output.writeInt(chunk.palette[index]);
+		}
+		int runStart = 0;
+		int runIndex = chunk.getIndex(0);
+		for (int voxel = 1; voxel <= VoxelRaster.CHUNK_VOLUME; ++voxel) {
+			final int index = voxel < VoxelRaster.CHUNK_VOLUME ? chunk.getIndex(voxel) : -1;
+			if (index != runIndex) {
+				output.writeShort(runIndex);
+				output.writeShort((voxel - runStart) - 1);
+				runStart = voxel;
+				runIndex = index;
+			}
+		}
 	}
 
 	/*